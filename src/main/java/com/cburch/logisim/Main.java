@@ -12,6 +12,7 @@ package com.cburch.logisim;
 import com.cburch.logisim.generated.BuildInfo;
 import com.cburch.logisim.gui.generic.OptionPane;
 import com.cburch.logisim.gui.start.Startup;
+import com.cburch.logisim.gui.start.StartupTimes;
 import com.cburch.logisim.prefs.AppPreferences;
 import com.formdev.flatlaf.FlatDarculaLaf;
 import com.formdev.flatlaf.FlatDarkLaf;
@@ -33,6 +34,30 @@ public class Main {
    */
   public static void main(String[] args) {
     System.setProperty("apple.awt.application.name", BuildInfo.name);
+
+    // the arguments are parsed first, such that command line simulations never set up the look
+    // and feel (or anything else that needs the window system)
+    final var startup = Startup.parseArgs(args);
+    if (startup == null) System.exit(10);
+    if (startup.shallQuit()) System.exit(0);
+
+    if (hasGui()) {
+      initLookAndFeel();
+      StartupTimes.mark("look and feel");
+    }
+
+    try {
+      startup.run();
+    } catch (Throwable e) {
+      final var strWriter = new StringWriter();
+      final var printWriter = new PrintWriter(strWriter);
+      e.printStackTrace(printWriter);
+      OptionPane.showMessageDialog(null, strWriter.toString());
+      System.exit(100);
+    }
+  }
+
+  private static void initLookAndFeel() {
     try {
       if (!GraphicsEnvironment.isHeadless()) {
         FlatLightLaf.installLafInfo();
@@ -51,20 +76,6 @@ public class Main {
         | InstantiationException e) {
       e.printStackTrace();
     }
-
-    final var startup = Startup.parseArgs(args);
-    if (startup == null) System.exit(10);
-    if (startup.shallQuit()) System.exit(0);
-
-    try {
-      startup.run();
-    } catch (Throwable e) {
-      final var strWriter = new StringWriter();
-      final var printWriter = new PrintWriter(strWriter);
-      e.printStackTrace(printWriter);
-      OptionPane.showMessageDialog(null, strWriter.toString());
-      System.exit(100);
-    }
   }
 
   public static boolean headless = false;
@@ -29,6 +29,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -192,45 +193,25 @@ public class Analyze {
     final var rowCount = 1 << inputCount;
     final var columns = new Entry[outputNames.size()][rowCount];
 
+    final var outputs = computeRows(proj, circuit, inputPins, outputPins);
     for (var i = 0; i < rowCount; i++) {
-      final var circuitState = new CircuitState(proj, circuit);
-      var incol = 0;
-      for (final var pin : inputPins) {
-        final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
-        final var v = new Value[width];
-        for (var b = width - 1; b >= 0; b--) {
-          var value = TruthTable.isInputSet(i, incol++, inputCount);
-          v[b] = value ? Value.TRUE : Value.FALSE;
-        }
-        final var pinState = circuitState.getInstanceState(pin);
-        Pin.FACTORY.setValue(pinState, Value.create(v));
-      }
-
-      final var prop = circuitState.getPropagator();
-      prop.propagate();
-      /*
-       * TODO for the SimulatorPrototype class do { prop.step(); } while
-       * (prop.isPending());
-       */
-      // TODO: Search for circuit state
-
-      if (prop.isOscillating()) {
+      if (outputs[i] == null) {
         for (var j = 0; j < columns.length; j++) {
           columns[j][i] = Entry.OSCILLATE_ERROR;
         }
       } else {
         var outcol = 0;
-        for (final var pin : outputPins) {
-          int width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
-          final var pinState = circuitState.getInstanceState(pin);
-          Entry out;
-          for (int b = width - 1; b >= 0; b--) {
-            final var outValue = Pin.FACTORY.getValue(pinState).get(b);
-            if (outValue == Value.TRUE)
+        for (var p = 0; p < outputPins.size(); p++) {
+          final var outValue = outputs[i][p];
+          final var width = outputPins.get(p).getAttributeValue(StdAttr.WIDTH).getWidth();
+          for (var b = width - 1; b >= 0; b--) {
+            final var bit = outValue.get(b);
+            Entry out;
+            if (bit == Value.TRUE)
               out = Entry.ONE;
-            else if (outValue == Value.FALSE)
+            else if (bit == Value.FALSE)
               out = Entry.ZERO;
-            else if (outValue == Value.ERROR)
+            else if (bit == Value.ERROR)
               out = Entry.BUS_ERROR;
             else
               out = Entry.DONT_CARE;
@@ -246,6 +227,16 @@ public class Analyze {
     }
   }
 
+  /**
+   * Returns the values of the output pins for every combination of the values of the input pins,
+   * indexed by the row numbers of {@link TruthTable}. A row is null if the circuit oscillates for
+   * its inputs.
+   */
+  public static Value[][] computeRows(
+      Project proj, Circuit circuit, List<Instance> inputPins, List<Instance> outputPins) {
+    return new TableEvaluator(proj, circuit, inputPins, outputPins).evaluate();
+  }
+
   // computes outputs of affected components
   private static HashSet<Component> getDirtyComponents(Circuit circuit, Set<LocationBit> pointsToProcess) {
     final var dirtyComponents = new HashSet<Component>();
@@ -241,6 +241,11 @@ public class Circuit {
 
   private final LogisimFile logiFile;
 
+  /* guards the deferred loading of all circuits, as loading one circuit may load the ones it uses */
+  private static final Object contentsLock = new Object();
+  private volatile Runnable contentsLoader;
+  private boolean loadingContents;
+
   public Circuit(String name, LogisimFile file, Project proj) {
     staticAttrs = CircuitAttributes.createBaseAttrs(this, name);
     appearance = new CircuitAppearance(this);
@@ -258,6 +263,39 @@ public class Circuit {
     this.proj = proj;
   }
 
+  /**
+   * Defers building the components, wires and appearance of this circuit until they are used for
+   * the first time, see {@link #materialize()}.
+   */
+  public void setContentsLoader(Runnable loader) {
+    contentsLoader = loader;
+  }
+
+  /** Returns whether the contents of the circuit have been built. */
+  public boolean isMaterialized() {
+    return contentsLoader == null;
+  }
+
+  /**
+   * Builds the contents of the circuit in case this has been deferred. All methods accessing the
+   * contents call this first, such that a deferred circuit looks the same as any other circuit.
+   */
+  public void materialize() {
+    if (contentsLoader == null) return;
+    synchronized (contentsLock) {
+      final var loader = contentsLoader;
+      /* the loader itself accesses the contents while it fills them */
+      if (loader == null || loadingContents) return;
+      loadingContents = true;
+      try {
+        loader.run();
+      } finally {
+        contentsLoader = null;
+        loadingContents = false;
+      }
+    }
+  }
+
   public void setProject(Project proj) {
     this.proj = proj;
   }
@@ -419,6 +457,7 @@ public class Circuit {
   }
 
   public boolean contains(Component c) {
+    materialize();
     return comps.contains(c) || wires.getWires().contains(c);
   }
 
@@ -466,7 +505,14 @@ public class Circuit {
    * Code taken from Cornell's version of Logisim: http://www.cs.cornell.edu/courses/cs3410/2015sp/
    */
   public void doTestVector(Project project, Instance[] pin, Value[] val) throws TestException {
-    final var state = project.getCircuitState();
+    doTestVector(project.getCircuitState(), pin, val);
+  }
+
+  /**
+   * Tests one row of a test vector on the given state, which is reset first. Each thread that runs
+   * tests has to use a state of its own.
+   */
+  public void doTestVector(CircuitState state, Instance[] pin, Value[] val) throws TestException {
     state.reset();
 
     for (var i = 0; i < pin.length; ++i) {
@@ -511,6 +557,7 @@ public class Circuit {
   // Graphics methods
   //
   public void draw(ComponentDrawContext context, Collection<Component> hidden) {
+    materialize();
     final var g = context.getGraphics();
     var gCopy = g.create();
     context.setGraphics(gCopy);
@@ -593,10 +640,12 @@ public class Circuit {
   }
 
   public CircuitAppearance getAppearance() {
+    materialize();
     return appearance;
   }
 
   public Bounds getBounds() {
+    materialize();
     final var wireBounds = wires.getWireBounds();
     final var it = comps.iterator();
     if (!it.hasNext()) return wireBounds;
@@ -625,6 +674,7 @@ public class Circuit {
   }
 
   public Bounds getBounds(Graphics g) {
+    materialize();
     final var ret = wires.getWireBounds();
     var xMin = ret.getX();
     var yMin = ret.getY();
@@ -662,18 +712,22 @@ public class Circuit {
   }
 
   public List<Component> getClocks() {
+    materialize();
     return clocks;
   }
 
   public Set<Component> getComponents() {
+    materialize();
     return CollectionUtil.createUnmodifiableSetUnion(comps, wires.getWires());
   }
 
   public Collection<? extends Component> getComponents(Location loc) {
+    materialize();
     return wires.points.getComponents(loc);
   }
 
   public Component getExclusive(Location loc) {
+    materialize();
     return wires.points.getExclusive(loc);
   }
 
@@ -733,10 +787,12 @@ public class Circuit {
   }
 
   public Set<Component> getNonWires() {
+    materialize();
     return comps;
   }
 
   public Collection<? extends Component> getNonWires(Location loc) {
+    materialize();
     return wires.points.getNonWires(loc);
   }
 
@@ -745,10 +801,12 @@ public class Circuit {
   }
 
   public Collection<? extends Component> getSplitCauses(Location loc) {
+    materialize();
     return wires.points.getSplitCauses(loc);
   }
 
   public Set<Location> getSplitLocations() {
+    materialize();
     return wires.points.getSplitLocations();
   }
 
@@ -761,30 +819,37 @@ public class Circuit {
   }
 
   public BitWidth getWidth(Location p) {
+    materialize();
     return wires.getWidth(p);
   }
 
   public Location getWidthDeterminant(Location p) {
+    materialize();
     return wires.getWidthDeterminant(p);
   }
 
   public Set<WidthIncompatibilityData> getWidthIncompatibilityData() {
+    materialize();
     return wires.getWidthIncompatibilityData();
   }
 
   public Set<Wire> getWires() {
+    materialize();
     return wires.getWires();
   }
 
   public Collection<Wire> getWires(Location loc) {
+    materialize();
     return wires.points.getWires(loc);
   }
 
   public WireSet getWireSet(Wire start) {
+    materialize();
     return wires.getWireSet(start);
   }
 
   public boolean hasConflict(Component comp) {
+    materialize();
     return wires.points.hasConflict(comp) || isDoubleMapped(comp);
   }
 
@@ -807,6 +872,7 @@ public class Circuit {
   }
 
   public boolean isConnected(Location loc, Component ignore) {
+    materialize();
     for (final var o : wires.points.getComponents(loc)) {
       if (o != ignore) return true;
     }
@@ -814,6 +880,7 @@ public class Circuit {
   }
 
   void mutatorAdd(Component c) {
+    materialize();
     locker.checkForWritePermission("add", this);
 
     isAnnotated = false;
@@ -866,6 +933,7 @@ public class Circuit {
   }
 
   public void mutatorClear() {
+    materialize();
     locker.checkForWritePermission("clear", this);
 
     final var oldComps = comps;
@@ -883,6 +951,7 @@ public class Circuit {
   }
 
   void mutatorRemove(Component c) {
+    materialize();
     locker.checkForWritePermission("remove", this);
 
     isAnnotated = false;
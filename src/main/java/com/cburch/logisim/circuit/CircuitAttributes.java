@@ -222,7 +222,7 @@ public class CircuitAttributes extends AbstractAttributeSet {
 
   private final Circuit source;
   private Instance subcircInstance;
-  private Direction facing;
+  private Direction facing; // taken from the appearance when first needed
   private String label;
   private Direction labelLocation;
   private Font labelFont;
@@ -234,7 +234,6 @@ public class CircuitAttributes extends AbstractAttributeSet {
   public CircuitAttributes(Circuit source) {
     this.source = source;
     subcircInstance = null;
-    facing = source.getAppearance().getFacing();
     label = "";
     labelLocation = Direction.NORTH;
     labelFont = StdAttr.DEFAULT_LABEL_FONT;
@@ -259,6 +258,9 @@ public class CircuitAttributes extends AbstractAttributeSet {
   }
 
   public Direction getFacing() {
+    // the appearance is only asked for when needed, as it is not built yet for a circuit that
+    // has not been used since it was loaded
+    if (facing == null) facing = source.getAppearance().getFacing();
     return facing;
   }
 
@@ -269,7 +271,7 @@ public class CircuitAttributes extends AbstractAttributeSet {
   @Override
   @SuppressWarnings("unchecked")
   public <E> E getValue(Attribute<E> attr) {
-    if (attr == StdAttr.FACING) return (E) facing;
+    if (attr == StdAttr.FACING) return (E) getFacing();
     if (attr == StdAttr.LABEL) return (E) label;
     if (attr == StdAttr.LABEL_FONT) return (E) labelFont;
     if (attr == StdAttr.LABEL_VISIBILITY) return (E) labelVisible;
@@ -325,7 +327,7 @@ public class CircuitAttributes extends AbstractAttributeSet {
   public <E> void setValue(Attribute<E> attr, E value) {
     if (attr == StdAttr.FACING) {
       final var val = (Direction) value;
-      if (facing.equals(val)) return;
+      if (getFacing().equals(val)) return;
       facing = val;
       fireAttributeValueChanged(StdAttr.FACING, val, null);
       if (subcircInstance != null) subcircInstance.recomputeBounds();
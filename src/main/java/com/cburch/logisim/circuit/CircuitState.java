@@ -150,6 +150,7 @@ public class CircuitState implements InstanceData {
   public CircuitState(Project proj, Circuit circuit) {
     this.proj = proj;
     this.circuit = circuit;
+    circuit.materialize();
     circuit.addCircuitListener(myCircuitListener);
   }
 
@@ -268,6 +269,21 @@ public class CircuitState implements InstanceData {
     return subStates;
   }
 
+  /**
+   * Returns true if a component of this state or of one of its substates keeps data of its own,
+   * apart from the pins and the subcircuits.
+   */
+  boolean hasComponentState() {
+    for (final var entry : componentData.entrySet()) {
+      if (entry.getValue() instanceof CircuitState sub) {
+        if (sub.hasComponentState()) return true;
+      } else if (entry.getValue() != null && !(entry.getKey().getFactory() instanceof Pin)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   public Value getValue(Location pt) {
     final var ret = values.get(pt);
     if (ret != null) return ret;
@@ -382,6 +398,17 @@ public class CircuitState implements InstanceData {
     }
   }
 
+  /**
+   * Lets the data of the components know that this state is no longer used, such that they close
+   * their windows and files. This is done when the project is closed.
+   */
+  public void destroy() {
+    for (final var data : componentData.values()) {
+      if (data instanceof ComponentDataGuiProvider guiProvider) guiProvider.destroy();
+    }
+    for (final var sub : subStates) sub.destroy();
+  }
+
   void reset() {
     temporaryClock = null;
     wireData = null;
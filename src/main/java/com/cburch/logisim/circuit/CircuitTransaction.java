@@ -17,6 +17,9 @@ public abstract class CircuitTransaction {
 
   public final CircuitTransactionResult execute() {
     final var mutator = new CircuitMutatorImpl();
+    // circuits that still have to be built are built before they are locked, as building them
+    // executes a transaction of its own
+    for (final var circuit : getAccessedCircuits().keySet()) circuit.materialize();
     final var locks = CircuitLocker.acquireLocks(this, mutator);
     CircuitTransactionResult result;
     try {
@@ -181,7 +181,7 @@ class CircuitWires {
   // derived data
   private Bounds bounds = Bounds.EMPTY_BOUNDS;
 
-  private BundleMap masterBundleMap = null;
+  private volatile BundleMap masterBundleMap = null;
 
   CircuitWires() {}
 
@@ -573,7 +573,9 @@ class CircuitWires {
       }
       return ret;
     } else {
-      // Simulation thread.
+      // Simulation thread. A map that has already been computed can be used as it is.
+      final var current = masterBundleMap;
+      if (current != null) return current;
       try {
         final var ret = new BundleMap[1];
         SwingUtilities.invokeAndWait(() -> ret[0] = getBundleMap());
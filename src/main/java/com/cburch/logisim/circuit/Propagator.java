@@ -153,7 +153,11 @@ public class Propagator {
   public Propagator(CircuitState root) {
     this.root = root;
     final var l = new Listener(this);
-    root.getProject().getOptions().getAttributeSet().addAttributeListener(l);
+    final var options = root.getProject().getOptions().getAttributeSet();
+    // states of the same project can be created by several threads that run tests at once
+    synchronized (options) {
+      options.addAttributeListener(l);
+    }
     updateRandomness();
   }
 
@@ -104,6 +104,10 @@ public class Simulator {
   //               only happens when autoTicking is off), the thread wakes up
   //               and invokes step(). If if autoTicking is on and signals are
   //               stable, then toggleClocks() is also called before step().
+  //
+  // [task]        If the User/GUI hands over a task that must not run
+  //               concurrently with the simulation, the thread wakes up and
+  //               runs it before any tick, propagate() or step().
   private static class SimThread extends UniquelyNamedThread {
 
     private final Simulator sim;
@@ -121,6 +125,7 @@ public class Simulator {
     private boolean resetRequested = false;
     private boolean complete = false;
     private boolean oops = false;
+    private final ArrayList<Runnable> tasks = new ArrayList<>();
 
     // This last one should be made thread-safe, but it isn't for now.
     private final PropagationPoints stepPoints = new PropagationPoints();
@@ -225,11 +230,32 @@ public class Simulator {
       return true;
     }
 
+    synchronized void requestTask(Runnable task) {
+      tasks.add(task);
+      notifyAll();
+    }
+
     synchronized void requestShutDown() {
       complete = true;
       notifyAll();
     }
 
+    /* runs the tasks that were requested before the shut down */
+    private void runRemainingTasks() {
+      final ArrayList<Runnable> remaining;
+      synchronized (this) {
+        remaining = new ArrayList<>(tasks);
+        tasks.clear();
+      }
+      for (final var task : remaining) {
+        try {
+          task.run();
+        } catch (Exception err) {
+          err.printStackTrace();
+        }
+      }
+    }
+
     private boolean loop() {
 
       Propagator prop = null;
@@ -239,6 +265,7 @@ public class Simulator {
       boolean doTickIfStable = false;
       boolean doStep = false;
       boolean doProp = false;
+      ArrayList<Runnable> doTasks = null;
       long now = 0;
 
       synchronized (this) {
@@ -255,6 +282,11 @@ public class Simulator {
             doProp = autoPropagating;
             ready = true;
           }
+          if (!tasks.isEmpty()) {
+            doTasks = new ArrayList<>(tasks);
+            tasks.clear();
+            ready = true;
+          }
           if (nudgeRequested) {
             nudgeRequested = false;
             doNudge = true;
@@ -320,6 +352,16 @@ public class Simulator {
           err.printStackTrace();
         }
 
+      if (doTasks != null)
+        for (final var task : doTasks) {
+          try {
+            task.run();
+          } catch (Exception err) {
+            oops = true;
+            err.printStackTrace();
+          }
+        }
+
       if (doTick || (doTickIfStable && prop != null && !prop.isPending())) {
         lastTick = now;
         ticked = true;
@@ -380,7 +422,10 @@ public class Simulator {
     public void run() {
       while (true) {
         try {
-          if (!loop()) return;
+          if (!loop()) {
+            runRemainingTasks();
+            return;
+          }
         } catch (Throwable e) {
           e.printStackTrace();
           synchronized (this) {
@@ -568,6 +613,11 @@ public class Simulator {
     return simThread.requestNudge();
   }
 
+  /** Runs the task on the simulator thread, between two propagations. */
+  public void runOnSimulatorThread(Runnable task) {
+    simThread.requestTask(task);
+  }
+
   public void shutDown() {
     simThread.requestShutDown();
   }
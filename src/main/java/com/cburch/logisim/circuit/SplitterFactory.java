@@ -35,7 +35,7 @@ public class SplitterFactory extends AbstractComponentFactory {
 
   public static final SplitterFactory instance = new SplitterFactory();
 
-  private static final Icon toolIcon = IconsUtil.getIcon("splitter.gif");
+  private static final Icon toolIcon = IconsUtil.getLazyIcon("splitter.gif");
 
   private SplitterFactory() {}
 
@@ -88,6 +88,8 @@ public class SplitterFactory extends AbstractComponentFactory {
   public Object getFeature(Object key, AttributeSet attrs) {
     if (key == FACING_ATTRIBUTE_KEY) {
       return StdAttr.FACING;
+    } else if (key == CONCURRENT_CREATION) {
+      return Boolean.TRUE;
     } else if (key == KeyConfigurator.class) {
       KeyConfigurator altConfig =
           ParallelConfigurator.create(
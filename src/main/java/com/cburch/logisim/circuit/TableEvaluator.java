@@ -0,0 +1,269 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.analyze.model.TruthTable;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.util.UniquelyNamedThread;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.swing.SwingUtilities;
+
+/**
+ * Computes the outputs of a circuit for every combination of its inputs. The rows are split in
+ * ranges over a pool of workers. When the circuit has no feedback and none of its components keeps
+ * a state of its own, every worker prepares a single circuit state and walks its range in
+ * Gray-code order, such that only one input changes from one row to the next. Otherwise the
+ * outputs could depend on the rows evaluated before, so every row gets a new state as it always
+ * did.
+ */
+class TableEvaluator {
+
+  private static final int MIN_ROWS_PER_WORKER = 256;
+
+  private final Project proj;
+  private final Circuit circuit;
+  private final List<Instance> inputPins;
+  private final List<Instance> outputPins;
+  private final int inputCount;
+  private final int[] firstColumn;
+  private final int[] columnPin;
+  private final Value[][] rows;
+  private boolean reuseState;
+
+  TableEvaluator(
+      Project proj, Circuit circuit, List<Instance> inputPins, List<Instance> outputPins) {
+    this.proj = proj;
+    this.circuit = circuit;
+    this.inputPins = inputPins;
+    this.outputPins = outputPins;
+    firstColumn = new int[inputPins.size()];
+    var columns = 0;
+    for (var i = 0; i < inputPins.size(); i++) {
+      firstColumn[i] = columns;
+      columns += inputPins.get(i).getAttributeValue(StdAttr.WIDTH).getWidth();
+    }
+    inputCount = columns;
+    columnPin = new int[inputCount];
+    for (var i = 0; i < inputPins.size(); i++) {
+      final var end = i + 1 < firstColumn.length ? firstColumn[i + 1] : inputCount;
+      for (var col = firstColumn[i]; col < end; col++) columnPin[col] = i;
+    }
+    rows = new Value[1 << inputCount][];
+  }
+
+  /**
+   * Returns the values of the output pins for every row, in the numbering of {@link TruthTable}.
+   * A row is null if the circuit oscillates for its inputs.
+   */
+  Value[][] evaluate() {
+    final var nrOfProcessors = Runtime.getRuntime().availableProcessors();
+    return evaluate(Math.max(1, Math.min(nrOfProcessors, rows.length / MIN_ROWS_PER_WORKER)));
+  }
+
+  /** Evaluates the rows with the given number of workers. */
+  Value[][] evaluate(int nrOfWorkers) {
+    // The first row is evaluated by the calling thread, which also builds the wire bundles of
+    // all circuits involved. When called by the event thread, the workers could not ask for them.
+    final var first = newState(0);
+    rows[0] = propagate(first);
+    reuseState = !first.hasComponentState() && !hasFeedback(circuit, new HashSet<>());
+    final var rowCount = rows.length;
+    if (nrOfWorkers == 1 || (SwingUtilities.isEventDispatchThread() && hasVoidedMaps())) {
+      evaluateRange(1, rowCount, first);
+      return rows;
+    }
+    final var pool =
+        Executors.newFixedThreadPool(
+            nrOfWorkers,
+            runnable -> {
+              final var thread = new UniquelyNamedThread(runnable, "TableEvaluator");
+              thread.setDaemon(true);
+              return thread;
+            });
+    try {
+      final var futures = new ArrayList<Future<?>>();
+      for (var worker = 0; worker < nrOfWorkers; worker++) {
+        final var from = (int) ((long) rowCount * worker / nrOfWorkers);
+        final var to = (int) ((long) rowCount * (worker + 1) / nrOfWorkers);
+        if (worker == 0) {
+          futures.add(pool.submit(() -> evaluateRange(1, to, first)));
+        } else {
+          futures.add(pool.submit(() -> evaluateRange(from, to, null)));
+        }
+      }
+      for (final var future : futures) future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+    return rows;
+  }
+
+  /**
+   * Evaluates the rows with Gray-code index from (inclusive) to to (exclusive). If given, state
+   * holds the inputs of the row before from.
+   */
+  private void evaluateRange(int from, int to, CircuitState state) {
+    for (var index = from; index < to; index++) {
+      final var row = index ^ (index >> 1);
+      if (state == null || !reuseState) {
+        state = newState(row);
+      } else {
+        // consecutive Gray codes differ in the bit given by the lowest set bit of the index
+        final var changed = Integer.numberOfTrailingZeros(index);
+        setInput(state, columnPin[inputCount - 1 - changed], row);
+      }
+      rows[row] = propagate(state);
+    }
+  }
+
+  private CircuitState newState(int row) {
+    final var state = new CircuitState(proj, circuit);
+    for (var i = 0; i < inputPins.size(); i++) setInput(state, i, row);
+    return state;
+  }
+
+  /** Returns whether the last evaluation walked the rows with one state per worker. */
+  boolean isReusingState() {
+    return reuseState;
+  }
+
+  private void setInput(CircuitState state, int pinIndex, int row) {
+    final var pin = inputPins.get(pinIndex);
+    final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+    final var v = new Value[width];
+    var col = firstColumn[pinIndex];
+    for (var b = width - 1; b >= 0; b--) {
+      v[b] = TruthTable.isInputSet(row, col++, inputCount) ? Value.TRUE : Value.FALSE;
+    }
+    Pin.FACTORY.setValue(state.getInstanceState(pin), Value.create(v));
+    // the pin only takes the new value when it is propagated again
+    state.markComponentAsDirty(pin.getComponent());
+  }
+
+  private Value[] propagate(CircuitState state) {
+    final var prop = state.getPropagator();
+    prop.propagate();
+    if (prop.isOscillating()) return null;
+    final var ret = new Value[outputPins.size()];
+    for (var i = 0; i < ret.length; i++) {
+      ret[i] = Pin.FACTORY.getValue(state.getInstanceState(outputPins.get(i)));
+    }
+    return ret;
+  }
+
+  private boolean hasVoidedMaps() {
+    final var circuits = new HashSet<Circuit>();
+    collectCircuits(circuit, circuits);
+    for (final var circ : circuits) {
+      if (circ.wires.isMapVoided()) return true;
+    }
+    return false;
+  }
+
+  private static void collectCircuits(Circuit circ, Set<Circuit> circuits) {
+    if (!circuits.add(circ)) return;
+    for (final var comp : circ.getNonWires()) {
+      if (comp.getFactory() instanceof SubcircuitFactory sub) {
+        collectCircuits(sub.getSubcircuit(), circuits);
+      }
+    }
+  }
+
+  /**
+   * Returns true if a value computed by a component can get back to one of its inputs, in this
+   * circuit or in one of its subcircuits. Locations connected by wires, tunnels or splitters are
+   * taken as one net, and each input of a subcircuit as driving all its outputs, so some circuits
+   * without real feedback are reported as well.
+   */
+  private static boolean hasFeedback(Circuit circ, Set<Circuit> checked) {
+    if (!checked.add(circ)) return false;
+    final var nets = new HashMap<Location, Location>();
+    for (final var wire : circ.getWires()) join(nets, wire.getEnd0(), wire.getEnd1());
+    final var tunnels = new HashMap<String, Location>();
+    for (final var comp : circ.getNonWires()) {
+      if (comp.getFactory() instanceof SubcircuitFactory sub) {
+        if (hasFeedback(sub.getSubcircuit(), checked)) return true;
+      } else if (comp instanceof Splitter) {
+        final var combined = comp.getEnd(0).getLocation();
+        for (final var end : comp.getEnds()) join(nets, combined, end.getLocation());
+      } else if (comp.getFactory() instanceof Tunnel) {
+        final var label = comp.getAttributeSet().getValue(StdAttr.LABEL);
+        if (label == null || label.isEmpty()) continue;
+        final var other = tunnels.putIfAbsent(label, comp.getLocation());
+        if (other != null) join(nets, other, comp.getLocation());
+      }
+    }
+    final var edges = new HashMap<Location, List<Location>>();
+    final var inDegree = new HashMap<Location, Integer>();
+    for (final var comp : circ.getNonWires()) {
+      if (comp instanceof Splitter || comp.getFactory() instanceof Tunnel) continue;
+      final var ends = comp.getEnds();
+      for (var i = 0; i < ends.size(); i++) {
+        if (!ends.get(i).isInput()) continue;
+        final var source = find(nets, ends.get(i).getLocation());
+        for (var o = 0; o < ends.size(); o++) {
+          if (o == i || !ends.get(o).isOutput()) continue;
+          final var target = find(nets, ends.get(o).getLocation());
+          edges.computeIfAbsent(source, k -> new ArrayList<>()).add(target);
+          inDegree.merge(target, 1, Integer::sum);
+          inDegree.putIfAbsent(source, 0);
+        }
+      }
+    }
+    // the nets can be ordered such that every edge points forward, unless there is a cycle
+    final var ready = new ArrayDeque<Location>();
+    for (final var entry : inDegree.entrySet()) {
+      if (entry.getValue() == 0) ready.add(entry.getKey());
+    }
+    var ordered = 0;
+    while (!ready.isEmpty()) {
+      final var net = ready.poll();
+      ordered++;
+      for (final var target : edges.getOrDefault(net, List.of())) {
+        if (inDegree.merge(target, -1, Integer::sum) == 0) ready.add(target);
+      }
+    }
+    return ordered < inDegree.size();
+  }
+
+  private static Location find(Map<Location, Location> nets, Location loc) {
+    var root = loc;
+    for (var parent = nets.get(root); parent != null; parent = nets.get(root)) root = parent;
+    if (root != loc) nets.put(loc, root);
+    return root;
+  }
+
+  private static void join(Map<Location, Location> nets, Location a, Location b) {
+    final var rootA = find(nets, a);
+    final var rootB = find(nets, b);
+    if (!rootA.equals(rootB)) nets.put(rootA, rootB);
+  }
+}
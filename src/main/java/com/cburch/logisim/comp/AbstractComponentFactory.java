@@ -27,9 +27,9 @@ import java.awt.Color;
 import javax.swing.Icon;
 
 public abstract class AbstractComponentFactory implements ComponentFactory {
-  private static final Icon toolIcon = IconsUtil.getIcon("subcirc.gif");
+  private static final Icon toolIcon = IconsUtil.getLazyIcon("subcirc.gif");
 
-  private AttributeSet defaultSet;
+  private volatile AttributeSet defaultSet;
   private final HdlGeneratorFactory myHDLGenerator;
   private final boolean requiresLabel;
   private final boolean requiresGlobalClockConnection;
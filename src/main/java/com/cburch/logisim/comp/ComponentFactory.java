@@ -32,6 +32,11 @@ public interface ComponentFactory extends AttributeDefaultProvider {
   Object SHOULD_SNAP = new Object();
   Object TOOL_TIP = new Object();
   Object FACING_ATTRIBUTE_KEY = new Object();
+  /*
+   * Feature of factories whose components can be created on several threads at once, as creating
+   * an attribute set or a component does not change any state outside of it.
+   */
+  Object CONCURRENT_CREATION = new Object();
 
   boolean activeOnHigh(AttributeSet attrs);
 
@@ -59,7 +64,8 @@ public interface ComponentFactory extends AttributeDefaultProvider {
    * if it supports the feature.
    *
    * <p>As of this writing, possible values for <code>key</code> include: <code>TOOL_TIP</code>
-   * (return a <code>String</code>) and <code>SHOULD_SNAP</code> (return a <code>Boolean</code>).
+   * (return a <code>String</code>), <code>SHOULD_SNAP</code> and <code>CONCURRENT_CREATION</code>
+   * (return a <code>Boolean</code>).
    *
    * @param key an object representing a feature.
    * @return an object representing information about how the component supports the feature, or
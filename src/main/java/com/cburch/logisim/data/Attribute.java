@@ -11,6 +11,8 @@ package com.cburch.logisim.data;
 
 import com.cburch.logisim.util.StringGetter;
 import java.awt.Window;
+import java.io.IOException;
+import java.io.Writer;
 import javax.swing.JTextField;
 
 public abstract class Attribute<V> {
@@ -62,6 +64,28 @@ public abstract class Attribute<V> {
     return value.toString().replaceAll("[\u0000-\u001f]", "").replaceAll("&#.*?;", "");
   }
 
+  /**
+   * Returns true if the standard strings of this attribute may be too large to build in memory.
+   * The values of such attributes are saved through {@link #writeStandardString}.
+   */
+  public boolean hasLargeValues() {
+    return false;
+  }
+
+  /**
+   * Returns a copy of the value that is not affected when the original is changed, which is only
+   * needed for values that are changed in place. Such values are copied when they are saved in the
+   * background.
+   */
+  public V copyValue(V value) {
+    return value;
+  }
+
+  /** Writes the standard string of the value, without building it first if possible. */
+  public void writeStandardString(V value, Writer out) throws IOException {
+    out.write(toStandardString(value));
+  }
+
   public void setHidden(boolean val) {
     this.hidden = val;
   }
@@ -10,18 +10,18 @@
 package com.cburch.logisim.data;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.StringTokenizer;
 import javax.swing.filechooser.FileFilter;
 
 /**
  * Code taken from Cornell's version of Logisim: http://www.cs.cornell.edu/courses/cs3410/2015sp/
  */
-public class TestVector {
+public class TestVector implements Closeable {
 
   private static class TestVectorFilter extends FileFilter {
 
@@ -42,66 +42,48 @@ public class TestVector {
 
   private class TestVectorReader {
     private final BufferedReader in;
-    private StringTokenizer curLine;
+    private final List<String> tokens = new ArrayList<>();
 
-    public TestVectorReader(BufferedReader in) throws IOException {
+    public TestVectorReader(BufferedReader in) {
       this.in = in;
-      curLine = findNonemptyLine();
     }
 
-    private StringTokenizer findNonemptyLine() throws IOException {
+    /* splits the next line that is not empty after removing comments, returns false at the end */
+    private boolean findNonemptyLine() throws IOException {
       var line = in.readLine();
 
       while (line != null) {
         final var i = line.indexOf('#');
-        if (i >= 0) line = line.substring(0, i);
-        final var ret = new StringTokenizer(line);
-        if (ret.hasMoreTokens()) return ret;
+        final var end = i >= 0 ? i : line.length();
+        tokens.clear();
+        var start = -1;
+        for (var pos = 0; pos <= end; pos++) {
+          final var space = pos == end || Character.isWhitespace(line.charAt(pos));
+          if (space && start >= 0) {
+            tokens.add(line.substring(start, pos));
+            start = -1;
+          } else if (!space && start < 0) {
+            start = pos;
+          }
+        }
+        if (!tokens.isEmpty()) return true;
         line = in.readLine();
       }
 
-      return null;
+      return false;
     }
 
-    public void parse() throws IOException {
-      if (curLine == null) throw new IOException("TestVector format error: empty file");
-
-      parseHeader();
-      data = new ArrayList<>();
-      curLine = findNonemptyLine();
+    public void parseHeader() throws IOException {
+      if (!findNonemptyLine()) throw new IOException("TestVector format error: empty file");
 
-      while (curLine != null) {
-        parseData();
-        curLine = findNonemptyLine();
-      }
-    }
-
-    private void parseData() throws IOException {
-      final var vals = new Value[columnName.length];
-      for (var i = 0; i < columnName.length; i++) {
-        final var t = curLine.nextToken();
-
-        try {
-          vals[i] = Value.fromLogString(columnWidth[i], t);
-        } catch (Exception e) {
-          throw new IOException("Test Vector data format error: " + e.getMessage());
-        }
-        if (data.isEmpty()) columnRadix[i] = Value.radixOfLogString(columnWidth[i], t);
-      }
-      if (curLine.hasMoreTokens())
-        throw new IOException("Test Vector data format error: " + curLine.nextToken());
-      data.add(vals);
-    }
-
-    private void parseHeader() throws IOException {
-      final var n = curLine.countTokens();
+      final var n = tokens.size();
       columnName = new String[n];
       columnWidth = new BitWidth[n];
       columnRadix = new int[n];
 
       for (var i = 0; i < n; i++) {
         columnRadix[i] = 2;
-        final var t = (String) curLine.nextElement();
+        final var t = tokens.get(i);
         int s = t.indexOf('[');
 
         if (s < 0) {
@@ -126,6 +108,26 @@ public class TestVector {
         }
       }
     }
+
+    public boolean parseData(Value[] vals) throws IOException {
+      if (!findNonemptyLine()) return false;
+      if (tokens.size() < columnName.length)
+        throw new IOException("Test Vector data format error: missing values");
+      if (tokens.size() > columnName.length)
+        throw new IOException("Test Vector data format error: " + tokens.get(columnName.length));
+      for (var i = 0; i < columnName.length; i++) {
+        final var t = tokens.get(i);
+
+        try {
+          vals[i] = Value.fromLogString(columnWidth[i], t);
+        } catch (Exception e) {
+          throw new IOException("Test Vector data format error: " + e.getMessage());
+        }
+        if (firstRow) columnRadix[i] = Value.radixOfLogString(columnWidth[i], t);
+      }
+      firstRow = false;
+      return true;
+    }
   }
 
   public static final FileFilter FILE_FILTER = new TestVectorFilter();
@@ -135,14 +137,65 @@ public class TestVector {
 
   public List<Value[]> data;
 
+  private final TestVectorReader reader;
+  private boolean firstRow = true;
+
+  /** Reads the complete test vector, such that all rows are available in {@link #data}. */
   public TestVector(File src) throws IOException {
-    try (final var in = new BufferedReader(new FileReader(src))) {
-      final var r = new TestVectorReader(in);
-      r.parse();
+    try (final var in = openReader(src)) {
+      reader = new TestVectorReader(in);
+      reader.parseHeader();
+      data = new ArrayList<>();
+      var row = new Value[columnName.length];
+      while (reader.parseData(row)) {
+        data.add(row);
+        row = new Value[columnName.length];
+      }
     }
   }
 
+  /**
+   * Opens a test vector file in the default charset, as it always was. Malformed input, such as a
+   * comment in another charset, is replaced instead of failing the read.
+   */
+  private static BufferedReader openReader(File src) throws IOException {
+    return new BufferedReader(new FileReader(src));
+  }
+
   public TestVector(String filename) throws IOException {
     this(new File(filename));
   }
+
+  private TestVector(BufferedReader in) throws IOException {
+    reader = new TestVectorReader(in);
+    reader.parseHeader();
+  }
+
+  /**
+   * Opens a test vector of which only the header is read. Its rows are read one at a time with
+   * {@link #readRow}, such that files too large to keep in memory can be tested as well. Here
+   * {@link #data} stays null, and the test vector has to be closed after use.
+   */
+  public static TestVector open(File src) throws IOException {
+    final var in = openReader(src);
+    try {
+      return new TestVector(in);
+    } catch (IOException | RuntimeException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Reads the next row of an opened test vector into the given array. Returns false if there are
+   * no more rows.
+   */
+  public boolean readRow(Value[] row) throws IOException {
+    return reader.parseData(row);
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.in.close();
+  }
 }
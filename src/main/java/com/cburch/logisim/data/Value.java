@@ -16,7 +16,12 @@ import java.util.Arrays;
 
 public class Value {
 
-  private static Value create(int width, long error, long unknown, long value) {
+  /**
+   * Creates a value from its bits, as returned by {@link #getErrorBits()}, {@link
+   * #getUnknownBits()} and {@link #getValueBits()}. Bits beyond the width are ignored, and bits
+   * missing from a narrower value are taken as false, just like {@link #extendWidth}.
+   */
+  public static Value create(int width, long error, long unknown, long value) {
     if (width == 0) {
       return Value.NIL;
     } else if (width == 1) {
@@ -353,6 +358,21 @@ public class Value {
     return width;
   }
 
+  /** Returns the bits of the value that are errors. */
+  public long getErrorBits() {
+    return error;
+  }
+
+  /** Returns the bits of the value that are unknown. */
+  public long getUnknownBits() {
+    return unknown;
+  }
+
+  /** Returns the bits of the value that are true. */
+  public long getValueBits() {
+    return value;
+  }
+
   @Override
   public int hashCode() {
     var ret = width;
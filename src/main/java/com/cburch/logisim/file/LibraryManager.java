@@ -13,6 +13,7 @@ import static com.cburch.logisim.file.Strings.S;
 
 import com.cburch.logisim.tools.Library;
 import com.cburch.logisim.util.LineBuffer;
+import com.cburch.logisim.util.ZipClassLoader;
 
 import java.io.File;
 import java.io.IOException;
@@ -23,8 +24,16 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
+/**
+ * Keeps track of the libraries loaded from files. A library is shared by all projects that use the
+ * same file, as long as the file did not change since it was loaded, such that a library used by
+ * many projects is only read once. The libraries are held weakly, so a library is dropped once no
+ * project uses it anymore. Files are read without holding the lock of the manager, which only
+ * guards the maps, such that several projects can be opened at the same time.
+ */
 public final class LibraryManager {
 
   public static final LibraryManager instance = new LibraryManager();
@@ -32,83 +41,115 @@ public final class LibraryManager {
   public static final char DESC_SEP = '#';
   private final HashMap<LibraryDescriptor, WeakReference<LoadedLibrary>> fileMap;
   private final WeakHashMap<LoadedLibrary, LibraryDescriptor> invMap;
+  private final HashMap<File, JarClassLoader> classLoaders;
+  /* while non-zero, the libraries read by a thread are private copies that are not shared */
+  private final ThreadLocal<Integer> privateLoads = ThreadLocal.withInitial(() -> 0);
+
+  /** Identifies the version of a library file, such that a changed file is read again. */
+  private record FileStamp(long lastModified, long length) {
+    static FileStamp of(File file) {
+      return new FileStamp(file.lastModified(), file.length());
+    }
+  }
+
+  private static class JarClassLoader {
+    private final WeakReference<ZipClassLoader> loader;
+    private final FileStamp stamp;
+
+    JarClassLoader(ZipClassLoader loader, FileStamp stamp) {
+      this.loader = new WeakReference<>(loader);
+      this.stamp = stamp;
+    }
+  }
 
-  private static class JarDescriptor implements LibraryDescriptor {
-    private final File file;
+  private static class JarDescriptor extends LibraryDescriptor {
     private final String className;
 
     JarDescriptor(File file, String className) {
-      this.file = file;
+      super(file);
       this.className = className;
     }
 
-    @Override
-    public boolean concernsFile(File query) {
-      return file.equals(query);
-    }
-
     @Override
     public boolean equals(Object other) {
       return (other instanceof JarDescriptor o)
-             ? this.file.equals(o.file) && this.className.equals(o.className)
+             ? this.canonicalFile.equals(o.canonicalFile) && this.className.equals(o.className)
              : false;
     }
 
     @Override
     public int hashCode() {
-      return file.hashCode() * 31 + className.hashCode();
+      return canonicalFile.hashCode() * 31 + className.hashCode();
     }
 
     @Override
-    public void setBase(Loader loader, LoadedLibrary lib) throws LoadFailedException {
-      lib.setBase(loader.loadJarFile(file, className));
+    Library load(Loader loader) throws LoadFailedException {
+      return loader.loadJarFile(file, className);
     }
 
     @Override
-    public String toDescriptor(Loader loader) {
+    String toDescriptor(Loader loader) {
       return "jar#" + toRelative(loader, file) + DESC_SEP + className;
     }
   }
 
-  private interface LibraryDescriptor {
-    boolean concernsFile(File query);
+  /**
+   * Describes where a library comes from. Descriptors of the same file are equal, however the file
+   * is named, and remember which version of the file was read.
+   */
+  private abstract static class LibraryDescriptor {
+    protected final File file;
+    protected final File canonicalFile;
+    private FileStamp stamp;
 
-    void setBase(Loader loader, LoadedLibrary lib) throws LoadFailedException;
+    LibraryDescriptor(File file) {
+      this.file = file;
+      canonicalFile = toCanonical(file);
+      stamp = FileStamp.of(canonicalFile);
+    }
 
-    String toDescriptor(Loader loader);
-  }
+    boolean concernsFile(File query) {
+      return canonicalFile.equals(toCanonical(query));
+    }
 
-  private static class LogisimProjectDescriptor implements LibraryDescriptor {
-    private final File file;
+    /** Returns whether the file did not change since it was read. */
+    boolean isCurrent() {
+      return stamp.equals(FileStamp.of(canonicalFile));
+    }
 
-    public LogisimProjectDescriptor(File file) {
-      this.file = file;
+    void updateStamp() {
+      stamp = FileStamp.of(canonicalFile);
     }
 
-    @Override
-    public boolean concernsFile(File query) {
-      return file.equals(query);
+    abstract Library load(Loader loader) throws LoadFailedException;
+
+    abstract String toDescriptor(Loader loader);
+  }
+
+  private static class LogisimProjectDescriptor extends LibraryDescriptor {
+    public LogisimProjectDescriptor(File file) {
+      super(file);
     }
 
     @Override
     public boolean equals(Object other) {
       return (other instanceof LogisimProjectDescriptor o)
-             ? this.file.equals(o.file)
+             ? this.canonicalFile.equals(o.canonicalFile)
              : false;
     }
 
     @Override
     public int hashCode() {
-      return file.hashCode();
+      return canonicalFile.hashCode();
     }
 
     @Override
-    public void setBase(Loader loader, LoadedLibrary lib) throws LoadFailedException {
-      lib.setBase(loader.loadLogisimFile(file));
+    Library load(Loader loader) throws LoadFailedException {
+      return loader.loadLogisimFile(file);
     }
 
     @Override
-    public String toDescriptor(Loader loader) {
+    String toDescriptor(Loader loader) {
       return "file#" + toRelative(loader, file);
     }
   }
@@ -116,9 +157,18 @@ public final class LibraryManager {
   private LibraryManager() {
     fileMap = new HashMap<>();
     invMap = new WeakHashMap<>();
+    classLoaders = new HashMap<>();
     ProjectsDirty.initialize();
   }
 
+  private static File toCanonical(File file) {
+    try {
+      return file.getCanonicalFile();
+    } catch (IOException e) {
+      return file.getAbsoluteFile();
+    }
+  }
+
   private static String toRelative(Loader loader, File file) {
     final var currentDirectory = loader.getCurrentDirectory();
     var fileName = file.toString();
@@ -150,7 +200,12 @@ public final class LibraryManager {
   }
 
 
-  public void fileSaved(Loader loader, File dest, File oldFile, LogisimFile file) {
+  /**
+   * Called once a file has been saved. The library loaded from it, if any, is replaced by a copy
+   * of the contents that were written, which is only read when there is such a library.
+   */
+  public synchronized void fileSaved(
+      File dest, File oldFile, String name, Supplier<LogisimFile> savedCopy) {
     final var old = findKnown(oldFile);
     if (old != null) {
       old.setDirty(false);
@@ -158,14 +213,20 @@ public final class LibraryManager {
 
     final var lib = findKnown(dest);
     if (lib != null) {
-      final var clone = file.cloneLogisimFile(loader);
-      clone.setName(file.getName());
+      final var clone = savedCopy.get();
+      if (clone == null) return;
+      clone.setName(name);
       clone.setDirty(false);
       lib.setBase(clone);
+      invMap.get(lib).updateStamp();
     }
   }
 
-  private LoadedLibrary findKnown(Object key) {
+  private LoadedLibrary findKnown(File file) {
+    return file == null ? null : findKnown(new LogisimProjectDescriptor(file));
+  }
+
+  private LoadedLibrary findKnown(LibraryDescriptor key) {
     final var retLibRef = fileMap.get(key);
     if (retLibRef == null) {
       return null;
@@ -180,7 +241,7 @@ public final class LibraryManager {
     }
   }
 
-  public Library findReference(LogisimFile file, File query) {
+  public synchronized Library findReference(LogisimFile file, File query) {
     for (final var lib : file.getLibraries()) {
       final var desc = invMap.get(lib);
       if (desc != null && desc.concernsFile(query)) {
@@ -196,7 +257,7 @@ public final class LibraryManager {
     return null;
   }
 
-  public String getDescriptor(Loader loader, Library lib) {
+  public synchronized String getDescriptor(Loader loader, Library lib) {
     if (loader.getBuiltin().getLibraries().contains(lib)) {
       return DESC_SEP + lib.getName();
     } else {
@@ -210,7 +271,7 @@ public final class LibraryManager {
     }
   }
 
-  Collection<LogisimFile> getLogisimLibraries() {
+  synchronized Collection<LogisimFile> getLogisimLibraries() {
     final var ret = new ArrayList<LogisimFile>();
     for (final var lib : invMap.keySet()) {
       if (lib.getBase() instanceof LogisimFile lsFile) {
@@ -220,21 +281,36 @@ public final class LibraryManager {
     return ret;
   }
 
+  /** Returns the shared library read from the file, or null if it is unknown or out of date. */
+  private synchronized LoadedLibrary findCurrent(LibraryDescriptor key) {
+    final var ret = findKnown(key);
+    return ret != null && invMap.get(ret).isCurrent() ? ret : null;
+  }
+
+  /**
+   * Makes a library that has just been read known. In case another project read the same file
+   * meanwhile, that library is kept and returned instead.
+   */
+  private synchronized LoadedLibrary publish(LibraryDescriptor key, LoadedLibrary lib) {
+    final var known = findCurrent(key);
+    if (known != null) return known;
+    fileMap.put(key, new WeakReference<>(lib));
+    invMap.put(lib, key);
+    return lib;
+  }
+
   public LoadedLibrary loadJarLibrary(Loader loader, File toRead, String className) {
     final var jarDescriptor = new JarDescriptor(toRead, className);
-    var ret = findKnown(jarDescriptor);
-    if (ret != null) return ret;
+    final var known = findCurrent(jarDescriptor);
+    if (known != null) return known;
 
+    // the lock is not held while reading, such that projects can be opened in parallel
     try {
-      ret = new LoadedLibrary(loader.loadJarFile(toRead, className));
+      return publish(jarDescriptor, new LoadedLibrary(jarDescriptor.load(loader)));
     } catch (LoadFailedException e) {
       loader.showError(e.getMessage());
       return null;
     }
-
-    fileMap.put(jarDescriptor, new WeakReference<>(ret));
-    invMap.put(ret, jarDescriptor);
-    return ret;
   }
 
   public static Set<String> getBuildinNames(Loader loader) {
@@ -314,42 +390,106 @@ public final class LibraryManager {
   }
 
   public LoadedLibrary loadLogisimLibrary(Loader loader, File toRead) {
-    var ret = findKnown(toRead);
-    if (ret != null) return ret;
+    final var desc = new LogisimProjectDescriptor(toRead);
+    final var isShared = privateLoads.get() == 0;
+    if (isShared) {
+      final var known = findCurrent(desc);
+      if (known != null) return known;
+    }
 
+    // the lock is not held while reading, such that projects can be opened in parallel
+    final LoadedLibrary ret;
     try {
-      ret = new LoadedLibrary(loader.loadLogisimFile(toRead));
+      ret = new LoadedLibrary(desc.load(loader));
     } catch (LoadFailedException e) {
       loader.showError(e.getMessage());
       return null;
     }
 
-    final var desc = new LogisimProjectDescriptor(toRead);
-    fileMap.put(desc, new WeakReference<>(ret));
-    invMap.put(ret, desc);
+    if (isShared) return publish(desc, ret);
+    synchronized (this) {
+      invMap.put(ret, desc);
+    }
+    return ret;
+  }
+
+  /**
+   * Returns a private copy of a library that is shared with other projects, for a project that
+   * has to change it. The copy is read from the file again, as are the libraries it uses, such
+   * that none of it is shared. Libraries that are not shared are returned as they are.
+   */
+  public Library getPrivateCopy(Loader loader, Library lib) {
+    if (!(lib instanceof LoadedLibrary loadedLib)
+        || !(loadedLib.getBase() instanceof LogisimFile)) return lib;
+    final LibraryDescriptor desc;
+    synchronized (this) {
+      desc = invMap.get(loadedLib);
+      if (desc == null || findKnown(desc) != loadedLib) return lib;
+    }
+    final var ownDesc = new LogisimProjectDescriptor(desc.file);
+    privateLoads.set(privateLoads.get() + 1);
+    try {
+      final var ret = new LoadedLibrary(ownDesc.load(loader));
+      synchronized (this) {
+        invMap.put(ret, ownDesc);
+      }
+      return ret;
+    } catch (LoadFailedException e) {
+      loader.showError(e.getMessage());
+      return lib;
+    } finally {
+      privateLoads.set(privateLoads.get() - 1);
+    }
+  }
+
+  /**
+   * Returns the class loader for a jar file. All libraries of the same jar share one class loader,
+   * until the jar changes.
+   */
+  synchronized ZipClassLoader getClassLoader(File jar) {
+    final var file = toCanonical(jar);
+    final var stamp = FileStamp.of(file);
+    final var known = classLoaders.get(file);
+    var ret = known == null || !known.stamp.equals(stamp) ? null : known.loader.get();
+    if (ret == null) {
+      ret = new ZipClassLoader(file);
+      classLoaders.put(file, new JarClassLoader(ret, stamp));
+    }
     return ret;
   }
 
   public void reload(Loader loader, LoadedLibrary lib) {
-    final var descriptor = invMap.get(lib);
+    final LibraryDescriptor descriptor;
+    synchronized (this) {
+      descriptor = invMap.get(lib);
+      if (descriptor != null) descriptor.updateStamp();
+    }
     if (descriptor == null) {
       loader.showError(S.get("unknownLibraryFileError", lib.getDisplayName()));
     } else {
       try {
-        descriptor.setBase(loader, lib);
+        lib.setBase(descriptor.load(loader));
       } catch (LoadFailedException e) {
         loader.showError(e.getMessage());
       }
     }
   }
 
-  void setDirty(File file, boolean dirty) {
+  synchronized void setDirty(File file, boolean dirty) {
     final var lib = findKnown(file);
     if (lib != null) {
       lib.setDirty(dirty);
     }
   }
 
+  /** Returns whether a library uses one of the named libraries, directly or through another one. */
+  public static boolean usesLibrary(Library library, Set<String> names) {
+    for (final var lib : library.getLibraries()) {
+      if (names.contains(lib.getName()) || usesLibrary(lib, names)) return true;
+    }
+    return false;
+  }
+
   public static void removeUnusedLibraries(Library lib) {
     LogisimFile logiLib = null;
     if (lib instanceof LoadedLibrary lib1) {
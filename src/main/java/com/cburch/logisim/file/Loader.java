@@ -16,24 +16,45 @@ import com.cburch.logisim.std.Builtin;
 import com.cburch.logisim.tools.Library;
 import com.cburch.logisim.util.JFileChoosers;
 import com.cburch.logisim.util.LineBuffer;
-import com.cburch.logisim.util.ZipClassLoader;
+import com.cburch.logisim.util.UniquelyNamedThread;
 import com.cburch.logisim.vhdl.file.HdlFile;
 import java.awt.Component;
 import java.awt.Dimension;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import javax.swing.JFileChooser;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
 import javax.swing.filechooser.FileFilter;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.TransformerException;
 
 public class Loader implements LibraryLoader {
+  /** Writes the contents of a file. */
+  @FunctionalInterface
+  private interface FileContents {
+    void write(OutputStream out) throws IOException;
+  }
+
   private static class JarFileFilter extends FileFilter {
     @Override
     public boolean accept(File f) {
@@ -116,6 +137,15 @@ public class Loader implements LibraryLoader {
   public static final FileFilter TCL_FILTER = new TclFileFilter();
   public static final FileFilter VHDL_FILTER = new VhdlFileFilter();
 
+  /* all saves are written by one thread, such that a file ends up as it was saved last */
+  private static final ExecutorService saver =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            final var thread = new UniquelyNamedThread(runnable, "ProjectSaver");
+            thread.setDaemon(true);
+            return thread;
+          });
+
   private Component parent;
   private final Builtin builtin = new Builtin();
   // to be cleared with each new file
@@ -128,29 +158,6 @@ public class Loader implements LibraryLoader {
     clear();
   }
 
-  private static File determineBackupName(File base) {
-    final var dir = base.getParentFile();
-    var name = base.getName();
-    if (name.endsWith(LOGISIM_EXTENSION)) {
-      name = name.substring(0, name.length() - LOGISIM_EXTENSION.length());
-    }
-    for (var i = 1; i <= 20; i++) {
-      final var ext = i == 1 ? ".bak" : (".bak" + i);
-      final var candidate = new File(dir, name + ext);
-      if (!candidate.exists()) return candidate;
-    }
-    return null;
-  }
-
-  private static void recoverBackup(File backup, File dest) {
-    if (backup != null && backup.exists()) {
-      // FIXME: recovery will fail if delete() failed
-      if (dest.exists()) dest.delete();
-      // FIXME: renameTo() can fail. We need to tell the user if so
-      backup.renameTo(dest);
-    }
-  }
-
   //
   // more substantive methods accessed from outside this package
   //
@@ -220,7 +227,7 @@ public class Loader implements LibraryLoader {
     final var actual = getSubstitution(request);
 
     // Anyway, here's the line for this new version:
-    final var loader = new ZipClassLoader(actual);
+    final var loader = LibraryManager.instance.getClassLoader(actual);
 
     // load library class from loader
     Class<?> retClass;
@@ -346,6 +353,79 @@ public class Loader implements LibraryLoader {
   }
 
   public boolean save(LogisimFile file, File dest) {
+    if (!checkSaveTarget(file, dest)) return false;
+
+    // files that are still being saved in the background have to be written first
+    waitForSaves();
+    final var oldFile = getMainFile();
+    setMainFile(dest);
+    try {
+      final var written = writeFile(dest, out -> file.write(out, this, dest, null));
+      return saved(file, dest, oldFile, written, null, () -> file.cloneLogisimFile(this));
+    } catch (IOException e) {
+      return saved(file, dest, oldFile, false, e, null);
+    }
+  }
+
+  /**
+   * Saves the file on a background thread. The contents of the file are copied before this
+   * returns, such that the project can be edited while the copy is being written. Once the file
+   * has been written, whenDone is called on the event dispatch thread with whether it was saved.
+   */
+  public void saveInBackground(LogisimFile file, File dest, Consumer<Boolean> whenDone) {
+    if (!checkSaveTarget(file, dest)) {
+      whenDone.accept(false);
+      return;
+    }
+
+    final var oldFile = getMainFile();
+    // the descriptors of the libraries are relative to the file being saved
+    setMainFile(dest);
+    final XmlWriter.Snapshot snapshot;
+    try {
+      snapshot = XmlWriter.snapshot(file, this, dest);
+    } catch (ParserConfigurationException e) {
+      setMainFile(oldFile);
+      showError("internal error configuring parser");
+      whenDone.accept(false);
+      return;
+    }
+    saver.execute(
+        () -> {
+          var written = false;
+          IOException error = null;
+          try {
+            written = writeFile(dest, out -> {
+              try {
+                snapshot.write(out);
+              } catch (TransformerException e) {
+                throw new IOException(S.get("xmlConversionError"), e);
+              }
+            });
+          } catch (IOException e) {
+            error = e;
+          }
+          final var fileWritten = written;
+          final var writeError = error;
+          // the file may have been changed since, the libraries get what was written
+          final Supplier<LogisimFile> savedCopy = () -> readSnapshot(snapshot);
+          SwingUtilities.invokeLater(
+              () -> whenDone.accept(saved(file, dest, oldFile, fileWritten, writeError, savedCopy)));
+        });
+  }
+
+  /** Waits until the files that are being saved in the background have been written. */
+  public static void waitForSaves() {
+    try {
+      saver.submit(() -> { }).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      // the task does nothing
+    }
+  }
+
+  private boolean checkSaveTarget(LogisimFile file, File dest) {
     final var reference = LibraryManager.instance.findReference(file, dest);
     if (reference != null) {
       OptionPane.showMessageDialog(
@@ -355,70 +435,63 @@ public class Loader implements LibraryLoader {
           OptionPane.ERROR_MESSAGE);
       return false;
     }
+    return true;
+  }
 
-    final var backup = determineBackupName(dest);
-    final var backupCreated = (backup != null) && dest.renameTo(backup);
-
-    FileOutputStream fwrite = null;
-    final var oldFile = getMainFile();
+  /**
+   * Writes a file through a temporary file next to it, which only replaces the file once it has
+   * been written completely. Returns false if nothing was written, in which case the file is left
+   * as it was.
+   */
+  private static boolean writeFile(File dest, FileContents contents) throws IOException {
+    final var target = dest.getAbsoluteFile().toPath();
+    final var temp = target.resolveSibling("." + dest.getName() + ".tmp");
     try {
-      setMainFile(dest);
-      fwrite = new FileOutputStream(dest);
-      file.write(fwrite, this, dest, null);
-      file.setName(toProjectName(dest));
-      LibraryManager.instance.fileSaved(this, dest, oldFile, file);
-    } catch (IOException e) {
-      setMainFile(oldFile);
-      if (backupCreated) recoverBackup(backup, dest);
-      if (dest.exists() && dest.length() == 0) {
-        // FIXME: delete can fail. Ensure we will not have snowball effect here!
-        dest.delete();
+      try (final var out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+        contents.write(out);
       }
-      OptionPane.showMessageDialog(
-          parent,
-          S.get("fileSaveError", e.toString()),
-          S.get("fileSaveErrorTitle"),
-          OptionPane.ERROR_MESSAGE);
-      return false;
-    } finally {
-      if (fwrite != null) {
-        try {
-          fwrite.close();
-        } catch (IOException e) {
-          if (backupCreated) recoverBackup(backup, dest);
-          if (dest.exists() && dest.length() == 0) {
-            // FIXME: delete can fail. Ensure we will not have snowball effect here!
-            dest.delete();
-          }
-          OptionPane.showMessageDialog(
-              parent,
-              S.get("fileSaveCloseError", e.toString()),
-              S.get("fileSaveErrorTitle"),
-              OptionPane.ERROR_MESSAGE);
-          return false;
-        }
+      if (Files.size(temp) == 0) return false;
+      try {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
       }
+      return true;
+    } finally {
+      Files.deleteIfExists(temp);
     }
+  }
 
-    if (!dest.exists() || dest.length() == 0) {
-      if (backupCreated && backup.exists()) {
-        recoverBackup(backup, dest);
-      } else {
-        // FIXME: delete can fail. Ensure we will not have snowball effect here!
-        dest.delete();
-      }
+  /** Reads the contents of a file as they were when the snapshot was taken. */
+  private LogisimFile readSnapshot(XmlWriter.Snapshot snapshot) {
+    final var contents = new ByteArrayOutputStream();
+    try {
+      snapshot.write(contents);
+      return LogisimFile.load(new ByteArrayInputStream(contents.toByteArray()), this);
+    } catch (TransformerException | IOException e) {
+      showError(S.get("fileDuplicateError", e.toString()));
+      return null;
+    }
+  }
+
+  private boolean saved(
+      LogisimFile file,
+      File dest,
+      File oldFile,
+      boolean written,
+      IOException error,
+      Supplier<LogisimFile> savedCopy) {
+    if (error != null || !written) {
+      setMainFile(oldFile);
       OptionPane.showMessageDialog(
           parent,
-          S.get("fileSaveZeroError"),
+          error != null ? S.get("fileSaveError", error.toString()) : S.get("fileSaveZeroError"),
           S.get("fileSaveErrorTitle"),
           OptionPane.ERROR_MESSAGE);
       return false;
     }
-
-    if (backupCreated && backup.exists()) {
-      // FIXME: delete can fail. Ensure we will not have snowball effect here!
-      backup.delete();
-    }
+    file.setName(toProjectName(dest));
+    LibraryManager.instance.fileSaved(dest, oldFile, file.getName(), savedCopy);
     return true;
   }
 
@@ -370,6 +370,11 @@ public final class LogisimFileActions {
       final var libNames = new HashMap<String, Library>();
       final var toolList = new HashSet<String>();
       final var errors = new HashMap<String, String>();
+      // the libraries are shared with the other projects using them, so they are cleaned up in
+      // private copies
+      for (var i = 0; i < libs.length; i++) {
+        libs[i] = LibraryManager.instance.getPrivateCopy(source.getLoader(), libs[i]);
+      }
       for (final var newLib : libs) {
         // first cleanup step: remove unused libraries from loaded library
         LibraryManager.removeUnusedLibraries(newLib);
@@ -0,0 +1,413 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.file;
+
+import com.cburch.logisim.generated.BuildInfo;
+import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.util.StringUtil;
+import com.cburch.logisim.util.XmlUtil;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import javax.xml.parsers.ParserConfigurationException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * On-disk cache of the project files that have been read. For each file it holds the top-level
+ * elements as they are after parsing and repairing, in a compact binary form that is read much
+ * faster than the XML itself. An entry is only used when both the contents of the file and the
+ * version of Logisim are the same as when it was written, so changing the file invalidates it.
+ *
+ * <p>Entries that have not been used for {@link #MAX_AGE_DAYS} days are removed, as are the least
+ * recently used ones once all of them take more than {@link #MAX_TOTAL_SIZE} bytes.
+ */
+class ProjectCache {
+
+  private static final int MAGIC = 0x4c504332; // "LPC2"
+  private static final int END = 0;
+  private static final int ELEMENT = 1;
+  private static final int TEXT = 2;
+  /* longer strings are mostly contents, which are not worth keeping in the string table */
+  private static final int MAX_INTERNED_LENGTH = 64;
+  private static final int KEY_LENGTH = 32;
+  static final long MAX_TOTAL_SIZE = 256L << 20;
+  static final int MAX_AGE_DAYS = 30;
+
+  private final Path directory;
+  private final Path path;
+  private final Path source;
+  private final MessageDigest digest;
+
+  private ProjectCache(Path directory, Path path, Path source, MessageDigest digest) {
+    this.directory = directory;
+    this.path = path;
+    this.source = source;
+    this.digest = digest;
+  }
+
+  static boolean isEnabled() {
+    return AppPreferences.PROJECT_CACHE.getBoolean();
+  }
+
+  /** Returns the cache entry of the given file, or null if no digest can be computed. */
+  static ProjectCache forFile(Path source) {
+    return forFile(getDirectory(), source);
+  }
+
+  /** Returns the entry of the file in the cache held by the given directory. */
+  static ProjectCache forFile(Path directory, Path source) {
+    try {
+      final var digest = MessageDigest.getInstance("SHA-256");
+      final var name = toHex(digest.digest(source.toString().getBytes(StandardCharsets.UTF_8)));
+      final var path = directory.resolve(name.substring(0, 32) + ".bin");
+      return new ProjectCache(directory, path, source, digest);
+    } catch (NoSuchAlgorithmException e) {
+      return null;
+    }
+  }
+
+  private static String getVersion() {
+    return BuildInfo.version + " " + BuildInfo.buildId;
+  }
+
+  private static Path getDirectory() {
+    final var cacheHome = System.getenv("XDG_CACHE_HOME");
+    final var base =
+        StringUtil.isNullOrEmpty(cacheHome)
+            ? Paths.get(System.getProperty("user.home"), ".cache")
+            : Paths.get(cacheHome);
+    return base.resolve("logisim-evolution").resolve("projects");
+  }
+
+  private static String toHex(byte[] bytes) {
+    final var ret = new StringBuilder();
+    for (final var b : bytes) ret.append(String.format("%02x", b & 0xff));
+    return ret.toString();
+  }
+
+  /**
+   * Returns a stream that computes the key of an entry from the contents of the file it reads.
+   * The key of the last such stream is the one used by {@link EntryWriter#commit()}.
+   */
+  InputStream digesting(InputStream in) {
+    digest.reset();
+    digest.update(getVersion().getBytes(StandardCharsets.UTF_8));
+    return new DigestInputStream(in, digest);
+  }
+
+  /**
+   * Opens the entry for reading. Returns null if there is no valid entry for the current contents
+   * of the file. The file is only read, without keeping it, when there is an entry to check.
+   */
+  EntryReader openReader() {
+    try {
+      if (!Files.isRegularFile(path)) return null;
+      final var bytes = Files.readAllBytes(path);
+      final var trailer = bytes.length - KEY_LENGTH - 4;
+      if (trailer < 0) return null;
+      final var crc = new CRC32();
+      crc.update(bytes, 0, bytes.length - 4);
+      final var stored =
+          new DataInputStream(new ByteArrayInputStream(bytes, trailer, KEY_LENGTH + 4));
+      final var entryKey = new byte[KEY_LENGTH];
+      stored.readFully(entryKey);
+      if ((int) crc.getValue() != stored.readInt()) return null;
+      final var in = new DataInputStream(new ByteArrayInputStream(bytes, 0, trailer));
+      if (in.readInt() != MAGIC || !getVersion().equals(in.readUTF())) return null;
+      try (final var contents = digesting(Files.newInputStream(source))) {
+        contents.transferTo(OutputStream.nullOutputStream());
+      }
+      if (!Arrays.equals(digest.digest(), entryKey)) return null;
+      // entries are evicted by the time they were last used
+      Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+      return new EntryReader(in);
+    } catch (IOException | ParserConfigurationException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Starts a new entry, which replaces the current one once it is committed. The file has to be
+   * read through {@link #digesting(InputStream)}.
+   */
+  EntryWriter openWriter(Element root) {
+    return new EntryWriter(root);
+  }
+
+  /**
+   * Removes the entries of the cache in the given directory that have not been used for the given
+   * number of days, and then the least recently used ones until the remaining ones take at most
+   * the given number of bytes. Left over temporary files are removed as well.
+   */
+  static void evict(Path directory, long maxTotalSize, int maxAgeDays) {
+    final var entries = new ArrayList<Path>();
+    try (final var files = Files.list(directory)) {
+      files.forEach(entries::add);
+    } catch (IOException e) {
+      return;
+    }
+    final var oldest = Instant.now().minus(maxAgeDays, ChronoUnit.DAYS);
+    final var lastUsed = new HashMap<Path, Instant>();
+    final var sizes = new HashMap<Path, Long>();
+    for (final var entry : entries) {
+      try {
+        lastUsed.put(entry, Files.getLastModifiedTime(entry).toInstant());
+        sizes.put(entry, Files.size(entry));
+      } catch (IOException e) {
+        // removed in the meantime
+      }
+    }
+    entries.retainAll(lastUsed.keySet());
+    entries.sort(Comparator.comparing(lastUsed::get, Comparator.reverseOrder()));
+    var totalSize = 0L;
+    for (final var entry : entries) {
+      final boolean remove;
+      if (entry.getFileName().toString().endsWith(".tmp")) {
+        // only left over when writing an entry failed, unless it is being written right now
+        remove = lastUsed.get(entry).isBefore(Instant.now().minus(1, ChronoUnit.DAYS));
+      } else {
+        totalSize += sizes.get(entry);
+        remove = lastUsed.get(entry).isBefore(oldest) || totalSize > maxTotalSize;
+      }
+      if (!remove) continue;
+      try {
+        Files.deleteIfExists(entry);
+      } catch (IOException e) {
+        XmlReader.logger.warn("Cannot remove project cache {}: {}", entry, e.getMessage());
+      }
+    }
+  }
+
+  /** Reads the root element and then the top-level elements of a cached project. */
+  static class EntryReader {
+    private final DataInputStream in;
+    private final Document doc;
+    private final List<String> strings = new ArrayList<>();
+    private final Element root;
+
+    private EntryReader(DataInputStream in) throws IOException, ParserConfigurationException {
+      this.in = in;
+      doc = XmlUtil.getHardenedBuilderFactory().newDocumentBuilder().newDocument();
+      root = readElementStart();
+    }
+
+    /** Returns the root element, without its children. */
+    Element getRoot() {
+      return root;
+    }
+
+    /** Returns the next top-level element, or null when all of them have been read. */
+    Element next() throws IOException {
+      if (in.readUnsignedByte() != ELEMENT) return null;
+      final var elt = readElementStart();
+      readChildren(elt);
+      return elt;
+    }
+
+    private Element readElementStart() throws IOException {
+      final var elt = doc.createElement(readString());
+      for (var i = readVarInt(); i > 0; i--) {
+        final var name = readString();
+        elt.setAttribute(name, readString());
+      }
+      return elt;
+    }
+
+    private void readChildren(Element parent) throws IOException {
+      while (true) {
+        switch (in.readUnsignedByte()) {
+          case END -> {
+            return;
+          }
+          case ELEMENT -> {
+            final var child = readElementStart();
+            parent.appendChild(child);
+            readChildren(child);
+          }
+          case TEXT -> parent.appendChild(doc.createTextNode(readString()));
+          default -> throw new IOException("Corrupt project cache");
+        }
+      }
+    }
+
+    private String readString() throws IOException {
+      final var index = readVarInt();
+      if (index > 0) return strings.get(index - 1);
+      final var bytes = new byte[readVarInt()];
+      in.readFully(bytes);
+      final var ret = new String(bytes, StandardCharsets.UTF_8);
+      if (bytes.length <= MAX_INTERNED_LENGTH) strings.add(ret);
+      return ret;
+    }
+
+    private int readVarInt() throws IOException {
+      var ret = 0;
+      for (var shift = 0; ; shift += 7) {
+        final var b = in.readUnsignedByte();
+        ret |= (b & 0x7f) << shift;
+        if ((b & 0x80) == 0) return ret;
+      }
+    }
+  }
+
+  /**
+   * Writes the top-level elements of a project to a temporary file while it is read. It only
+   * replaces the entry on {@link #commit()}, such that files that fail to load do not end up in
+   * the cache. Failures to write only mean that the file is not cached.
+   */
+  class EntryWriter implements AutoCloseable {
+    private final CRC32 crc = new CRC32();
+    private final Map<String, Integer> strings = new HashMap<>();
+    private Path temp;
+    private DataOutputStream out;
+
+    private EntryWriter(Element root) {
+      try {
+        Files.createDirectories(directory);
+        temp = Files.createTempFile(directory, "project", ".tmp");
+        final var file = new CheckedOutputStream(Files.newOutputStream(temp), crc);
+        out = new DataOutputStream(new BufferedOutputStream(file));
+        out.writeInt(MAGIC);
+        out.writeUTF(getVersion());
+        writeElementStart(root);
+      } catch (IOException e) {
+        fail(e);
+      }
+    }
+
+    void write(Element elt) {
+      if (out == null) return;
+      try {
+        out.writeByte(ELEMENT);
+        writeElement(elt);
+      } catch (IOException e) {
+        fail(e);
+      }
+    }
+
+    /**
+     * Replaces the previous entry by this one, with the key of the contents that have been read
+     * through {@link #digesting(InputStream)}.
+     */
+    void commit() {
+      if (out == null) return;
+      try {
+        out.writeByte(END);
+        out.write(digest.digest());
+        out.flush();
+        out.writeInt((int) crc.getValue());
+        out.close();
+        out = null;
+        try {
+          Files.move(
+              temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+          Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+      } catch (IOException e) {
+        fail(e);
+        return;
+      }
+      evict(directory, MAX_TOTAL_SIZE, MAX_AGE_DAYS);
+    }
+
+    /** Removes the temporary file unless the entry has been committed. */
+    @Override
+    public void close() {
+      if (out != null) fail(null);
+    }
+
+    private void fail(IOException e) {
+      if (e != null) {
+        XmlReader.logger.warn("Cannot write project cache {}: {}", path, e.getMessage());
+      }
+      try {
+        if (out != null) out.close();
+        if (temp != null) Files.deleteIfExists(temp);
+      } catch (IOException ex) {
+        // the temporary file is removed when the cache is evicted
+      }
+      out = null;
+    }
+
+    private void writeElementStart(Element elt) throws IOException {
+      writeString(elt.getTagName());
+      final var attrs = elt.getAttributes();
+      writeVarInt(attrs.getLength());
+      for (var i = 0; i < attrs.getLength(); i++) {
+        final var attr = attrs.item(i);
+        writeString(attr.getNodeName());
+        writeString(attr.getNodeValue());
+      }
+    }
+
+    private void writeElement(Element elt) throws IOException {
+      writeElementStart(elt);
+      for (var child = elt.getFirstChild(); child != null; child = child.getNextSibling()) {
+        if (child instanceof Element childElt) {
+          out.writeByte(ELEMENT);
+          writeElement(childElt);
+        } else if (child.getNodeType() == Node.TEXT_NODE
+            || child.getNodeType() == Node.CDATA_SECTION_NODE) {
+          out.writeByte(TEXT);
+          writeString(child.getNodeValue());
+        }
+      }
+      out.writeByte(END);
+    }
+
+    private void writeString(String value) throws IOException {
+      final var index = strings.get(value);
+      if (index != null) {
+        writeVarInt(index);
+        return;
+      }
+      final var data = value.getBytes(StandardCharsets.UTF_8);
+      writeVarInt(0);
+      writeVarInt(data.length);
+      out.write(data);
+      if (data.length <= MAX_INTERNED_LENGTH) strings.put(value, strings.size() + 1);
+    }
+
+    private void writeVarInt(int value) throws IOException {
+      while ((value & ~0x7f) != 0) {
+        out.writeByte((value & 0x7f) | 0x80);
+        value >>>= 7;
+      }
+      out.writeByte(value);
+    }
+  }
+}
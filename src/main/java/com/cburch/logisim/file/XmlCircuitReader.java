@@ -19,6 +19,7 @@ import com.cburch.logisim.circuit.CircuitTransaction;
 import com.cburch.logisim.circuit.Wire;
 import com.cburch.logisim.circuit.appear.AppearanceSvgReader;
 import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
 import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.data.Bounds;
 import com.cburch.logisim.data.Location;
@@ -45,16 +46,34 @@ public class XmlCircuitReader extends CircuitTransaction {
   private final List<XmlReader.CircuitData> circuitsData;
   private boolean isHolyCross = false;
   private boolean isEvolution = false;
+  private final boolean buildComponents;
+  private final boolean buildAppearances;
 
   public XmlCircuitReader(
       XmlReader.ReadContext reader,
       List<XmlReader.CircuitData> circDatas,
       boolean isThisHolyCrossFile,
       boolean isThisEvolutionFile) {
+    this(reader, circDatas, isThisHolyCrossFile, isThisEvolutionFile, true, true);
+  }
+
+  /**
+   * The streaming reader builds the components of each circuit as soon as it has been read, and
+   * the dynamic appearances, which may refer into any subcircuit, once all circuits are known.
+   */
+  XmlCircuitReader(
+      XmlReader.ReadContext reader,
+      List<XmlReader.CircuitData> circDatas,
+      boolean isThisHolyCrossFile,
+      boolean isThisEvolutionFile,
+      boolean buildComponents,
+      boolean buildAppearances) {
     this.reader = reader;
     this.circuitsData = circDatas;
     this.isHolyCross = isThisHolyCrossFile;
     this.isEvolution = isThisEvolutionFile;
+    this.buildComponents = buildComponents;
+    this.buildAppearances = buildAppearances;
   }
 
   /**
@@ -66,7 +85,32 @@ public class XmlCircuitReader extends CircuitTransaction {
   static Component getComponent(
       Element elt, XmlReader.ReadContext reader, boolean isHolyCross, boolean isEvolution)
       throws XmlReaderException {
+    final var factory = getFactory(elt, reader);
+    return createComponent(
+        ComponentDescription.read(elt, reader), factory, reader, isHolyCross, isEvolution);
+  }
+
+  /**
+   * The location and attribute values of a comp element, copied from the document such that the
+   * component can be created on another thread: the document itself is not thread-safe, not even
+   * for reading.
+   */
+  record ComponentDescription(String location, Map<String, String> attributes, List<String> errors) {
+    static ComponentDescription read(Element elt, XmlReader.ReadContext reader) {
+      final var errors = new ArrayList<String>();
+      final var attributes = reader.readAttributes(elt, errors);
+      return new ComponentDescription(elt.getAttribute("loc"), attributes, errors);
+    }
+  }
 
+  /**
+   * @param elt XML element to parse
+   * @param reader XML file reader
+   * @return the factory that creates the component described by the element
+   * @throws XmlReaderException
+   */
+  static ComponentFactory getFactory(Element elt, XmlReader.ReadContext reader)
+      throws XmlReaderException {
     // Determine the factory that creates this element
     final var name = elt.getAttribute("name");
     if (StringUtil.isNullOrEmpty(name)) {
@@ -80,7 +124,7 @@ public class XmlCircuitReader extends CircuitTransaction {
       throw new XmlReaderException(S.get("compUnknownError", "no-lib"));
     }
 
-    final var tool = lib.getTool(name);
+    final var tool = StringUtil.isNullOrEmpty(libName) ? reader.getFileTool(name) : lib.getTool(name);
     if (!(tool instanceof AddTool)) {
       final var msg =
           StringUtil.isNullOrEmpty(libName)
@@ -88,10 +132,24 @@ public class XmlCircuitReader extends CircuitTransaction {
               : S.get("compAbsentError", name, libName);
       throw new XmlReaderException(msg);
     }
-    final var source = ((AddTool) tool).getFactory();
+    return ((AddTool) tool).getFactory();
+  }
 
+  /**
+   * Creates the described component. Only the description and the factory are accessed, such that
+   * components of library factories can be created on several threads at once. Subcircuits and
+   * vhdl entities register themselves with the circuit or entity they instantiate and have to be
+   * created on the loading thread.
+   */
+  static Component createComponent(
+      ComponentDescription description,
+      ComponentFactory source,
+      XmlReader.ReadContext reader,
+      boolean isHolyCross,
+      boolean isEvolution)
+      throws XmlReaderException {
     // Determine attributes
-    final var locStr = elt.getAttribute("loc");
+    final var locStr = description.location();
     final var attrs = source.createAttributeSet();
     var defaults = source;
     if (isHolyCross && source instanceof Ram) {
@@ -100,7 +158,8 @@ public class XmlCircuitReader extends CircuitTransaction {
       ramAttrs.updateAttributes();
       defaults = null;
     }
-    reader.initAttributeSet(elt, attrs, defaults, isHolyCross, isEvolution);
+    reader.initAttributeSet(
+        description.attributes(), description.errors(), attrs, defaults, isHolyCross, isEvolution);
 
     // Create component if location known
     if (StringUtil.isNullOrEmpty(locStr)) {
@@ -142,11 +201,16 @@ public class XmlCircuitReader extends CircuitTransaction {
     }
   }
 
-  private void buildCircuit(XmlReader.CircuitData circData, CircuitMutator mutator) {
-    final var element = circData.circuitElement;
+  /**
+   * Initializes the static attributes of the circuit. In files of older versions the appearance
+   * attribute is missing, in which case it depends on whether the circuit has a custom appearance.
+   */
+  static void initStaticAttributes(
+      XmlReader.ReadContext reader,
+      XmlReader.CircuitData circData,
+      boolean isHolyCross,
+      boolean isEvolution) {
     final var dest = circData.circuit;
-    var knownComponents = circData.knownComponents;
-    if (knownComponents == null) knownComponents = Collections.emptyMap();
     try {
       /* Here we check the attribute circuitnamedbox for backwards compatibility */
       var hasNamedBox = false;
@@ -191,6 +255,16 @@ public class XmlCircuitReader extends CircuitTransaction {
     } catch (XmlReaderException e) {
       reader.addErrors(e, circData.circuit.getName() + ".static");
     }
+  }
+
+  private void buildCircuit(XmlReader.CircuitData circData, CircuitMutator mutator) {
+    final var element = circData.circuitElement;
+    final var dest = circData.circuit;
+    var knownComponents = circData.knownComponents;
+    if (knownComponents == null) knownComponents = Collections.emptyMap();
+    if (!circData.staticAttributesLoaded) {
+      initStaticAttributes(reader, circData, isHolyCross, isEvolution);
+    }
 
     final var componentsAt = new HashMap<Bounds, Component>();
     final var overlapComponents = new ArrayList<Component>();
@@ -295,17 +369,27 @@ public class XmlCircuitReader extends CircuitTransaction {
     final var access = new HashMap<Circuit, Integer>();
     for (final var data : circuitsData) {
       access.put(data.circuit, READ_WRITE);
+      // circuits read before may already hold instances of it, whose ports change with its pins
+      if (buildComponents) {
+        for (final var user : data.circuit.getCircuitsUsingThis()) {
+          access.put(user, READ_WRITE);
+        }
+      }
     }
     return access;
   }
 
   @Override
   protected void run(CircuitMutator mutator) {
-    for (final var circuitData : circuitsData) {
-      buildCircuit(circuitData, mutator);
+    if (buildComponents) {
+      for (final var circuitData : circuitsData) {
+        buildCircuit(circuitData, mutator);
+      }
     }
-    for (final var circuitData : circuitsData) {
-      buildDynamicAppearance(circuitData);
+    if (buildAppearances) {
+      for (final var circuitData : circuitsData) {
+        buildDynamicAppearance(circuitData);
+      }
     }
   }
 
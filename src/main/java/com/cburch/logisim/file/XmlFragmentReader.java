@@ -0,0 +1,114 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.file;
+
+import com.cburch.logisim.util.XmlUtil;
+import java.io.InputStream;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Reads an XML file element by element. Each element that is read is turned into a detached DOM
+ * subtree, such that only the element currently being processed has to be kept in memory instead
+ * of the complete document.
+ */
+class XmlFragmentReader implements AutoCloseable {
+
+  private final XMLStreamReader stream;
+  private final Document doc;
+
+  XmlFragmentReader(InputStream is) throws XMLStreamException {
+    stream = XmlUtil.getHardenedInputFactory().createXMLStreamReader(is);
+    try {
+      doc = XmlUtil.getHardenedBuilderFactory().newDocumentBuilder().newDocument();
+    } catch (ParserConfigurationException e) {
+      throw new XMLStreamException(e);
+    }
+  }
+
+  /**
+   * Advances to the start of the next element on the current level. Returns false when the end
+   * of the enclosing element (or of the document) is reached instead.
+   */
+  boolean nextElement() throws XMLStreamException {
+    while (stream.hasNext()) {
+      final var event = stream.next();
+      if (event == XMLStreamConstants.START_ELEMENT) return true;
+      if (event == XMLStreamConstants.END_ELEMENT) return false;
+      if (event == XMLStreamConstants.DTD)
+        throw new XMLStreamException("DOCTYPE is not allowed", stream.getLocation());
+    }
+    return false;
+  }
+
+  /** Returns the value of an attribute of the element at which the reader is positioned. */
+  String getAttribute(String name) {
+    final var value = stream.getAttributeValue(null, name);
+    return value == null ? "" : value;
+  }
+
+  /** Returns the element at which the reader is positioned, without any of its children. */
+  Element getElementStart() {
+    return createElement();
+  }
+
+  /**
+   * Reads the element at which the reader is positioned, including all its children. Afterwards
+   * the reader is positioned at the end of the element.
+   */
+  Element readElement() throws XMLStreamException {
+    final var root = createElement();
+    Node current = root;
+    while (true) {
+      switch (stream.next()) {
+        case XMLStreamConstants.START_ELEMENT -> {
+          final var child = createElement();
+          current.appendChild(child);
+          current = child;
+        }
+        case XMLStreamConstants.END_ELEMENT -> {
+          if (current == root) return root;
+          current = current.getParentNode();
+        }
+        case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+            current.appendChild(doc.createTextNode(stream.getText()));
+        case XMLStreamConstants.END_DOCUMENT ->
+            throw new XMLStreamException("Unexpected end of document", stream.getLocation());
+        default -> {
+          // comments and processing instructions are not needed
+        }
+      }
+    }
+  }
+
+  private Element createElement() {
+    final var elt = doc.createElement(getQualifiedName(stream.getPrefix(), stream.getLocalName()));
+    for (var i = 0; i < stream.getAttributeCount(); i++) {
+      final var name =
+          getQualifiedName(stream.getAttributePrefix(i), stream.getAttributeLocalName(i));
+      elt.setAttribute(name, stream.getAttributeValue(i));
+    }
+    return elt;
+  }
+
+  private static String getQualifiedName(String prefix, String localName) {
+    return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+  }
+
+  @Override
+  public void close() throws XMLStreamException {
+    stream.close();
+  }
+}
@@ -15,9 +15,11 @@ import com.cburch.draw.model.AbstractCanvasObject;
 import com.cburch.logisim.LogisimVersion;
 import com.cburch.logisim.circuit.Circuit;
 import com.cburch.logisim.circuit.CircuitMapInfo;
+import com.cburch.logisim.circuit.CircuitMutation;
 import com.cburch.logisim.circuit.Splitter;
 import com.cburch.logisim.circuit.appear.AppearanceSvgReader;
 import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
 import com.cburch.logisim.data.Attribute;
 import com.cburch.logisim.data.AttributeDefaultProvider;
 import com.cburch.logisim.data.AttributeSet;
@@ -53,21 +55,25 @@ import com.cburch.logisim.vhdl.base.VhdlContent;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import javax.xml.XMLConstants;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.ParserConfigurationException;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import javax.swing.SwingUtilities;
+import javax.xml.stream.XMLStreamException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
 
 class XmlReader {
@@ -77,18 +83,74 @@ class XmlReader {
     final Circuit circuit;
     Map<Element, Component> knownComponents;
     List<AbstractCanvasObject> appearance;
+    boolean staticAttributesLoaded = false;
 
     public CircuitData(Element circuitElement, Circuit circuit) {
       this.circuitElement = circuitElement;
       this.circuit = circuit;
     }
+
+    /**
+     * Drops everything but the appearance from the circuit element, once the components and wires
+     * of the circuit have been built.
+     */
+    void releaseContents() {
+      knownComponents = null;
+      var child = circuitElement.getFirstChild();
+      while (child != null) {
+        final var next = child.getNextSibling();
+        if (!(child instanceof Element elt && "appear".equals(elt.getTagName()))) {
+          circuitElement.removeChild(child);
+        }
+        child = next;
+      }
+    }
+
+    /**
+     * Drops the static attributes, the board maps and the whitespace between the elements from the
+     * circuit element, for a circuit that is built later on, once it is used.
+     */
+    void compactContents() {
+      var child = circuitElement.getFirstChild();
+      while (child != null) {
+        final var next = child.getNextSibling();
+        if (!(child instanceof Element elt)) {
+          circuitElement.removeChild(child);
+        } else if ("comp".equals(elt.getTagName()) || "appear".equals(elt.getTagName())) {
+          removeWhitespace(elt);
+        } else if (!"wire".equals(elt.getTagName())) {
+          circuitElement.removeChild(child);
+        }
+        child = next;
+      }
+    }
+
+    private static void removeWhitespace(Element elt) {
+      var child = elt.getFirstChild();
+      while (child != null) {
+        final var next = child.getNextSibling();
+        if (child.getNodeType() == Node.TEXT_NODE && child.getNodeValue().isBlank()) {
+          elt.removeChild(child);
+        }
+        child = next;
+      }
+    }
   }
 
   class ReadContext {
     final LogisimFile file;
     LogisimVersion sourceVersion;
+    boolean isHolyCrossFile = false;
+    boolean isEvolutionFile = true;
     final HashMap<String, Library> libs = new HashMap<>();
     private final ArrayList<String> messages;
+    private Project project;
+    /* circuits that are used before they are defined, only kept by the streaming reader */
+    private Map<String, Circuit> pendingCircuits;
+    /* circuits built by the streaming reader, of which the dynamic appearance is still missing */
+    private List<CircuitData> streamedCircuits;
+    /* the circuits and vhdl entities by the name they had when the file was read */
+    private Map<String, Tool> loadedTools;
 
     ReadContext(LogisimFile file) {
       this.file = file;
@@ -105,6 +167,33 @@ class XmlReader {
       }
     }
 
+    /** Shows the errors collected so far to the user, after which they are forgotten. */
+    void showErrors() {
+      if (messages.isEmpty()) return;
+      loader.showError(takeErrors());
+    }
+
+    /**
+     * Shows the errors of a circuit that was built after the file had been read. As it is built by
+     * whichever thread uses it first, the errors are taken on that thread and shown on the event
+     * dispatch thread.
+     */
+    private void showDeferredErrors() {
+      if (messages.isEmpty()) return;
+      final var errors = takeErrors();
+      if (SwingUtilities.isEventDispatchThread()) {
+        loader.showError(errors);
+      } else {
+        SwingUtilities.invokeLater(() -> loader.showError(errors));
+      }
+    }
+
+    private String takeErrors() {
+      final var all = String.join("\n", messages);
+      messages.clear();
+      return all;
+    }
+
     Library findLibrary(String libName) throws XmlReaderException {
       if (StringUtil.isNullOrEmpty(libName)) return file;
       final var ret = libs.get(libName);
@@ -119,12 +208,19 @@ class XmlReader {
         boolean isHolyCross,
         boolean isEvolution)
         throws XmlReaderException {
-      List<String> messages = null;
+      final var messages = new ArrayList<String>();
+      final var attrsDefined = readAttributes(parent, messages);
+      initAttributeSet(attrsDefined, messages, attrs, defaults, isHolyCross, isEvolution);
+    }
 
+    /**
+     * Returns the values of the a elements of parent by their name, and adds an error to messages
+     * for each one that has no name.
+     */
+    Map<String, String> readAttributes(Element parent, List<String> messages) {
       final var attrsDefined = new HashMap<String, String>();
       for (final var attrElt : XmlIterator.forChildElements(parent, "a")) {
         if (!attrElt.hasAttribute("name")) {
-          if (messages == null) messages = new ArrayList<>();
           messages.add(S.get("attrNameMissingError"));
         } else {
           final var attrName = attrElt.getAttribute("name");
@@ -145,8 +241,23 @@ class XmlReader {
           attrsDefined.put(attrName, attrVal);
         }
       }
+      return attrsDefined;
+    }
 
+    /**
+     * Sets the attributes to the values returned by {@link #readAttributes}. As the document is not
+     * accessed, this can be done for several attribute sets at once.
+     */
+    void initAttributeSet(
+        Map<String, String> attrsDefined,
+        List<String> readErrors,
+        AttributeSet attrs,
+        AttributeDefaultProvider defaults,
+        boolean isHolyCross,
+        boolean isEvolution)
+        throws XmlReaderException {
       if (attrs == null) return;
+      final var messages = new ArrayList<>(readErrors);
 
       LogisimVersion ver = sourceVersion;
       boolean setDefaults = defaults != null && !defaults.isAllDefaultValues(attrs, ver);
@@ -183,12 +294,11 @@ class XmlReader {
             Object val = attr.parse(attrVal);
             attrs.setValue(attr, val);
           } catch (NumberFormatException e) {
-            if (messages == null) messages = new ArrayList<>();
             messages.add(S.get("attrValueInvalidError", attrVal, attrName));
           }
         }
       }
-      if (messages != null) {
+      if (!messages.isEmpty()) {
         throw new XmlReaderException(messages);
       }
     }
@@ -264,18 +374,59 @@ class XmlReader {
       }
     }
 
+    /**
+     * Creates the components of a circuit. The factories are looked up on the loading thread, as
+     * this may add circuits to the file, and the comp elements are read there as well, as the
+     * document must not be accessed by several threads at once. After that the components of
+     * factories with the {@link ComponentFactory#CONCURRENT_CREATION} feature are created in
+     * parallel, and all others on the loading thread, as they may register their instances in
+     * maps of the factory. Failing components are skipped; they are tried again when the circuit
+     * is built, such that their errors are reported.
+     */
     private Map<Element, Component> loadKnownComponents(Element elt, boolean isHolyCross, boolean isEvolution) {
-      final var known = new HashMap<Element, Component>();
-      for (final var sub : XmlIterator.forChildElements(elt, "comp")) {
+      final var compElts = new ArrayList<Element>();
+      for (final var sub : XmlIterator.forChildElements(elt, "comp")) compElts.add(sub);
+      final var nrOfComps = compElts.size();
+      final var factories = new ComponentFactory[nrOfComps];
+      final var descriptions = new XmlCircuitReader.ComponentDescription[nrOfComps];
+      for (var i = 0; i < nrOfComps; i++) {
+        try {
+          factories[i] = XmlCircuitReader.getFactory(compElts.get(i), this);
+          descriptions[i] = XmlCircuitReader.ComponentDescription.read(compElts.get(i), this);
+        } catch (XmlReaderException ignored) {
+        }
+      }
+      final var comps = new Component[nrOfComps];
+      final IntConsumer create = i -> {
         try {
-          final var comp = XmlCircuitReader.getComponent(sub, this, isHolyCross, isEvolution);
-          if (comp != null) known.put(sub, comp);
+          comps[i] =
+              XmlCircuitReader.createComponent(
+                  descriptions[i], factories[i], this, isHolyCross, isEvolution);
         } catch (XmlReaderException ignored) {
         }
+      };
+      final var concurrentComps =
+          IntStream.range(0, nrOfComps).filter(i -> isConcurrentFactory(factories[i]));
+      if (nrOfComps >= PARALLEL_LOAD_THRESHOLD) {
+        concurrentComps.parallel().forEach(create);
+      } else {
+        concurrentComps.forEach(create);
+      }
+      for (var i = 0; i < nrOfComps; i++) {
+        if (factories[i] != null && !isConcurrentFactory(factories[i])) create.accept(i);
+      }
+      final var known = new HashMap<Element, Component>();
+      for (var i = 0; i < nrOfComps; i++) {
+        if (comps[i] != null) known.put(compElts.get(i), comps[i]);
       }
       return known;
     }
 
+    private boolean isConcurrentFactory(ComponentFactory factory) {
+      return factory != null
+          && Boolean.TRUE.equals(factory.getFeature(ComponentFactory.CONCURRENT_CREATION, null));
+    }
+
     void loadMap(Element board, String boardName, Circuit circ) {
       final var map = new HashMap<String, CircuitMapInfo>();
       for (final var cmap : XmlIterator.forChildElements(board, "mc")) {
@@ -382,11 +533,8 @@ class XmlReader {
       return ret;
     }
 
-    private void toLogisimFile(Element elt, Project proj) {
+    private void readSourceVersion(String versionString) {
       // determine the version producing this file
-      final var versionString = elt.getAttribute("source");
-      var isHolyCrossFile = false;
-      var isEvolutionFile = true;
       if ("".equals(versionString)) {
         sourceVersion = BuildInfo.version;
       } else {
@@ -413,12 +561,13 @@ class XmlReader {
             "Old file format -- compatibility mode",
             OptionPane.WARNING_MESSAGE);
       }
+    }
 
-      // first, load the sublibraries
+    private void loadLibraries(Iterable<Element> libElts) {
       final var libsToAddAfter = new HashSet<Library>();
       final var baseLibsToEnable = new HashSet<String>();
       final var libsLoaded = new HashSet<String>();
-      for (final var o : XmlIterator.forChildElements(elt, "lib")) {
+      for (final var o : libElts) {
         final var lib = toLibrary(o, isHolyCrossFile, isEvolutionFile);
         if (lib instanceof LoadedLibrary loadedLib) {
           if (loadedLib.getBase() instanceof LogisimFile) {
@@ -446,48 +595,210 @@ class XmlReader {
           baseLibsToEnable.remove(libName);
         }
       }
-      // remove the promoted base libraries from the loaded library and add them
-      for (final var newLib : libsToAddAfter) {
+      // remove the promoted base libraries from the loaded library and add them; the library is
+      // shared with the other projects using it, so it is only changed in a private copy
+      for (final var lib : libsToAddAfter) {
+        var newLib = lib;
+        if (LibraryManager.usesLibrary(lib, baseLibsToEnable)) {
+          newLib = LibraryManager.instance.getPrivateCopy((Loader) loader, lib);
+          if (newLib != lib) LibraryManager.removeUnusedLibraries(newLib);
+        }
         LibraryManager.removeBaseLibraries(newLib, baseLibsToEnable);
         file.addLibrary(newLib);
       }
+    }
+
+    /**
+     * Returns the index at which the next circuit or vhdl entity has to be added, which is in front
+     * of the circuits that have been referenced but not yet read by the streaming reader.
+     */
+    private int nextToolIndex() {
+      return file.getTools().size() - (pendingCircuits == null ? 0 : pendingCircuits.size());
+    }
+
+    /**
+     * Returns the circuit or vhdl entity of the file with the given name. Circuits that are built
+     * after the file has been read look up the names as they were in the file, as the tools may
+     * have been renamed in the meantime.
+     */
+    Tool getFileTool(String name) {
+      if (loadedTools != null) return loadedTools.get(name);
+      final var tool = file.getTool(name);
+      return tool == null ? getPendingCircuitTool(name) : tool;
+    }
+
+    /**
+     * Called by the streaming reader for a component that refers to a circuit which has not been
+     * read yet. An empty circuit is created for it, that is filled once its definition is read.
+     */
+    private Tool getPendingCircuitTool(String name) {
+      if (pendingCircuits == null) return null;
+      final var circuit = new Circuit(name, file, project);
+      file.addCircuit(circuit);
+      pendingCircuits.put(name, circuit);
+      return file.getAddTool(circuit);
+    }
+
+    private void loadVhdl(Element vhdlElt) {
+      final var name = vhdlElt.getAttribute("name");
+      if (name == null || "".equals(name)) {
+        addError(S.get("circNameMissingError"), "C??");
+      }
+      final var vhdl = vhdlElt.getTextContent();
+      final var contents = VhdlContent.parse(name, vhdl, file);
+      if (contents != null) {
+        file.addVhdlContent(contents, nextToolIndex());
+      }
+    }
+
+    private CircuitData loadCircuit(Element circElt) {
+      final var name = circElt.getAttribute("name");
+      if (name == null || "".equals(name)) {
+        addError(S.get("circNameMissingError"), "C??");
+      }
+      final var pending = pendingCircuits == null ? null : pendingCircuits.get(name);
+      final CircuitData circData;
+      if (pending == null) {
+        circData = new CircuitData(circElt, new Circuit(name, file, project));
+        file.addCircuit(circData.circuit, nextToolIndex());
+      } else {
+        circData = new CircuitData(circElt, pending);
+        file.moveCircuit(file.getAddTool(pending), nextToolIndex());
+        pendingCircuits.remove(name);
+      }
+      circData.knownComponents = loadKnownComponents(circElt, isHolyCrossFile, isEvolutionFile);
+      for (Element appearElt : XmlIterator.forChildElements(circElt, "appear")) {
+        loadAppearance(appearElt, circData, name + ".appear");
+      }
+      loadBoardMaps(circElt, circData.circuit);
+      return circData;
+    }
+
+    private void loadBoardMaps(Element circElt, Circuit circ) {
+      for (final var boardMap : XmlIterator.forChildElements(circElt, "boardmap")) {
+        final var boardName = boardMap.getAttribute("boardname");
+        if (StringUtil.isNullOrEmpty(boardName))
+          continue;
+        loadMap(boardMap, boardName, circ);
+      }
+    }
+
+    /**
+     * Returns whether building the circuit can wait until it is used. This is not the case for the
+     * main circuit and for circuits that are used by a circuit read before, nor for circuits of
+     * which the appearance attribute has to be derived from their custom appearance.
+     */
+    private boolean isDeferrable(Element circElt, String mainName) {
+      final var name = circElt.getAttribute("name");
+      if (name.isEmpty() || name.equals(mainName) || pendingCircuits.containsKey(name)) return false;
+      var hasNamedBox = false;
+      var hasAppearAttr = false;
+      for (final var attrElt : XmlIterator.forChildElements(circElt, "a")) {
+        hasNamedBox |= "circuitnamedbox".equals(attrElt.getAttribute("name"));
+        hasAppearAttr |= "appearance".equals(attrElt.getAttribute("name"));
+      }
+      final var hasAppearance = XmlIterator.forChildElements(circElt, "appear").iterator().hasNext();
+      return !hasAppearance || (hasAppearAttr && !hasNamedBox);
+    }
+
+    /**
+     * Adds a circuit of which only the static attributes and the board maps are read right away.
+     * Its components, wires and appearance are kept in their compacted element until the circuit
+     * is used for the first time.
+     */
+    private void deferCircuit(Element circElt) {
+      final var circData =
+          new CircuitData(circElt, new Circuit(circElt.getAttribute("name"), file, project));
+      file.addCircuit(circData.circuit, nextToolIndex());
+      XmlCircuitReader.initStaticAttributes(this, circData, isHolyCrossFile, isEvolutionFile);
+      circData.staticAttributesLoaded = true;
+      loadBoardMaps(circElt, circData.circuit);
+      circData.compactContents();
+      circData.circuit.setContentsLoader(() -> loadDeferredCircuit(circData));
+    }
+
+    private void loadDeferredCircuit(CircuitData circData) {
+      final var elt = circData.circuitElement;
+      circData.knownComponents = loadKnownComponents(elt, isHolyCrossFile, isEvolutionFile);
+      for (final var appearElt : XmlIterator.forChildElements(elt, "appear")) {
+        loadAppearance(appearElt, circData, circData.circuit.getName() + ".appear");
+      }
+      if (streamedCircuits != null) {
+        // the circuit is used while the file is still being read
+        buildStreamedCircuit(circData);
+      } else {
+        new XmlCircuitReader(this, List.of(circData), isHolyCrossFile, isEvolutionFile).execute();
+        showDeferredErrors();
+      }
+    }
+
+    /**
+     * Builds the components and wires of a circuit read by the streaming reader. Its appearance
+     * may refer to circuits that are not read yet, hence it is completed at the end of the file.
+     */
+    private void buildStreamedCircuit(CircuitData circData) {
+      new XmlCircuitReader(
+              this, List.of(circData), isHolyCrossFile, isEvolutionFile, true, false)
+          .execute();
+      circData.releaseContents();
+      streamedCircuits.add(circData);
+    }
+
+    private void loadFileElement(Element sub_elt) {
+      final var name = sub_elt.getTagName();
+
+      switch (name) {
+        case "circuit":
+        case "vhdl":
+        case "lib":
+          // Nothing to do: Done earlier.
+          break;
+        case "options":
+          try {
+            initAttributeSet(
+                sub_elt,
+                file.getOptions().getAttributeSet(),
+                null,
+                isHolyCrossFile,
+                isEvolutionFile);
+          } catch (XmlReaderException e) {
+            addErrors(e, "options");
+          }
+          break;
+        case "mappings":
+          initMouseMappings(sub_elt, isHolyCrossFile, isEvolutionFile);
+          break;
+        case "toolbar":
+          initToolbarData(sub_elt, isHolyCrossFile, isEvolutionFile);
+          break;
+        case "main":
+          final var main = sub_elt.getAttribute("name");
+          final var circ = file.getCircuit(main);
+          if (circ != null) {
+            file.setMainCircuit(circ);
+          }
+          break;
+        case "message":
+          file.addMessage(sub_elt.getAttribute("value"));
+          break;
+        default:
+          throw new IllegalArgumentException("Invalid node in logisim file: " + name);
+      }
+    }
+
+    private void toLogisimFile(Element elt, Project proj) {
+      project = proj;
+      readSourceVersion(elt.getAttribute("source"));
+
+      // first, load the sublibraries
+      loadLibraries(XmlIterator.forChildElements(elt, "lib"));
 
       // second, create the circuits - empty for now - and the vhdl entities
       final var circuitsData = new ArrayList<CircuitData>();
       for (final var circElt : XmlIterator.forChildElements(elt)) {
-        String name;
         switch (circElt.getTagName()) {
-          case "vhdl" -> {
-            name = circElt.getAttribute("name");
-            if (name == null || "".equals(name)) {
-              addError(S.get("circNameMissingError"), "C??");
-            }
-            final var vhdl = circElt.getTextContent();
-            final var contents = VhdlContent.parse(name, vhdl, file);
-            if (contents != null) {
-              file.addVhdlContent(contents);
-            }
-          }
-          case "circuit" -> {
-            name = circElt.getAttribute("name");
-            if (name == null || "".equals(name)) {
-              addError(S.get("circNameMissingError"), "C??");
-            }
-            final var circData = new CircuitData(circElt, new Circuit(name, file, proj));
-            file.addCircuit(circData.circuit);
-            circData.knownComponents = loadKnownComponents(circElt, isHolyCrossFile,
-                isEvolutionFile);
-            for (Element appearElt : XmlIterator.forChildElements(circElt, "appear")) {
-              loadAppearance(appearElt, circData, name + ".appear");
-            }
-            for (final var boardMap : XmlIterator.forChildElements(circElt, "boardmap")) {
-              final var boardName = boardMap.getAttribute("boardname");
-              if (StringUtil.isNullOrEmpty(boardName))
-                continue;
-              loadMap(boardMap, boardName, circData.circuit);
-            }
-            circuitsData.add(circData);
-          }
+          case "vhdl" -> loadVhdl(circElt);
+          case "circuit" -> circuitsData.add(loadCircuit(circElt));
           default -> {
             // do nothing
           }
@@ -496,45 +807,7 @@ class XmlReader {
 
       // third, process the other child elements
       for (Element sub_elt : XmlIterator.forChildElements(elt)) {
-        final var name = sub_elt.getTagName();
-
-        switch (name) {
-          case "circuit":
-          case "vhdl":
-          case "lib":
-            // Nothing to do: Done earlier.
-            break;
-          case "options":
-            try {
-              initAttributeSet(
-                  sub_elt,
-                  file.getOptions().getAttributeSet(),
-                  null,
-                  isHolyCrossFile,
-                  isEvolutionFile);
-            } catch (XmlReaderException e) {
-              addErrors(e, "options");
-            }
-            break;
-          case "mappings":
-            initMouseMappings(sub_elt, isHolyCrossFile, isEvolutionFile);
-            break;
-          case "toolbar":
-            initToolbarData(sub_elt, isHolyCrossFile, isEvolutionFile);
-            break;
-          case "main":
-            final var main = sub_elt.getAttribute("name");
-            final var circ = file.getCircuit(main);
-            if (circ != null) {
-              file.setMainCircuit(circ);
-            }
-            break;
-          case "message":
-            file.addMessage(sub_elt.getAttribute("value"));
-            break;
-          default:
-            throw new IllegalArgumentException("Invalid node in logisim file: " + name);
-        }
+        loadFileElement(sub_elt);
       }
 
       // fourth, execute a transaction that initializes all the circuits
@@ -543,6 +816,92 @@ class XmlReader {
       builder.execute();
     }
 
+    /**
+     * Streaming counterpart of {@link #toLogisimFile(Element, Project)}, which gets the top-level
+     * elements one at a time, already repaired. Each circuit is built as soon as it has been read,
+     * after which only its appearance is kept, so the memory needed depends on the largest circuit
+     * instead of on the complete file. A circuit that is used before it is defined starts out
+     * empty, just as all circuits do in the DOM based reader. Circuits that are not needed to open
+     * the file are only built once they are used.
+     */
+    private void toLogisimFile(String source, FragmentSource fragments, Project proj)
+        throws IOException, XMLStreamException {
+      project = proj;
+      pendingCircuits = new LinkedHashMap<>();
+      streamedCircuits = new ArrayList<>();
+      readSourceVersion(source);
+
+      final var libElts = new ArrayList<Element>();
+      final var otherElts = new ArrayList<Element>();
+      var librariesLoaded = false;
+      var mainName = "";
+      for (var elt = fragments.next(); elt != null; elt = fragments.next()) {
+        final var name = elt.getTagName();
+        if ("main".equals(name)) mainName = elt.getAttribute("name");
+        if ("lib".equals(name) && !librariesLoaded) {
+          libElts.add(elt);
+          continue;
+        }
+        // the libraries are written first, so all of them are known at this point
+        if (!librariesLoaded) {
+          loadLibraries(libElts);
+          librariesLoaded = true;
+        }
+        switch (name) {
+          case "lib" -> loadLibraries(List.of(elt));
+          case "vhdl" -> loadVhdl(elt);
+          case "circuit" -> {
+            if (isDeferrable(elt, mainName)) {
+              deferCircuit(elt);
+            } else {
+              buildStreamedCircuit(loadCircuit(elt));
+            }
+          }
+          default -> otherElts.add(elt);
+        }
+      }
+      if (!librariesLoaded) loadLibraries(libElts);
+      removePendingCircuits(streamedCircuits);
+
+      // the toolbar and the main circuit may refer to circuits that are defined later on
+      for (final var elt : otherElts) {
+        loadFileElement(elt);
+      }
+
+      new XmlCircuitReader(this, streamedCircuits, isHolyCrossFile, isEvolutionFile, false, true)
+          .execute();
+
+      pendingCircuits = null;
+      streamedCircuits = null;
+      loadedTools = new HashMap<>();
+      for (final var tool : file.getTools()) {
+        loadedTools.putIfAbsent(tool.getName(), tool);
+      }
+    }
+
+    /**
+     * Removes the circuits that are referenced but never defined, together with the components
+     * referring to them, as the DOM based reader does not create those components either.
+     */
+    private void removePendingCircuits(List<CircuitData> circuitsData) {
+      for (final var pending : pendingCircuits.values()) {
+        final var factory = pending.getSubcircuitFactory();
+        for (final var circData : circuitsData) {
+          final var mutation = new CircuitMutation(circData.circuit);
+          for (final var comp : circData.circuit.getNonWires()) {
+            if (comp.getFactory() != factory) continue;
+            final var context = String.format("%s.%s(%s)",
+                circData.circuit.getName(), pending.getName(), comp.getLocation());
+            addError(S.get("compUnknownError", pending.getName()), context);
+            mutation.remove(comp);
+          }
+          if (!mutation.isEmpty()) mutation.execute();
+        }
+        file.removeCircuit(pending);
+      }
+      pendingCircuits.clear();
+    }
+
     Tool toTool(Element elt) throws XmlReaderException {
       final var lib = findLibrary(elt.getAttribute("lib"));
       final var name = elt.getAttribute("name");
@@ -557,7 +916,14 @@ class XmlReader {
     }
   }
 
+  /** Supplies the top-level elements of a project one after the other, and null at its end. */
+  private interface FragmentSource {
+    Element next() throws IOException, XMLStreamException;
+  }
+
   public static final Logger logger = LoggerFactory.getLogger(XmlReader.class);
+  /* below this number of components a circuit is not worth spreading over several threads */
+  static final int PARALLEL_LOAD_THRESHOLD = 64;
   private final LibraryLoader loader;
 
   /**
@@ -637,6 +1003,51 @@ class XmlReader {
     return (elt);
   }
 
+  /**
+   * Streaming counterpart of {@link #ensureLogisimCompatibility(Element)}, applied to one circuit
+   * at a time. The valid label generated for an invalid one is remembered, such that each
+   * occurrence of the invalid label in the file gets the same replacement.
+   */
+  private static class LabelRepairs {
+    private final Map<String, String> circuitNames = new HashMap<>();
+    private final Map<String, String> circuitLabels = new HashMap<>();
+    private final Map<String, String> compLabels = new HashMap<>();
+
+    private static String getValidLabel(Map<String, String> validLabels, String label) {
+      if (!VhdlContent.labelVHDLInvalid(label)) return label;
+      return validLabels.computeIfAbsent(label, XmlReader::generateValidVHDLLabel);
+    }
+
+    private static void repairLabel(Element elt, Map<String, String> validLabels) {
+      for (final var attrElt : XmlIterator.forChildElements(elt, "a")) {
+        if ("label".equals(attrElt.getAttribute("name"))) {
+          final var label = attrElt.getAttribute("val");
+          if (label.length() > 0) attrElt.setAttribute("val", getValidLabel(validLabels, label));
+        }
+      }
+    }
+
+    void apply(Element circElt) {
+      final var name = circElt.getAttribute("name");
+      final var validName = getValidLabel(circuitNames, name);
+      if (!validName.equals(name)) {
+        circElt.setAttribute("name", validName);
+        for (final var attrElt : XmlIterator.forChildElements(circElt, "a")) {
+          if ("circuit".equals(attrElt.getAttribute("name"))) attrElt.setAttribute("val", validName);
+        }
+      }
+      repairLabel(circElt, circuitLabels);
+      for (final var compElt : XmlIterator.forChildElements(circElt, "comp")) {
+        if (compElt.hasAttribute("lib")) {
+          repairLabel(compElt, compLabels);
+        } else if (compElt.hasAttribute("name")) {
+          // Circuits are components without lib
+          compElt.setAttribute("name", getValidLabel(circuitNames, compElt.getAttribute("name")));
+        }
+      }
+    }
+  }
+
   private static void findLibraryUses(ArrayList<Element> dest, String label, Iterable<Element> candidates) {
     for (final var elt : candidates) {
       String lib = elt.getAttribute("lib");
@@ -1034,44 +1445,104 @@ class XmlReader {
     }
   }
 
-  private Document loadXmlFrom(InputStream is) throws SAXException, IOException {
-    final var factory = XmlUtil.getHardenedBuilderFactory();
-    factory.setNamespaceAware(true);
-    try {
-      factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-    } catch (ParserConfigurationException ex) {
-      // All implementations are required to support FEATURE_SECURE_PROCESSING.
-    }
-    DocumentBuilder builder = null;
-    try {
-      builder = factory.newDocumentBuilder();
-    } catch (ParserConfigurationException ignored) {
-    }
-    return builder.parse(is);
-  }
-
   LogisimFile readLibrary(InputStream is, Project proj) throws IOException, SAXException {
-    final var doc = loadXmlFrom(is);
-    var elt = doc.getDocumentElement();
-    elt = ensureLogisimCompatibility(elt);
+    if (srcFilePath == null || !ProjectCache.isEnabled()) return readLibrary(is, null, proj);
+    return readLibrary(is, ProjectCache.forFile(Paths.get(srcFilePath)), proj);
+  }
 
-    considerRepairs(doc, elt);
+  /**
+   * Reads a project from the given cache entry when it is valid. Otherwise the project is read
+   * from the stream and added to the cache, if given.
+   */
+  LogisimFile readLibrary(InputStream is, ProjectCache cache, Project proj)
+      throws IOException, SAXException {
     final var file = new LogisimFile((Loader) loader);
     final var context = new ReadContext(file);
 
-    context.toLogisimFile(elt, proj);
+    try {
+      final var cached = cache == null ? null : cache.openReader();
+      if (cached != null) {
+        readCachedLibrary(context, cached, proj);
+      } else {
+        readXmlLibrary(context, is, cache, proj);
+      }
+    } catch (XMLStreamException e) {
+      throw new SAXException(e);
+    }
 
     if (file.getCircuitCount() == 0) {
       file.addCircuit(new Circuit("main", file, proj));
     }
-    if (!context.messages.isEmpty()) {
-      final var all = new StringBuilder();
-      for (final var msg : context.messages) {
-        all.append(msg).append("\n");
+    context.showErrors();
+    return file;
+  }
+
+  private static boolean isLegacyVersion(String source) {
+    return LogisimVersion.fromString(source).compareTo(new LogisimVersion(2, 6, 3)) < 0;
+  }
+
+  /**
+   * Reads and repairs the XML of a project. The repaired elements are added to the cache, when
+   * given, such that the next time the file is opened they can be taken from there.
+   */
+  private void readXmlLibrary(ReadContext context, InputStream is, ProjectCache cache, Project proj)
+      throws IOException, XMLStreamException {
+    final var in = cache == null ? is : cache.digesting(is);
+    try (final var reader = new XmlFragmentReader(in)) {
+      if (!reader.nextElement()) throw new XMLStreamException("Premature end of file.");
+      final var source = reader.getAttribute("source");
+      if (isLegacyVersion(source)) {
+        // The repairs of older files restructure the complete document, hence these files are
+        // read as a whole.
+        final var elt = ensureLogisimCompatibility(reader.readElement());
+        considerRepairs(elt.getOwnerDocument(), elt);
+        try (final var cacheWriter = cache == null ? null : cache.openWriter(elt)) {
+          if (cacheWriter != null) {
+            for (final var sub : XmlIterator.forChildElements(elt)) cacheWriter.write(sub);
+          }
+          context.toLogisimFile(elt, proj);
+          commitCache(in, cacheWriter);
+        }
+      } else {
+        try (final var cacheWriter =
+            cache == null ? null : cache.openWriter(reader.getElementStart())) {
+          final var labelRepairs = new LabelRepairs();
+          context.toLogisimFile(
+              source,
+              () -> {
+                if (!reader.nextElement()) return null;
+                final var elt = reader.readElement();
+                final var name = elt.getTagName();
+                if ("lib".equals(name) || "toolbar".equals(name)) cleanupToolsLabel(elt);
+                if ("circuit".equals(name)) labelRepairs.apply(elt);
+                if (cacheWriter != null) cacheWriter.write(elt);
+                return elt;
+              },
+              proj);
+          commitCache(in, cacheWriter);
+        }
       }
-      loader.showError(all.substring(0, all.length() - 1));
     }
-    return file;
+  }
+
+  /* the key of the entry is the digest of the complete file, including what follows the project */
+  private static void commitCache(InputStream in, ProjectCache.EntryWriter cacheWriter)
+      throws IOException {
+    if (cacheWriter == null) return;
+    in.transferTo(OutputStream.nullOutputStream());
+    cacheWriter.commit();
+  }
+
+  private void readCachedLibrary(ReadContext context, ProjectCache.EntryReader cached, Project proj)
+      throws IOException, XMLStreamException {
+    final var root = cached.getRoot();
+    final var source = root.getAttribute("source");
+    if (isLegacyVersion(source)) {
+      for (var elt = cached.next(); elt != null; elt = cached.next()) root.appendChild(elt);
+      context.toLogisimFile(root, proj);
+    } else {
+      context.toLogisimFile(source, cached::next, proj);
+    }
   }
 
   private void relocateTools(Element src, Element dest, HashMap<String, String> labelMap) {
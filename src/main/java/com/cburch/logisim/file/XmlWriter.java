@@ -12,6 +12,8 @@ package com.cburch.logisim.file;
 import com.cburch.draw.model.AbstractCanvasObject;
 import com.cburch.logisim.circuit.Circuit;
 import com.cburch.logisim.circuit.CircuitAttributes;
+import com.cburch.logisim.circuit.CircuitMutator;
+import com.cburch.logisim.circuit.CircuitTransaction;
 import com.cburch.logisim.circuit.Wire;
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.comp.ComponentFactory;
@@ -34,6 +36,7 @@ import com.cburch.logisim.vhdl.base.VhdlContent;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
@@ -42,20 +45,25 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Result;
-import javax.xml.transform.Source;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
 
 final class XmlWriter {
 
@@ -69,6 +77,9 @@ final class XmlWriter {
   private final boolean isProjectExport;
   private final LibraryLoader loader;
   private final HashMap<Library, String> libs = new HashMap<>();
+  /* set when the parts are kept to be written later, while the values may still change */
+  private boolean copyValues = false;
+  private static final String STREAMED_VALUE = "streamedValue";
 
   private XmlWriter(LogisimFile file, Document doc, LibraryLoader loader) {
     this(file, doc, loader, null, null);
@@ -173,33 +184,86 @@ final class XmlWriter {
     }
   }
 
-  static void write(LogisimFile file, OutputStream out, LibraryLoader loader, File destFile, String libraryHome)
-      throws ParserConfigurationException, TransformerException {
-
+  private static XmlWriter create(LogisimFile file, LibraryLoader loader, File destFile, String libraryHome)
+      throws ParserConfigurationException {
     final var docFactory = XmlUtil.getHardenedBuilderFactory();
     final var docBuilder = docFactory.newDocumentBuilder();
 
     final var doc = docBuilder.newDocument();
-    XmlWriter context;
     if (destFile != null) {
       var dstFilePath = destFile.getAbsolutePath();
       dstFilePath = dstFilePath.substring(0, dstFilePath.lastIndexOf(File.separator));
-      context = new XmlWriter(file, doc, loader, dstFilePath);
+      return new XmlWriter(file, doc, loader, dstFilePath);
     } else if (libraryHome != null) {
-      context = new XmlWriter(file, doc, loader, null, libraryHome);
+      return new XmlWriter(file, doc, loader, null, libraryHome);
     } else {
-      context = new XmlWriter(file, doc, loader);
+      return new XmlWriter(file, doc, loader);
+    }
+  }
+
+  static void write(LogisimFile file, OutputStream out, LibraryLoader loader, File destFile, String libraryHome)
+      throws ParserConfigurationException, TransformerException {
+    final var context = create(file, loader, destFile, libraryHome);
+    final var handler = createSerializer(out);
+    try {
+      context.writeLogisimFile(handler);
+    } catch (SAXException e) {
+      throw new TransformerException(e);
+    }
+  }
+
+  /**
+   * Takes a copy of the contents of a file that can be written later, possibly on another thread
+   * while the project is being edited. The circuits are copied while holding their read lock, and
+   * values that may be changed in place, such as memory contents, are copied as well. Note that
+   * this builds the elements of all circuits on the calling thread, only serializing them is left
+   * for later.
+   */
+  static Snapshot snapshot(LogisimFile file, LibraryLoader loader, File destFile)
+      throws ParserConfigurationException {
+    final var context = create(file, loader, destFile, null);
+    context.copyValues = true;
+    final var parts = new ArrayList<Element>();
+    try {
+      context.buildParts(parts::add);
+    } catch (SAXException e) {
+      // cannot happen when collecting the parts
     }
+    return new Snapshot(context.doc, parts);
+  }
+
+  /** Contents of a file as they were when the snapshot was taken. */
+  static final class Snapshot {
+    private final Document doc;
+    private final List<Element> parts;
 
-    context.fromLogisimFile();
+    private Snapshot(Document doc, List<Element> parts) {
+      this.doc = doc;
+      this.parts = parts;
+    }
+
+    void write(OutputStream out) throws TransformerException {
+      final var handler = createSerializer(out);
+      try {
+        startProject(handler, doc);
+        for (final var part : parts) writeElement(handler, part);
+        endProject(handler);
+      } catch (SAXException e) {
+        throw new TransformerException(e);
+      }
+    }
+  }
 
-    final var tfFactory = TransformerFactory.newInstance();
+  private static TransformerHandler createSerializer(OutputStream out)
+      throws TransformerConfigurationException {
+    final var tfFactory = (SAXTransformerFactory) TransformerFactory.newInstance();
     try {
       tfFactory.setAttribute("indent-number", 2);
     } catch (IllegalArgumentException ignored) {
       // Do nothing
     }
-    final var tf = tfFactory.newTransformer();
+    final var handler = tfFactory.newTransformerHandler();
+    final var tf = handler.getTransformer();
     tf.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
     tf.setOutputProperty(OutputKeys.INDENT, "yes");
     try {
@@ -207,12 +271,127 @@ final class XmlWriter {
     } catch (IllegalArgumentException ignored) {
       // Do nothing
     }
+    // there is no document to take this from, but we keep the declaration as it was
+    tf.setOutputProperty(OutputKeys.STANDALONE, "no");
+    handler.setResult(new StreamResult(out));
+    return handler;
+  }
 
-    doc.normalize();
-    sort(doc);
-    Source src = new DOMSource(doc);
-    Result dest = new StreamResult(out);
-    tf.transform(src, dest);
+  /**
+   * Sends a part of the file to the serializer. The parts are built as small DOM trees, as the
+   * appearance and board map code produce DOM elements. Each part is sorted and serialized before
+   * the next one is built, so the complete document never is in memory.
+   */
+  private static void writeElement(ContentHandler out, Element elt) throws SAXException {
+    elt.normalize();
+    sort(elt);
+    writeNode(out, elt);
+  }
+
+  private static void writeNode(ContentHandler out, Node node) throws SAXException {
+    if (node instanceof Element elt) {
+      startElement(out, elt);
+      for (var child = elt.getFirstChild(); child != null; child = child.getNextSibling()) {
+        writeNode(out, child);
+      }
+      if (elt.getUserData(STREAMED_VALUE) instanceof StreamedValue value) {
+        try {
+          value.write(new CharactersWriter(out));
+        } catch (IOException e) {
+          throw new SAXException(e);
+        }
+      }
+      out.endElement("", elt.getTagName(), elt.getTagName());
+    } else if (node instanceof org.w3c.dom.Text text) {
+      final var chars = text.getData().toCharArray();
+      out.characters(chars, 0, chars.length);
+    }
+  }
+
+  private static void startElement(ContentHandler out, Element elt) throws SAXException {
+    final var attrs = new AttributesImpl();
+    final var nodeAttrs = elt.getAttributes();
+    for (var i = 0; i < nodeAttrs.getLength(); i++) {
+      final var attr = (Attr) nodeAttrs.item(i);
+      attrs.addAttribute("", attr.getName(), attr.getName(), "CDATA", attr.getValue());
+    }
+    out.startElement("", elt.getTagName(), elt.getTagName(), attrs);
+  }
+
+  /** Text content of an element that is only generated while the element is serialized. */
+  @FunctionalInterface
+  private interface StreamedValue {
+    void write(Writer out) throws IOException;
+  }
+
+  private static class CharactersWriter extends Writer {
+    private final ContentHandler out;
+
+    CharactersWriter(ContentHandler out) {
+      this.out = out;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+      try {
+        out.characters(cbuf, off, len);
+      } catch (SAXException e) {
+        throw new IOException(e);
+      }
+    }
+
+    @Override
+    public void flush() {
+      // characters are passed on immediately
+    }
+
+    @Override
+    public void close() {
+      // the serializer is closed by the writer
+    }
+  }
+
+  /**
+   * Inspects a standard string while it is being generated, without keeping it: whether it is
+   * equal to an expected string, and whether it contains a line break.
+   */
+  private static class ValueProbe extends Writer {
+    private final String expected;
+    private int length = 0;
+    private boolean matches = true;
+    private boolean multiline = false;
+
+    ValueProbe(String expected) {
+      this.expected = expected;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+      for (var i = off; i < off + len && (matches || !multiline); i++) {
+        final var c = cbuf[i];
+        if (c == '\n') multiline = true;
+        if (matches && (length >= expected.length() || expected.charAt(length) != c)) matches = false;
+        length++;
+      }
+    }
+
+    boolean isMultiline() {
+      return multiline;
+    }
+
+    boolean equalsExpected() {
+      return matches && length == expected.length();
+    }
+
+    @Override
+    public void flush() {
+      // nothing is kept
+    }
+
+    @Override
+    public void close() {
+      // nothing is kept
+    }
   }
 
   void addAttributeSetContent(Element elt, AttributeSet attrs, AttributeDefaultProvider source, boolean userModifiedOnly) {
@@ -226,20 +405,42 @@ final class XmlWriter {
       if (attrs.isToSave(attr) && val != null) {
         final var dflt = source == null ? null : source.getDefaultAttributeValue(attr, BuildInfo.version);
         final var defaultValue = dflt == null ? "" : attr.toStandardString(dflt);
-        var newValue = attr.toStandardString(val);
-        if (dflt == null || (!dflt.equals(val) && !defaultValue.equals(newValue))
+        String newValue = null;
+        boolean isMultiline;
+        boolean isDefaultValue;
+        if (attr.hasLargeValues()) {
+          final var probe = new ValueProbe(defaultValue);
+          try {
+            attr.writeStandardString(val, probe);
+          } catch (IOException ignored) {
+            // the probe does not throw
+          }
+          isMultiline = probe.isMultiline();
+          isDefaultValue = probe.equalsExpected();
+        } else {
+          newValue = attr.toStandardString(val);
+          isMultiline = newValue.contains("\n");
+          isDefaultValue = defaultValue.equals(newValue);
+        }
+        if (dflt == null || (!dflt.equals(val) && !isDefaultValue)
             || (attr.equals(StdAttr.APPEARANCE) && !userModifiedOnly)
             || (attr.equals(ProbeAttributes.PROBEAPPEARANCE) && !userModifiedOnly && val.equals(ProbeAttributes.APPEAR_EVOLUTION_NEW))) {
           final var a = doc.createElement("a");
           a.setAttribute("name", attr.getName());
           if ("filePath".equals(attr.getName()) && outFilePath != null) {
+            if (newValue == null) newValue = attr.toStandardString(val);
             final var outFP = Paths.get(outFilePath);
             final var attrValP = Paths.get(newValue);
             newValue = (outFP.relativize(attrValP)).toString();
             a.setAttribute("val", newValue);
           } else {
-            if (newValue.contains("\n")) {
-              a.appendChild(doc.createTextNode(newValue));
+            if (isMultiline) {
+              if (newValue != null) {
+                a.appendChild(doc.createTextNode(newValue));
+              } else {
+                final var value = copyValues ? attr.copyValue(val) : val;
+                a.setUserData(STREAMED_VALUE, (StreamedValue) out -> attr.writeStandardString(value, out), null);
+              }
             } else {
               a.setAttribute("val", attr.toStandardString(val));
             }
@@ -266,6 +467,23 @@ final class XmlWriter {
     return null;
   }
 
+  /** Builds the element of a circuit while holding its read lock, so no other thread changes it. */
+  private Element fromLockedCircuit(Circuit circuit) {
+    final var ret = new Element[1];
+    new CircuitTransaction() {
+      @Override
+      protected Map<Circuit, Integer> getAccessedCircuits() {
+        return Map.of(circuit, CircuitTransaction.READ_ONLY);
+      }
+
+      @Override
+      protected void run(CircuitMutator mutator) {
+        ret[0] = fromCircuit(circuit);
+      }
+    }.execute();
+    return ret[0];
+  }
+
   Element fromCircuit(Circuit circuit) {
     final var ret = doc.createElement("circuit");
     ret.setAttribute("name", circuit.getName());
@@ -430,42 +648,62 @@ final class XmlWriter {
     return ret;
   }
 
-  Element fromLogisimFile() {
+  /** Receives the parts of a file in the order in which they are built. */
+  @FunctionalInterface
+  private interface PartSink {
+    void accept(Element part) throws SAXException;
+  }
+
+  void writeLogisimFile(ContentHandler out) throws SAXException {
+    startProject(out, doc);
+    buildParts(part -> writeElement(out, part));
+    endProject(out);
+  }
+
+  private static void startProject(ContentHandler out, Document doc) throws SAXException {
     final var ret = doc.createElement("project");
-    doc.appendChild(ret);
-    ret.appendChild(
-        doc.createTextNode(
-            "\nThis file is intended to be "
+    ret.setAttribute("version", "1.0");
+    ret.setAttribute("source", BuildInfo.version.toString());
+    out.startDocument();
+    startElement(out, ret);
+    final var header =
+        ("\nThis file is intended to be "
                 + "loaded by "
                 + BuildInfo.displayName
                 + "("
                 + BuildInfo.url
-                + ").\n"));
-    ret.setAttribute("version", "1.0");
-    ret.setAttribute("source", BuildInfo.version.toString());
+                + ").\n")
+            .toCharArray();
+    out.characters(header, 0, header.length);
+  }
+
+  private static void endProject(ContentHandler out) throws SAXException {
+    out.endElement("", "project", "project");
+    out.endDocument();
+  }
 
+  private void buildParts(PartSink out) throws SAXException {
     for (final var lib : file.getLibraries()) {
       final var elt = fromLibrary(lib);
-      if (elt != null) ret.appendChild(elt);
+      if (elt != null) out.accept(elt);
     }
 
     if (file.getMainCircuit() != null) {
       final var mainElt = doc.createElement("main");
       mainElt.setAttribute("name", file.getMainCircuit().getName());
-      ret.appendChild(mainElt);
+      out.accept(mainElt);
     }
 
-    ret.appendChild(fromOptions());
-    ret.appendChild(fromMouseMappings());
-    ret.appendChild(fromToolbarData());
+    out.accept(fromOptions());
+    out.accept(fromMouseMappings());
+    out.accept(fromToolbarData());
 
     for (final var circ : file.getCircuits()) {
-      ret.appendChild(fromCircuit(circ));
+      out.accept(fromLockedCircuit(circ));
     }
     for (final var vhdl : file.getVhdlContents()) {
-      ret.appendChild(fromVhdl(vhdl));
+      out.accept(fromVhdl(vhdl));
     }
-    return ret;
   }
 
   Element fromMouseMappings() {
@@ -358,13 +358,7 @@ public class HexFile {
   private static String saveToString(MemContents src, String desc, int limit) {
     try {
       final var out = new StringWriter();
-      OutputStream stream;
-      if (desc == null) desc = "v2.0 raw";
-      if (desc.startsWith("Binary")) stream = new OutputStreamBinarySanitizer(out);
-      else stream = new OutputStreamEscaper(out, true, 0);
-      final var w = new HexWriter(stream, src, desc);
-      if (limit > 0 && limit - 1 < w.memEnd) w.memEnd = limit - 1;
-      w.save();
+      save(out, src, desc, limit);
       return out.toString();
     } catch (IOException e) {
       // should never happen
@@ -373,6 +367,21 @@ public class HexFile {
     }
   }
 
+  /** Writes the contents as returned by saveToString, without building the string in memory. */
+  public static void save(Writer out, MemContents src) throws IOException {
+    save(out, src, null, -1);
+  }
+
+  private static void save(Writer out, MemContents src, String desc, int limit) throws IOException {
+    OutputStream stream;
+    if (desc == null) desc = "v2.0 raw";
+    if (desc.startsWith("Binary")) stream = new OutputStreamBinarySanitizer(out);
+    else stream = new OutputStreamEscaper(out, true, 0);
+    final var w = new HexWriter(stream, src, desc);
+    if (limit > 0 && limit - 1 < w.memEnd) w.memEnd = limit - 1;
+    w.save();
+  }
+
   private static FileFilter getFilter(String desc) {
     return new FileFilter() {
       @Override
@@ -0,0 +1,116 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Memory-mapped files that hold the older part of the history of a signal, such that long
+ * histories do not have to fit on the heap. Room is added at the end, in segments that start small
+ * and double in size, and all of it is dropped at once when the history is reset. Room that is
+ * given back, when a limited history drops its oldest samples, is handed out again for the same
+ * length. The blocks of a signal only come in a few lengths, so a limited history stops growing.
+ */
+final class HistorySegments {
+
+  private static final int FIRST_SEGMENT_SIZE = 1 << 16;
+  private static final int MAX_SEGMENT_SIZE = 1 << 24;
+  private static Path directory = null;
+
+  private final ArrayList<MappedByteBuffer> segments = new ArrayList<>();
+  private final ArrayList<Path> files = new ArrayList<>();
+  private int used = 0; // of the last segment
+  private final HashMap<Integer, ArrayDeque<Long>> freed = new HashMap<>(); // by length
+
+  /* returns the directory of the segment files, whatever is left in it is deleted at exit */
+  static synchronized Path getDirectory() throws IOException {
+    if (directory == null) {
+      final var dir = Files.createTempDirectory("logisim-log");
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteDirectory(dir)));
+      directory = dir;
+    }
+    return directory;
+  }
+
+  private static void deleteDirectory(Path dir) {
+    try (final var files = Files.list(dir)) {
+      files.forEach(HistorySegments::deleteFile);
+    } catch (IOException e) {
+      // nothing left to do at exit
+    }
+    deleteFile(dir);
+  }
+
+  private static boolean deleteFile(Path file) {
+    try {
+      Files.deleteIfExists(file);
+      return true;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Reserves room for the given number of bytes, and returns its address for {@link #get}: the
+   * index of the segment in the upper half and the offset within it in the lower half.
+   */
+  synchronized long allocate(int length) throws IOException {
+    final var reusable = freed.get(length);
+    if (reusable != null && !reusable.isEmpty()) return reusable.pop();
+    final var last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+    if (last == null || used + length > last.capacity()) {
+      final var size =
+          Math.max(
+              length,
+              last == null ? FIRST_SEGMENT_SIZE : Math.min(2 * last.capacity(), MAX_SEGMENT_SIZE));
+      final var file = Files.createTempFile(getDirectory(), "signal", ".seg");
+      files.add(file);
+      try (final var channel =
+          FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        segments.add(channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+      }
+      used = 0;
+    }
+    final var ret = ((long) (segments.size() - 1) << 32) | used;
+    used += length;
+    return ret;
+  }
+
+  /** Returns the bytes at an address returned by {@link #allocate}, for reading and writing. */
+  synchronized ByteBuffer get(long address, int length) {
+    final var segment = segments.get((int) (address >>> 32));
+    return segment.slice((int) address, length);
+  }
+
+  /** Gives back the room at an address returned by {@link #allocate}, to be allocated again. */
+  synchronized void free(long address, int length) {
+    freed.computeIfAbsent(length, k -> new ArrayDeque<>()).push(address);
+  }
+
+  /**
+   * Drops all segments and deletes their files. Files that are still mapped cannot be deleted on
+   * some systems, these are tried again on the next call and otherwise removed at exit.
+   */
+  synchronized void clear() {
+    segments.clear();
+    files.removeIf(HistorySegments::deleteFile);
+    freed.clear();
+    used = 0;
+  }
+}
@@ -14,35 +14,165 @@ import com.cburch.logisim.data.Value;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
 import java.awt.datatransfer.UnsupportedFlavorException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The history of a logged signal, as a sequence of samples that each hold a value and how long it
+ * lasted. The samples are kept in blocks of primitive columns instead of as objects: for every
+ * sample the bits of the value, and the duration in which only the change to the previous sample
+ * is stored. Each block knows the time at which its first sample starts, such that the sample at
+ * a given time is found with a binary search over the blocks. Columns are as narrow as their
+ * contents allow, and the columns for unknown and error bits only exist when such bits occur.
+ * Only the most recent blocks stay on the heap: older ones, which no longer change, are moved to
+ * {@link HistorySegments} and read back into a small cache when they are needed again.
+ */
 public class Signal {
 
-  private static final int CHUNK = 512;
+  private static final int BLOCK = 512;
+  /* blocks at the end that stay on the heap, at least the two that can still change */
+  private static final int RESIDENT_BLOCKS = 16;
+  /* blocks that were read back from the segments and are kept in memory */
+  private static final int PAGED_BLOCKS = 8;
+
+  /**
+   * Non-negative numbers, kept in an array of bytes until one of them needs an array of ints or
+   * longs.
+   */
+  private static final class Column {
+    private byte[] bytes = new byte[BLOCK];
+    private int[] ints;
+    private long[] longs;
+
+    static int getSize(Column c) {
+      if (c == null) return 1;
+      return 1 + BLOCK * (c.bytes != null ? 1 : c.ints != null ? 4 : 8);
+    }
+
+    static void write(Column c, ByteBuffer out) {
+      if (c == null) {
+        out.put((byte) 0);
+      } else if (c.bytes != null) {
+        out.put((byte) 1).put(c.bytes);
+      } else if (c.ints != null) {
+        out.put((byte) 4).asIntBuffer().put(c.ints);
+        out.position(out.position() + 4 * BLOCK);
+      } else {
+        out.put((byte) 8).asLongBuffer().put(c.longs);
+        out.position(out.position() + 8 * BLOCK);
+      }
+    }
+
+    static Column read(ByteBuffer in) {
+      final var kind = in.get();
+      if (kind == 0) return null;
+      final var ret = new Column();
+      if (kind == 1) {
+        in.get(ret.bytes);
+      } else if (kind == 4) {
+        ret.bytes = null;
+        ret.ints = new int[BLOCK];
+        in.asIntBuffer().get(ret.ints);
+        in.position(in.position() + 4 * BLOCK);
+      } else {
+        ret.bytes = null;
+        ret.longs = new long[BLOCK];
+        in.asLongBuffer().get(ret.longs);
+        in.position(in.position() + 8 * BLOCK);
+      }
+      return ret;
+    }
+
+    long get(int i) {
+      if (bytes != null) return bytes[i] & 0xffL;
+      if (ints != null) return ints[i] & 0xffffffffL;
+      return longs[i];
+    }
+
+    void set(int i, long v) {
+      if (bytes != null) {
+        if ((v & ~0xffL) == 0) {
+          bytes[i] = (byte) v;
+          return;
+        }
+        ints = new int[BLOCK];
+        for (var j = 0; j < BLOCK; j++) ints[j] = bytes[j] & 0xff;
+        bytes = null;
+      }
+      if (ints != null) {
+        if ((v & ~0xffffffffL) == 0) {
+          ints[i] = (int) v;
+          return;
+        }
+        longs = new long[BLOCK];
+        for (var j = 0; j < BLOCK; j++) longs[j] = ints[j] & 0xffffffffL;
+        ints = null;
+      }
+      longs[i] = v;
+    }
+  }
+
+  private static final class Block {
+    private long time; // start of the first sample that is kept
+    private Column durations = new Column();
+    private Column values = new Column();
+    private Column unknowns; // null while no sample has unknown bits
+    private Column errors; // null while no sample has error bits
+    private long address = -1; // in the segments, for a block without columns
+    private int length;
+
+    Value get(int i, int width) {
+      return Value.create(
+          width,
+          errors == null ? 0 : errors.get(i),
+          unknowns == null ? 0 : unknowns.get(i),
+          values.get(i));
+    }
+
+    void set(int i, Value v) {
+      values.set(i, v.getValueBits());
+      if (unknowns != null || v.getUnknownBits() != 0) {
+        if (unknowns == null) unknowns = new Column();
+        unknowns.set(i, v.getUnknownBits());
+      }
+      if (errors != null || v.getErrorBits() != 0) {
+        if (errors == null) errors = new Column();
+        errors.set(i, v.getErrorBits());
+      }
+    }
+  }
 
   // Signal position in list, name, etc.
   public int idx;
   public final SignalInfo info;
 
   // Signal data
+  private final ArrayList<Block> blocks = new ArrayList<>();
+  private int head; // samples of the first block that are no longer kept
+  private int curSize;
   private long timeStart;
-  private Value[][] val; // values, in blocks no larger than CHUNK
+  private long timeEnd;
   private Value last;
-  private long[][] dur; // duration of each value
-  private int curSize;
   private int maxSize; // limit, or zero for unlimited
-  private short firstIndex; // for wrapping, only when limited
+  private HistorySegments segments; // null until a block is moved out
+  private final Map<Block, Block> paged =
+      new LinkedHashMap<>(PAGED_BLOCKS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Block, Block> eldest) {
+          return size() > PAGED_BLOCKS;
+        }
+      };
 
   public Signal(
       int idx, SignalInfo info, Value initialValue, long duration, long timeStart, int maxSize) {
     this.idx = idx;
     this.info = info;
     this.timeStart = timeStart;
+    this.timeEnd = timeStart;
     this.maxSize = maxSize;
-    this.val = new Value[1][maxSize == 0 || maxSize > CHUNK ? CHUNK : maxSize];
-    this.dur = new long[1][maxSize == 0 || maxSize > CHUNK ? CHUNK : maxSize];
-    this.curSize = 0;
-    this.firstIndex = 0;
     extend(initialValue, duration);
   }
 
@@ -51,21 +181,120 @@ public class Signal {
   }
 
   public long getEndTime() {
-    var t = timeStart;
-    for (var p = 0; p < curSize; p++) {
-      var i = (firstIndex + p) % curSize;
-      t += dur[i / CHUNK][i % CHUNK];
+    return timeEnd;
+  }
+
+  private Block blockOf(int pos) {
+    return page(blocks.get((head + pos) / BLOCK));
+  }
+
+  /* returns the block itself, or for a block that was moved out a copy read back from segments */
+  private Block page(Block block) {
+    if (block.address < 0) return block;
+    synchronized (paged) {
+      var ret = paged.get(block);
+      if (ret == null) {
+        final var in = segments.get(block.address, block.length);
+        ret = new Block();
+        ret.durations = Column.read(in);
+        ret.values = Column.read(in);
+        ret.unknowns = Column.read(in);
+        ret.errors = Column.read(in);
+        paged.put(block, ret);
+      }
+      return ret;
+    }
+  }
+
+  /* moves a block that no longer changes out of the heap, and keeps it there if that fails */
+  private void spill(int index) {
+    if (index < 0) return;
+    final var block = blocks.get(index);
+    if (block.address >= 0) return;
+    final var length =
+        Column.getSize(block.durations)
+            + Column.getSize(block.values)
+            + Column.getSize(block.unknowns)
+            + Column.getSize(block.errors);
+    final var stub = new Block();
+    try {
+      if (segments == null) segments = new HistorySegments();
+      stub.address = segments.allocate(length);
+    } catch (IOException e) {
+      return;
+    }
+    final var out = segments.get(stub.address, length);
+    Column.write(block.durations, out);
+    Column.write(block.values, out);
+    Column.write(block.unknowns, out);
+    Column.write(block.errors, out);
+    stub.time = block.time;
+    stub.length = length;
+    stub.durations = null;
+    stub.values = null;
+    // readers that still hold the block itself can keep using it
+    blocks.set(index, stub);
+  }
+
+  /* gives the room of a block that was moved out and has been dropped back to the segments */
+  private void release(Block block) {
+    if (block.address < 0) return;
+    synchronized (paged) {
+      paged.remove(block);
     }
+    segments.free(block.address, block.length);
+  }
+
+  private int slotOf(int pos) {
+    return (head + pos) % BLOCK;
+  }
+
+  private long getDuration(int pos) {
+    return blockOf(pos).durations.get(slotOf(pos));
+  }
+
+  private void setDuration(int pos, long duration) {
+    blockOf(pos).durations.set(slotOf(pos), duration);
+  }
+
+  private Value getValue(int pos, int width) {
+    return blockOf(pos).get(slotOf(pos), width);
+  }
+
+  /* returns the start of the sample, by adding the durations before it in its block */
+  private long getStart(int pos) {
+    final var block = blockOf(pos);
+    final var first = (head + pos) / BLOCK == 0 ? head : 0;
+    var t = blocks.get((head + pos) / BLOCK).time;
+    for (var i = first; i < slotOf(pos); i++) t += block.durations.get(i);
     return t;
   }
 
+  /* returns the position of the sample at the given time, with timeStart <= t < timeEnd */
+  private int getPosition(long t) {
+    var lo = 0;
+    var hi = blocks.size() - 1;
+    while (lo < hi) {
+      final var mid = (lo + hi + 1) >>> 1;
+      if (blocks.get(mid).time <= t) lo = mid;
+      else hi = mid - 1;
+    }
+    var pos = Math.max(0, lo * BLOCK - head);
+    var end = blocks.get(lo).time + getDuration(pos);
+    while (pos < curSize - 1 && end <= t) {
+      pos++;
+      end += getDuration(pos);
+    }
+    return pos;
+  }
+
   public void extend(long duration) {
     if (last == null) {
       timeStart += duration;
     } else {
-      final var i = (firstIndex + curSize - 1) % curSize;
-      dur[i / CHUNK][i % CHUNK] += duration;
+      setDuration(curSize - 1, getDuration(curSize - 1) + duration);
     }
+    timeEnd += duration;
   }
 
   public void extend(Value v, long duration) {
@@ -74,70 +303,62 @@ public class Signal {
           "*** notice: value width mismatch for %s: width=%d bits, newVal=%s (%d bits)\n",
           info, info.getWidth(), v, v.getWidth());
     if (last != null && last.equals(v)) {
-      final var i = (firstIndex + curSize - 1) % curSize;
-      dur[i / CHUNK][i % CHUNK] += duration;
+      extend(duration);
       return;
     }
     last = v;
-    final var c = val.length;
-    final var cap = CHUNK * (c - 1) + val[c - 1].length;
-    if (curSize < cap) {
-      // fits in an existing chunk
-      val[curSize / CHUNK][curSize % CHUNK] = v;
-      dur[curSize / CHUNK][curSize % CHUNK] = duration;
-      curSize++;
-    } else if (curSize < maxSize || maxSize <= 0) {
-      // allocate another chunk
-      final var val2 = new Value[c + 1][];
-      final var dur2 = new long[c + 1][];
-      System.arraycopy(val, 0, val2, 0, c);
-      System.arraycopy(dur, 0, dur2, 0, c);
-      val2[c + 1] = new Value[maxSize == 0 || (maxSize - cap) > CHUNK ? CHUNK : (maxSize - cap)];
-      dur2[c + 1] = new long[maxSize == 0 || (maxSize - cap) > CHUNK ? CHUNK : (maxSize - cap)];
-      val = val2;
-      dur = dur2;
-      val[curSize / CHUNK][curSize % CHUNK] = v;
-      dur[curSize / CHUNK][curSize % CHUNK] = duration;
-      curSize++;
-    } else {
-      // limited size is filled, wrap around, and adjust start offset
-      timeStart += dur[firstIndex / CHUNK][firstIndex % CHUNK];
-      val[firstIndex / CHUNK][firstIndex % CHUNK] = v;
-      dur[firstIndex / CHUNK][firstIndex % CHUNK] = duration;
-      firstIndex++;
-      if (firstIndex >= maxSize) firstIndex = 0;
+    // limited size is filled, drop the oldest sample
+    if (maxSize > 0 && curSize == maxSize) removeFirst();
+    if ((head + curSize) % BLOCK == 0) {
+      final var block = new Block();
+      block.time = timeEnd;
+      blocks.add(block);
+      spill(blocks.size() - 1 - RESIDENT_BLOCKS);
     }
+    curSize++;
+    blockOf(curSize - 1).set(slotOf(curSize - 1), v);
+    setDuration(curSize - 1, duration);
+    timeEnd += duration;
+  }
+
+  private void removeFirst() {
+    final var first = blocks.get(0);
+    first.time += getDuration(0);
+    head++;
+    curSize--;
+    if (head == BLOCK) {
+      release(blocks.remove(0));
+      head = 0;
+    }
+    timeStart = blocks.isEmpty() ? timeEnd : blocks.get(0).time;
+  }
+
+  private void removeLast() {
+    curSize--;
+    if ((head + curSize) % BLOCK == 0) blocks.remove(blocks.size() - 1);
   }
 
   public void replaceRecent(Value v, long duration) {
     if (last == null || curSize == 0)
       throw new IllegalStateException("signal should have at least " + duration + " ns of data");
-    final var i = (firstIndex + curSize - 1) % curSize;
-    if (dur[i / CHUNK][i % CHUNK] == duration) {
-      val[i / CHUNK][i % CHUNK] = v;
+    final var pos = curSize - 1;
+    final var d = getDuration(pos);
+    if (d == duration) {
+      blockOf(pos).set(slotOf(pos), v);
       last = v;
-      final var j = (i + curSize - 1) % curSize;
-      if (curSize > 1 && val[j / CHUNK][j % CHUNK].equals(v)) {
-        dur[j / CHUNK][j % CHUNK] += duration;
-        curSize--;
-        // special case: last chunk is now entirely empty, must be removed
-        if (i % CHUNK == 0) {
-          int c = val.length - 1;
-          final var valueNew = new Value[c][];
-          final var durNew = new long[c][];
-          System.arraycopy(val, 0, valueNew, 0, c);
-          System.arraycopy(dur, 0, durNew, 0, c);
-          val = valueNew;
-          dur = durNew;
-        }
+      if (curSize > 1 && getValue(pos - 1, v.getWidth()).equals(v)) {
+        setDuration(pos - 1, getDuration(pos - 1) + duration);
+        removeLast();
       }
-    } else if (dur[i / CHUNK][i % CHUNK] > duration) {
-      dur[i / CHUNK][i % CHUNK] -= duration;
+    } else if (d > duration) {
+      setDuration(pos, d - duration);
+      timeEnd -= duration;
       extend(v, duration);
-    } else if (curSize == 1 && dur[i / CHUNK][i % CHUNK] + timeStart >= duration) {
-      timeStart -= (duration - dur[i / CHUNK][i % CHUNK]);
-      val[i / CHUNK][i % CHUNK] = v;
-      dur[i / CHUNK][i % CHUNK] = duration;
+    } else if (curSize == 1 && d + timeStart >= duration) {
+      timeStart = timeEnd - duration;
+      blocks.get(0).time = timeStart;
+      blockOf(pos).set(slotOf(pos), v);
+      setDuration(pos, duration);
       last = v;
     } else {
       throw new IllegalStateException(
@@ -145,96 +366,30 @@ public class Signal {
               + duration
               + " ns in duration,"
               + " but only "
-              + dur[i / CHUNK][i % CHUNK]
+              + d
               + " in last signal");
     }
   }
 
-  private void retainOnly(int offset, int amt, int cap) {
-    // shift all values [from offset to offset+amt] left into new arrays
-    // of size appropriate for eventual capacity cap
-    final var c = (amt + CHUNK - 1) / CHUNK;
-    final var last = cap == 0 ? CHUNK : Math.min(CHUNK, cap - (c - 1) * CHUNK);
-    final var v = new Value[c][];
-    final var d = new long[c][];
-    for (var i = 0; i < c; i++) {
-      v[i] = new Value[i < c - 1 ? CHUNK : last];
-      d[i] = new long[i < c - 1 ? CHUNK : last];
-    }
-    for (var p = 0; p < amt; p++) {
-      int i = (firstIndex + offset + p) % curSize;
-      v[p / CHUNK][p % CHUNK] = val[i / CHUNK][i % CHUNK];
-      d[p / CHUNK][p % CHUNK] = dur[i / CHUNK][i % CHUNK];
-    }
-    val = v;
-    dur = d;
-    firstIndex = 0;
-    curSize = amt;
-  }
-
   public void resize(int newMaxSize) {
     if (newMaxSize == maxSize) return;
-    if (newMaxSize == 0 || newMaxSize > maxSize) {
-      // growing
-      if (firstIndex != 0) retainOnly(0, curSize, newMaxSize); // keeps all data, but shifts it left
-    } else {
-      // shrinking: newMaxSize < maxSize
-      if (curSize <= newMaxSize) {
-        // Mostly empty, keep all data, but maybe truncate last chunk if needed
-        // to get capacity below new max size.
-        // Note: firstIndex must be 0, since otherwize curSize==maxSize,
-        // and that would mean curSize > newMaxSize.
-        // There are two cases:
-        //  very unfull:
-        //    cap -----------------------------------------------|
-        //    curSize --------------------------|
-        //    [ 0+ full large-chunks ] [ partly full large-chunk ] [ not yet allocated... ]
-        //  nearly full:
-        //    cap ---------------------------------------------|
-        //    curSize -------------------------|
-        //    [ 0+ full large-chunks ] [ partly full end-chunk ]
-        // In the very unfull case, we may be able to do nothing at all
-        // (if cap <= newMaxSize), or we may have to shrink that last allocated
-        // chunk (if cap > newMaxSize).
-        // In the nearly full case, cap > newMaxSize and we need to shrink the
-        // last allocated chunk.
-        final var c = val.length;
-        final var cap = CHUNK * (c - 1) + val[c - 1].length;
-        if (cap > newMaxSize) {
-          // Note: # of existing chunks (c) must be equal to # of new chunks
-          final var last = Math.min(CHUNK, newMaxSize - (c - 1) * CHUNK);
-          final var v = new Value[last];
-          final var d = new long[last];
-          System.arraycopy(val[c - 1], 0, v, 0, last);
-          System.arraycopy(dur[c - 1], 0, d, 0, last);
-          val[c - 1] = v;
-          dur[c - 1] = d;
-        }
-      } else { // curSize > newMaxSize
-        // too much data, keep only most recent data and shift it left
-        final var discard = (maxSize - newMaxSize);
-        for (var p = 0; p < discard; p++) {
-          final var i = (firstIndex + p) % curSize;
-          timeStart += dur[i / CHUNK][i % CHUNK];
-        }
-        retainOnly(discard, newMaxSize, newMaxSize);
-      }
+    if (newMaxSize > 0) {
+      // too much data, keep only most recent data
+      while (curSize > newMaxSize) removeFirst();
     }
     maxSize = newMaxSize;
   }
 
   public void reset(Value v, long duration) {
-    if (val.length > 1) {
-      final var val2 = new Value[1][];
-      final var dur2 = new long[1][];
-      val2[0] = val[0];
-      dur2[0] = dur[0];
-      val = val2;
-      dur = dur2;
+    blocks.clear();
+    synchronized (paged) {
+      paged.clear();
     }
-    last = null;
+    if (segments != null) segments.clear();
+    head = 0;
     curSize = 0;
-    firstIndex = 0;
+    timeEnd = timeStart;
+    last = null;
     extend(v, duration);
   }
 
@@ -248,10 +403,8 @@ public class Signal {
     public Iterator() {
       position = 0;
       time = timeStart;
-      final var i = firstIndex;
-      final var width = info.getWidth();
-      value = val[i / CHUNK][i % CHUNK].extendWidth(width, Value.FALSE);
-      duration = dur[i / CHUNK][i % CHUNK];
+      value = getValue(0, info.getWidth());
+      duration = getDuration(0);
     }
 
     public Iterator(long t) {
@@ -271,10 +424,8 @@ public class Signal {
       }
       position++;
       time += duration;
-      final var i = (firstIndex + position) % curSize;
-      final var width = info.getWidth();
-      value = val[i / CHUNK][i % CHUNK].extendWidth(width, Value.FALSE);
-      duration = dur[i / CHUNK][i % CHUNK];
+      value = getValue(position, info.getWidth());
+      duration = getDuration(position);
       return true;
     }
 
@@ -282,8 +433,21 @@ public class Signal {
       if (value == null) return false;
       if (timeFwd <= 0) return true;
       final var t = time + timeFwd;
-      while (t >= time + duration) {
-        if (!advance()) return false;
+      if (t >= timeEnd) {
+        if (position < curSize - 1) {
+          position = curSize - 1;
+          time = getStart(position);
+        }
+        value = null;
+        duration = 0;
+        return false;
+      }
+      if (t >= time + duration) {
+        // the samples in between are skipped with a search instead of one by one
+        position = getPosition(t);
+        time = getStart(position);
+        value = getValue(position, info.getWidth());
+        duration = getDuration(position);
       }
       // postcondition: t < time + duration
       //                t - time < duration
@@ -293,18 +457,9 @@ public class Signal {
     }
   }
 
-  // TODO: easily optimized
   public Value getValue(long t) { // always current width, even when width changes
-    if (t < timeStart) return null;
-    final var width = info.getWidth();
-    var tt = timeStart;
-    for (int p = 0; p < curSize; p++) {
-      final var i = (firstIndex + p) % curSize;
-      final var d = dur[i / CHUNK][i % CHUNK];
-      if (t < tt + d) return val[i / CHUNK][i % CHUNK].extendWidth(width, Value.FALSE);
-      tt += d;
-    }
-    return null;
+    if (t < timeStart || t >= timeEnd) return null;
+    return getValue(getPosition(t), info.getWidth());
   }
 
   public String getFormattedValue(long t) {
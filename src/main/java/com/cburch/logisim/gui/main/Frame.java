@@ -112,6 +112,7 @@ public class Frame extends LFrame.MainWindow implements LocaleListener {
   // for the Appearance view
   private AppearanceView appearance;
   private Double lastFraction = AppPreferences.WINDOW_RIGHT_SPLIT.get();
+  private int savesInProgress = 0;
 
   public Frame(Project project) {
     super(project);
@@ -420,6 +421,9 @@ public class Frame extends LFrame.MainWindow implements LocaleListener {
     if (project.isFileDirty()) {
       title.append(String.format("\u0020[%s]", S.get("titleUnsavedProjectState").toUpperCase()));
     }
+    if (savesInProgress > 0) {
+      title.append(String.format("\u0020[%s]", S.get("titleSavingProjectState").toUpperCase()));
+    }
 
     if (!BuildInfo.version.isStable()) {
       title.append(String.format("\u0020(ID:%s, BUILT:%s)", BuildInfo.buildId, BuildInfo.dateIso8601));
@@ -429,6 +433,12 @@ public class Frame extends LFrame.MainWindow implements LocaleListener {
     myProjectListener.enableSave();
   }
 
+  /** Shows in the title whether the project is being saved in the background. */
+  public void setSaving(boolean value) {
+    savesInProgress += value ? 1 : -1;
+    buildTitleString();
+  }
+
   public boolean confirmClose() {
     return confirmClose(S.get("confirmCloseTitle"));
   }
@@ -23,6 +23,7 @@ class ExperimentalOptions extends OptionsPanel {
   private static final long serialVersionUID = 1L;
   private final JLabel accelRestart = new JLabel();
   private final PrefOptionList accel;
+  private final PrefBoolean projectCache;
 
   public ExperimentalOptions(PreferencesFrame window) {
     super(window);
@@ -46,9 +47,14 @@ class ExperimentalOptions extends OptionsPanel {
     final var accelPanel2 = new JPanel();
     accelPanel2.add(accelPanel);
 
+    projectCache = new PrefBoolean(AppPreferences.PROJECT_CACHE, S.getter("projectCacheLabel"));
+    final var cachePanel = new JPanel();
+    cachePanel.add(projectCache);
+
     setLayout(new BoxLayout(this, BoxLayout.PAGE_AXIS));
     add(Box.createGlue());
     add(accelPanel2);
+    add(cachePanel);
     add(Box.createGlue());
   }
 
@@ -65,6 +71,7 @@ class ExperimentalOptions extends OptionsPanel {
   @Override
   public void localeChanged() {
     accel.localeChanged();
+    projectCache.localeChanged();
     accelRestart.setText(S.get("accelRestartLabel"));
   }
 }
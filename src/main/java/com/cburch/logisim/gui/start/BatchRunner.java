@@ -0,0 +1,430 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.start;
+
+import static com.cburch.logisim.gui.Strings.S;
+
+import com.cburch.logisim.circuit.Analyze;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.data.TestException;
+import com.cburch.logisim.data.TestVector;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.LoadFailedException;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.gui.test.TestThread;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.util.UniquelyNamedThread;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Timer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.text.StringEscapeUtils;
+
+/**
+ * Runs the jobs of a manifest in a single JVM, as a faster alternative to starting Logisim for
+ * each check. Every line of the manifest holds a job as
+ *
+ * <pre>
+ * file circuit check [timeout]
+ * </pre>
+ *
+ * where circuit is "-" for the main circuit of the file, check is either the name of a test vector
+ * file or "halt" to run the circuit until its halt pin goes high, and timeout is in seconds. Files
+ * are relative to the manifest, and everything after a "#" is a comment. Each file is loaded only
+ * once, after which the jobs run on a pool of workers, each on a circuit state of its own.
+ */
+class BatchRunner {
+
+  private static final String MAIN_CIRCUIT = "-";
+  private static final String HALT = "halt";
+
+  enum Status {
+    PASSED,
+    FAILED,
+    ERROR
+  }
+
+  record Job(int line, File file, String circuit, String check, int timeout) {
+    String getName() {
+      return file.getName() + " " + circuit + " " + new File(check).getName();
+    }
+  }
+
+  record Result(Job job, Status status, String message, long millis) {}
+
+  static int run(Startup args) {
+    return run(
+        args.getBatchManifest(),
+        args.getBatchTimeout(),
+        args.getSubstitutions(),
+        args.getMaxTicks(),
+        args.getBatchReport());
+  }
+
+  /**
+   * Runs the jobs of the manifest and writes the report, if given. Returns 0 if all jobs passed, 1
+   * if any failed or could not be run, and -1 if the manifest or the report is unusable.
+   */
+  static int run(
+      File manifest,
+      int defaultTimeout,
+      Map<File, File> substitutions,
+      long maxTicks,
+      File report) {
+    final var start = System.currentTimeMillis();
+    final List<Job> jobs;
+    try {
+      jobs = readManifest(manifest, defaultTimeout);
+    } catch (IOException e) {
+      TtyInterface.logger.error("{}", S.get("batchManifestError", e.getMessage()));
+      return -1;
+    }
+
+    // the files are loaded by this thread, such that their libraries are loaded only once
+    final var projects = new HashMap<File, Project>();
+    final var loadErrors = new HashMap<File, String>();
+    final var results = new ArrayList<Future<Result>>();
+    final var pool =
+        Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            runnable -> {
+              final var thread = new UniquelyNamedThread(runnable, "BatchRunner");
+              thread.setDaemon(true);
+              return thread;
+            });
+    final var timer = new Timer("BatchRunnerTimeout", true);
+    try {
+      for (final var job : jobs) {
+        if (!projects.containsKey(job.file())) {
+          try {
+            final var file = new Loader(null).openLogisimFile(job.file(), substitutions);
+            projects.put(job.file(), new Project(file));
+          } catch (LoadFailedException e) {
+            projects.put(job.file(), null);
+            loadErrors.put(job.file(), e.getMessage());
+          }
+        }
+        final var proj = projects.get(job.file());
+        final var failure = prepare(job, proj, loadErrors.get(job.file()));
+        if (failure != null) {
+          final var result = new Result(job, Status.ERROR, failure, 0);
+          results.add(pool.submit(() -> result));
+          continue;
+        }
+        final var circuit = getCircuit(job, proj);
+        final var haltPin = job.check().equals(HALT) ? getHaltPin(circuit) : null;
+        results.add(
+            pool.submit(() -> runJob(job, proj, circuit, haltPin, timer, maxTicks)));
+      }
+
+      final var done = new ArrayList<Result>();
+      for (final var future : results) {
+        final Result result;
+        try {
+          result = future.get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+          throw new IllegalStateException(e.getCause());
+        }
+        final var key =
+            switch (result.status()) {
+              case PASSED -> "batchPassed";
+              case FAILED -> "batchFailed";
+              case ERROR -> "batchError";
+            };
+        System.out.println(S.get(key, result.job().getName(), result.message()));
+        done.add(result);
+      }
+
+      final var seconds = getSeconds(System.currentTimeMillis() - start);
+      final var passed = count(done, Status.PASSED);
+      final var failed = count(done, Status.FAILED);
+      final var errors = count(done, Status.ERROR);
+      System.out.println(
+          S.get(
+              "batchResults",
+              Integer.toString(passed),
+              Integer.toString(failed),
+              Integer.toString(errors),
+              seconds));
+      if (report != null) {
+        try {
+          writeReport(report, manifest.getName(), done, seconds);
+        } catch (IOException e) {
+          TtyInterface.logger.error("{}", S.get("batchReportError", e.getMessage()));
+          return -1;
+        }
+      }
+      return failed + errors == 0 ? 0 : 1;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return -1;
+    } finally {
+      timer.cancel();
+      pool.shutdownNow();
+    }
+  }
+
+  static List<Job> readManifest(File manifest, int defaultTimeout) throws IOException {
+    final var dir = manifest.getAbsoluteFile().getParentFile();
+    final var jobs = new ArrayList<Job>();
+    var lineNumber = 0;
+    for (final var line : Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8)) {
+      lineNumber++;
+      final var comment = line.indexOf('#');
+      final var fields = (comment >= 0 ? line.substring(0, comment) : line).trim();
+      if (fields.isEmpty()) continue;
+      final var parts = fields.split("\\s+");
+      var timeout = defaultTimeout;
+      if (parts.length == 4) {
+        try {
+          timeout = Integer.parseInt(parts[3]);
+        } catch (NumberFormatException e) {
+          timeout = -1;
+        }
+      }
+      if (parts.length < 3 || parts.length > 4 || timeout < 0)
+        throw new IOException(S.get("batchManifestLineError", Integer.toString(lineNumber)));
+      final var check = parts[2].equals(HALT) ? HALT : getFile(dir, parts[2]).getPath();
+      jobs.add(new Job(lineNumber, getFile(dir, parts[0]), parts[1], check, timeout));
+    }
+    return jobs;
+  }
+
+  private static File getFile(File dir, String name) {
+    final var file = new File(name);
+    return file.isAbsolute() ? file : new File(dir, name);
+  }
+
+  /* returns why the job cannot be run, or null if it can */
+  private static String prepare(Job job, Project proj, String loadError) {
+    if (proj == null) return S.get("batchLoadError", job.file().getName(), loadError);
+    if (getCircuit(job, proj) == null) return S.get("batchNoCircuit", job.circuit());
+    if (job.check().equals(HALT) && getHaltPin(getCircuit(job, proj)) == null)
+      return S.get("batchNoHaltPin");
+    return null;
+  }
+
+  private static Circuit getCircuit(Job job, Project proj) {
+    final var file = proj.getLogisimFile();
+    return job.circuit().equals(MAIN_CIRCUIT)
+        ? file.getMainCircuit()
+        : file.getCircuit(job.circuit());
+  }
+
+  private static Instance getHaltPin(Circuit circuit) {
+    for (final var entry : Analyze.getPinLabels(circuit).entrySet()) {
+      if (!Pin.FACTORY.isInputPin(entry.getKey()) && HALT.equals(entry.getValue()))
+        return entry.getKey();
+    }
+    return null;
+  }
+
+  private static Result runJob(
+      Job job, Project proj, Circuit circuit, Instance haltPin, Timer timer, long maxTicks) {
+    final var start = System.currentTimeMillis();
+    final var timeout = new Circuit.TimeoutSimulation();
+    if (job.timeout() > 0) timer.schedule(timeout, job.timeout() * 1000L);
+    try {
+      final var result =
+          haltPin != null
+              ? runUntilHalt(job, proj, circuit, haltPin, timeout, maxTicks)
+              : runTestVector(job, proj, circuit, timeout);
+      final var millis = System.currentTimeMillis() - start;
+      return new Result(job, result.status(), result.message(), millis);
+    } finally {
+      timeout.cancel();
+    }
+  }
+
+  private static Result runUntilHalt(
+      Job job,
+      Project proj,
+      Circuit circuit,
+      Instance haltPin,
+      Circuit.TimeoutSimulation timeout,
+      long maxTicks) {
+    final var state = new CircuitState(proj, circuit);
+    final var prop = state.getPropagator();
+    prop.propagate();
+    for (long tickCount = 0; ; tickCount++) {
+      if (Pin.FACTORY.getValue(state.getInstanceState(haltPin)).equals(Value.TRUE))
+        return new Result(job, Status.PASSED, S.get("batchHalted", Long.toString(tickCount)), 0);
+      if (prop.isOscillating())
+        return new Result(job, Status.FAILED, S.get("ttyHaltReasonOscillation"), 0);
+      if (maxTicks > 0 && tickCount >= maxTicks)
+        return new Result(job, Status.FAILED, S.get("ttyHaltReasonMaxTicks"), 0);
+      if (timeout.isTimeOut()) return timedOut(job);
+      prop.toggleClocks();
+      prop.propagate();
+    }
+  }
+
+  private static Result runTestVector(
+      Job job, Project proj, Circuit circuit, Circuit.TimeoutSimulation timeout) {
+    try (final var vector = TestVector.open(new File(job.check()))) {
+      final var pins = TestThread.getPins(circuit, vector);
+      final var state = new CircuitState(proj, circuit);
+      final var row = new Value[pins.length];
+      var rowCount = 0;
+      var failCount = 0;
+      String firstFailure = null;
+      while (vector.readRow(row)) {
+        if (timeout.isTimeOut()) return timedOut(job);
+        rowCount++;
+        try {
+          circuit.doTestVector(state, pins, row);
+        } catch (TestException e) {
+          if (failCount++ == 0) firstFailure = rowCount + ": " + e.getMessage();
+        }
+      }
+      if (failCount == 0) {
+        final var message = S.get("batchRowsPassed", Integer.toString(rowCount));
+        return new Result(job, Status.PASSED, message, 0);
+      }
+      final var message =
+          S.get(
+              "batchRowsFailed",
+              Integer.toString(failCount),
+              Integer.toString(rowCount),
+              firstFailure);
+      return new Result(job, Status.FAILED, message, 0);
+    } catch (TestException e) {
+      return new Result(job, Status.ERROR, S.get("testSetupFailed", e.getMessage()), 0);
+    } catch (IOException e) {
+      return new Result(job, Status.ERROR, S.get("testLoadingFailed", e.getMessage()), 0);
+    }
+  }
+
+  private static Result timedOut(Job job) {
+    final var message = S.get("batchTimedOut", Integer.toString(job.timeout()));
+    return new Result(job, Status.FAILED, message, 0);
+  }
+
+  private static int count(List<Result> results, Status status) {
+    var ret = 0;
+    for (final var result : results) {
+      if (result.status() == status) ret++;
+    }
+    return ret;
+  }
+
+  private static String getSeconds(long millis) {
+    return String.format(Locale.ROOT, "%.3f", millis / 1000.0);
+  }
+
+  /** Writes the results as JSON if the name of the report ends in ".json", else as JUnit XML. */
+  static void writeReport(File report, String suite, List<Result> results, String seconds)
+      throws IOException {
+    try (final var out =
+        new PrintWriter(Files.newBufferedWriter(report.toPath(), StandardCharsets.UTF_8))) {
+      if (report.getName().toLowerCase(Locale.ROOT).endsWith(".json")) {
+        writeJson(out, results, seconds);
+      } else {
+        writeJunit(out, suite, results, seconds);
+      }
+      if (out.checkError()) throw new IOException(report.getPath());
+    }
+  }
+
+  private static void writeJunit(
+      PrintWriter out, String suite, List<Result> results, String seconds) {
+    out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+    out.println(
+        "<testsuite name=\""
+            + xml(suite)
+            + "\" tests=\""
+            + results.size()
+            + "\" failures=\""
+            + count(results, Status.FAILED)
+            + "\" errors=\""
+            + count(results, Status.ERROR)
+            + "\" time=\""
+            + seconds
+            + "\">");
+    for (final var result : results) {
+      final var job = result.job();
+      out.print(
+          "  <testcase classname=\""
+              + xml(job.file().getName())
+              + "\" name=\""
+              + xml(job.circuit() + " " + new File(job.check()).getName())
+              + "\" time=\""
+              + getSeconds(result.millis())
+              + "\"");
+      final var tag =
+          switch (result.status()) {
+            case PASSED -> null;
+            case FAILED -> "failure";
+            case ERROR -> "error";
+          };
+      if (tag == null) {
+        out.println("/>");
+      } else {
+        out.println(">");
+        out.println("    <" + tag + " message=\"" + xml(result.message()) + "\"/>");
+        out.println("  </testcase>");
+      }
+    }
+    out.println("</testsuite>");
+  }
+
+  private static void writeJson(PrintWriter out, List<Result> results, String seconds) {
+    out.println("{");
+    out.println("  \"passed\": " + count(results, Status.PASSED) + ",");
+    out.println("  \"failed\": " + count(results, Status.FAILED) + ",");
+    out.println("  \"errors\": " + count(results, Status.ERROR) + ",");
+    out.println("  \"time\": " + seconds + ",");
+    out.println("  \"jobs\": [");
+    for (var i = 0; i < results.size(); i++) {
+      final var result = results.get(i);
+      final var job = result.job();
+      out.println(
+          "    {\"line\": "
+              + job.line()
+              + ", \"file\": \""
+              + json(job.file().getPath())
+              + "\", \"circuit\": \""
+              + json(job.circuit())
+              + "\", \"check\": \""
+              + json(job.check())
+              + "\", \"status\": \""
+              + result.status().name().toLowerCase(Locale.ROOT)
+              + "\", \"message\": \""
+              + json(result.message())
+              + "\", \"time\": "
+              + getSeconds(result.millis())
+              + (i + 1 < results.size() ? "}," : "}"));
+    }
+    out.println("  ]");
+    out.println("}");
+  }
+
+  private static String xml(String value) {
+    return StringEscapeUtils.escapeXml10(value);
+  }
+
+  private static String json(String value) {
+    return StringEscapeUtils.escapeJson(value);
+  }
+}
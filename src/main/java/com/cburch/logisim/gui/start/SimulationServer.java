@@ -0,0 +1,465 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.start;
+
+import static com.cburch.logisim.gui.Strings.S;
+
+import com.cburch.logisim.circuit.Analyze;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.data.TestException;
+import com.cburch.logisim.data.TestVector;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.LoadFailedException;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.gui.test.TestThread;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.util.UniquelyNamedThread;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps circuits loaded for clients that connect to a local socket, such that they do not have to
+ * start Logisim for each simulation. The socket is either a TCP port on the loopback address or a
+ * Unix domain socket. Every request and every response is a frame holding a 4 byte big-endian
+ * length followed by that many bytes of UTF-8 text. A request is a command and its arguments,
+ * separated by spaces, and a response starts with "OK" or with "ERR" and a message:
+ *
+ * <pre>
+ * load circuit file          OK id      ("-" for the main circuit of the file)
+ * unload id                  OK
+ * poke id pin value          OK         (value as in test vectors)
+ * propagate id               OK
+ * tick id [count]            OK count
+ * peek id pin                OK value   (in binary)
+ * run-vectors id file        OK passed failed
+ * </pre>
+ *
+ * <p>Every loaded circuit has a thread of its own that runs all its commands, so the circuits are
+ * simulated in parallel while the commands for one circuit are run in order.
+ */
+class SimulationServer {
+
+  static final String OK = "OK";
+  static final String ERR = "ERR";
+  private static final int MAX_FRAME_LENGTH = 1 << 20;
+  /* loading is refused when less heap than this would be left */
+  private static final long MIN_FREE_MEMORY = 64L << 20;
+
+  private static class Session {
+    private final int id;
+    private final Project proj;
+    private final Circuit circuit;
+    private final CircuitState state;
+    private final Map<String, Instance> pins = new HashMap<>();
+    private final ExecutorService thread;
+
+    Session(int id, Project proj, Circuit circuit) {
+      this.id = id;
+      this.proj = proj;
+      this.circuit = circuit;
+      state = new CircuitState(proj, circuit);
+      for (final var entry : Analyze.getPinLabels(circuit).entrySet()) {
+        pins.put(entry.getValue(), entry.getKey());
+      }
+      thread =
+          Executors.newSingleThreadExecutor(
+              runnable -> {
+                final var ret = new UniquelyNamedThread(runnable, "SimulationServer-" + id);
+                ret.setDaemon(true);
+                return ret;
+              });
+    }
+
+    Instance getPin(String label) {
+      final var pin = pins.get(label);
+      if (pin == null) throw new IllegalArgumentException(S.get("serverNoPin", label));
+      return pin;
+    }
+  }
+
+  private final ServerSocketChannel channel;
+  /* the file of a Unix domain socket, which is removed when the server is closed */
+  private final Path socketFile;
+  private final Map<File, File> substitutions;
+  private final int maxProjects;
+  private final Map<Integer, Session> sessions = new ConcurrentHashMap<>();
+  private final AtomicInteger lastId = new AtomicInteger();
+  private final Object loadLock = new Object();
+
+  SimulationServer(ServerSocketChannel channel, Map<File, File> substitutions, int maxProjects)
+      throws IOException {
+    this.channel = channel;
+    socketFile =
+        channel.getLocalAddress() instanceof UnixDomainSocketAddress unixAddress
+            ? unixAddress.getPath()
+            : null;
+    this.substitutions = substitutions;
+    this.maxProjects = maxProjects;
+  }
+
+  static int run(Startup args) {
+    try {
+      final var channel = open(args.getServerAddress());
+      final var server =
+          new SimulationServer(channel, args.getSubstitutions(), args.getServerMaxProjects());
+      System.out.println(S.get("serverListening", channel.getLocalAddress().toString()));
+      // the server runs until Logisim is stopped, which also has to remove the socket file
+      Runtime.getRuntime()
+          .addShutdownHook(
+              new Thread(
+                  () -> {
+                    try {
+                      server.close();
+                    } catch (IOException e) {
+                      // nothing left to do while exiting
+                    }
+                  }));
+      server.serve();
+      return 0;
+    } catch (IOException e) {
+      TtyInterface.logger.error("{}", S.get("serverError", e.getMessage()));
+      return -1;
+    }
+  }
+
+  /**
+   * Opens a server socket on the loopback address if the address is a port number, and on a Unix
+   * domain socket with the given path otherwise. A socket file left behind by a server that is no
+   * longer running is replaced.
+   */
+  static ServerSocketChannel open(String address) throws IOException {
+    try {
+      final var port = Integer.parseInt(address);
+      final var ret = ServerSocketChannel.open();
+      ret.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+      return ret;
+    } catch (NumberFormatException e) {
+      final var path = Path.of(address);
+      removeStaleSocket(path);
+      final var ret = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+      ret.bind(UnixDomainSocketAddress.of(path));
+      return ret;
+    }
+  }
+
+  /* a socket file refusing connections is left behind by a server that has not been closed */
+  private static void removeStaleSocket(Path path) {
+    if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)
+        || Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)
+        || Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) return;
+    try {
+      // another server is listening, binding reports that the address is in use
+      SocketChannel.open(UnixDomainSocketAddress.of(path)).close();
+    } catch (IOException e) {
+      try {
+        Files.deleteIfExists(path);
+      } catch (IOException deleteError) {
+        // binding reports the problem
+      }
+    }
+  }
+
+  /** Accepts clients until the server is closed. */
+  void serve() throws IOException {
+    final var clients =
+        Executors.newCachedThreadPool(
+            runnable -> {
+              final var thread = new UniquelyNamedThread(runnable, "SimulationServerClient");
+              thread.setDaemon(true);
+              return thread;
+            });
+    try {
+      while (true) {
+        final var client = channel.accept();
+        clients.execute(() -> handle(client));
+      }
+    } catch (ClosedChannelException e) {
+      // the server has been closed
+    } finally {
+      clients.shutdownNow();
+      for (final var session : sessions.values()) session.thread.shutdownNow();
+      sessions.clear();
+    }
+  }
+
+  /** Stops the server, removing the file of a Unix domain socket. */
+  void close() throws IOException {
+    channel.close();
+    if (socketFile != null) Files.deleteIfExists(socketFile);
+  }
+
+  private void handle(SocketChannel client) {
+    try (client;
+        final var in =
+            new DataInputStream(new BufferedInputStream(Channels.newInputStream(client)));
+        final var out =
+            new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(client)))) {
+      while (true) {
+        final String request;
+        try {
+          request = readFrame(in);
+        } catch (EOFException e) {
+          return;
+        }
+        writeFrame(out, execute(request));
+        out.flush();
+      }
+    } catch (IOException e) {
+      // the client is gone, its circuits stay loaded until they are unloaded
+    }
+  }
+
+  static String readFrame(DataInputStream in) throws IOException {
+    final var length = in.readInt();
+    if (length < 0 || length > MAX_FRAME_LENGTH)
+      throw new IOException("Bad frame length " + length);
+    final var bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  static void writeFrame(DataOutputStream out, String text) throws IOException {
+    final var bytes = text.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /** Runs a request and returns the response. */
+  String execute(String request) {
+    final var command = request.trim().split(" ", 2);
+    final var args = command.length > 1 ? command[1].trim() : "";
+    try {
+      return switch (command[0]) {
+        case "load" -> load(split(args, 2));
+        case "unload" -> unload(split(args, 1));
+        case "poke" -> poke(split(args, 3));
+        case "propagate" -> propagate(split(args, 1));
+        case "tick" -> tick(args.split(" +"));
+        case "peek" -> peek(split(args, 2));
+        case "run-vectors" -> runVectors(split(args, 2));
+        default -> throw new IllegalArgumentException(S.get("serverUnknownCommand", command[0]));
+      };
+    } catch (IllegalArgumentException e) {
+      return ERR + " " + e.getMessage();
+    } catch (RuntimeException e) {
+      return ERR + " " + e;
+    }
+  }
+
+  /* splits the arguments in the given number of parts, the last one getting the rest of them */
+  private static String[] split(String args, int count) {
+    final var ret = args.split(" +", count);
+    if (args.isEmpty() || ret.length < count)
+      throw new IllegalArgumentException(S.get("serverMissingArguments"));
+    return ret;
+  }
+
+  private String load(String[] args) {
+    final var file = new File(args[1]);
+    if (!file.isFile()) throw new IllegalArgumentException(S.get("serverNoFile", args[1]));
+    synchronized (loadLock) {
+      if (sessions.size() >= maxProjects)
+        throw new IllegalArgumentException(S.get("serverTooManyProjects"));
+      final var runtime = Runtime.getRuntime();
+      final var used = runtime.totalMemory() - runtime.freeMemory();
+      if (runtime.maxMemory() - used < MIN_FREE_MEMORY)
+        throw new IllegalArgumentException(S.get("serverOutOfMemory"));
+      final Project proj;
+      try {
+        proj = new Project(new Loader(null).openLogisimFile(file, substitutions));
+      } catch (LoadFailedException e) {
+        throw new IllegalArgumentException(S.get("ttyLoadError", file.getName()));
+      }
+      final var circuit =
+          args[0].equals("-")
+              ? proj.getLogisimFile().getMainCircuit()
+              : proj.getLogisimFile().getCircuit(args[0]);
+      if (circuit == null) throw new IllegalArgumentException(S.get("batchNoCircuit", args[0]));
+      final var id = lastId.incrementAndGet();
+      final var session = new Session(id, proj, circuit);
+      // the initial propagation creates the states of the subcircuits
+      try {
+        perform(session, () -> session.state.getPropagator().propagate());
+      } catch (RuntimeException e) {
+        // the project is not counted, nor is its thread kept, when it cannot be simulated
+        session.thread.shutdownNow();
+        throw e;
+      }
+      sessions.put(id, session);
+      return OK + " " + id;
+    }
+  }
+
+  private String unload(String[] args) {
+    final var session = sessions.remove(getNumber(args[0]));
+    if (session == null) throw new IllegalArgumentException(S.get("serverNoProject", args[0]));
+    session.thread.shutdownNow();
+    return OK;
+  }
+
+  private String poke(String[] args) {
+    final var session = getSession(args[0]);
+    final var pin = session.getPin(args[1]);
+    if (!Pin.FACTORY.isInputPin(pin))
+      throw new IllegalArgumentException(S.get("serverNotInput", args[1]));
+    final Value value;
+    try {
+      value = Value.fromLogString(pin.getAttributeValue(StdAttr.WIDTH), args[2]);
+    } catch (Exception e) {
+      throw new IllegalArgumentException(e.getMessage());
+    }
+    perform(
+        session,
+        () -> {
+          Pin.FACTORY.setValue(session.state.getInstanceState(pin), value);
+          // the pin only takes the new value when it is propagated again
+          session.state.markComponentAsDirty(pin.getComponent());
+        });
+    return OK;
+  }
+
+  private String propagate(String[] args) {
+    final var session = getSession(args[0]);
+    return call(
+        session,
+        () -> {
+          final var prop = session.state.getPropagator();
+          prop.propagate();
+          return prop.isOscillating() ? ERR + " " + S.get("ttyHaltReasonOscillation") : OK;
+        });
+  }
+
+  private String tick(String[] args) {
+    if (args.length < 1 || args.length > 2 || args[0].isEmpty())
+      throw new IllegalArgumentException(S.get("serverMissingArguments"));
+    final var session = getSession(args[0]);
+    final var count = args.length > 1 ? getNumber(args[1]) : 1;
+    return call(
+        session,
+        () -> {
+          final var prop = session.state.getPropagator();
+          for (var i = 0; i < count; i++) {
+            prop.toggleClocks();
+            prop.propagate();
+            if (prop.isOscillating()) return ERR + " " + S.get("ttyHaltReasonOscillation");
+          }
+          return OK + " " + count;
+        });
+  }
+
+  private String peek(String[] args) {
+    final var session = getSession(args[0]);
+    final var pin = session.getPin(args[1]);
+    return call(
+        session,
+        () -> {
+          final var value = Pin.FACTORY.getValue(session.state.getInstanceState(pin));
+          return OK + " " + value.toBinaryString();
+        });
+  }
+
+  private String runVectors(String[] args) {
+    final var session = getSession(args[0]);
+    final var file = new File(args[1]);
+    return call(
+        session,
+        () -> {
+          try (final var vector = TestVector.open(file)) {
+            final var pins = TestThread.getPins(session.circuit, vector);
+            // the vectors do not change the state that is poked and peeked
+            final var state = new CircuitState(session.proj, session.circuit);
+            final var row = new Value[pins.length];
+            var passed = 0;
+            var failed = 0;
+            while (vector.readRow(row)) {
+              try {
+                session.circuit.doTestVector(state, pins, row);
+                passed++;
+              } catch (TestException e) {
+                failed++;
+              }
+            }
+            return OK + " " + passed + " " + failed;
+          } catch (TestException e) {
+            return ERR + " " + S.get("testSetupFailed", e.getMessage());
+          } catch (IOException e) {
+            return ERR + " " + S.get("testLoadingFailed", e.getMessage());
+          }
+        });
+  }
+
+  private static int getNumber(String arg) {
+    try {
+      final var ret = Integer.parseInt(arg);
+      if (ret > 0) return ret;
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    throw new IllegalArgumentException(S.get("serverBadNumber", arg));
+  }
+
+  private Session getSession(String arg) {
+    final var session = sessions.get(getNumber(arg));
+    if (session == null) throw new IllegalArgumentException(S.get("serverNoProject", arg));
+    return session;
+  }
+
+  private static void perform(Session session, Runnable command) {
+    call(
+        session,
+        () -> {
+          command.run();
+          return OK;
+        });
+  }
+
+  /* runs the command on the thread of the session and waits for it */
+  private static String call(Session session, Callable<String> command) {
+    try {
+      return session.thread.submit(command).get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException | RejectedExecutionException e) {
+      // the circuit has been unloaded by another client
+      throw new IllegalArgumentException(S.get("serverNoProject", Integer.toString(session.id)));
+    }
+  }
+}
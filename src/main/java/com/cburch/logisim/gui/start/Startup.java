@@ -67,6 +67,7 @@ import javax.swing.JTabbedPane;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.JToolTip;
+import javax.swing.SwingUtilities;
 import javax.swing.UIDefaults;
 import javax.swing.UIManager;
 import org.apache.commons.cli.CommandLine;
@@ -92,12 +93,21 @@ public class Startup implements AWTEventListener {
   private boolean templEmpty = false;
   private boolean templPlain = false;
   private String testVector = null;
+  private int testMaxFailures = 0;
   private String circuitToTest = null;
   private boolean exitAfterStartup = false;
   private boolean showSplash;
+  private boolean reportStartupTimes = false;
   private File loadFile;
   private File saveFile;
   private int ttyFormat = 0;
+  private long maxTicks = 0;
+  private int traceWindow = 0;
+  private File batchManifest = null;
+  private File batchReport = null;
+  private int batchTimeout = 0;
+  private String serverAddress = null;
+  private int serverMaxProjects = 16;
   // from other sources
   private boolean initialized = false;
   private SplashScreen monitor = null;
@@ -165,7 +175,16 @@ public class Startup implements AWTEventListener {
   private static final String ARG_TEST_VECTOR_SHORT = "w";
   private static final String ARG_TEST_VECTOR_LONG = "test-vector";
   private static final String ARG_NO_SPLASH_LONG = "no-splash";
+  private static final String ARG_STARTUP_TIMES_LONG = "startup-times";
   private static final String ARG_MAIN_CIRCUIT = "toplevel-circuit";
+  private static final String ARG_MAX_TICKS_LONG = "max-ticks";
+  private static final String ARG_TRACE_LAST_LONG = "trace-last";
+  private static final String ARG_TEST_MAX_FAILURES_LONG = "test-max-failures";
+  private static final String ARG_BATCH_LONG = "batch";
+  private static final String ARG_BATCH_REPORT_LONG = "batch-report";
+  private static final String ARG_BATCH_TIMEOUT_LONG = "batch-timeout";
+  private static final String ARG_SERVER_LONG = "server";
+  private static final String ARG_SERVER_MAX_PROJECTS_LONG = "server-max-projects";
 
   /**
    * Parses provided string expecting it represent boolean option. Accepted values
@@ -322,8 +341,17 @@ public class Startup implements AWTEventListener {
     addOption(opts, "argLocaleOption", ARG_LOCALE_LONG, ARG_LOCALE_SHORT, 1);
     addOption(opts, "argTemplateOption", ARG_TEMPLATE_LONG, ARG_TEMPLATE_SHORT, 1);
     addOption(opts, "argNoSplashOption", ARG_NO_SPLASH_LONG);
+    addOption(opts, "argStartupTimesOption", ARG_STARTUP_TIMES_LONG);
     addOption(opts, "argMainCircuitOption", ARG_MAIN_CIRCUIT, 1);
+    addOption(opts, "argMaxTicksOption", ARG_MAX_TICKS_LONG, 1);
+    addOption(opts, "argTraceLastOption", ARG_TRACE_LAST_LONG, 1);
     addOption(opts, "argTestVectorOption", ARG_TEST_VECTOR_LONG, ARG_TEST_VECTOR_SHORT, 2);
+    addOption(opts, "argTestMaxFailuresOption", ARG_TEST_MAX_FAILURES_LONG, 1);
+    addOption(opts, "argBatchOption", ARG_BATCH_LONG, 1);
+    addOption(opts, "argBatchReportOption", ARG_BATCH_REPORT_LONG, 1);
+    addOption(opts, "argBatchTimeoutOption", ARG_BATCH_TIMEOUT_LONG, 1);
+    addOption(opts, "argServerOption", ARG_SERVER_LONG, 1);
+    addOption(opts, "argServerMaxProjectsOption", ARG_SERVER_MAX_PROJECTS_LONG, 1);
     addOption(opts, "argTestCircuitOption", ARG_TEST_CIRCUIT_LONG, ARG_TEST_CIRCUIT_SHORT, 1);     // FIXME add "Option" suffix to key name
     addOption(opts, "argTestCircGenOption", ARG_TEST_CIRC_GEN_LONG, ARG_TEST_CIRC_GEN_SHORT, 2);   // FIXME add "Option" suffix to key name
 
@@ -344,9 +372,15 @@ public class Startup implements AWTEventListener {
     // see whether we'll be using any graphics
     var isTty = false;
     var shallClearPreferences = false;
-    if (cmd.hasOption(ARG_TTY_SHORT) || cmd.hasOption(ARG_TEST_FGPA_SHORT) || cmd.hasOption(ARG_TEST_FGPA_LONG)) {
+    if (cmd.hasOption(ARG_TTY_SHORT)
+        || cmd.hasOption(ARG_TEST_FGPA_SHORT)
+        || cmd.hasOption(ARG_TEST_FGPA_LONG)
+        || cmd.hasOption(ARG_BATCH_LONG)
+        || cmd.hasOption(ARG_SERVER_LONG)) {
       isTty = true;
       Main.headless = true;
+      // nothing is shown, so make sure AWT never connects to the window system
+      System.setProperty("java.awt.headless", "true");
     } else {
       shallClearPreferences = cmd.hasOption(ARG_CLEAR_PREFS_LONG);
     }
@@ -388,11 +422,20 @@ public class Startup implements AWTEventListener {
         case ARG_LOCALE_LONG -> handleArgLocale(startup, opt);
         case ARG_TEMPLATE_LONG -> handleArgTemplate(startup, opt);
         case ARG_NO_SPLASH_LONG -> handleArgNoSplash(startup, opt);
+        case ARG_STARTUP_TIMES_LONG -> handleArgStartupTimes(startup, opt);
         case ARG_TEST_VECTOR_LONG -> handleArgTestVector(startup, opt);
+        case ARG_TEST_MAX_FAILURES_LONG -> handleArgTestMaxFailures(startup, opt);
+        case ARG_BATCH_LONG -> handleArgBatch(startup, opt);
+        case ARG_BATCH_REPORT_LONG -> handleArgBatchReport(startup, opt);
+        case ARG_BATCH_TIMEOUT_LONG -> handleArgBatchTimeout(startup, opt);
+        case ARG_SERVER_LONG -> handleArgServer(startup, opt);
+        case ARG_SERVER_MAX_PROJECTS_LONG -> handleArgServerMaxProjects(startup, opt);
         case ARG_TEST_FGPA_LONG -> handleArgTestFpga(startup, opt);
         case ARG_TEST_CIRCUIT_LONG -> handleArgTestCircuit(startup, opt);
         case ARG_TEST_CIRC_GEN_LONG -> handleArgTestCircGen(startup, opt);
         case ARG_MAIN_CIRCUIT -> handleArgMainCircuit(startup, opt);
+        case ARG_MAX_TICKS_LONG -> handleArgMaxTicks(startup, opt);
+        case ARG_TRACE_LAST_LONG -> handleArgTraceLast(startup, opt);
         default -> RC.OK; // should not really happen IRL.
       };
       lastHandlerRc = optHandlerRc;
@@ -413,7 +456,10 @@ public class Startup implements AWTEventListener {
       printHelp(opts);
       return null;
     }
-    if (startup.isTty && startup.filesToOpen.isEmpty()) {
+    if (startup.isTty
+        && startup.filesToOpen.isEmpty()
+        && startup.batchManifest == null
+        && startup.serverAddress == null) {
       logger.error(S.get("ttyNeedsFileError"));
       return null;
     }
@@ -466,6 +512,7 @@ public class Startup implements AWTEventListener {
           case "hex" -> TtyInterface.FORMAT_TABLE_HEX;
           case "csv" -> TtyInterface.FORMAT_TABLE_CSV;
           case "tabs" -> TtyInterface.FORMAT_TABLE_TABBED;
+          case "vcd" -> TtyInterface.FORMAT_VCD;
           default -> 0;
         };
 
@@ -474,8 +521,14 @@ public class Startup implements AWTEventListener {
           return RC.QUIT;
         }
         startup.ttyFormat |= val;
-        return RC.OK;
       }
+      // the trace is written to the standard output through its own buffer
+      if ((startup.ttyFormat & TtyInterface.FORMAT_VCD) != 0
+          && (startup.ttyFormat & (TtyInterface.FORMAT_TABLE | TtyInterface.FORMAT_TTY)) != 0) {
+        logger.error(S.get("ttyVcdCombinationError"));
+        return RC.QUIT;
+      }
+      return RC.OK;
     }
     logger.error(S.get("ttyFormatError"));
     return RC.QUIT;
@@ -620,6 +673,11 @@ public class Startup implements AWTEventListener {
     return RC.OK;
   }
 
+  private static RC handleArgStartupTimes(Startup startup, Option opt) {
+    startup.reportStartupTimes = true;
+    return RC.OK;
+  }
+
   private static RC handleArgTestVector(Startup startup, Option opt) {
     startup.circuitToTest = opt.getValues()[0];
     startup.testVector = opt.getValues()[1];
@@ -629,11 +687,81 @@ public class Startup implements AWTEventListener {
     return RC.OK;
   }
 
+  private static RC handleArgTestMaxFailures(Startup startup, Option opt) {
+    try {
+      startup.testMaxFailures = Integer.parseInt(opt.getValue());
+      if (startup.testMaxFailures > 0) return RC.OK;
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    logger.error(S.get("argTestMaxFailuresError"));
+    return RC.QUIT;
+  }
+
+  private static RC handleArgBatch(Startup startup, Option opt) {
+    startup.batchManifest = new File(opt.getValue());
+    return RC.OK;
+  }
+
+  private static RC handleArgBatchReport(Startup startup, Option opt) {
+    startup.batchReport = new File(opt.getValue());
+    return RC.OK;
+  }
+
+  private static RC handleArgBatchTimeout(Startup startup, Option opt) {
+    try {
+      startup.batchTimeout = Integer.parseInt(opt.getValue());
+      if (startup.batchTimeout > 0) return RC.OK;
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    logger.error(S.get("argBatchTimeoutError"));
+    return RC.QUIT;
+  }
+
+  private static RC handleArgServer(Startup startup, Option opt) {
+    startup.serverAddress = opt.getValue();
+    return RC.OK;
+  }
+
+  private static RC handleArgServerMaxProjects(Startup startup, Option opt) {
+    try {
+      startup.serverMaxProjects = Integer.parseInt(opt.getValue());
+      if (startup.serverMaxProjects > 0) return RC.OK;
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    logger.error(S.get("argServerMaxProjectsError"));
+    return RC.QUIT;
+  }
+
   private static RC handleArgMainCircuit(Startup startup, Option opt) {
     startup.circuitToTest = opt.getValues()[0];
     return RC.OK;
   }
 
+  private static RC handleArgMaxTicks(Startup startup, Option opt) {
+    try {
+      startup.maxTicks = Long.parseLong(opt.getValue());
+      if (startup.maxTicks > 0) return RC.OK;
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    logger.error(S.get("argMaxTicksError"));
+    return RC.QUIT;
+  }
+
+  private static RC handleArgTraceLast(Startup startup, Option opt) {
+    try {
+      startup.traceWindow = Integer.parseInt(opt.getValue());
+      if (startup.traceWindow > 0) return RC.OK;
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    logger.error(S.get("argTraceLastError"));
+    return RC.QUIT;
+  }
+
 
   /**
    * Handles 4th argument of `--test-fpga` argument which can be either string literal
@@ -799,6 +927,34 @@ public class Startup implements AWTEventListener {
     return ttyFormat;
   }
 
+  long getMaxTicks() {
+    return maxTicks;
+  }
+
+  int getTraceWindow() {
+    return traceWindow;
+  }
+
+  File getBatchManifest() {
+    return batchManifest;
+  }
+
+  File getBatchReport() {
+    return batchReport;
+  }
+
+  int getBatchTimeout() {
+    return batchTimeout;
+  }
+
+  String getServerAddress() {
+    return serverAddress;
+  }
+
+  int getServerMaxProjects() {
+    return serverMaxProjects;
+  }
+
   boolean isFpgaDownload() {
     return doFpgaDownload;
   }
@@ -842,6 +998,8 @@ public class Startup implements AWTEventListener {
   public void run() {
     if (isTty) {
       try {
+        if (batchManifest != null) System.exit(BatchRunner.run(this));
+        if (serverAddress != null) System.exit(SimulationServer.run(this));
         TtyInterface.run(this);
         System.exit(0);
       } catch (Exception t) {
@@ -862,6 +1020,7 @@ public class Startup implements AWTEventListener {
         showSplash = false;
       }
     }
+    StartupTimes.mark("splash screen");
 
     Toolkit.getDefaultToolkit()
         .addAWTEventListener(this, AWTEvent.COMPONENT_EVENT_MASK | AWTEvent.CONTAINER_EVENT_MASK);
@@ -880,9 +1039,11 @@ public class Startup implements AWTEventListener {
       logger.error("FATAL ERROR - no components");
       System.exit(-1);
     }
+    StartupTimes.mark("libraries");
 
     // load in template
     loadTemplate(templLoader, templFile, templEmpty);
+    StartupTimes.mark("template");
 
     // now that the splash screen is almost gone, we do some last-minute
     // interface initialization
@@ -910,6 +1071,7 @@ public class Startup implements AWTEventListener {
                   "SPACE", "pressed",
                   "released SPACE", "released"
                 }));
+    StartupTimes.mark("menus");
 
     // if user has double-clicked a file to open, we'll
     // use that as the file to open now.
@@ -930,7 +1092,7 @@ public class Startup implements AWTEventListener {
         try {
           if (testVector != null) {
             proj = ProjectActions.doOpenNoWindow(monitor, fileToOpen);
-            proj.doTestVector(testVector, circuitToTest);
+            proj.doTestVector(testVector, circuitToTest, testMaxFailures);
           } else if (testCircPathInput != null && testCircPathOutput != null) {
             /* This part of the function will create a new circuit file (
              * XML) which will be open and saved again using the  */
@@ -969,13 +1131,24 @@ public class Startup implements AWTEventListener {
       if (numOpened == 0) System.exit(-1);
     }
 
+    StartupTimes.mark("projects");
+
     for (final var fileToPrint : filesToPrint) {
       doPrintFile(fileToPrint);
     }
 
     if (exitAfterStartup) {
+      if (reportStartupTimes) StartupTimes.report(System.out);
       System.exit(0);
     }
+    if (reportStartupTimes) {
+      // the windows are shown by the events that are queued by now
+      SwingUtilities.invokeLater(
+          () -> {
+            StartupTimes.mark("windows shown");
+            StartupTimes.report(System.out);
+          });
+    }
   }
 
   private boolean hasIcon(Component comp) {
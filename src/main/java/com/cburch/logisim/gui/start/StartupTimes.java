@@ -0,0 +1,49 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.start;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records when the phases of the startup are done, such that the time each of them takes can be
+ * reported with the --startup-times option. Times are counted from the start of the process, so
+ * the time spent before the first phase (starting the virtual machine and loading its first
+ * classes) is included as well.
+ */
+public final class StartupTimes {
+
+  private record Mark(String phase, long time) {}
+
+  private static final long start =
+      ProcessHandle.current().info().startInstant().map(Instant::toEpochMilli)
+          .orElse(System.currentTimeMillis());
+  private static final List<Mark> marks = new ArrayList<>();
+
+  private StartupTimes() {
+    throw new IllegalStateException("Utility class. No instantiation allowed.");
+  }
+
+  /** Notes that a phase of the startup is done. */
+  public static synchronized void mark(String phase) {
+    marks.add(new Mark(phase, System.currentTimeMillis()));
+  }
+
+  static synchronized void report(PrintStream out) {
+    out.println("Startup times in ms (total, phase):");
+    var last = start;
+    for (final var mark : marks) {
+      out.printf("%8d %8d  %s%n", mark.time() - start, mark.time() - last, mark.phase());
+      last = mark.time();
+    }
+  }
+}
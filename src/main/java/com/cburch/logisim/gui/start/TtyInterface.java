@@ -31,10 +31,17 @@ import com.cburch.logisim.std.io.Tty;
 import com.cburch.logisim.std.memory.Ram;
 import com.cburch.logisim.std.wiring.Pin;
 import com.cburch.logisim.util.UniquelyNamedThread;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
@@ -52,6 +59,7 @@ public class TtyInterface {
   public static final int FORMAT_TABLE_CSV = 64;
   public static final int FORMAT_TABLE_BIN = 128;
   public static final int FORMAT_TABLE_HEX = 256;
+  public static final int FORMAT_VCD = 512;
   static final Logger logger = LoggerFactory.getLogger(TtyInterface.class);
   private static boolean lastIsNewline = true;
 
@@ -117,27 +125,14 @@ public class TtyInterface {
         S.get("statsTotalWith"));
   }
 
-  private static void displayTableRow(ArrayList<Value> prevOutputs, ArrayList<Value> curOutputs) {
-    var shouldPrint = false;
-    if (prevOutputs == null) {
-      shouldPrint = true;
-    } else {
-      for (var i = 0; i < curOutputs.size(); i++) {
-        final var a = prevOutputs.get(i);
-        final var b = curOutputs.get(i);
-        if (!a.equals(b)) {
-          shouldPrint = true;
-          break;
-        }
-      }
-    }
-    if (shouldPrint) {
-      for (var i = 0; i < curOutputs.size(); i++) {
-        if (i != 0) System.out.print("\t");
-        System.out.print(curOutputs.get(i));
-      }
-      System.out.println();
+  private static void displayTableRow(Value[] prevOutputs, Value[] curOutputs) {
+    if (prevOutputs != null && Arrays.equals(prevOutputs, curOutputs)) return;
+    final var row = new StringBuilder();
+    for (var i = 0; i < curOutputs.length; i++) {
+      if (i != 0) row.append('\t');
+      row.append(curOutputs[i]);
     }
+    System.out.println(row);
   }
 
   private static boolean displayTableRow(boolean showHeader, ArrayList<Value> prevOutputs, ArrayList<Value> curOutputs,
@@ -334,7 +329,15 @@ public class TtyInterface {
       }
     }
     final var ttyFormat = args.getTtyFormat();
-    final var simCode = runSimulation(circState, outputPins, haltPin, ttyFormat);
+    final var simCode =
+        runSimulation(
+            circState,
+            outputPins,
+            pinNames,
+            haltPin,
+            ttyFormat,
+            args.getMaxTicks(),
+            args.getTraceWindow());
 
     if (args.getSaveFile() != null) {
       try {
@@ -402,9 +405,10 @@ public class TtyInterface {
 
     var needTableHeader = true;
     final var valueMap = new HashMap<Instance, Value>();
+    // all rows are computed before the first one is printed, so they are all held in memory
+    final var outputs = Analyze.computeRows(proj, circuit, inputPins, outputPins);
     for (var i = 0; i < rowCount; i++) {
       valueMap.clear();
-      final var circuitState = new CircuitState(proj, circuit);
       var incol = 0;
       for (final var pin : inputPins) {
         final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
@@ -413,27 +417,15 @@ public class TtyInterface {
           final var value = TruthTable.isInputSet(i, incol++, inputCount);
           v[b] = value ? Value.TRUE : Value.FALSE;
         }
-        final var pinState = circuitState.getInstanceState(pin);
-        Pin.FACTORY.setValue(pinState, Value.create(v));
         valueMap.put(pin, Value.create(v));
       }
-
-      final var prop = circuitState.getPropagator();
-      prop.propagate();
-      /*
-       * TODO for the SimulatorPrototype class do { prop.step(); } while
-       * (prop.isPending());
-       */
-      // TODO: Search for circuit state
-
-      for (final var pin : outputPins) {
-        if (prop.isOscillating()) {
+      for (var p = 0; p < outputPins.size(); p++) {
+        final var pin = outputPins.get(p);
+        if (outputs[i] == null) {
           final var width = pin.getAttributeValue(StdAttr.WIDTH);
           valueMap.put(pin, Value.createError(width));
         } else {
-          final var pinState = circuitState.getInstanceState(pin);
-          final var outValue = Pin.FACTORY.getValue(pinState);
-          valueMap.put(pin, outValue);
+          valueMap.put(pin, outputs[i][p]);
         }
       }
       final var currValues = new ArrayList<Value>();
@@ -447,11 +439,19 @@ public class TtyInterface {
     return 0;
   }
 
-  private static int runSimulation(CircuitState circState, ArrayList<Instance> outputPins, Instance haltPin, int format) {
+  private static int runSimulation(
+      CircuitState circState,
+      ArrayList<Instance> outputPins,
+      Map<Instance, String> pinNames,
+      Instance haltPin,
+      int format,
+      long maxTicks,
+      int traceWindow) {
     final var showTable = (format & FORMAT_TABLE) != 0;
     final var showSpeed = (format & FORMAT_SPEED) != 0;
     final var showTty = (format & FORMAT_TTY) != 0;
     final var showHalt = (format & FORMAT_HALT) != 0;
+    final var showVcd = (format & FORMAT_VCD) != 0;
 
     ArrayList<InstanceState> keyboardStates = null;
     StdinThread stdinThread = null;
@@ -470,25 +470,55 @@ public class TtyInterface {
       }
     }
 
+    final var tracedPins = new ArrayList<Instance>();
+    for (final var pin : outputPins) {
+      if (pin != haltPin) tracedPins.add(pin);
+    }
+    VcdTrace trace = null;
+    if (showVcd) {
+      final var names = new ArrayList<String>();
+      final var widths = new int[tracedPins.size()];
+      for (var i = 0; i < widths.length; i++) {
+        final var pin = tracedPins.get(i);
+        names.add(pinNames.get(pin));
+        widths[i] = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+      }
+      // the trace can be large, so it is not written through the line flushed System.out
+      final var out =
+          new PrintWriter(
+              new BufferedWriter(
+                  new OutputStreamWriter(
+                      new FileOutputStream(FileDescriptor.out), StandardCharsets.US_ASCII),
+                  1 << 16));
+      trace = new VcdTrace(out, circState.getCircuit().getName(), names, widths, traceWindow);
+    }
+
     var retCode = 0;
     long tickCount = 0;
+    long ioNanos = 0;
     final var start = System.currentTimeMillis();
     var halted = false;
-    ArrayList<Value> prevOutputs = null;
+    var prevOutputs = new Value[tracedPins.size()];
+    var curOutputs = new Value[tracedPins.size()];
+    var firstRow = true;
     final var prop = circState.getPropagator();
     while (true) {
-      final var curOutputs = new ArrayList<Value>();
-      for (final var pin : outputPins) {
-        final var pinState = circState.getInstanceState(pin);
-        final var val = Pin.FACTORY.getValue(pinState);
-        if (pin == haltPin) {
-          halted |= val.equals(Value.TRUE);
-        } else if (showTable) {
-          curOutputs.add(val);
-        }
+      if (haltPin != null) {
+        final var val = Pin.FACTORY.getValue(circState.getInstanceState(haltPin));
+        halted |= val.equals(Value.TRUE);
       }
-      if (showTable) {
-        displayTableRow(prevOutputs, curOutputs);
+      if (showTable || trace != null) {
+        for (var i = 0; i < curOutputs.length; i++) {
+          curOutputs[i] = Pin.FACTORY.getValue(circState.getInstanceState(tracedPins.get(i)));
+        }
+        final var ioStart = System.nanoTime();
+        if (showTable) displayTableRow(firstRow ? null : prevOutputs, curOutputs);
+        if (trace != null) trace.tick(curOutputs);
+        ioNanos += System.nanoTime() - ioStart;
+        final var swap = prevOutputs;
+        prevOutputs = curOutputs;
+        curOutputs = swap;
+        firstRow = false;
       }
 
       if (halted) {
@@ -499,6 +529,10 @@ public class TtyInterface {
         retCode = 1; // abnormal exit
         break;
       }
+      if (maxTicks > 0 && tickCount >= maxTicks) {
+        retCode = 2; // ran out of ticks
+        break;
+      }
       if (keyboardStates != null) {
         final var buffer = stdinThread.getBuffer();
         if (buffer != null) {
@@ -507,22 +541,30 @@ public class TtyInterface {
           }
         }
       }
-      prevOutputs = curOutputs;
       tickCount++;
       prop.toggleClocks();
       prop.propagate();
     }
-    final var elapse = System.currentTimeMillis() - start;
+    if (trace != null) {
+      final var ioStart = System.nanoTime();
+      if (!trace.finish()) logger.error("{}", S.get("ttyTraceIoError"));
+      ioNanos += System.nanoTime() - ioStart;
+    }
+    final var ioTime = ioNanos / 1_000_000;
+    final var elapse = System.currentTimeMillis() - start - ioTime;
     if (showTty) ensureLineTerminated();
     if (showHalt || retCode != 0) {
       if (retCode == 0) {
         logger.error("{}", S.get("ttyHaltReasonPin"));
       } else if (retCode == 1) {
         logger.error("{}", S.get("ttyHaltReasonOscillation"));
+      } else if (retCode == 2) {
+        logger.error("{}", S.get("ttyHaltReasonMaxTicks"));
       }
     }
     if (showSpeed) {
       displaySpeed(tickCount, elapse);
+      if (showTable || showVcd) System.out.printf(S.get("ttyIoTimeMsg") + "\n", ioTime);
     }
     return retCode;
   }
@@ -0,0 +1,131 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.start;
+
+import com.cburch.logisim.data.Value;
+import java.io.PrintWriter;
+import java.util.List;
+
+/**
+ * Writes the outputs of a command line simulation as a value change dump (VCD), with one time
+ * unit per tick. For every tick only the outputs that changed are written. When a window is given
+ * only the last ticks are kept, in a ring, and they are written once the simulation stops.
+ */
+class VcdTrace {
+
+  private final PrintWriter out;
+  private final String module;
+  private final List<String> names;
+  private final String[] ids;
+  private final int[] widths;
+  private final Value[][] ring;
+  private Value[] last = null;
+  private long tickCount = 0;
+
+  VcdTrace(PrintWriter out, String module, List<String> names, int[] widths, int window) {
+    this.out = out;
+    this.module = module;
+    this.names = names;
+    this.widths = widths;
+    ids = new String[names.size()];
+    for (var i = 0; i < ids.length; i++) ids[i] = getIdentifier(i);
+    ring = window > 0 ? new Value[window][names.size()] : null;
+    if (ring == null) writeHeader();
+  }
+
+  /** Records the values of the outputs for the next tick. */
+  void tick(Value[] values) {
+    if (ring != null) {
+      System.arraycopy(values, 0, ring[(int) (tickCount % ring.length)], 0, values.length);
+    } else {
+      writeChanges(tickCount, last, values);
+      if (last == null) last = new Value[values.length];
+      System.arraycopy(values, 0, last, 0, values.length);
+    }
+    tickCount++;
+  }
+
+  /**
+   * Writes the ticks that are still kept in the ring, and flushes the output. Returns false if
+   * writing the trace failed.
+   */
+  boolean finish() {
+    if (ring != null) {
+      writeHeader();
+      final var first = Math.max(0, tickCount - ring.length);
+      Value[] prev = null;
+      for (var tick = first; tick < tickCount; tick++) {
+        final var values = ring[(int) (tick % ring.length)];
+        writeChanges(tick, prev, values);
+        prev = values;
+      }
+    }
+    out.write("#" + tickCount + "\n");
+    out.flush();
+    return !out.checkError();
+  }
+
+  private void writeHeader() {
+    out.write("$timescale 1 ns $end\n");
+    out.write("$scope module " + escape(module) + " $end\n");
+    for (var i = 0; i < ids.length; i++) {
+      out.write("$var wire " + widths[i] + " " + ids[i] + " " + escape(names.get(i)) + " $end\n");
+    }
+    out.write("$upscope $end\n");
+    out.write("$enddefinitions $end\n");
+  }
+
+  private void writeChanges(long tick, Value[] prev, Value[] values) {
+    var timeWritten = false;
+    for (var i = 0; i < values.length; i++) {
+      if (prev != null && values[i].equals(prev[i])) continue;
+      if (!timeWritten) {
+        out.write("#" + tick + "\n");
+        if (prev == null) out.write("$dumpvars\n");
+        timeWritten = true;
+      }
+      writeValue(values[i], widths[i], ids[i]);
+    }
+    if (prev == null && timeWritten) out.write("$end\n");
+  }
+
+  private void writeValue(Value value, int width, String id) {
+    if (width == 1) {
+      out.write(getBit(value.get(0)));
+    } else {
+      out.write('b');
+      for (var bit = width - 1; bit >= 0; bit--) out.write(getBit(value.get(bit)));
+      out.write(' ');
+    }
+    out.write(id);
+    out.write('\n');
+  }
+
+  private static char getBit(Value bit) {
+    if (bit == Value.TRUE) return '1';
+    if (bit == Value.FALSE) return '0';
+    if (bit == Value.UNKNOWN) return 'z';
+    return 'x';
+  }
+
+  /* identifiers are made of the printable ASCII characters, the shortest ones first */
+  private static String getIdentifier(int index) {
+    final var ret = new StringBuilder();
+    do {
+      ret.append((char) ('!' + index % 94));
+      index = index / 94 - 1;
+    } while (index >= 0);
+    return ret.toString();
+  }
+
+  private static String escape(String name) {
+    return name.isEmpty() ? "_" : name.replaceAll("\\s", "_");
+  }
+}
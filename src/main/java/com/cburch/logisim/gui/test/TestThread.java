@@ -14,27 +14,26 @@ import static com.cburch.logisim.gui.Strings.S;
 import com.cburch.logisim.circuit.Circuit;
 import com.cburch.logisim.circuit.CircuitEvent;
 import com.cburch.logisim.circuit.CircuitListener;
-import com.cburch.logisim.circuit.CircuitState;
-import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.data.FailException;
 import com.cburch.logisim.data.TestException;
 import com.cburch.logisim.data.TestVector;
 import com.cburch.logisim.instance.Instance;
-import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.proj.Project;
 import com.cburch.logisim.std.wiring.Pin;
 import com.cburch.logisim.util.UniquelyNamedThread;
+import java.io.File;
+import java.io.IOException;
 
 public class TestThread extends UniquelyNamedThread implements CircuitListener {
 
   private final Project project;
   private final Circuit circuit;
   private final TestVector vector;
-  private Instance[] pin;
+  private final Instance[] pin;
   private Model model;
-  private boolean canceled = false;
-  private boolean paused = false;
+  private volatile boolean canceled = false;
+  private volatile boolean paused = false;
 
   public TestThread(Model model) throws TestException {
     super("TestThread-Model");
@@ -44,65 +43,116 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
     this.circuit = model.getCircuit();
     this.vector = model.getVector();
 
-    matchPins();
+    pin = getPins(circuit, vector);
 
     model.getCircuit().addCircuitListener(this);
   }
 
-  // used only for automated testing via command line arguments
-  private TestThread(Project proj, Circuit circuit, TestVector vec) throws TestException {
-    super("TestThread-Project");
-    this.project = proj;
-    this.circuit = circuit;
-    this.vector = vec;
-
-    matchPins();
+  /**
+   * Returns the pins of the circuit that match the columns of the test vector, in the order of the
+   * columns.
+   */
+  public static Instance[] getPins(Circuit circuit, TestVector vec) throws TestException {
+    final var n = vec.columnName.length;
+    final var pins = new Instance[n];
+
+    for (var i = 0; i < n; i++) {
+      final var columnName = vec.columnName[i];
+      for (final var comp : circuit.getNonWires()) {
+        if (!(comp.getFactory() instanceof Pin)) continue;
+        final var inst = Instance.getInstanceFor(comp);
+        final var label = inst.getAttributeValue(StdAttr.LABEL);
+        if (label == null || !label.equals(columnName)) continue;
+        if (Pin.FACTORY.getWidth(inst).getWidth() != vec.columnWidth[i].getWidth())
+          throw new TestException(
+              "test vector column '"
+                  + columnName
+                  + "' has width "
+                  + vec.columnWidth[i]
+                  + ", but pin has width "
+                  + Pin.FACTORY.getWidth(inst));
+        pins[i] = inst;
+        break;
+      }
+      if (pins[i] == null)
+        throw new TestException("test vector column '" + columnName + "' has no matching pin");
+    }
+    return pins;
   }
 
   // used only for automated testing via command line arguments
-  public static int doTestVector(Project proj, Circuit circuit, String vectorname) {
+  public static int doTestVector(
+      Project proj, Circuit circuit, String vectorname, int maxFailures) {
     System.out.println(S.get("testLoadingVector", vectorname));
     TestVector vec;
     try {
-      vec = new TestVector(vectorname);
+      // the rows are read while testing, so the size of the test vector does not matter
+      vec = TestVector.open(new File(vectorname));
     } catch (Exception e) {
       System.err.println(S.get("testLoadingFailed", e.getMessage()));
       return -1;
     }
 
-    TestThread tester;
+    Instance[] pins;
     try {
-      tester = new TestThread(proj, circuit, vec);
+      pins = getPins(circuit, vec);
     } catch (TestException e) {
       System.err.println(S.get("testSetupFailed", e.getMessage()));
+      closeVector(vec);
       return -1;
     }
 
-    System.out.println(S.get("testRunning", Integer.toString(vec.data.size())));
-
-    int numPass = 0;
-    int numFail = 0;
-    for (int i = 0; i < vec.data.size(); i++) {
-      try {
-        System.out.print((i + 1) + " \r");
-        tester.test(i);
-        numPass++;
-      } catch (FailException e) {
-        System.out.println();
-        System.err.println(S.get("testFailed", Integer.toString(i + 1)));
-        for (FailException e1 : e.getAll()) System.out.println("  " + e1.getMessage());
-        numFail++;
-      } catch (TestException e) {
-        System.out.println();
-        System.err.println(S.get("testFailed", (i + 1) + " " + e.getMessage()));
-        numFail++;
-      }
+    System.out.println(S.get("testRunningStream"));
+
+    final var numPass = new int[1];
+    final var numFail = new int[1];
+    final var runner = new TestVectorRunner(proj, circuit, pins, vec);
+    try {
+      runner.run(
+          0,
+          (row, error) -> {
+            System.out.print((row + 1) + " \r");
+            if (error == null) {
+              numPass[0]++;
+            } else {
+              if (error instanceof FailException failure) {
+                System.out.println();
+                System.err.println(S.get("testFailed", Integer.toString(row + 1)));
+                for (final var e1 : failure.getAll()) System.out.println("  " + e1.getMessage());
+              } else {
+                System.out.println();
+                System.err.println(S.get("testFailed", (row + 1) + " " + error.getMessage()));
+              }
+              numFail[0]++;
+            }
+            return maxFailures <= 0 || numFail[0] < maxFailures;
+          });
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      System.out.println();
+      System.err.println(S.get("testLoadingFailed", e.getMessage()));
+      return -1;
+    } finally {
+      closeVector(vec);
     }
     System.out.println();
-    System.out.println(S.get("testResults", Integer.toString(numPass), Integer.toString(numFail)));
+    if (maxFailures > 0 && numFail[0] >= maxFailures) {
+      System.out.println(S.get("testStoppedAfterFailures", Integer.toString(numFail[0])));
+    }
+    System.out.println(
+        S.get("testResults", Integer.toString(numPass[0]), Integer.toString(numFail[0])));
     return 0;
   }
 
+  private static void closeVector(TestVector vec) {
+    try {
+      vec.close();
+    } catch (IOException ignored) {
+      // nothing is lost when closing a file that was only read fails
+    }
+  }
+
   public void cancel() {
     canceled = true;
   }
@@ -114,54 +164,27 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
     else model.clearResults();
   }
 
-  void matchPins() throws TestException {
-    int n = vector.columnName.length;
-    pin = new Instance[n];
-    CircuitState state = new CircuitState(this.project, this.circuit);
-
-    for (int i = 0; i < n; i++) {
-      String columnName = vector.columnName[i];
-      for (Component comp : circuit.getNonWires()) {
-        if (!(comp.getFactory() instanceof Pin)) continue;
-        Instance inst = Instance.getInstanceFor(comp);
-        InstanceState pinState = state.getInstanceState(comp);
-        String label = pinState.getAttributeValue(StdAttr.LABEL);
-        if (label == null || !label.equals(columnName)) continue;
-        if (Pin.FACTORY.getWidth(inst).getWidth() != vector.columnWidth[i].getWidth())
-          throw new TestException(
-              "test vector column '"
-                  + columnName
-                  + "' has width "
-                  + vector.columnWidth[i]
-                  + ", but pin has width "
-                  + Pin.FACTORY.getWidth(inst));
-        pin[i] = inst;
-        break;
-      }
-      if (pin[i] == null)
-        throw new TestException("test vector column '" + columnName + "' has no matching pin");
-    }
-  }
-
   @Override
   public void run() {
     try {
-      for (int i = 0; i < vector.data.size() && !canceled; i++) {
-        while (paused) {
-          if (canceled) return;
-          try {
-            Thread.sleep(1000);
-          } catch (InterruptedException ignored) {
-          }
-        }
-        try {
-          test(i);
-          canceled = canceled || !model.setResult(vector, i, null);
-        } catch (TestException e) {
-          canceled = canceled || !model.setResult(vector, i, e);
-        }
-        Thread.yield();
-      }
+      new TestVectorRunner(project, circuit, pin, vector)
+          .run(
+              0,
+              (row, error) -> {
+                while (paused) {
+                  if (canceled) return false;
+                  try {
+                    Thread.sleep(1000);
+                  } catch (InterruptedException ignored) {
+                  }
+                }
+                canceled = canceled || !model.setResult(vector, row, error);
+                return !canceled;
+              });
+    } catch (InterruptedException ignored) {
+      // the test has been stopped
+    } catch (IOException ignored) {
+      // the rows have all been read when the test vector was loaded
     } finally {
       model.stop();
     }
@@ -170,8 +193,4 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
   public void setPaused(boolean paused) {
     this.paused = paused;
   }
-
-  private void test(int idx) throws TestException {
-    circuit.doTestVector(project, pin, vector.data.get(idx));
-  }
 }
@@ -0,0 +1,148 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.test;
+
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.data.TestException;
+import com.cburch.logisim.data.TestVector;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.util.UniquelyNamedThread;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the rows of a test vector on a pool of workers. Every worker tests on a circuit state of
+ * its own, which is reset before each row, so the rows do not influence each other and can be
+ * tested in any order. The results are nevertheless reported in the order of the rows. For a test
+ * vector that is opened with {@link TestVector#open}, the rows are read by the calling thread while
+ * the workers test the rows read before, and only a few blocks of rows are kept in memory.
+ */
+class TestVectorRunner {
+
+  /** Receives the result of each row, in order. */
+  interface Listener {
+    /**
+     * Called with the result of a row, where error is null if the row passed. Returns false to
+     * stop testing.
+     */
+    boolean rowTested(int row, TestException error);
+  }
+
+  private static final int ROWS_PER_TASK = 256;
+  /* blocks of rows that are read ahead for each worker */
+  private static final int TASKS_PER_WORKER = 2;
+
+  private record Task(int firstRow, Value[][] rows, Future<TestException[]> result) {}
+
+  private final Project project;
+  private final Circuit circuit;
+  private final Instance[] pins;
+  private final TestVector vector;
+  private final ThreadLocal<CircuitState> states;
+  private volatile boolean stopped = false;
+  private int nextRow;
+
+  TestVectorRunner(Project project, Circuit circuit, Instance[] pins, TestVector vector) {
+    this.project = project;
+    this.circuit = circuit;
+    this.pins = pins;
+    this.vector = vector;
+    states = ThreadLocal.withInitial(() -> new CircuitState(this.project, this.circuit));
+  }
+
+  /** Tests the rows, starting with the given one, until all are done or the listener stops. */
+  void run(int firstRow, Listener listener) throws InterruptedException, IOException {
+    final var nrOfProcessors = Runtime.getRuntime().availableProcessors();
+    final var nrOfWorkers =
+        vector.data == null
+            ? nrOfProcessors
+            : Math.max(
+                1, Math.min(nrOfProcessors, (vector.data.size() - firstRow) / ROWS_PER_TASK));
+    final ExecutorService pool =
+        Executors.newFixedThreadPool(
+            nrOfWorkers,
+            runnable -> {
+              final var thread = new UniquelyNamedThread(runnable, "TestVectorRunner");
+              thread.setDaemon(true);
+              return thread;
+            });
+    try {
+      nextRow = firstRow;
+      final var tasks = new ArrayDeque<Task>();
+      final var freeBlocks = new ArrayDeque<Value[][]>();
+      var more = true;
+      while (true) {
+        while (more && tasks.size() < nrOfWorkers * TASKS_PER_WORKER) {
+          final var block = freeBlocks.isEmpty() ? new Value[ROWS_PER_TASK][] : freeBlocks.poll();
+          final var start = nextRow;
+          final var count = readRows(block);
+          if (count < ROWS_PER_TASK) more = false;
+          if (count == 0) break;
+          tasks.add(new Task(start, block, pool.submit(() -> testRows(block, count))));
+        }
+        final var task = tasks.poll();
+        if (task == null) return;
+        final TestException[] errors;
+        try {
+          errors = task.result().get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+          throw new IllegalStateException(e.getCause());
+        }
+        var row = task.firstRow();
+        for (final var error : errors) {
+          if (!listener.rowTested(row++, error)) return;
+        }
+        freeBlocks.add(task.rows());
+      }
+    } finally {
+      stopped = true;
+      pool.shutdownNow();
+    }
+  }
+
+  /** Fills the block with the next rows of the test vector, and returns how many there were. */
+  private int readRows(Value[][] block) throws IOException {
+    var count = 0;
+    if (vector.data == null) {
+      while (count < block.length) {
+        if (block[count] == null) block[count] = new Value[vector.columnName.length];
+        if (!vector.readRow(block[count])) break;
+        count++;
+      }
+    } else {
+      // the rows of a test vector read completely can be used as they are
+      final var end = Math.min(vector.data.size(), nextRow + block.length);
+      for (var row = nextRow; row < end; row++) block[count++] = vector.data.get(row);
+    }
+    nextRow += count;
+    return count;
+  }
+
+  private TestException[] testRows(Value[][] block, int count) {
+    final var state = states.get();
+    final var errors = new TestException[count];
+    for (var i = 0; i < count && !stopped; i++) {
+      try {
+        circuit.doTestVector(state, pins, block[i]);
+      } catch (TestException e) {
+        errors[i] = e;
+      }
+    }
+    return errors;
+  }
+}
@@ -52,11 +52,12 @@ public abstract class InstanceFactory extends AbstractComponentFactory {
   private Icon icon;
   private Attribute<?>[] attrs;
   private Object[] defaults;
-  private AttributeSet defaultSet;
+  private volatile AttributeSet defaultSet;
   private Bounds bounds;
   private List<Port> portList;
   private Attribute<Direction> facingAttribute;
   private Boolean shouldSnap;
+  private boolean concurrentCreation;
   private KeyConfigurator keyConfigurator;
   private Class<? extends InstancePoker> pokerClass;
   private Class<? extends InstanceLogger> loggerClass;
@@ -220,6 +221,9 @@ public abstract class InstanceFactory extends AbstractComponentFactory {
     if (key == SHOULD_SNAP) {
       return shouldSnap;
     }
+    if (key == CONCURRENT_CREATION) {
+      return concurrentCreation;
+    }
     return super.getFeature(key, attrs);
   }
 
@@ -289,14 +293,11 @@ public abstract class InstanceFactory extends AbstractComponentFactory {
 
     if (painter.getFactory() == null) {
       var i = icon;
-      if (i == null) {
-        var n = iconName;
-        if (n != null) {
-          i = IconsUtil.getIcon(n);
-          if (i == null) {
-            n = null;
-          }
-        }
+      if (i == null && iconName != null) {
+        // the icon is loaded when the tool is painted for the first time
+        i = IconsUtil.getIcon(iconName);
+        icon = i;
+        if (i == null) iconName = null;
       }
       if (i != null) {
         i.paintIcon(context.getDestination(), gfx, x + 2, y + 2);
@@ -369,6 +370,15 @@ public abstract class InstanceFactory extends AbstractComponentFactory {
     shouldSnap = value;
   }
 
+  /**
+   * Declares that the components of this factory can be created on several threads at once, which
+   * is only the case if its attribute sets and {@link #configureNewInstance} change no state
+   * outside of the new instance.
+   */
+  public void setConcurrentCreation(boolean value) {
+    concurrentCreation = value;
+  }
+
   public boolean providesSubCircuitMenu() {
     return false;
   }
@@ -93,8 +93,10 @@ public class Dependencies {
 
   private final MyListener myListener = new MyListener();
   private final Dag depends = new Dag();
+  private final LogisimFile file;
 
   Dependencies(LogisimFile file) {
+    this.file = file;
     addDependencies(file);
   }
 
@@ -106,19 +108,28 @@ public class Dependencies {
   }
 
   public boolean canAdd(Circuit circ, Circuit sub) {
+    materializeCircuits();
     return depends.canFollow(sub, circ);
   }
 
   public boolean canRemove(Circuit circ) {
+    materializeCircuits();
     return !depends.hasPredecessors(circ);
   }
 
   public boolean canRemove(VhdlContent vhdl) {
+    materializeCircuits();
     return !depends.hasPredecessors(vhdl);
   }
 
+  /* the edges of a circuit that is not built yet are added as its components are added */
+  private void materializeCircuits() {
+    for (final var circuit : file.getCircuits()) circuit.materialize();
+  }
+
   private void processCircuit(Circuit circ) {
     circ.addCircuitListener(myListener);
+    if (!circ.isMaterialized()) return;
     for (final var comp : circ.getNonWires()) {
       if (comp.getFactory() instanceof SubcircuitFactory factory) {
         depends.addEdge(circ, factory.getSubcircuit());
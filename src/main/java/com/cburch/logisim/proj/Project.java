@@ -26,6 +26,7 @@ import com.cburch.logisim.gui.main.SelectionActions;
 import com.cburch.logisim.gui.opts.OptionsFrame;
 import com.cburch.logisim.gui.test.TestFrame;
 import com.cburch.logisim.gui.test.TestThread;
+import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.tools.AddTool;
 import com.cburch.logisim.tools.Library;
 import com.cburch.logisim.tools.Tool;
@@ -82,7 +83,7 @@ public class Project {
 
   private static final int MAX_UNDO_SIZE = 64;
 
-  private final Simulator simulator = new Simulator();
+  private Simulator simulator = null; // created on first use, see getSimulator()
   private VhdlSimulatorTop vhdlSimulator = null;
 
   private LogisimFile file;
@@ -99,6 +100,8 @@ public class Project {
   private Tool tool = null;
   private final LinkedList<ActionData> undoLog = new LinkedList<>();
   private int undoMods = 0;
+  /* counts every change to the file, including merged actions, undos and redos; never decreases */
+  private long modificationCount = 0;
   private final LinkedList<ActionData> redoLog = new LinkedList<>();
   private final EventSourceWeakSupport<ProjectListener> projectListeners =
       new EventSourceWeakSupport<>();
@@ -158,6 +161,7 @@ public class Project {
       if (first.isModification()) {
         --undoMods;
       }
+      if (first.isModification() || act.isModification()) ++modificationCount;
       toAdd = first.append(act);
       if (toAdd != null) {
         undoLog.add(new ActionData(circuitState, hdlModel, toAdd));
@@ -206,19 +210,20 @@ public class Project {
     }
     if (toAdd.isModification()) {
       ++undoMods;
+      ++modificationCount;
     }
     file.setDirty(isFileDirty());
     fireEvent(new ProjectEvent(ProjectEvent.ACTION_COMPLETE, this, act));
   }
 
-  public int doTestVector(String vectorname, String name) {
+  public int doTestVector(String vectorname, String name, int maxFailures) {
     final var circuit = (name == null ? file.getMainCircuit() : file.getCircuit(name));
     if (circuit == null) {
       System.err.println("Circuit '" + name + "' not found.");
       return -1;
     }
     setCurrentCircuit(circuit);
-    return TestThread.doTestVector(this, circuit, vectorname);
+    return TestThread.doTestVector(this, circuit, vectorname, maxFailures);
   }
 
   private void fireEvent(int action, Object data) {
@@ -290,7 +295,7 @@ public class Project {
     }
     circuitState = null;
     hdlModel = hdl;
-    if (old != null) {
+    if (old != null && simulator != null) {
       simulator.setCircuitState(null);
     }
     Object oldActive = old;
@@ -353,7 +358,19 @@ public class Project {
     return canvas.getSelection();
   }
 
+  /**
+   * Returns the simulator of the project. Its thread is only started once it is asked for, such
+   * that command line runs that drive the propagator themselves do not have it running in the
+   * background.
+   */
   public Simulator getSimulator() {
+    if (simulator == null) {
+      simulator = new Simulator();
+      simulator.setCircuitState(circuitState);
+      final var circuit = getCurrentCircuit();
+      if (circuit != null && circuit.getTickFrequency() >= 0)
+        simulator.setTickFrequency(circuit.getTickFrequency());
+    }
     return simulator;
   }
 
@@ -386,6 +403,7 @@ public class Project {
 
   public void setForcedDirty() {
     forcedDirty = true;
+    ++modificationCount;
     file.setDirty(true);
   }
 
@@ -396,6 +414,7 @@ public class Project {
       // Add the last element of the undo log to the redo log
       undoLog.addLast(redoLog.getLast());
       ++undoMods;
+      ++modificationCount;
 
       // Remove the last item in the redo log, but keep the data
       final var data = redoLog.removeLast();
@@ -474,7 +493,7 @@ public class Project {
     if (circuitState.getParentState() == null) {
       recentRootState.put(newCircuit, circuitState);
     }
-    simulator.setCircuitState(circuitState);
+    if (simulator != null) simulator.setCircuitState(circuitState);
     if (circuitChanged) {
       fireEvent(ProjectEvent.ACTION_SET_CURRENT, oldActive, newCircuit);
       if (newCircuit != null) {
@@ -482,10 +501,11 @@ public class Project {
           newCircuit.addCircuitListener(l);
         }
         final var circTickFrequency = newCircuit.getTickFrequency();
-        final var simTickFrequency = simulator.getTickFrequency();
+        final var simTickFrequency =
+            simulator == null ? AppPreferences.TICK_FREQUENCY.get() : simulator.getTickFrequency();
         if (circTickFrequency < 0) {
           newCircuit.setTickFrequency(simTickFrequency);
-        } else if (circTickFrequency != simTickFrequency) {
+        } else if (simulator != null && circTickFrequency != simTickFrequency) {
           simulator.setTickFrequency(circTickFrequency);
         }
       }
@@ -512,7 +532,25 @@ public class Project {
     file.setDirty(isFileDirty());
   }
 
+  /**
+   * Returns a count that changes with every modification of the file, including modifications
+   * that are merged into the previous action, undos and redos.
+   */
+  public long getModificationCount() {
+    return modificationCount;
+  }
+
+  /**
+   * Marks the file as saved by a save that started at the given modification count, unless the
+   * file has been modified since. Modifications made while the file was being written keep it
+   * dirty.
+   */
+  public void setFileAsClean(long savedModificationCount) {
+    if (savedModificationCount == modificationCount) setFileAsClean();
+  }
+
   public void setFileAsDirty() {
+    ++modificationCount;
     file.setDirty(true);
   }
 
@@ -600,6 +638,7 @@ public class Project {
       final var action = data.action;
       if (action.isModification()) {
         --undoMods;
+        ++modificationCount;
       }
       fireEvent(new ProjectEvent(ProjectEvent.UNDO_START, this, action));
       action.undo(this);
@@ -372,6 +372,7 @@ public final class ProjectActions {
     for (Project proj : new ArrayList<>(Projects.getOpenProjects())) {
       if (!proj.confirmClose(S.get("confirmQuitTitle"))) return;
     }
+    Loader.waitForSaves();
     System.exit(0);
   }
 
@@ -395,6 +396,35 @@ public final class ProjectActions {
     return ret;
   }
 
+  /**
+   * Saves the project on a background thread, such that it can be edited while it is written. The
+   * frame shows that the project is being saved until it has been written.
+   */
+  public static void doSaveInBackground(Project proj) {
+    final var loader = proj.getLogisimFile().getLoader();
+    final var f = loader.getMainFile();
+    if (f == null) {
+      doSaveAs(proj);
+      return;
+    }
+    final var oldTool = proj.getTool();
+    proj.setTool(null);
+    final var modsSaved = proj.getModificationCount();
+    final var frame = proj.getFrame();
+    if (frame != null) frame.setSaving(true);
+    loader.saveInBackground(
+        proj.getLogisimFile(),
+        f,
+        saved -> {
+          if (frame != null) frame.setSaving(false);
+          if (saved) {
+            AppPreferences.updateRecentFile(f);
+            proj.setFileAsClean(modsSaved);
+          }
+        });
+    proj.setTool(oldTool);
+  }
+
   /**
    * Exports a Logisim project in a seperate directory
    *
@@ -9,6 +9,7 @@
 
 package com.cburch.logisim.proj;
 
+import com.cburch.logisim.circuit.CircuitState;
 import com.cburch.logisim.gui.main.Frame;
 import com.cburch.logisim.util.MacCompatibility;
 import com.cburch.logisim.util.PropertyChangeWeakSupport;
@@ -151,6 +152,9 @@ public final class Projects {
   private static void projectRemoved(Project proj, Frame frame, MyListener listener) {
     frame.removeWindowListener(listener);
     openProjects.remove(proj);
+    // the states are released on the simulator thread, such as to close recorded traces
+    final var states = new ArrayList<>(proj.getRootCircuitStates());
+    proj.getSimulator().runOnSimulatorThread(() -> states.forEach(CircuitState::destroy));
     proj.getSimulator().shutDown();
     propertySupport.firePropertyChange(PROJECT_LIST_PROPERTY, null, null);
   }
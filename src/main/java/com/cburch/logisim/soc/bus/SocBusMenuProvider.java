@@ -12,6 +12,7 @@ package com.cburch.logisim.soc.bus;
 import static com.cburch.logisim.soc.Strings.S;
 
 import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.gui.generic.OptionPane;
 import com.cburch.logisim.gui.main.Frame;
 import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.StdAttr;
@@ -29,12 +30,18 @@ import com.cburch.logisim.util.StringUtil;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.HashMap;
+import javax.swing.JFileChooser;
 import javax.swing.JMenuItem;
 import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.ScrollPaneConstants;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.JTableHeader;
 import javax.swing.table.TableCellRenderer;
 
@@ -43,6 +50,8 @@ public class SocBusMenuProvider implements ActionListener {
   private static final int SHOW_MEMORY_MAP = 1;
   private static final int INSERT_TRANSACTION = 2;
   private static final int SHOW_TRACES = 3;
+  private static final int EXPORT_TRACES = 4;
+  private static final int RECORD_TRACES = 5;
   private final HashMap<Instance, InstanceInformation> myInfo;
 
   public SocBusMenuProvider() {
@@ -71,6 +80,8 @@ public class SocBusMenuProvider implements ActionListener {
               .insertTransaction(inst, info.getCircuitState(), info.getState(), info.getName());
           case SHOW_TRACES ->
               myInfo.get(inst).showTraceWindow(inst, info.getState(), info.getHierInfo());
+          case EXPORT_TRACES -> myInfo.get(inst).exportTraces(info.getState(), info.getText());
+          case RECORD_TRACES -> myInfo.get(inst).recordTraces(info.getState(), info.getText());
           default ->
               throw new IllegalStateException(String.format("Unsupported function: %d", function));
         }
@@ -208,6 +219,17 @@ public class SocBusMenuProvider implements ActionListener {
         traceWin.addActionListener(parent);
         traceWin.setEnabled(true);
         menu.add(traceWin);
+        name = instanceName + ": " + S.get("SocBusExportTrace");
+        final var exportTrace = new InstanceMenuItem(instance, name, EXPORT_TRACES, data, hierarchy);
+        exportTrace.addActionListener(parent);
+        exportTrace.setEnabled(data != null);
+        menu.add(exportTrace);
+        final var recording = data != null && data.isRecordingTrace();
+        name = instanceName + ": " + S.get(recording ? "SocBusStopRecordingTrace" : "SocBusRecordTrace");
+        final var recordTrace = new InstanceMenuItem(instance, name, RECORD_TRACES, data, hierarchy);
+        recordTrace.addActionListener(parent);
+        recordTrace.setEnabled(data != null);
+        menu.add(recordTrace);
       }
     }
 
@@ -324,6 +346,55 @@ public class SocBusMenuProvider implements ActionListener {
       myTraceFrame.setExtendedState(fstate);
     }
 
+    public void exportTraces(SocBusStateInfo.SocBusState state, String name) {
+      if (state == null) return;
+      final var chooser = new JFileChooser();
+      chooser.setDialogTitle(name);
+      chooser.setFileFilter(new FileNameExtensionFilter(S.get("SocBusTraceFileExtension"), "sbt"));
+      if (chooser.showSaveDialog(parentFrame) != JFileChooser.APPROVE_OPTION) return;
+      final var file = chooser.getSelectedFile();
+      try (final var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+        state.exportTrace(out);
+      } catch (IOException e) {
+        OptionPane.showMessageDialog(
+            parentFrame,
+            S.get("SocBusExportTraceError", file.getName(), e.getMessage()),
+            name,
+            OptionPane.ERROR_MESSAGE);
+      }
+    }
+
+    public void recordTraces(SocBusStateInfo.SocBusState state, String name) {
+      if (state == null) return;
+      if (state.isRecordingTrace()) {
+        try {
+          state.stopRecordingTrace();
+        } catch (IOException e) {
+          OptionPane.showMessageDialog(
+              parentFrame,
+              S.get("SocBusRecordTraceError", e.getMessage()),
+              name,
+              OptionPane.ERROR_MESSAGE);
+        }
+        return;
+      }
+      final var chooser = new JFileChooser();
+      chooser.setDialogTitle(name);
+      chooser.setFileFilter(new FileNameExtensionFilter(S.get("SocBusTraceFileExtension"), "sbt"));
+      if (chooser.showSaveDialog(parentFrame) != JFileChooser.APPROVE_OPTION) return;
+      final var file = chooser.getSelectedFile();
+      try {
+        state.startRecordingTrace(
+            new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))));
+      } catch (IOException e) {
+        OptionPane.showMessageDialog(
+            parentFrame,
+            S.get("SocBusExportTraceError", file.getName(), e.getMessage()),
+            name,
+            OptionPane.ERROR_MESSAGE);
+      }
+    }
+
     public void destroyTraceWindow() {
       if (myTraceFrame != null) {
         myTraceFrame.setVisible(false);
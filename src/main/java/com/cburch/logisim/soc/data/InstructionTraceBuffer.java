@@ -0,0 +1,173 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.data;
+
+import static com.cburch.logisim.soc.Strings.S;
+
+import com.cburch.logisim.soc.util.AssemblerInterface;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fixed capacity ring buffer of the last executed instructions of a processor. Only the program
+ * counter, the instruction word and the error flag are stored; the instruction is disassembled
+ * when its {@link TraceInfo} is requested for painting. A trace that is longer than the buffer can
+ * be recorded to a file while it is added.
+ */
+public class InstructionTraceBuffer {
+
+  /* "SITR" */
+  public static final int EXPORT_MAGIC = 0x53495452;
+  public static final int EXPORT_VERSION = 1;
+
+  static final Logger logger = LoggerFactory.getLogger(InstructionTraceBuffer.class);
+
+  private final int capacity;
+  private final int[] pcs;
+  private final int[] instructions;
+  private final boolean[] errors;
+  /* disassembler used for painting only, it must not be shared with a simulating processor */
+  private final AssemblerInterface disassembler;
+  private int last;
+  private int size;
+  private long count; // of all instructions added, such that the last one has index count - 1
+  private DataOutputStream recording;
+  private IOException recordingError;
+  private long recordFrom; // index of the first instruction not yet written to the recording
+
+  public InstructionTraceBuffer(int capacity, AssemblerInterface disassembler) {
+    this.capacity = capacity;
+    this.disassembler = disassembler;
+    pcs = new int[capacity];
+    instructions = new int[capacity];
+    errors = new boolean[capacity];
+    clear();
+  }
+
+  public synchronized void add(int pc, int instruction, boolean error) {
+    // the previous instruction is complete now that its error flag can no longer be set
+    if (size > 0) record(last, count - 1);
+    last = (last + 1) % capacity;
+    pcs[last] = pc;
+    instructions[last] = instruction;
+    errors[last] = error;
+    if (size < capacity) size++;
+    count++;
+  }
+
+  public synchronized void setLastError() {
+    if (size > 0) errors[last] = true;
+  }
+
+  public synchronized void clear() {
+    if (size > 0) record(last, count - 1);
+    last = capacity - 1;
+    size = 0;
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  public synchronized boolean isEmpty() {
+    return size == 0;
+  }
+
+  /* index 0 is the most recently executed instruction */
+  public TraceInfo get(int index) {
+    final int pc;
+    final int instruction;
+    final boolean error;
+    synchronized (this) {
+      final var slot = (last - index + capacity) % capacity;
+      pc = pcs[slot];
+      instruction = instructions[slot];
+      error = errors[slot];
+    }
+    return new TraceInfo(pc, instruction, disassemble(instruction), error);
+  }
+
+  /**
+   * Writes every instruction that is added from now on to the stream until {@link #stopRecording}
+   * is called, in a compact binary format: a header (magic, version) followed up to the end of the
+   * file per instruction by its trace index (long), the program counter and the instruction word
+   * (ints), and the error flag (byte).
+   */
+  public synchronized void startRecording(DataOutputStream out) throws IOException {
+    stopRecording();
+    try {
+      writeHeader(out);
+    } catch (IOException e) {
+      out.close();
+      throw e;
+    }
+    // instructions are written when the next one is added, the ones before now are left out
+    recording = out;
+    recordingError = null;
+    recordFrom = count;
+  }
+
+  /** Closes the stream of the recording, and throws the first error in writing to it. */
+  public synchronized void stopRecording() throws IOException {
+    if (recording == null) return;
+    if (size > 0) record(last, count - 1);
+    final var out = recording;
+    final var error = recordingError;
+    recording = null;
+    recordingError = null;
+    out.close();
+    if (error != null) throw error;
+  }
+
+  /** Stops the recording of a trace that is no longer simulated, errors are only logged. */
+  public synchronized void endRecording() {
+    try {
+      stopRecording();
+    } catch (IOException e) {
+      logger.error("Cannot record the instruction trace: {}", e.getMessage());
+    }
+  }
+
+  public synchronized boolean isRecording() {
+    return recording != null;
+  }
+
+  private void record(int slot, long index) {
+    if (recording == null || recordingError != null || index < recordFrom) return;
+    try {
+      writeEntry(recording, slot, index);
+      recordFrom = index + 1;
+    } catch (IOException e) {
+      recordingError = e;
+    }
+  }
+
+  private static void writeHeader(DataOutputStream out) throws IOException {
+    out.writeInt(EXPORT_MAGIC);
+    out.writeInt(EXPORT_VERSION);
+  }
+
+  private void writeEntry(DataOutputStream out, int slot, long index) throws IOException {
+    out.writeLong(index);
+    out.writeInt(pcs[slot]);
+    out.writeInt(instructions[slot]);
+    out.writeByte(errors[slot] ? 1 : 0);
+  }
+
+  private String disassemble(int instruction) {
+    synchronized (disassembler) {
+      disassembler.decode(instruction);
+      final var exe = disassembler.getExeUnit();
+      return exe == null ? S.get("RV32imFetchInvInstrAsm") : exe.getAsmInstruction();
+    }
+  }
+}
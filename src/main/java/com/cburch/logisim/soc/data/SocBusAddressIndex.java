@@ -0,0 +1,123 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.data;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Sorted address index of the slaves attached to a soc bus. The 32-bit address space is cut into
+ * regions in which the set of responding slaves does not change, such that a transaction can be
+ * decoded by a binary search instead of asking every slave. Overlaps are resolved when the index
+ * is rebuilt, which only happens when a slave is added, removed or changes its memory map.
+ */
+public class SocBusAddressIndex {
+
+  private static class Regions {
+    private final long[] starts;
+    private final int[] nrOfResponders;
+    private final SocBusSlaveInterface[] responders;
+
+    private Regions(long[] starts, int[] nrOfResponders, SocBusSlaveInterface[] responders) {
+      this.starts = starts;
+      this.nrOfResponders = nrOfResponders;
+      this.responders = responders;
+    }
+  }
+
+  private static final Regions EMPTY = new Regions(new long[0], new int[0], new SocBusSlaveInterface[0]);
+
+  /* the regions are replaced as a whole, so the simulation thread never sees a half-built index */
+  private volatile Regions regions = EMPTY;
+  private volatile int nrOfSlaves = 0;
+
+  public void rebuild(List<SocBusSlaveInterface> slaves) {
+    final var bounds = new TreeSet<Long>();
+    final var ranges = new long[slaves.size() * 2];
+    for (var i = 0; i < slaves.size(); i++) {
+      final var slave = slaves.get(i);
+      final var start = SocSupport.convUnsignedInt(slave.getStartAddress());
+      final var end = start + SocSupport.convUnsignedInt(slave.getMemorySize());
+      ranges[i * 2] = start;
+      ranges[i * 2 + 1] = end;
+      if (end > start) {
+        bounds.add(start);
+        bounds.add(end);
+      }
+    }
+    final var nrOfRegions = bounds.size();
+    final var starts = new long[nrOfRegions];
+    final var counts = new int[nrOfRegions];
+    final var responders = new SocBusSlaveInterface[nrOfRegions];
+    var region = 0;
+    for (final var start : bounds) {
+      starts[region] = start;
+      for (var i = 0; i < slaves.size(); i++) {
+        if (start >= ranges[i * 2] && start < ranges[i * 2 + 1]) {
+          counts[region]++;
+          responders[region] = slaves.get(i);
+        }
+      }
+      region++;
+    }
+    regions = new Regions(starts, counts, responders);
+    nrOfSlaves = slaves.size();
+  }
+
+  public boolean isEmpty() {
+    return nrOfSlaves == 0;
+  }
+
+  /**
+   * Decodes the address of the transaction. Returns the single slave responsible for it, or null,
+   * in which case the error of the transaction has been set.
+   */
+  public SocBusSlaveInterface decode(SocBusTransaction trans) {
+    final var current = regions;
+    final var region = findRegion(current, trans.getAddress());
+    final var nrOfResponders = region < 0 ? 0 : current.nrOfResponders[region];
+    if (nrOfResponders == 0) {
+      trans.setError(SocBusTransaction.NO_RESPONS_ERROR);
+      return null;
+    }
+    if (nrOfResponders != 1) {
+      trans.setError(SocBusTransaction.MULTIPLE_SLAVES_ERROR);
+      return null;
+    }
+    return current.responders[region];
+  }
+
+  /** Returns the slave responsible for the address, or null if there is none or more than one. */
+  public SocBusSlaveInterface getResponder(int address) {
+    final var current = regions;
+    final var region = findRegion(current, address);
+    if (region < 0 || current.nrOfResponders[region] != 1) return null;
+    return current.responders[region];
+  }
+
+  /**
+   * Returns the slave responsible for the complete range of size bytes starting at address, or
+   * null if the range is not handled by exactly one slave.
+   */
+  public SocBusSlaveInterface getResponder(int address, long size) {
+    final var current = regions;
+    final var region = findRegion(current, address);
+    if (region < 0 || current.nrOfResponders[region] != 1) return null;
+    final var end = SocSupport.convUnsignedInt(address) + size;
+    if (region + 1 < current.starts.length && current.starts[region + 1] < end) return null;
+    return current.responders[region];
+  }
+
+  private static int findRegion(Regions current, int address) {
+    final var region = Arrays.binarySearch(current.starts, SocSupport.convUnsignedInt(address));
+    return region < 0 ? -region - 2 : region;
+  }
+}
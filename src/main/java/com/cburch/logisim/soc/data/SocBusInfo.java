@@ -21,6 +21,7 @@ public class SocBusInfo {
   private String busId;
   private SocSimulationManager socManager;
   private Component myComp;
+  private SocBusTransaction reusableTransaction;
 
   public SocBusInfo(String id) {
     busId = id;
@@ -48,6 +49,18 @@ public class SocBusInfo {
     return myComp;
   }
 
+  /**
+   * Creates a transaction with the component of this bus info as master. As long as no one can
+   * observe the transactions on the bus, a single transaction record is reused for all accesses.
+   */
+  public SocBusTransaction createTransaction(int type, int address, int value, int access) {
+    if (socManager == null || socManager.isBusObserved(busId))
+      return new SocBusTransaction(type, address, value, access, myComp);
+    if (reusableTransaction == null || reusableTransaction.getTransactionInitiator() != myComp)
+      reusableTransaction = new SocBusTransaction(type, address, value, access, myComp);
+    return reusableTransaction.reuse(type, address, value, access);
+  }
+
   public void paint(Graphics g, Bounds b) {
     final var ident = socManager == null ? null : socManager.getSocBusDisplayString(busId);
     final var color = (ident == null) ? Color.RED : Color.GREEN;
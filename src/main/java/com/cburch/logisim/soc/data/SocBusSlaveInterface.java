@@ -9,7 +9,9 @@
 
 package com.cburch.logisim.soc.data;
 
+import com.cburch.logisim.circuit.CircuitState;
 import com.cburch.logisim.instance.InstanceComponent;
+import java.nio.ByteBuffer;
 
 public interface SocBusSlaveInterface {
 
@@ -28,4 +30,13 @@ public interface SocBusSlaveInterface {
   void removeListener(SocBusSlaveListener l);
 
   InstanceComponent getComponent();
+
+  /**
+   * Writes size bytes starting at address in one go, taking them from the remaining bytes of data
+   * and filling up with zeros when data is exhausted. Returns false if the slave does not support
+   * this, in which case the segment has to be written by bus transactions.
+   */
+  default boolean loadSegment(CircuitState cState, int address, ByteBuffer data, int size) {
+    return false;
+  }
 }
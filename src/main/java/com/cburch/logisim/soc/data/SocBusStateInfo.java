@@ -12,6 +12,7 @@ package com.cburch.logisim.soc.data;
 import static com.cburch.logisim.soc.Strings.S;
 
 import com.cburch.contracts.BaseWindowListenerContract;
+import com.cburch.logisim.circuit.CircuitState;
 import com.cburch.logisim.circuit.ComponentDataGuiProvider;
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.data.Bounds;
@@ -23,6 +24,7 @@ import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.soc.bus.SocBus;
 import com.cburch.logisim.soc.bus.SocBusAttributes;
 import com.cburch.logisim.soc.gui.TraceWindowTableModel;
+import com.cburch.logisim.soc.memory.SocMemoryState;
 import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.LocaleListener;
 import com.cburch.logisim.util.LocaleManager;
@@ -35,8 +37,10 @@ import java.awt.Graphics2D;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.WindowEvent;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import javax.swing.JButton;
 import javax.swing.JDialog;
@@ -95,15 +99,13 @@ public class SocBusStateInfo extends JDialog
     }
 
     private static final int NR_OF_TRACES_TO_KEEP = 10000;
-    private final LinkedList<SocBusTransaction> trace;
-    private long startTraceIndex;
+    private final SocBusTraceBuffer trace;
     private final SocBusStateInfo parent;
     private final Instance instance;
     private final ArrayList<SocBusStateListener> listeners;
 
     public SocBusState(SocBusStateInfo parent, Instance instance) {
-      trace = new LinkedList<>();
-      startTraceIndex = 0;
+      trace = new SocBusTraceBuffer(NR_OF_TRACES_TO_KEEP);
       this.parent = parent;
       this.instance = instance;
       SocBus.MENU_PROVIDER.registerBusState(this, instance);
@@ -120,21 +122,32 @@ public class SocBusStateInfo extends JDialog
     }
 
     public void addTransaction(SocBusTransaction t) {
-      while (trace.size() >= NR_OF_TRACES_TO_KEEP) {
-        startTraceIndex++;
-        trace.removeFirst();
-      }
-      trace.addLast(t);
+      trace.add(t);
       for (SocBusStateListener l : listeners) l.fireCanged(this);
     }
 
     public void clear() {
-      if (trace.size() == 0) return;
+      if (trace.isEmpty()) return;
       trace.clear();
-      startTraceIndex = 0;
       for (SocBusStateListener l : listeners) l.fireCanged(this);
     }
 
+    public void exportTrace(DataOutputStream out) throws IOException {
+      trace.export(out);
+    }
+
+    public void startRecordingTrace(DataOutputStream out) throws IOException {
+      trace.startRecording(out);
+    }
+
+    public void stopRecordingTrace() throws IOException {
+      trace.stopRecording();
+    }
+
+    public boolean isRecordingTrace() {
+      return trace.isRecording();
+    }
+
     public void paint(Graphics2D g, Bounds b) {
       if (trace.isEmpty()) {
         GraphicsUtil.drawCenteredText(g, S.get("SocBusNoTrace"), b.getCenterX(), b.getCenterY());
@@ -145,7 +158,7 @@ public class SocBusStateInfo extends JDialog
       int startIndex = trace.size() - 1;
       for (int i = 0; i < nrOfTraces; i++) {
         SocBusTransaction t = trace.get(startIndex - i);
-        t.paint(b.getX() + 1, b.getY() + 1 + i * TRACE_HEIGHT, g, startTraceIndex + startIndex - i);
+        t.paint(b.getX() + 1, b.getY() + 1 + i * TRACE_HEIGHT, g, trace.getStartIndex() + startIndex - i);
       }
     }
 
@@ -157,6 +170,10 @@ public class SocBusStateInfo extends JDialog
       if (!listeners.contains(l)) listeners.add(l);
     }
 
+    public boolean hasListeners() {
+      return !listeners.isEmpty();
+    }
+
     public void deregisterListener(SocBusStateListener l) {
       listeners.remove(l);
     }
@@ -166,12 +183,13 @@ public class SocBusStateInfo extends JDialog
         if (index == 0) return new SocBusStateTrace(null, 0, model);
         return null;
       }
-      long indx = startTraceIndex + trace.size() - index - 1;
+      long indx = trace.getStartIndex() + trace.size() - index - 1;
       return new SocBusStateTrace(trace.get(trace.size() - index - 1), indx, model);
     }
 
     @Override
     public void destroy() {
+      trace.endRecording();
       if (parent != null && parent.isVisible()) parent.setVisible(false);
       SocBus.MENU_PROVIDER.deregisterBusState(this, instance);
     }
@@ -239,6 +257,20 @@ public class SocBusStateInfo extends JDialog
     return memMap.getSlaves();
   }
 
+  /* returns the slave responding to the address, or null if there is none or more than one */
+  public SocBusSlaveInterface getResponder(int address) {
+    return memMap.getAddressIndex().getResponder(address);
+  }
+
+  /**
+   * Loads a complete segment into the slave that handles the address range, bypassing the bus
+   * transactions. Returns false if the segment has to be written by transactions.
+   */
+  public boolean loadSegment(CircuitState cState, int address, ByteBuffer data, int size) {
+    final var slave = memMap.getAddressIndex().getResponder(address, size);
+    return slave != null && slave.loadSegment(cState, address, data, size);
+  }
+
   @Override
   public String getName() {
     var name = myComp.getAttributeSet().getValue(StdAttr.LABEL);
@@ -262,29 +294,20 @@ public class SocBusStateInfo extends JDialog
   }
 
   public void initializeTransaction(SocBusTransaction trans, String busId) {
-    int nrOfReponders = 0;
-    int reponder = -1;
-    final var slaves = memMap.getSlaves();
-    if (slaves.isEmpty()) trans.setError(SocBusTransaction.NO_SLAVES_ERROR);
+    final var addressIndex = memMap.getAddressIndex();
+    if (addressIndex.isEmpty()) trans.setError(SocBusTransaction.NO_SLAVES_ERROR);
     else if (trans.isReadTransaction()
         && trans.isWriteTransaction()
         && !trans.isAtomicTransaction()) {
       trans.setError(SocBusTransaction.NONE_ATOMIC_READ_WRITE_ERROR);
     } else {
-      for (int i = 0; i < slaves.size(); i++) {
-        if (slaves.get(i).canHandleTransaction(trans)) {
-          nrOfReponders++;
-          reponder = i;
-        }
-      }
-      if (nrOfReponders == 0) trans.setError(SocBusTransaction.NO_RESPONS_ERROR);
-      else if (nrOfReponders != 1) trans.setError(SocBusTransaction.MULTIPLE_SLAVES_ERROR);
-      else slaves.get(reponder).handleTransaction(trans);
+      final var responder = addressIndex.decode(trans);
+      if (responder != null) responder.handleTransaction(trans);
     }
     if (!trans.hasError() && !trans.isHidden()) {
       for (SocBusSnifferInterface sniffer : sniffers) sniffer.sniffTransaction(trans);
     }
-    if (!trans.isHidden()) {
+    if (!trans.isHidden() && isTraceEnabled()) {
       final var data = getRegPropagateState();
       if (data != null) {
         data.addTransaction(trans);
@@ -294,6 +317,34 @@ public class SocBusStateInfo extends JDialog
     }
   }
 
+  /* the trace is only kept when it is shown on the bus or in a trace window, or recorded */
+  public boolean isTraceEnabled() {
+    if (myComp == null) return false;
+    if (myComp.getAttributeSet().getValue(SocBusAttributes.SOC_TRACE_VISIBLE)) return true;
+    final var data = getRegPropagateState();
+    return data != null && (data.hasListeners() || data.isRecordingTrace());
+  }
+
+  public boolean isObserved() {
+    return !sniffers.isEmpty() || isTraceEnabled();
+  }
+
+  /**
+   * Performs a word read directly on a memory slave, bypassing the transaction handling of the
+   * bus. Returns false if the read has to be done by a regular transaction, being the case if the
+   * bus is observed or the address does not map onto exactly one memory.
+   */
+  public boolean fetchWord(SocBusTransaction trans) {
+    final var address = trans.getAddress();
+    if ((address & 3) != 0 || isObserved()) return false;
+    if (memMap.getAddressIndex().getResponder(address) instanceof SocMemoryState memory) {
+      trans.setReadData(memory.readWord(address));
+      trans.setTransactionResponder(memory.getComponent());
+      return true;
+    }
+    return false;
+  }
+
   public void paint(
       int x, int y, Graphics2D g2, Instance inst, boolean visible, InstanceData info) {
     Graphics2D g = (Graphics2D) g2.create();
@@ -0,0 +1,177 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.data;
+
+import com.cburch.logisim.comp.Component;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fixed capacity ring buffer holding the transactions of a soc bus trace in primitive columns.
+ * Transactions are only rebuilt as {@link SocBusTransaction} objects for the entries that are
+ * actually shown. A trace that is longer than the buffer can be recorded to a file while it is
+ * added.
+ */
+public class SocBusTraceBuffer {
+
+  /* "SBTR" */
+  public static final int EXPORT_MAGIC = 0x53425452;
+  public static final int EXPORT_VERSION = 1;
+
+  static final Logger logger = LoggerFactory.getLogger(SocBusTraceBuffer.class);
+
+  private final int capacity;
+  private final int[] addresses;
+  private final int[] writeData;
+  private final int[] readData;
+  /* type, access type and error code packed in one int */
+  private final int[] flags;
+  private final Object[] masters;
+  private final Component[] responders;
+  private int first;
+  private int size;
+  private long startIndex;
+  private DataOutputStream recording;
+  private IOException recordingError;
+
+  public SocBusTraceBuffer(int capacity) {
+    this.capacity = capacity;
+    addresses = new int[capacity];
+    writeData = new int[capacity];
+    readData = new int[capacity];
+    flags = new int[capacity];
+    masters = new Object[capacity];
+    responders = new Component[capacity];
+    clear();
+  }
+
+  public synchronized void add(SocBusTransaction trans) {
+    int slot;
+    if (size == capacity) {
+      slot = first;
+      first = (first + 1) % capacity;
+      startIndex++;
+    } else {
+      slot = (first + size) % capacity;
+      size++;
+    }
+    addresses[slot] = trans.getAddress();
+    writeData[slot] = trans.getWriteData();
+    readData[slot] = trans.getReadData();
+    flags[slot] = (trans.getType() & 0xFF) | ((trans.getAccessType() & 0xFF) << 8) | ((trans.getError() & 0xFF) << 16);
+    masters[slot] = trans.getTransactionInitiator();
+    responders[slot] = trans.getTransactionResponder();
+    if (recording != null && recordingError == null) {
+      try {
+        writeEntry(recording, slot, startIndex + size - 1);
+      } catch (IOException e) {
+        recordingError = e;
+      }
+    }
+  }
+
+  public synchronized void clear() {
+    first = 0;
+    size = 0;
+    startIndex = 0;
+    for (var i = 0; i < capacity; i++) {
+      masters[i] = null;
+      responders[i] = null;
+    }
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  public synchronized boolean isEmpty() {
+    return size == 0;
+  }
+
+  /* the trace index of the oldest entry still kept in the buffer */
+  public synchronized long getStartIndex() {
+    return startIndex;
+  }
+
+  /* index 0 is the oldest entry in the buffer */
+  public synchronized SocBusTransaction get(int index) {
+    final var slot = (first + index) % capacity;
+    final var trans = new SocBusTransaction(flags[slot] & 0xFF, addresses[slot], writeData[slot],
+        (flags[slot] >> 8) & 0xFF, masters[slot]);
+    trans.setReadData(readData[slot]);
+    trans.setError((flags[slot] >> 16) & 0xFF);
+    trans.setTransactionResponder(responders[slot]);
+    return trans;
+  }
+
+  /**
+   * Writes the buffer in a compact binary format: a header (magic, version) followed up to the end
+   * of the file per entry by the trace index (long), address, write data and read data (ints), and
+   * the type, access type and error code (bytes).
+   */
+  public synchronized void export(DataOutputStream out) throws IOException {
+    out.writeInt(EXPORT_MAGIC);
+    out.writeInt(EXPORT_VERSION);
+    for (var i = 0; i < size; i++) writeEntry(out, (first + i) % capacity, startIndex + i);
+  }
+
+  /**
+   * Writes every transaction that is added from now on to the stream, in the format of {@link
+   * #export}, until {@link #stopRecording} is called.
+   */
+  public synchronized void startRecording(DataOutputStream out) throws IOException {
+    stopRecording();
+    try {
+      out.writeInt(EXPORT_MAGIC);
+      out.writeInt(EXPORT_VERSION);
+    } catch (IOException e) {
+      out.close();
+      throw e;
+    }
+    recording = out;
+    recordingError = null;
+  }
+
+  /** Closes the stream of the recording, and throws the first error in writing to it. */
+  public synchronized void stopRecording() throws IOException {
+    if (recording == null) return;
+    final var out = recording;
+    final var error = recordingError;
+    recording = null;
+    recordingError = null;
+    out.close();
+    if (error != null) throw error;
+  }
+
+  /** Stops the recording of a trace that is no longer simulated, errors are only logged. */
+  public synchronized void endRecording() {
+    try {
+      stopRecording();
+    } catch (IOException e) {
+      logger.error("Cannot record the bus trace: {}", e.getMessage());
+    }
+  }
+
+  public synchronized boolean isRecording() {
+    return recording != null;
+  }
+
+  private void writeEntry(DataOutputStream out, int slot, long index) throws IOException {
+    out.writeLong(index);
+    out.writeInt(addresses[slot]);
+    out.writeInt(writeData[slot]);
+    out.writeInt(readData[slot]);
+    out.writeByte(flags[slot] & 0xFF);
+    out.writeByte((flags[slot] >> 8) & 0xFF);
+    out.writeByte((flags[slot] >> 16) & 0xFF);
+  }
+}
@@ -46,11 +46,11 @@ public class SocBusTransaction {
   public static final int HALF_WORD_ACCESS = 2;
   public static final int WORD_ACCESS = 3;
 
-  private final int address;
-  private final int writeData;
+  private int address;
+  private int writeData;
   private int readData;
-  private final int type;
-  private final int access;
+  private int type;
+  private int access;
   private final Object master;
   private Component slave;
   private int error;
@@ -68,6 +68,19 @@ public class SocBusTransaction {
     hidden = false;
   }
 
+  /* Re-initializes this transaction for a new access of the same master, see SocBusInfo. */
+  public SocBusTransaction reuse(int type, int addr, int value, int access) {
+    this.type = type;
+    this.address = addr;
+    this.writeData = value;
+    this.access = access;
+    slave = null;
+    readData = 0;
+    error = NO_ERROR;
+    hidden = false;
+    return this;
+  }
+
   public void setAsHiddenTransaction() {
     hidden = true;
   }
@@ -130,6 +143,10 @@ public class SocBusTransaction {
     error = value;
   }
 
+  public int getError() {
+    return error;
+  }
+
   public boolean hasError() {
     return error != NO_ERROR;
   }
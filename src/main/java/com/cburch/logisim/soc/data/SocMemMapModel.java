@@ -200,6 +200,7 @@ public class SocMemMapModel extends AbstractTableModel
 
   private final ArrayList<SocBusSlaveInterface> slaves;
   private final SlaveMap slaveMap;
+  private final SocBusAddressIndex addressIndex;
   private final SlaveInfoRenderer slaveRenderer;
   private final MemoryMapHeaderRenderer headRenderer;
   private InstanceComponent marked;
@@ -209,6 +210,7 @@ public class SocMemMapModel extends AbstractTableModel
     LocaleManager.addLocaleListener(this);
     slaveMap = new SlaveMap();
     slaves = new ArrayList<>();
+    addressIndex = new SocBusAddressIndex();
     slaveRenderer = new SlaveInfoRenderer();
     headRenderer = new MemoryMapHeaderRenderer();
     marked = null;
@@ -235,6 +237,10 @@ public class SocMemMapModel extends AbstractTableModel
     return slaves;
   }
 
+  public SocBusAddressIndex getAddressIndex() {
+    return addressIndex;
+  }
+
   public SlaveInfoRenderer getCellRender() {
     return slaveRenderer;
   }
@@ -285,6 +291,7 @@ public class SocMemMapModel extends AbstractTableModel
   }
 
   private void rebuild() {
+    addressIndex.rebuild(slaves);
     slaveMap.clear();
     if (slaves.isEmpty())
       slaveMap.add(new SlaveInfo(0, -1));
@@ -12,6 +12,7 @@ package com.cburch.logisim.soc.data;
 import com.cburch.logisim.circuit.CircuitState;
 import com.cburch.logisim.soc.file.ElfProgramHeader;
 import com.cburch.logisim.soc.file.ElfSectionHeader;
+import java.nio.ByteBuffer;
 
 public interface SocProcessorInterface {
 
@@ -20,5 +21,11 @@ public interface SocProcessorInterface {
 
   void insertTransaction(SocBusTransaction trans, boolean hidden, CircuitState cState);
 
+  /**
+   * Writes a complete segment of size bytes in one go to the memory connected to the processor bus.
+   * Returns false if this is not possible, in which case it has to be written by transactions.
+   */
+  boolean loadSegment(int address, ByteBuffer data, int size, CircuitState cState);
+
   int getEntryPoint(CircuitState cState);
 }
@@ -24,6 +24,7 @@ import com.cburch.logisim.soc.bus.SocBusAttributes;
 import com.cburch.logisim.util.StringUtil;
 import java.awt.Window;
 import java.awt.event.MouseEvent;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import javax.swing.JLabel;
@@ -261,4 +262,32 @@ public class SocSimulationManager implements SocBusMasterInterface {
     info.initializeTransaction(trans, busId);
   }
 
+  public boolean isBusObserved(String busId) {
+    final var info = socBusses.get(busId);
+    return info == null || info.isObserved();
+  }
+
+  /**
+   * Loads a segment directly into the slave of the bus that handles it, see {@link
+   * SocBusStateInfo#loadSegment}. Returns false if the segment has to be written by transactions.
+   */
+  public boolean loadSegment(String busId, int address, ByteBuffer data, int size, CircuitState cState) {
+    if (!toBeChecked.isEmpty()) return false;
+    final var info = socBusses.get(busId);
+    if (info == null || info.getComponent() == null) return false;
+    state = cState;
+    return info.loadSegment(cState, address, data, size);
+  }
+
+  /**
+   * Fast path for instruction fetches, see {@link SocBusStateInfo#fetchWord(SocBusTransaction)}.
+   * Returns false if the fetch has to be performed by {@link #initializeTransaction}.
+   */
+  public boolean fetchWord(SocBusTransaction trans, String busId, CircuitState cState) {
+    if (!toBeChecked.isEmpty()) return false;
+    final var info = socBusses.get(busId);
+    if (info == null || info.getComponent() == null) return false;
+    state = cState;
+    return info.fetchWord(trans);
+  }
 }
@@ -13,6 +13,7 @@ import com.cburch.logisim.circuit.CircuitState;
 import com.cburch.logisim.circuit.SubcircuitFactory;
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.soc.memory.SocMemory;
 import com.cburch.logisim.util.StringUtil;
 import java.awt.event.ActionListener;
 import java.io.PrintWriter;
@@ -31,6 +32,12 @@ public class SocSupport {
     return (int) (value & LONG_MASK);
   }
 
+  /* transactions that are not answered by a memory can have side effects in the circuit */
+  public static boolean isIoTransaction(SocBusTransaction trans) {
+    final var responder = trans.getTransactionResponder();
+    return responder == null || !(responder.getFactory() instanceof SocMemory);
+  }
+
   public static void addAllFunctions(
       PrintWriter h, PrintWriter c, String compName, String functName, int base, int index) {
     addSetterFunction(h, compName, functName, base, index, true);
@@ -25,10 +25,16 @@ import com.cburch.logisim.tools.MenuExtender;
 import com.cburch.logisim.util.StringUtil;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.HashMap;
 import javax.swing.JFileChooser;
 import javax.swing.JMenuItem;
 import javax.swing.JPopupMenu;
+import javax.swing.SwingUtilities;
+import javax.swing.filechooser.FileNameExtensionFilter;
 
 public class SocUpMenuProvider implements ActionListener {
   public static final SocUpMenuProvider SOCUPMENUPROVIDER = new SocUpMenuProvider();
@@ -37,6 +43,9 @@ public class SocUpMenuProvider implements ActionListener {
   private static final int SHOW_STATE_FUNCTION = 2;
   private static final int SHOW_PROGRAM = 3;
   private static final int SHOW_ASM = 4;
+  private static final int FAST_FORWARD = 5;
+  private static final int RECORD_TRACE = 6;
+  private static final int DEFAULT_FAST_FORWARD_INSTRUCTIONS = 1000000;
 
   private static class InstanceMenuItem extends JMenuItem {
     private static final long serialVersionUID = 1L;
@@ -139,6 +148,21 @@ public class SocUpMenuProvider implements ActionListener {
       readElf.addActionListener(parent);
       readElf.setEnabled(true);
       menu.add(readElf);
+      if (state != null) {
+        name = circuitState != null ? instName + " : " + S.get("SocUpMenuFastForward") : S.get("SocUpMenuFastForward");
+        final var fastForward = new InstanceMenuItem(instance, name, FAST_FORWARD, state);
+        fastForward.addActionListener(parent);
+        // the processor only executes while it is running
+        fastForward.setEnabled(((SocUpStateInterface) instance.getData(state)).getSimState().canExecute());
+        menu.add(fastForward);
+        final var traces = ((SocUpStateInterface) instance.getData(state)).getTraces();
+        name = S.get(traces.isRecording() ? "SocUpMenuStopRecordingTrace" : "SocUpMenuRecordTrace");
+        if (circuitState != null) name = instName + " : " + name;
+        final var recordTrace = new InstanceMenuItem(instance, name, RECORD_TRACE, state);
+        recordTrace.addActionListener(parent);
+        recordTrace.setEnabled(true);
+        menu.add(recordTrace);
+      }
       if (circuitState != null) {
         final var showState = new InstanceMenuItem(instance,
             instName + " : " + S.get("SocUpMenuShowState"),
@@ -198,6 +222,58 @@ public class SocUpMenuProvider implements ActionListener {
       OptionPane.showMessageDialog(parentFrame, S.get("ProcReadElfLoadedAndEntrySet"));
     }
 
+    public void fastForward(Instance instance, CircuitState circuitState) {
+      final var answer = OptionPane.showInputDialog(parentFrame, S.get("SocUpMenuFastForwardNrOfInstructions"),
+          S.get("SocUpMenuFastForward"), OptionPane.QUESTION_MESSAGE, null, null,
+          Integer.toString(DEFAULT_FAST_FORWARD_INSTRUCTIONS));
+      if (answer == null) return;
+      final int nrOfInstructions;
+      try {
+        nrOfInstructions = Integer.parseInt(answer.toString().trim());
+      } catch (NumberFormatException e) {
+        return;
+      }
+      final var data = (SocUpStateInterface) circuitState.getData(instance.getComponent());
+      if (data == null) return;
+      if (!data.getSimState().canExecute()) {
+        OptionPane.showMessageDialog(parentFrame, S.get("SocUpMenuFastForwardNotRunning"),
+            S.get("SocUpMenuFastForward"), OptionPane.INFORMATION_MESSAGE);
+        return;
+      }
+      // the simulator executes the processor on clock edges, so it has to fast-forward as well
+      circuitState.getProject().getSimulator().runOnSimulatorThread(() -> {
+        final var executed = data.fastForward(nrOfInstructions, circuitState);
+        SwingUtilities.invokeLater(() ->
+            OptionPane.showMessageDialog(parentFrame, S.get("SocUpMenuFastForwardDone", executed)));
+      });
+    }
+
+    public void recordTrace(Instance instance, CircuitState circuitState, String name) {
+      final var data = (SocUpStateInterface) circuitState.getData(instance.getComponent());
+      if (data == null) return;
+      final var traces = data.getTraces();
+      if (traces.isRecording()) {
+        try {
+          traces.stopRecording();
+        } catch (IOException e) {
+          OptionPane.showMessageDialog(parentFrame, S.get("SocUpMenuRecordTraceError", e.getMessage()),
+              name, OptionPane.ERROR_MESSAGE);
+        }
+        return;
+      }
+      final var fc = new JFileChooser();
+      fc.setDialogTitle(name);
+      fc.setFileFilter(new FileNameExtensionFilter(S.get("SocUpMenuTraceFileExtension"), "sit"));
+      if (fc.showSaveDialog(parentFrame) != JFileChooser.APPROVE_OPTION) return;
+      try {
+        traces.startRecording(new DataOutputStream(new BufferedOutputStream(
+            new FileOutputStream(fc.getSelectedFile()))));
+      } catch (IOException e) {
+        OptionPane.showMessageDialog(parentFrame, S.get("SocUpMenuRecordTraceError", e.getMessage()),
+            name, OptionPane.ERROR_MESSAGE);
+      }
+    }
+
     public void registerCpuState(SocUpStateInterface data) {
       if (!myStates.containsKey(data))
         myStates.put(data, null);
@@ -339,6 +415,14 @@ public class SocUpMenuProvider implements ActionListener {
                 .showProgram(info.getState(), info.getHierarchyInfo(), info.getCircuitState());
             return;
           }
+          case FAST_FORWARD -> {
+            myInfo.get(inst).fastForward(inst, info.getCircuitState());
+            return;
+          }
+          case RECORD_TRACE -> {
+            myInfo.get(inst).recordTrace(inst, info.getCircuitState(), info.getText());
+            return;
+          }
           case SHOW_ASM -> {
             myInfo.get(inst).showAsmWindow(inst, info.getState(), info.getHierarchyInfo(),
                 info.getCircuitState());
@@ -9,9 +9,9 @@
 
 package com.cburch.logisim.soc.data;
 
+import com.cburch.logisim.circuit.CircuitState;
 import com.cburch.logisim.soc.util.AssemblerInterface;
 import java.awt.event.WindowListener;
-import java.util.LinkedList;
 import javax.swing.JPanel;
 
 public interface SocUpStateInterface {
@@ -25,7 +25,7 @@ public interface SocUpStateInterface {
 
   int getProgramCounter();
 
-  LinkedList<TraceInfo> getTraces();
+  InstructionTraceBuffer getTraces();
 
   void simButtonPressed();
 
@@ -48,4 +48,11 @@ public interface SocUpStateInterface {
   int getElfType();
 
   void repaint();
+
+  /**
+   * Executes up to maxInstructions instructions without waiting for clock edges. Stops early on a
+   * breakpoint, an error or after an access to a slave that is not a memory. Returns the number of
+   * instructions executed.
+   */
+  int fastForward(int maxInstructions, CircuitState cState);
 }
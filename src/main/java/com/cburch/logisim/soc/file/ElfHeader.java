@@ -11,8 +11,7 @@ package com.cburch.logisim.soc.file;
 
 import static com.cburch.logisim.soc.Strings.S;
 
-import java.io.FileInputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 public class ElfHeader {
@@ -159,18 +158,12 @@ public class ElfHeader {
   private EInfo eInfo;
   private final byte[] e_ident = new byte[E_IDENT_SIZE];
 
-  public ElfHeader(FileInputStream file) {
-    int nrRead = -1;
-    try {
-      nrRead = file.read(e_ident);
-    } catch (IOException e) {
-      status |= EI_ERROR_READING_FILE;
-      return;
-    }
-    if (nrRead != E_IDENT_SIZE) {
+  public ElfHeader(ByteBuffer elf) {
+    if (elf.limit() < E_IDENT_SIZE) {
       status |= EI_SIZE_ERROR;
       return;
     }
+    elf.get(0, e_ident);
     if (!isElfFile()) {
       status |= EI_MAGIC_ERROR;
       return;
@@ -185,14 +178,8 @@ public class ElfHeader {
     }
     int hsize = is32Bit() ? ELF_HEADER_SIZE_32 : ELF_HEADER_SIZE_64;
     hsize -= E_IDENT_SIZE;
-    byte[] buffer = new byte[hsize];
-    try {
-      nrRead = file.read(buffer);
-    } catch (IOException e) {
-      status |= EI_ERROR_READING_FILE;
-      return;
-    }
-    if (nrRead != hsize) {
+    byte[] buffer = getBytes(elf, E_IDENT_SIZE, hsize);
+    if (buffer == null) {
       status |= E_SIZE_ERROR;
       return;
     }
@@ -280,6 +267,17 @@ public class ElfHeader {
     return getLongValue(getValue(ElfHeader.E_PHOFF));
   }
 
+  /**
+   * Returns a copy of size bytes of the elf file starting at offset, or null if the file is too
+   * short.
+   */
+  public static byte[] getBytes(ByteBuffer elf, long offset, int size) {
+    if (offset < 0 || size < 0 || offset + size > elf.limit()) return null;
+    final var buffer = new byte[size];
+    elf.get((int) offset, buffer);
+    return buffer;
+  }
+
   public static long getLongValue(
       byte[] buffer, int startIndex, int NrOfBytes, boolean isLittleEndian) {
     long result = 0;
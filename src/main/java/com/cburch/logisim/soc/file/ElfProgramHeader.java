@@ -11,8 +11,7 @@ package com.cburch.logisim.soc.file;
 
 import static com.cburch.logisim.soc.Strings.S;
 
-import java.io.FileInputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Map;
 
@@ -137,28 +136,18 @@ public class ElfProgramHeader {
   private ArrayList<ProgramHeader> headers;
   private long programHeaderSize;
 
-  public ElfProgramHeader(FileInputStream file, ElfHeader elfHeader) {
-    // Important: the FileInputStream should be located at the beginning of the file (so directly
-    // after open)
+  public ElfProgramHeader(ByteBuffer elf, ElfHeader elfHeader) {
     status = SUCCESS;
-    try {
-      file.skip(elfHeader.getSize());
-    } catch (IOException e) {
+    final var offset = elfHeader.getSize();
+    if (offset < 0 || offset > elf.limit()) {
       status = PROGRAM_HEADER_NOT_FOUND_ERROR;
       return;
     }
     int nrOfProgramHeaders = ElfHeader.getIntValue(elfHeader.getValue(ElfHeader.E_PHNUM));
     int progHeaderEntrySize = ElfHeader.getIntValue(elfHeader.getValue(ElfHeader.E_PHENTSIZE));
     programHeaderSize = nrOfProgramHeaders * progHeaderEntrySize;
-    byte[] buffer = new byte[(int) programHeaderSize];
-    int nrRead = 0;
-    try {
-      nrRead = file.read(buffer);
-    } catch (IOException e) {
-      status = PROGRAM_HEADER_READ_ERROR;
-      return;
-    }
-    if (nrRead != programHeaderSize) {
+    byte[] buffer = ElfHeader.getBytes(elf, offset, (int) programHeaderSize);
+    if (buffer == null) {
       status = PROGRAM_HEADER_SIZE_ERROR;
       return;
     }
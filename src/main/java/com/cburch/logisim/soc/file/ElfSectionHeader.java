@@ -11,8 +11,7 @@ package com.cburch.logisim.soc.file;
 
 import static com.cburch.logisim.soc.Strings.S;
 
-import java.io.FileInputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 
 public class ElfSectionHeader {
@@ -34,34 +33,27 @@ public class ElfSectionHeader {
 
   private int status;
   private ArrayList<SectionHeader> headers;
+  private byte[] symbolBuffer;
+  private byte[] stringBuffer;
+  private boolean symbolsLittleEndian;
 
   public ElfSectionHeader() {
     status = SUCCESS;
     headers = new ArrayList<>();
   }
 
-  public ElfSectionHeader(FileInputStream file, ElfHeader elfHeader) {
-    // Important: the FileInputStream should be located at the beginning of the file (so directly
-    // after open)
+  public ElfSectionHeader(ByteBuffer elf, ElfHeader elfHeader) {
     status = SUCCESS;
-    try {
-      file.skip(ElfHeader.getLongValue(elfHeader.getValue(ElfHeader.E_SHOFF)));
-    } catch (IOException e) {
+    final var offset = ElfHeader.getLongValue(elfHeader.getValue(ElfHeader.E_SHOFF));
+    if (offset < 0 || offset > elf.limit()) {
       status = SECTION_HEADER_NOT_FOUND_ERROR;
       return;
     }
     int nrOfHeaders = ElfHeader.getIntValue(elfHeader.getValue(ElfHeader.E_SHNUM));
     int HeaderSize = ElfHeader.getIntValue(elfHeader.getValue(ElfHeader.E_SHENTSIZE));
     long BlockSize = nrOfHeaders * HeaderSize;
-    byte[] buffer = new byte[(int) BlockSize];
-    int nrRead = 0;
-    try {
-      nrRead = file.read(buffer);
-    } catch (IOException e) {
-      status = SECTION_HEADER_READ_ERROR;
-      return;
-    }
-    if (nrRead != BlockSize) {
+    byte[] buffer = ElfHeader.getBytes(elf, offset, (int) BlockSize);
+    if (buffer == null) {
       status = SECTION_HEADER_SIZE_ERROR;
       return;
     }
@@ -82,9 +74,7 @@ public class ElfSectionHeader {
     return s.toString();
   }
 
-  public boolean readSectionNames(FileInputStream file, ElfHeader elfHeader) {
-    // Important: the FileInputStream should be located at the beginning of the file (so directly
-    // after open)
+  public boolean readSectionNames(ByteBuffer elf, ElfHeader elfHeader) {
     int idx = (int) elfHeader.getValue(ElfHeader.E_SHSTRNDX);
     if (idx == SectionHeader.SHT_NULL)
       return true;
@@ -97,21 +87,13 @@ public class ElfSectionHeader {
       status = SECTION_STRING_TABLE_WRONG_TYPE;
     }
     int size = ElfHeader.getIntValue(h.getValue(SectionHeader.SH_SIZE));
-    try {
-      file.skip(ElfHeader.getLongValue(h.getValue(SectionHeader.SH_OFFSET)));
-    } catch (IOException e) {
+    final var offset = ElfHeader.getLongValue(h.getValue(SectionHeader.SH_OFFSET));
+    if (offset > elf.limit()) {
       status = SECTION_STRING_TABLE_NOT_FOUND_ERROR;
       return false;
     }
-    byte[] buffer = new byte[size];
-    int nrRead = 0;
-    try {
-      nrRead = file.read(buffer);
-    } catch (IOException e) {
-      status = SECTION_STRING_TABLE_READ_ERROR;
-      return false;
-    }
-    if (nrRead != size) {
+    byte[] buffer = ElfHeader.getBytes(elf, offset, size);
+    if (buffer == null) {
       status = SECTION_STRING_TABLE_READ_ERROR;
       return false;
     }
@@ -120,9 +102,11 @@ public class ElfSectionHeader {
     return true;
   }
 
-  public boolean readSymbolTable(FileInputStream file, ElfHeader elfHeader) {
-    // Important: the FileInputStream should be located at the beginning of the file (so directly
-    // after open)
+  /**
+   * Reads the raw symbol table and its string table. The symbols themselves are only parsed when
+   * the symbols of one of the sections are requested for the first time.
+   */
+  public boolean readSymbolTable(ByteBuffer elf, ElfHeader elfHeader) {
     SectionHeader strtab = null;
     SectionHeader shstrtab = null;
     int symtabidx = (int) elfHeader.getValue(ElfHeader.E_SHSTRNDX);
@@ -146,64 +130,58 @@ public class ElfSectionHeader {
     }
     if (shstrtab == null)
       return true;
-    int symTableOffset = ElfHeader.getIntValue(shstrtab.getValue(SectionHeader.SH_OFFSET));
+    long symTableOffset = ElfHeader.getLongValue(shstrtab.getValue(SectionHeader.SH_OFFSET));
     int symTableSize = ElfHeader.getIntValue(shstrtab.getValue(SectionHeader.SH_SIZE));
-    int strTableOffset =
-        strtab == null ? 1 : ElfHeader.getIntValue(strtab.getValue(SectionHeader.SH_OFFSET));
-    int strTableSize =
-        strtab == null ? 1 : ElfHeader.getIntValue(strtab.getValue(SectionHeader.SH_SIZE));
-    byte[] symBuffer = new byte[symTableSize];
-    byte[] strBuffer = new byte[strTableSize];
-    try {
-      file.skip(Math.min(symTableOffset, strTableOffset));
-    } catch (IOException e) {
-      status = SYMBOL_TABLE_NOT_FOUND_ERROR;
-      return false;
-    }
-    int nrRead = 0;
-    try {
-      nrRead = file.read(symTableOffset < strTableOffset ? symBuffer : strBuffer);
-    } catch (IOException e) {
-      status = SYMBOL_TABLE_READ_ERROR;
-      return false;
-    }
-    if (nrRead != (symTableOffset < strTableOffset ? symTableSize : strTableSize)) {
-      status = SYMBOL_TABLE_READ_ERROR;
-      return false;
-    }
-    int fileOffset = (Math.min(symTableOffset, strTableOffset)) + nrRead;
-    int toskip = (Math.max(symTableOffset, strTableOffset)) - fileOffset;
-    try {
-      file.skip(toskip);
-    } catch (IOException e) {
+    if (symTableOffset > elf.limit()) {
       status = SYMBOL_TABLE_NOT_FOUND_ERROR;
       return false;
     }
-    try {
-      nrRead = file.read(symTableOffset > strTableOffset ? symBuffer : strBuffer);
-    } catch (IOException e) {
+    if ((symTableSize % SymbolTable.SYMBOL_TABLE_SIZE) != 0) {
       status = SYMBOL_TABLE_READ_ERROR;
       return false;
     }
-    if (nrRead != (symTableOffset > strTableOffset ? symTableSize : strTableSize)) {
-      status = SYMBOL_TABLE_READ_ERROR;
-      return false;
+    final var symBuffer = ElfHeader.getBytes(elf, symTableOffset, symTableSize);
+    byte[] strBuffer = null;
+    if (strtab != null) {
+      long strTableOffset = ElfHeader.getLongValue(strtab.getValue(SectionHeader.SH_OFFSET));
+      int strTableSize = ElfHeader.getIntValue(strtab.getValue(SectionHeader.SH_SIZE));
+      if (strTableOffset > elf.limit()) {
+        status = SYMBOL_TABLE_NOT_FOUND_ERROR;
+        return false;
+      }
+      strBuffer = ElfHeader.getBytes(elf, strTableOffset, strTableSize);
+      if (strBuffer == null) {
+        status = SYMBOL_TABLE_READ_ERROR;
+        return false;
+      }
     }
-    if ((symTableSize % SymbolTable.SYMBOL_TABLE_SIZE) != 0) {
+    if (symBuffer == null) {
       status = SYMBOL_TABLE_READ_ERROR;
       return false;
     }
+    symbolBuffer = symBuffer;
+    stringBuffer = strBuffer;
+    symbolsLittleEndian = elfHeader.isLittleEndian();
+    for (final var header : headers) header.setSymbolLoader(this);
+    return true;
+  }
+
+  /* parses the symbol table read by readSymbolTable, called on the first request for symbols */
+  synchronized void loadSymbols() {
+    if (symbolBuffer == null) return;
+    final var symBuffer = symbolBuffer;
+    symbolBuffer = null;
     int index = 0;
-    while (index < symTableSize) {
-      SymbolTable st = new SymbolTable(symBuffer, elfHeader.isLittleEndian(), index);
+    while (index < symBuffer.length) {
+      SymbolTable st = new SymbolTable(symBuffer, symbolsLittleEndian, index);
       index += SymbolTable.SYMBOL_TABLE_SIZE;
-      if (strtab != null)
-        st.setName(getString(strBuffer, st.getValue(SymbolTable.ST_NAME)));
+      if (stringBuffer != null)
+        st.setName(getString(stringBuffer, st.getValue(SymbolTable.ST_NAME)));
       int headerIndex = st.getValue(SymbolTable.ST_SHNDX);
       if (headerIndex != SectionHeader.SHT_NULL && headerIndex < headers.size())
         headers.get(headerIndex).addSymbol(st);
     }
-    return true;
+    stringBuffer = null;
   }
 
   public boolean isValid() {
@@ -18,9 +18,10 @@ import com.cburch.logisim.soc.data.SocInstanceFactory;
 import com.cburch.logisim.soc.data.SocProcessorInterface;
 import com.cburch.logisim.soc.file.ElfProgramHeader.ProgramHeader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 public class ProcessorReadElf {
 
@@ -42,7 +43,7 @@ public class ProcessorReadElf {
   private final SocProcessorInterface cpu;
   private final int architecture;
   private final File elfFile;
-  private FileInputStream elfFileStream;
+  private ByteBuffer elfData;
   private int status;
   private ElfHeader elfHeader;
   private ElfProgramHeader programHeader;
@@ -57,8 +58,13 @@ public class ProcessorReadElf {
     this.elfFile = elfFile;
     status = SUCCESS;
     if (!open()) return;
-    elfHeader = new ElfHeader(elfFileStream);
-    close();
+    readHeaders(littleEndian);
+    // the mapping is only needed again to load the segments
+    if (status != SUCCESS) elfData = null;
+  }
+
+  private void readHeaders(boolean littleEndian) {
+    elfHeader = new ElfHeader(elfData);
     if (!elfHeader.isValid()) {
       status = ELF_HEADER_ERROR;
       return;
@@ -77,16 +83,12 @@ public class ProcessorReadElf {
       status = ENDIAN_MISMATCH_ERROR;
       return;
     }
-    if (!open()) return;
-    programHeader = new ElfProgramHeader(elfFileStream, elfHeader);
-    close();
+    programHeader = new ElfProgramHeader(elfData, elfHeader);
     if (!programHeader.isValid()) {
       status = PROGRAM_HEADER_INVALID;
       return;
     }
-    if (!open()) return;
-    sectionHeader = new ElfSectionHeader(elfFileStream, elfHeader);
-    close();
+    sectionHeader = new ElfSectionHeader(elfData, elfHeader);
     if (!sectionHeader.isValid()) {
       status = SECTION_HEADER_INVALID;
       return;
@@ -95,16 +97,12 @@ public class ProcessorReadElf {
       status = NOT_SUPPORTED_YET_ERROR;
       return;
     }
-    if (!open()) return;
-    sectionHeader.readSectionNames(elfFileStream, elfHeader);
-    close();
+    sectionHeader.readSectionNames(elfData, elfHeader);
     if (!sectionHeader.isValid()) {
       status = SECTION_HEADER_INVALID;
       return;
     }
-    if (!open()) return;
-    sectionHeader.readSymbolTable(elfFileStream, elfHeader);
-    close();
+    sectionHeader.readSymbolTable(elfData, elfHeader);
     if (!sectionHeader.isValid()) {
       status = SECTION_HEADER_INVALID;
       return;
@@ -143,15 +141,26 @@ public class ProcessorReadElf {
     };
   }
 
+  /**
+   * Loads the segments into memory and sets the entry point. The file is released afterwards, such
+   * that a reader can only execute once.
+   */
   public boolean execute(CircuitState cState) {
+    try {
+      return loadSegments(cState);
+    } finally {
+      // the mapping holds on to the file, on some systems it cannot be rebuilt while mapped
+      elfData = null;
+    }
+  }
+
+  private boolean loadSegments(CircuitState cState) {
     for (int i = 0; i < programHeader.getNrOfHeaders(); i++) {
       ProgramHeader h = programHeader.getHeader(i);
       if (ElfHeader.getIntValue(h.getValue(ElfProgramHeader.P_TYPE)) != ElfProgramHeader.PT_LOAD)
         continue;
-      if (!open()) return false;
-      try {
-        elfFileStream.skip(ElfHeader.getLongValue(h.getValue(ElfProgramHeader.P_OFFSET)));
-      } catch (IOException e) {
+      long offset = ElfHeader.getLongValue(h.getValue(ElfProgramHeader.P_OFFSET));
+      if (offset > elfData.limit()) {
         status = LOADABLE_SECTION_NOT_FOUND;
         return false;
       }
@@ -161,29 +170,25 @@ public class ProcessorReadElf {
         status = LOADABLE_SECTION_TOO_BIG;
         return false;
       }
-      byte[] buffer = new byte[(int) sectionSize];
-      int nrRead = 0;
-      try {
-        nrRead = elfFileStream.read(buffer);
-      } catch (IOException e) {
-        status = LOADABLE_SECTION_READ_ERROR;
-        return false;
-      }
-      if (sectionSize != nrRead) {
+      if (offset + sectionSize > elfData.limit()) {
         status = LOADABLE_SECTION_SIZE_ERROR;
         return false;
       }
+      final var segment = elfData.slice((int) offset, (int) sectionSize);
       long startAddr = ElfHeader.getLongValue(h.getValue(ElfProgramHeader.P_PADDR));
+      int startAddress = ElfHeader.getIntValue(ElfHeader.returnCorrectValue(startAddr, true));
+      if (memSize == 0 || cpu.loadSegment(startAddress, segment, (int) memSize, cState)) continue;
+      /* the segment cannot be loaded in one go, so write it byte by byte */
+      segment.rewind();
+      SocBusTransaction trans = null;
       for (int j = 0; j < memSize; j++) {
-        int data = (j < buffer.length) ? buffer[j] : 0;
-        int addr = ElfHeader.getIntValue(ElfHeader.returnCorrectValue(startAddr + (long) j, true));
-        SocBusTransaction trans =
-            new SocBusTransaction(
-                SocBusTransaction.WRITE_TRANSACTION,
-                addr,
-                data,
-                SocBusTransaction.BYTE_ACCESS,
-                "elf");
+        int data = segment.hasRemaining() ? segment.get() : 0;
+        int addr = startAddress + j;
+        if (trans == null)
+          trans = new SocBusTransaction(
+              SocBusTransaction.WRITE_TRANSACTION, addr, data, SocBusTransaction.BYTE_ACCESS, "elf");
+        else
+          trans.reuse(SocBusTransaction.WRITE_TRANSACTION, addr, data, SocBusTransaction.BYTE_ACCESS);
         cpu.insertTransaction(trans, true, cState);
         if (trans.hasError()) {
           start = startAddr;
@@ -202,19 +207,17 @@ public class ProcessorReadElf {
   }
 
   private boolean open() {
-    try {
-      elfFileStream = new FileInputStream(elfFile);
-    } catch (FileNotFoundException e) {
+    /* the file is mapped read-only, the mapping stays valid after the channel is closed */
+    try (final var channel = FileChannel.open(elfFile.toPath(), StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        status = FILE_OPEN_ERROR;
+        return false;
+      }
+      elfData = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } catch (IOException e) {
       status = FILE_OPEN_ERROR;
       return false;
     }
     return true;
   }
-
-  private void close() {
-    try {
-      elfFileStream.close();
-    } catch (IOException ignored) {
-    }
-  }
 }
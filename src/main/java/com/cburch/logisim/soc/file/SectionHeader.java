@@ -60,6 +60,7 @@ public class SectionHeader {
   private final boolean is32Bit;
   private String name;
   private final ArrayList<SymbolTable> symbols;
+  private ElfSectionHeader symbolLoader;
 
   public SectionHeader(byte[] buffer, boolean is32Bit, boolean isLittleEndian, int offset) {
     this.is32Bit = is32Bit;
@@ -113,11 +114,20 @@ public class SectionHeader {
     return name;
   }
 
+  void setSymbolLoader(ElfSectionHeader loader) {
+    symbolLoader = loader;
+  }
+
   public void addSymbol(SymbolTable info) {
     symbols.add(info);
   }
 
   public List<SymbolTable> getSymbols() {
+    if (symbolLoader != null) {
+      final var loader = symbolLoader;
+      symbolLoader = null;
+      loader.loadSymbols();
+    }
     return symbols;
   }
 
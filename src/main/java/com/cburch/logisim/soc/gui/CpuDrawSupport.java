@@ -18,7 +18,6 @@ import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.soc.data.SocUpSimulationState;
 import com.cburch.logisim.soc.data.SocUpStateInterface;
-import com.cburch.logisim.soc.data.TraceInfo;
 import com.cburch.logisim.util.GraphicsUtil;
 import java.awt.Color;
 import java.awt.FontMetrics;
@@ -221,8 +220,9 @@ public class CpuDrawSupport {
       GraphicsUtil.drawCenteredText(g2, S.get("Rv32imEmptyTrace"), bds.getX(), bds.getY());
     } else {
       int yOff = 30;
-      for (TraceInfo t : cpu.getTraces()) {
-        t.paint(g2, yOff, scale);
+      final var traces = cpu.getTraces();
+      for (var i = 0; i < traces.size(); i++) {
+        traces.get(i).paint(g2, yOff, scale);
         yOff += TRACE_HEIGHT;
       }
     }
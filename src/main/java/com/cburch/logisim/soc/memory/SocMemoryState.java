@@ -9,6 +9,7 @@
 
 package com.cburch.logisim.soc.memory;
 
+import com.cburch.logisim.circuit.CircuitState;
 import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.instance.InstanceComponent;
 import com.cburch.logisim.instance.InstanceData;
@@ -18,6 +19,8 @@ import com.cburch.logisim.soc.data.SocBusSlaveListener;
 import com.cburch.logisim.soc.data.SocBusTransaction;
 import com.cburch.logisim.soc.data.SocSupport;
 import com.cburch.logisim.util.StringUtil;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.Random;
@@ -35,6 +38,11 @@ public class SocMemoryState implements SocBusSlaveInterface {
         contents.add(data);
       }
 
+      public SocMemoryInfoBlock(int address, LinkedList<Integer> data) {
+        startAddress = (address >> 2) << 2;
+        contents.addAll(data);
+      }
+
       public boolean canAddBefore(int address) {
         final var previousAddress = getStartAddress() - 4;
         return (address >= previousAddress) && (address < getStartAddress());
@@ -108,6 +116,53 @@ public class SocMemoryState implements SocBusSlaveInterface {
       return rand.nextInt();
     }
 
+    public void readWords(int address, int[] buffer, int offset, int count) {
+      for (var i = 0; i < count; i++) buffer[offset + i] = rand.nextInt();
+      final var start = SocSupport.convUnsignedInt(address);
+      final var end = start + 4L * count;
+      for (final var info : memInfo) {
+        final var blockStart = SocSupport.convUnsignedInt(info.getStartAddress());
+        final var blockEnd = blockStart + 4L * info.contents.size();
+        if (blockEnd <= start || blockStart >= end) continue;
+        final var first = Math.max(start, blockStart);
+        final var last = Math.min(end, blockEnd);
+        /* walk the block sequentially, as indexing a linked list is linear */
+        final var iter = info.contents.listIterator((int) ((first - blockStart) >> 2));
+        for (var addr = first; addr < last; addr += 4)
+          buffer[offset + (int) ((addr - start) >> 2)] = iter.next();
+      }
+    }
+
+    /**
+     * Writes count words starting at the word aligned address. All blocks overlapping or adjacent to
+     * the range are merged into a single new block, such that large ranges are written in linear time.
+     */
+    public void writeWords(int address, int[] words, int count) {
+      final var start = SocSupport.convUnsignedInt(address);
+      final var end = start + 4L * count;
+      final var contents = new LinkedList<Integer>();
+      final var tail = new LinkedList<Integer>();
+      var newStart = start;
+      final var iter = memInfo.iterator();
+      while (iter.hasNext()) {
+        final var info = iter.next();
+        final var blockStart = SocSupport.convUnsignedInt(info.getStartAddress());
+        final var blockEnd = blockStart + 4L * info.contents.size();
+        if (blockEnd < start || blockStart > end) continue;
+        var addr = blockStart;
+        for (final var value : info.contents) {
+          if (addr < start) contents.add(value);
+          else if (addr >= end) tail.add(value);
+          addr += 4;
+        }
+        newStart = Math.min(newStart, blockStart);
+        iter.remove();
+      }
+      for (var i = 0; i < count; i++) contents.add(words[i]);
+      contents.addAll(tail);
+      if (!contents.isEmpty()) memInfo.add(new SocMemoryInfoBlock((int) newStart, contents));
+    }
+
     public void writeWord(int address, int wdata) {
       final var adders = new ArrayList<SocMemoryInfoBlock>();
       for (final var info : memInfo) {
@@ -263,6 +318,71 @@ public class SocMemoryState implements SocBusSlaveInterface {
     trans.setTransactionResponder(attachedBus.getComponent());
   }
 
+  public int readWord(int address) {
+    return performReadAction(address, SocBusTransaction.WORD_ACCESS);
+  }
+
+  /**
+   * Reads count consecutive words starting at the word aligned address in one go. Returns false if
+   * the range is not completely inside this memory.
+   */
+  public boolean readWords(CircuitState cState, int address, int[] buffer, int offset, int count) {
+    final var start = SocSupport.convUnsignedInt(startAddress);
+    final var addr = SocSupport.convUnsignedInt(address);
+    if ((address & 3) != 0 || addr < start || addr + 4L * count > start + sizeInBytes) return false;
+    final var data = (cState == null || getComponent() == null) ? null : (SocMemoryInfo) cState.getData(getComponent());
+    if (data == null) return false;
+    data.readWords(address, buffer, offset, count);
+    return true;
+  }
+
+  @Override
+  public boolean loadSegment(CircuitState cState, int address, ByteBuffer data, int size) {
+    final var start = SocSupport.convUnsignedInt(startAddress);
+    final var addr = SocSupport.convUnsignedInt(address);
+    if (size <= 0 || addr < start || addr + size > start + sizeInBytes) return false;
+    final var info = (cState == null || getComponent() == null) ? null : (SocMemoryInfo) cState.getData(getComponent());
+    if (info == null) return false;
+    final var first = (address >> 2) << 2;
+    final var nrOfWords = (int) ((addr + size - SocSupport.convUnsignedInt(first) + 3) >> 2);
+    final var words = new int[nrOfWords];
+    /* partially written words at the borders keep their other bytes */
+    words[0] = info.getWord(first);
+    words[nrOfWords - 1] = info.getWord(first + 4 * (nrOfWords - 1));
+    final var order = data.order();
+    data.order(ByteOrder.LITTLE_ENDIAN);
+    var offset = address & 3;
+    var index = 0;
+    for (var i = 0; i < size; i++) {
+      if (offset == 0 && size - i >= 4) {
+        /* whole words are copied directly */
+        words[index++] = data.remaining() >= 4 ? data.getInt() : readPartialWord(data);
+        i += 3;
+        continue;
+      }
+      final var value = data.hasRemaining() ? data.get() & 0xFF : 0;
+      final var shift = offset * 8;
+      words[index] = (words[index] & ~(0xFF << shift)) | (value << shift);
+      if (++offset == 4) {
+        offset = 0;
+        index++;
+      }
+    }
+    data.order(order);
+    info.writeWords(first, words, nrOfWords);
+    return true;
+  }
+
+  /* returns the remaining bytes of data as little endian word, zero filled */
+  private static int readPartialWord(ByteBuffer data) {
+    var value = 0;
+    for (var i = 0; i < 4; i++) {
+      final var b = data.hasRemaining() ? data.get() & 0xFF : 0;
+      value |= b << (i * 8);
+    }
+    return value;
+  }
+
   private SocMemoryInfo getRegPropagateState() {
     return (SocMemoryInfo) attachedBus.getSocSimulationManager().getdata(attachedBus.getComponent());
   }
@@ -11,7 +11,7 @@ package com.cburch.logisim.soc.nios2;
 
 import com.cburch.logisim.soc.util.AbstractAssembler;
 import com.cburch.logisim.soc.util.AssemblerToken;
-import java.util.LinkedList;
+import java.util.List;
 
 public class Nios2Assembler extends AbstractAssembler {
 
@@ -44,7 +44,7 @@ public class Nios2Assembler extends AbstractAssembler {
   }
 
   @Override
-  public void performUpSpecificOperationsOnTokens(LinkedList<AssemblerToken> tokens) {
+  public void performUpSpecificOperationsOnTokens(List<AssemblerToken> tokens) {
     for (AssemblerToken token : tokens) {
       if (token.getType() == AssemblerToken.REGISTER) {
         if (token.getValue().toLowerCase().startsWith("ctl")) token.setType(CONTROL_REGISTER);
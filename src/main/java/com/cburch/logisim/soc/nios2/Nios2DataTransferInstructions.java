@@ -91,12 +91,11 @@ public class Nios2DataTransferInstructions implements AssemblerExecutionInterfac
       case INSTR_STW:
         if (transType < 0) transType = SocBusTransaction.WORD_ACCESS;
         SocBusTransaction trans =
-            new SocBusTransaction(
+            cpuState.createTransaction(
                 SocBusTransaction.WRITE_TRANSACTION,
                 SocSupport.convUnsignedLong(address),
                 toBeStored,
-                transType,
-                cpuState.getMasterComponent());
+                transType);
         cpuState.insertTransaction(trans, false, circuitState);
         return !transactionHasError(trans);
       case INSTR_LDB:
@@ -115,12 +114,11 @@ public class Nios2DataTransferInstructions implements AssemblerExecutionInterfac
       case INSTR_LDWIO:
         if (transType < 0) transType = SocBusTransaction.WORD_ACCESS;
         trans =
-            new SocBusTransaction(
+            cpuState.createTransaction(
                 SocBusTransaction.READ_TRANSACTION,
                 SocSupport.convUnsignedLong(address),
                 0,
-                transType,
-                cpuState.getMasterComponent());
+                transType);
         cpuState.insertTransaction(trans, false, circuitState);
         if (transactionHasError(trans)) return false;
         int toBeLoaded = trans.getReadData();
@@ -22,6 +22,7 @@ import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.InstanceComponent;
 import com.cburch.logisim.instance.InstanceData;
 import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.soc.data.InstructionTraceBuffer;
 import com.cburch.logisim.soc.data.SocBusInfo;
 import com.cburch.logisim.soc.data.SocBusTransaction;
 import com.cburch.logisim.soc.data.SocProcessorInterface;
@@ -30,13 +31,14 @@ import com.cburch.logisim.soc.data.SocUpMenuProvider;
 import com.cburch.logisim.soc.data.SocUpSimulationState;
 import com.cburch.logisim.soc.data.SocUpSimulationStateListener;
 import com.cburch.logisim.soc.data.SocUpStateInterface;
-import com.cburch.logisim.soc.data.TraceInfo;
 import com.cburch.logisim.soc.file.ElfHeader;
 import com.cburch.logisim.soc.file.ElfProgramHeader;
 import com.cburch.logisim.soc.file.ElfSectionHeader;
 import com.cburch.logisim.soc.gui.BreakpointPanel;
 import com.cburch.logisim.soc.gui.CpuDrawSupport;
+import com.cburch.logisim.soc.util.AssemblerExecutionInterface;
 import com.cburch.logisim.soc.util.AssemblerInterface;
+import com.cburch.logisim.soc.util.DecodedInstructionCache;
 import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.StringUtil;
 import java.awt.Color;
@@ -44,7 +46,7 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
-import java.util.LinkedList;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import javax.swing.JPanel;
 import org.fife.ui.rsyntaxtextarea.AbstractTokenMakerFactory;
@@ -65,7 +67,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     private int ienable;
     private int ipending;
     private int lastRegisterWritten = -1;
-    private final LinkedList<TraceInfo> instrTrace;
+    private final InstructionTraceBuffer instrTrace;
     private Value lastClock;
     private final SocUpSimulationState simState;
     private final Instance myInstance;
@@ -73,11 +75,15 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     private Integer entryPoint;
     private boolean programLoaded;
     private final BreakpointPanel bPanel;
+    private final DecodedInstructionCache decodeCache;
+    private AssemblerExecutionInterface currentExe;
+    private boolean ioAccessed;
+    private boolean waitingOnCustom;
 
     public ProcessorState(Instance inst) {
       registers = new int[32];
       registers_valid = new Boolean[32];
-      instrTrace = new LinkedList<>();
+      instrTrace = new InstructionTraceBuffer(CpuDrawSupport.NR_OF_TRACES, DISASSEMBLER);
       lastClock = Value.createUnknown(BitWidth.ONE);
       simState = new SocUpSimulationState();
       myInstance = inst;
@@ -91,6 +97,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
       AbstractTokenMakerFactory atmf = (AbstractTokenMakerFactory) TokenMakerFactory.getDefaultInstance();
       atmf.putMapping(ASSEMBLER.getHighlightStringIdentifier(), "com.cburch.logisim.soc.nios2.Nios2SyntaxHighlighter");
       bPanel = new BreakpointPanel(ASSEMBLER.getHighlightStringIdentifier());
+      decodeCache = new DecodedInstructionCache(ASSEMBLER);
       reset();
     }
 
@@ -122,6 +129,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
       ienable = 0;
       ipending = 0;
       instrTrace.clear();
+      decodeCache.invalidate();
       if (visible) repaint();
       simState.reset();
     }
@@ -275,12 +283,20 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
       return attachedBus.getComponent();
     }
 
+    public SocBusTransaction createTransaction(int type, int address, int value, int access) {
+      return attachedBus.createTransaction(type, address, value, access);
+    }
+
     public void execute(CircuitState cState) {
       /* check the simulation state */
       if (!simState.canExecute()) return;
       /* here we handle the custom instructions */
-      if (ASSEMBLER.getExeUnit() != null && ASSEMBLER.getExeUnit() instanceof Nios2CustomInstructions cust) {
-        if (cust.isValid() && cust.waitingOnReady(this, cState)) return;
+      waitingOnCustom = false;
+      if (currentExe instanceof Nios2CustomInstructions cust) {
+        if (cust.isValid() && cust.waitingOnReady(this, cState)) {
+          waitingOnCustom = true;
+          return;
+        }
       }
       Map<Integer, Integer> breakPoints = bPanel.getBreakPoints();
       if (breakPoints.containsKey(pc)) {
@@ -304,11 +320,11 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
         }
       }
       /* fetch an instruction */
+      final var busManager = attachedBus.getSocSimulationManager();
       SocBusTransaction trans =
-          new SocBusTransaction(SocBusTransaction.READ_TRANSACTION, pc, 0, SocBusTransaction.WORD_ACCESS, attachedBus.getComponent());
-      attachedBus
-          .getSocSimulationManager()
-          .initializeTransaction(trans, attachedBus.getBusId(), cState);
+          createTransaction(SocBusTransaction.READ_TRANSACTION, pc, 0, SocBusTransaction.WORD_ACCESS);
+      if (!busManager.fetchWord(trans, attachedBus.getBusId(), cState))
+        busManager.initializeTransaction(trans, attachedBus.getBusId(), cState);
       if (trans.hasError()) {
         OptionPane.showMessageDialog(
             null,
@@ -318,14 +334,12 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
         simState.errorInExecution();
         return;
       }
-      /* decode instruction */
       final var instruction = trans.getReadData();
-      ASSEMBLER.decode(instruction);
+      /* decode instruction */
+      final var exe = decodeCache.decode(pc, instruction);
+      currentExe = exe;
       /* execute instruction */
-      final var exe = ASSEMBLER.getExeUnit();
       lastRegisterWritten = -1;
-      while (instrTrace.size() >= CpuDrawSupport.NR_OF_TRACES)
-        instrTrace.removeLast();
       if (exe == null) {
         OptionPane.showMessageDialog(
             null,
@@ -333,12 +347,12 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
             SocSupport.getMasterName(cState, Nios2State.this.getName()) + S.get("RV32imFetchTransaction"),
             OptionPane.ERROR_MESSAGE);
         simState.errorInExecution();
-        instrTrace.addFirst(new TraceInfo(pc, instruction, S.get("RV32imFetchInvInstrAsm"), true));
+        instrTrace.add(pc, instruction, true);
         pc = pc + 4;
         if (visible) repaint();
         return;
       }
-      final var trace = new TraceInfo(pc, instruction, exe.getAsmInstruction(), false);
+      instrTrace.add(pc, instruction, false);
       if (!exe.execute(this, cState)) {
         final var s = new StringBuilder();
         s.append(S.get("RV32imFetchExecutionError"));
@@ -350,12 +364,12 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
             SocSupport.getMasterName(cState, Nios2State.this.getName()) + S.get("RV32imFetchTransaction"),
             OptionPane.ERROR_MESSAGE);
         simState.errorInExecution();
-        trace.setError();
-        instrTrace.addFirst(trace);
+        instrTrace.setLastError();
         if (visible) repaint();
         return;
       }
-      instrTrace.addFirst(trace);
+      /* custom instructions are executed by the circuit */
+      if (exe instanceof Nios2CustomInstructions) ioAccessed = true;
       /* all done increment pc */
       if (!exe.performedJump()) pc = pc + 4;
       if (visible) repaint();
@@ -375,6 +389,22 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
       attachedBus
           .getSocSimulationManager()
           .initializeTransaction(trans, attachedBus.getBusId(), cState);
+      if (!hidden && SocSupport.isIoTransaction(trans)) ioAccessed = true;
+    }
+
+    @Override
+    public int fastForward(int maxInstructions, CircuitState cState) {
+      var nrOfInstructions = 0;
+      ioAccessed = false;
+      while (nrOfInstructions < maxInstructions && simState.canExecute()) {
+        execute(cState);
+        if (!simState.canExecute() || waitingOnCustom) break;
+        nrOfInstructions++;
+        if (ioAccessed) break;
+      }
+      myInstance.fireInvalidated();
+      if (visible) repaint();
+      return nrOfInstructions;
     }
 
     public void draw(Graphics2D g, boolean scale) {
@@ -391,6 +421,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
 
     @Override
     public void destroy() {
+      instrTrace.endRecording();
       SocUpMenuProvider.SOCUPMENUPROVIDER.deregisterCpuState(this, myInstance);
     }
 
@@ -437,7 +468,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     }
 
     @Override
-    public LinkedList<TraceInfo> getTraces() {
+    public InstructionTraceBuffer getTraces() {
       return instrTrace;
     }
 
@@ -480,6 +511,8 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
   private final SocBusInfo attachedBus;
 
   public static final AssemblerInterface ASSEMBLER = new Nios2Assembler();
+  /* separate instance for disassembling traces, as the execution units hold the decoded instruction */
+  public static final AssemblerInterface DISASSEMBLER = new Nios2Assembler();
   public static final String[] registerABINames = {
       "zero", "at", "r2", "r3", "r4", "r5", "r6", "r7",
       "r8", "r9", "r10", "r11", "r12", "r13", "r14", "r15",
@@ -675,6 +708,20 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
         .initializeTransaction(trans, attachedBus.getBusId(), cState);
   }
 
+  @Override
+  public boolean loadSegment(int address, ByteBuffer data, int size, CircuitState cState) {
+    if (cState == null) {
+      final var comp = (InstanceComponent) attachedBus.getComponent();
+      if (comp == null) return false;
+      final var state = comp.getInstanceStateImpl();
+      if (state == null) return false;
+      cState = state.getProject().getCircuitState();
+    }
+    return attachedBus
+        .getSocSimulationManager()
+        .loadSegment(attachedBus.getBusId(), address, data, size, cState);
+  }
+
   @Override
   public int getEntryPoint(CircuitState cState) {
     if (cState != null) {
@@ -11,7 +11,7 @@ package com.cburch.logisim.soc.rv32im;
 
 import com.cburch.logisim.soc.util.AbstractAssembler;
 import com.cburch.logisim.soc.util.AssemblerToken;
-import java.util.LinkedList;
+import java.util.List;
 
 public class RV32imAssembler extends AbstractAssembler {
 
@@ -36,5 +36,5 @@ public class RV32imAssembler extends AbstractAssembler {
     return "asm/riscv";
   }
 
-  public void performUpSpecificOperationsOnTokens(LinkedList<AssemblerToken> tokens) {}
+  public void performUpSpecificOperationsOnTokens(List<AssemblerToken> tokens) {}
 }
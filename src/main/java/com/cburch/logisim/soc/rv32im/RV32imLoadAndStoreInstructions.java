@@ -77,12 +77,11 @@ public class RV32imLoadAndStoreInstructions implements AssemblerExecutionInterfa
       case INSTR_SW:
         if (transType < 0) transType = SocBusTransaction.WORD_ACCESS;
         SocBusTransaction trans =
-            new SocBusTransaction(
+            cpuState.createTransaction(
                 SocBusTransaction.WRITE_TRANSACTION,
                 ElfHeader.getIntValue(address),
                 toBeStored,
-                transType,
-                cpuState.getMasterComponent());
+                transType);
         cpuState.insertTransaction(trans, false, cState);
         return !transactionHasError(trans);
       case INSTR_LB:
@@ -96,12 +95,11 @@ public class RV32imLoadAndStoreInstructions implements AssemblerExecutionInterfa
       case INSTR_LW:
         if (transType < 0) transType = SocBusTransaction.WORD_ACCESS;
         trans =
-            new SocBusTransaction(
+            cpuState.createTransaction(
                 SocBusTransaction.READ_TRANSACTION,
                 ElfHeader.getIntValue(address),
                 0,
-                transType,
-                cpuState.getMasterComponent());
+                transType);
         cpuState.insertTransaction(trans, false, cState);
         if (transactionHasError(trans)) return false;
         int toBeLoaded = trans.getReadData();
@@ -23,6 +23,7 @@ import com.cburch.logisim.instance.InstanceComponent;
 import com.cburch.logisim.instance.InstanceData;
 import com.cburch.logisim.instance.InstanceStateImpl;
 import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.soc.data.InstructionTraceBuffer;
 import com.cburch.logisim.soc.data.SocBusInfo;
 import com.cburch.logisim.soc.data.SocBusTransaction;
 import com.cburch.logisim.soc.data.SocProcessorInterface;
@@ -31,13 +32,13 @@ import com.cburch.logisim.soc.data.SocUpMenuProvider;
 import com.cburch.logisim.soc.data.SocUpSimulationState;
 import com.cburch.logisim.soc.data.SocUpSimulationStateListener;
 import com.cburch.logisim.soc.data.SocUpStateInterface;
-import com.cburch.logisim.soc.data.TraceInfo;
 import com.cburch.logisim.soc.file.ElfHeader;
 import com.cburch.logisim.soc.file.ElfProgramHeader;
 import com.cburch.logisim.soc.file.ElfSectionHeader;
 import com.cburch.logisim.soc.gui.BreakpointPanel;
 import com.cburch.logisim.soc.gui.CpuDrawSupport;
 import com.cburch.logisim.soc.util.AssemblerInterface;
+import com.cburch.logisim.soc.util.DecodedInstructionCache;
 import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.StringUtil;
 import java.awt.Color;
@@ -45,7 +46,7 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
-import java.util.LinkedList;
+import java.nio.ByteBuffer;
 import javax.swing.JPanel;
 import org.fife.ui.rsyntaxtextarea.AbstractTokenMakerFactory;
 import org.fife.ui.rsyntaxtextarea.TokenMakerFactory;
@@ -63,7 +64,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     private final Boolean[] registers_valid;
     private int pc;
     private int lastRegisterWritten = -1;
-    private final LinkedList<TraceInfo> instrTrace;
+    private final InstructionTraceBuffer instrTrace;
     private Value lastClock;
     private final SocUpSimulationState simState;
     private final Instance myInstance;
@@ -71,11 +72,13 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     private Integer entryPoint;
     private boolean programLoaded;
     private final BreakpointPanel bPanel;
+    private final DecodedInstructionCache decodeCache;
+    private boolean ioAccessed;
 
     public ProcessorState(Instance inst) {
       registers = new int[32];
       registers_valid = new Boolean[32];
-      instrTrace = new LinkedList<>();
+      instrTrace = new InstructionTraceBuffer(CpuDrawSupport.NR_OF_TRACES, DISASSEMBLER);
       lastClock = Value.createUnknown(BitWidth.ONE);
       simState = new SocUpSimulationState();
       myInstance = inst;
@@ -91,6 +94,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
           ASSEMBLER.getHighlightStringIdentifier(),
           "com.cburch.logisim.soc.rv32im.RV32imSyntaxHighlighter");
       bPanel = new BreakpointPanel(ASSEMBLER.getHighlightStringIdentifier());
+      decodeCache = new DecodedInstructionCache(ASSEMBLER);
       reset();
     }
 
@@ -121,6 +125,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
       }
       lastRegisterWritten = -1;
       instrTrace.clear();
+      decodeCache.invalidate();
       if (visible) repaint();
       simState.reset();
     }
@@ -200,6 +205,10 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
       return attachedBus.getComponent();
     }
 
+    public SocBusTransaction createTransaction(int type, int address, int value, int access) {
+      return attachedBus.createTransaction(type, address, value, access);
+    }
+
     public void execute(CircuitState cState) {
       /* check the simulation state */
       if (!simState.canExecute()) return;
@@ -217,16 +226,12 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
       }
       /* TODO: check interrupts */
       /* fetch an instruction */
+      final var busManager = attachedBus.getSocSimulationManager();
       final var trans =
-          new SocBusTransaction(
-              SocBusTransaction.READ_TRANSACTION,
-              pc,
-              0,
-              SocBusTransaction.WORD_ACCESS,
-              attachedBus.getComponent());
-      attachedBus
-          .getSocSimulationManager()
-          .initializeTransaction(trans, attachedBus.getBusId(), cState);
+          createTransaction(
+              SocBusTransaction.READ_TRANSACTION, pc, 0, SocBusTransaction.WORD_ACCESS);
+      if (!busManager.fetchWord(trans, attachedBus.getBusId(), cState))
+        busManager.initializeTransaction(trans, attachedBus.getBusId(), cState);
       if (trans.hasError()) {
         OptionPane.showMessageDialog(
             null,
@@ -237,13 +242,11 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
         simState.errorInExecution();
         return;
       }
+      final var instruction = trans.getReadData();
       /* decode instruction */
-      int instruction = trans.getReadData();
-      ASSEMBLER.decode(instruction);
+      final var exe = decodeCache.decode(pc, instruction);
       /* execute instruction */
-      final var exe = ASSEMBLER.getExeUnit();
       lastRegisterWritten = -1;
-      while (instrTrace.size() >= CpuDrawSupport.NR_OF_TRACES) instrTrace.removeLast();
       if (exe == null) {
         OptionPane.showMessageDialog(
             null,
@@ -252,12 +255,12 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
                 + S.get("RV32imFetchTransaction"),
             OptionPane.ERROR_MESSAGE);
         simState.errorInExecution();
-        instrTrace.addFirst(new TraceInfo(pc, instruction, S.get("RV32imFetchInvInstrAsm"), true));
+        instrTrace.add(pc, instruction, true);
         pc = pc + 4;
         if (visible) repaint();
         return;
       }
-      final var trace = new TraceInfo(pc, instruction, exe.getAsmInstruction(), false);
+      instrTrace.add(pc, instruction, false);
       if (!exe.execute(this, cState)) {
         final var s = new StringBuilder();
         s.append(S.get("RV32imFetchExecutionError"));
@@ -269,12 +272,10 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
                 + S.get("RV32imFetchTransaction"),
             OptionPane.ERROR_MESSAGE);
         simState.errorInExecution();
-        trace.setError();
-        instrTrace.addFirst(trace);
+        instrTrace.setLastError();
         if (visible) repaint();
         return;
       }
-      instrTrace.addFirst(trace);
       /* all done increment pc */
       if (!exe.performedJump()) pc = pc + 4;
       if (visible) repaint();
@@ -294,6 +295,22 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
       attachedBus
           .getSocSimulationManager()
           .initializeTransaction(trans, attachedBus.getBusId(), cState);
+      if (!hidden && SocSupport.isIoTransaction(trans)) ioAccessed = true;
+    }
+
+    @Override
+    public int fastForward(int maxInstructions, CircuitState cState) {
+      var nrOfInstructions = 0;
+      ioAccessed = false;
+      while (nrOfInstructions < maxInstructions && simState.canExecute()) {
+        execute(cState);
+        if (!simState.canExecute()) break;
+        nrOfInstructions++;
+        if (ioAccessed) break;
+      }
+      myInstance.fireInvalidated();
+      if (visible) repaint();
+      return nrOfInstructions;
     }
 
     public void draw(Graphics2D g, boolean scale) {
@@ -304,6 +321,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
 
     @Override
     public void destroy() {
+      instrTrace.endRecording();
       SocUpMenuProvider.SOCUPMENUPROVIDER.deregisterCpuState(this, myInstance);
     }
 
@@ -350,7 +368,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     }
 
     @Override
-    public LinkedList<TraceInfo> getTraces() {
+    public InstructionTraceBuffer getTraces() {
       return instrTrace;
     }
 
@@ -392,6 +410,8 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
   private final SocBusInfo attachedBus;
 
   public static final AssemblerInterface ASSEMBLER = new RV32imAssembler();
+  /* separate instance for disassembling traces, as the execution units hold the decoded instruction */
+  public static final AssemblerInterface DISASSEMBLER = new RV32imAssembler();
   public static final String[] registerABINames = {
     "zero", "ra", "sp", "gp", "tp", "t0", "t1", "t2", "s0", "s1", "a0", "a1", "a2", "a3", "a4",
     "a5", "a6", "a7", "s2", "s3", "s4", "s5", "s6", "s7", "s8", "s9", "s10", "s11", "t3", "t4",
@@ -553,6 +573,20 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
         .initializeTransaction(trans, attachedBus.getBusId(), cState);
   }
 
+  @Override
+  public boolean loadSegment(int address, ByteBuffer data, int size, CircuitState cState) {
+    if (cState == null) {
+      InstanceComponent comp = (InstanceComponent) attachedBus.getComponent();
+      if (comp == null) return false;
+      InstanceStateImpl state = comp.getInstanceStateImpl();
+      if (state == null) return false;
+      cState = state.getProject().getCircuitState();
+    }
+    return attachedBus
+        .getSocSimulationManager()
+        .loadSegment(attachedBus.getBusId(), address, data, size, cState);
+  }
+
   @Override
   public int getEntryPoint(CircuitState cState) {
     if (cState != null) {
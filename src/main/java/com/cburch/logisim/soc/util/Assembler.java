@@ -22,9 +22,10 @@ import com.cburch.logisim.util.StringGetter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.swing.text.BadLocationException;
 import org.fife.ui.rsyntaxtextarea.RSyntaxDocument;
@@ -45,6 +46,32 @@ public class Assembler extends AbstractParser implements LocaleListener {
   private final RTextScrollPane pane;
   private AssemblerInfo assemblerInfo;
   private long entryPoint;
+  /* tokens and errors of each distinct line, keyed by the lexer state at its start and its text */
+  private HashMap<String, LineTemplate> lineTemplates = new HashMap<>();
+  /* the source of the last assembly without errors */
+  private String assembledSource;
+
+  private static class LineTemplate {
+    /* the offsets of the tokens and errors are relative to the start of the line */
+    private final AssemblerToken[] tokens;
+    private final int[] errorOffsets;
+    private final StringGetter[] errors;
+
+    private LineTemplate(List<AssemblerToken> lineTokens, Map<Integer, StringGetter> lineErrors, int startOffset) {
+      tokens = new AssemblerToken[lineTokens.size()];
+      for (var i = 0; i < tokens.length; i++) {
+        final var token = lineTokens.get(i);
+        tokens[i] = new AssemblerToken(token, token.getoffset() - startOffset);
+      }
+      errorOffsets = new int[lineErrors.size()];
+      errors = new StringGetter[lineErrors.size()];
+      var index = 0;
+      for (final var error : lineErrors.entrySet()) {
+        errorOffsets[index] = error.getKey() - startOffset;
+        errors[index++] = error.getValue();
+      }
+    }
+  }
 
   public Assembler(AssemblerInterface assembler, RTextScrollPane pane) {
     this.assembler = assembler;
@@ -58,6 +85,7 @@ public class Assembler extends AbstractParser implements LocaleListener {
     errorMarkers.clear();
     pane.getGutter().removeAllTrackingIcons();
     entryPoint = -1;
+    assembledSource = null;
   }
 
   public List<Integer> getErrorPositions() {
@@ -81,15 +109,26 @@ public class Assembler extends AbstractParser implements LocaleListener {
   }
 
   public boolean assemble() {
+    final var source = pane.getTextArea().getText();
+    /* nothing changed since the last assembly without errors, so its result is still valid */
+    if (source.equals(assembledSource)) return true;
+    final var result = assembleSource();
+    assembledSource = result ? source : null;
+    return result;
+  }
+
+  private boolean assembleSource() {
     reset();
-    final var assemblerTokens = new LinkedList<AssemblerToken>();
+    final var assemblerTokens = new ArrayList<AssemblerToken>();
     assemblerInfo = new AssemblerInfo(assembler);
     /* first pass: we build a list of AssemblerTokens from the token
-     * list provided by the AssemblerHighlighter */
+     * list provided by the AssemblerHighlighter, only lines that changed are scanned again */
     final var text = pane.getTextArea();
+    final var usedTemplates = new HashMap<String, LineTemplate>();
     for (var i = 0; i < text.getLineCount(); i++) {
-      assemblerTokens.addAll(checkAndBuildTokens(i));
+      assemblerTokens.addAll(getLineTokens(i, usedTemplates));
     }
+    lineTemplates = usedTemplates;
     /* second pass, we are going to collect all labels */
     final var labels = new HashMap<String, Long>();
     final var labelToken = new HashMap<String, AssemblerToken>();
@@ -124,7 +163,7 @@ public class Assembler extends AbstractParser implements LocaleListener {
      * 5+10*2 => (5+10)*2 = 30
      * 10*2+5 => (10*2)+5 = 25
      */
-    final var toBeRemoved = new ArrayList<AssemblerToken>();
+    final var toBeRemoved = new HashSet<AssemblerToken>();
     for (var i = 0; i < assemblerTokens.size(); i++) {
       final var asm = assemblerTokens.get(i);
       if (AssemblerToken.MATH_OPERATORS.contains(asm.getType())) {
@@ -358,6 +397,10 @@ public class Assembler extends AbstractParser implements LocaleListener {
   }
 
   public LinkedList<AssemblerToken> checkAndBuildTokens(int lineNumber) {
+    return checkAndBuildTokens(lineNumber, new HashMap<>());
+  }
+
+  private LinkedList<AssemblerToken> checkAndBuildTokens(int lineNumber, Map<Integer, StringGetter> lineErrors) {
     final var lineTokens = new LinkedList<AssemblerToken>();
     int startOffset;
     int endOffset;
@@ -394,33 +437,33 @@ public class Assembler extends AbstractParser implements LocaleListener {
               break;
             case "(":
               if (!assembler.usesRoundedBrackets()) {
-                addError(offset, S.getter("AssemblerWrongOpeningBracket"), lineErrorMarkers);
+                addLineError(offset, S.getter("AssemblerWrongOpeningBracket"), lineErrorMarkers, lineErrors);
               } else
                 lineTokens.add(new AssemblerToken(AssemblerToken.BRACKET_OPEN, null, offset));
               break;
             case ")":
               if (!assembler.usesRoundedBrackets()) {
-                addError(offset, S.getter("AssemblerWrongClosingBracket"), lineErrorMarkers);
+                addLineError(offset, S.getter("AssemblerWrongClosingBracket"), lineErrorMarkers, lineErrors);
               } else
                 lineTokens.add(new AssemblerToken(AssemblerToken.BRACKET_CLOSE, null, offset));
               break;
             case "[":
               if (assembler.usesRoundedBrackets()) {
-                addError(offset, S.getter("AssemblerWrongOpeningBracket"), lineErrorMarkers);
+                addLineError(offset, S.getter("AssemblerWrongOpeningBracket"), lineErrorMarkers, lineErrors);
               } else
                 lineTokens.add(new AssemblerToken(AssemblerToken.BRACKET_OPEN, null, offset));
               break;
             case "]":
               if (assembler.usesRoundedBrackets()) {
-                addError(offset, S.getter("AssemblerWrongClosingBracket"), lineErrorMarkers);
+                addLineError(offset, S.getter("AssemblerWrongClosingBracket"), lineErrorMarkers, lineErrors);
               } else
                 lineTokens.add(new AssemblerToken(AssemblerToken.BRACKET_CLOSE, null, offset));
               break;
             case "{":
-              addError(offset, S.getter("AssemblerWrongOpeningBracket"), lineErrorMarkers);
+              addLineError(offset, S.getter("AssemblerWrongOpeningBracket"), lineErrorMarkers, lineErrors);
               break;
             case "}":
-              addError(offset, S.getter("AssemblerWrongClosingBracket"), lineErrorMarkers);
+              addLineError(offset, S.getter("AssemblerWrongClosingBracket"), lineErrorMarkers, lineErrors);
               break;
             case ":":
               lineTokens.add(new AssemblerToken(AssemblerToken.LABEL_IDENTIFIER, null, offset));
@@ -447,7 +490,7 @@ public class Assembler extends AbstractParser implements LocaleListener {
               lineTokens.add(new AssemblerToken(AssemblerToken.MATH_SHIFT_RIGHT, null, offset));
               break;
             default:
-              addError(offset, S.getter("AssemblerUnknowCharacter"), lineErrorMarkers);
+              addLineError(offset, S.getter("AssemblerUnknowCharacter"), lineErrorMarkers, lineErrors);
               break;
           }
         } else
@@ -481,16 +524,17 @@ public class Assembler extends AbstractParser implements LocaleListener {
       final var asm = lineTokens.get(i);
       if (asm.getType() == AssemblerToken.LABEL_IDENTIFIER) {
         if (i == 0)
-          addError(asm.getoffset(), S.getter("AssemblerMissingLabelBefore"), lineErrorMarkers);
+          addLineError(asm.getoffset(), S.getter("AssemblerMissingLabelBefore"), lineErrorMarkers, lineErrors);
         else {
           final var before = lineTokens.get(i - 1);
           if (before.getType() == AssemblerToken.MAYBE_LABEL) {
             before.setType(AssemblerToken.LABEL);
           } else
-            addError(
+            addLineError(
                 before.getoffset(),
                 S.getter("AssemblerExpectingLabelIdentifier"),
-                lineErrorMarkers);
+                lineErrorMarkers,
+                lineErrors);
         }
         toBeRemoved.add(asm);
       }
@@ -504,6 +548,55 @@ public class Assembler extends AbstractParser implements LocaleListener {
     return lineTokens;
   }
 
+  private void addLineError(int location, StringGetter sg, Set<GutterIconInfo> known, Map<Integer, StringGetter> lineErrors) {
+    lineErrors.putIfAbsent(location, sg);
+    addError(location, sg, known);
+  }
+
+  /* the tokens of a line depend on its text and on the state in which the lexer enters the line */
+  private String getLineKey(int lineNumber, int startOffset, int endOffset) {
+    final var text = (RSyntaxTextArea) pane.getTextArea();
+    final var initialTokenType = lineNumber == 0 ? Token.NULL
+        : ((RSyntaxDocument) text.getDocument()).getLastTokenTypeOnLine(lineNumber - 1);
+    try {
+      return initialTokenType + ":" + text.getText(startOffset, endOffset - startOffset);
+    } catch (BadLocationException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the tokens of a line. If a line with the same contents was scanned before, copies of its
+   * tokens are returned and its errors are marked again, otherwise the line is scanned.
+   */
+  private List<AssemblerToken> getLineTokens(int lineNumber, Map<String, LineTemplate> usedTemplates) {
+    final var text = pane.getTextArea();
+    int startOffset;
+    String key;
+    try {
+      startOffset = text.getLineStartOffset(lineNumber);
+      key = getLineKey(lineNumber, startOffset, text.getLineEndOffset(lineNumber));
+    } catch (BadLocationException e) {
+      return checkAndBuildTokens(lineNumber);
+    }
+    if (key == null) return checkAndBuildTokens(lineNumber);
+    var template = usedTemplates.get(key);
+    if (template == null) template = lineTemplates.get(key);
+    if (template == null) {
+      final var lineErrors = new LinkedHashMap<Integer, StringGetter>();
+      final var lineTokens = checkAndBuildTokens(lineNumber, lineErrors);
+      if (lineTokens != null) usedTemplates.put(key, new LineTemplate(lineTokens, lineErrors, startOffset));
+      return lineTokens;
+    }
+    usedTemplates.put(key, template);
+    final var lineTokens = new ArrayList<AssemblerToken>(template.tokens.length);
+    for (final var token : template.tokens)
+      lineTokens.add(new AssemblerToken(token, token.getoffset() + startOffset));
+    for (var i = 0; i < template.errors.length; i++)
+      addError(template.errorOffsets[i] + startOffset, template.errors[i], errorMarkers.keySet());
+    return lineTokens;
+  }
+
   public long getEntryPoint() {
     long result = -1;
     if (entryPoint >= 0) return entryPoint;
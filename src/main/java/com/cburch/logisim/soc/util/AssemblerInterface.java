@@ -16,7 +16,7 @@ import com.cburch.logisim.soc.file.ElfSectionHeader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.List;
 
 public interface AssemblerInterface {
   void decode(int instruction);
@@ -40,7 +40,7 @@ public interface AssemblerInterface {
 
   String getHighlightStringIdentifier();
 
-  void performUpSpecificOperationsOnTokens(LinkedList<AssemblerToken> tokens);
+  void performUpSpecificOperationsOnTokens(List<AssemblerToken> tokens);
 
   HashSet<Integer> getAcceptedParameterTypes();
 }
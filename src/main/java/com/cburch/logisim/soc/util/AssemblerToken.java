@@ -88,6 +88,15 @@ public class AssemblerToken {
     isLabel = type == LABEL;
   }
 
+  /* creates a copy of the token located at the given offset */
+  public AssemblerToken(AssemblerToken token, int offset) {
+    type = token.type;
+    value = token.value;
+    this.offset = offset;
+    valid = token.valid;
+    isLabel = token.isLabel;
+  }
+
   public boolean isValid() {
     return valid;
   }
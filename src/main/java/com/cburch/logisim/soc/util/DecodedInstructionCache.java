@@ -0,0 +1,55 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.util;
+
+/**
+ * Direct mapped cache of the execution unit that decodes an instruction word at a given program
+ * counter. On a hit only the cached execution unit has to (re)decode the operands, instead of
+ * offering the instruction to every execution unit of the assembler. An entry only hits when both
+ * the program counter and the fetched instruction word match, so code that is overwritten after
+ * it has been cached is decoded again.
+ */
+public class DecodedInstructionCache {
+
+  private static final int NR_OF_ENTRIES = 1024;
+  private static final int INDEX_MASK = NR_OF_ENTRIES - 1;
+
+  private final AssemblerInterface assembler;
+  private final int[] pcs = new int[NR_OF_ENTRIES];
+  private final int[] instructions = new int[NR_OF_ENTRIES];
+  private final AssemblerExecutionInterface[] exeUnits = new AssemblerExecutionInterface[NR_OF_ENTRIES];
+
+  public DecodedInstructionCache(AssemblerInterface assembler) {
+    this.assembler = assembler;
+  }
+
+  /**
+   * Decodes the instruction and returns the execution unit that will execute it, or null in case
+   * the instruction is not recognized by any of the execution units.
+   */
+  public AssemblerExecutionInterface decode(int pc, int instruction) {
+    final var index = (pc >>> 2) & INDEX_MASK;
+    final var cached = exeUnits[index];
+    if (cached != null
+        && pcs[index] == pc
+        && instructions[index] == instruction
+        && cached.setBinInstruction(instruction)) return cached;
+    assembler.decode(instruction);
+    final var exe = assembler.getExeUnit();
+    pcs[index] = pc;
+    instructions[index] = instruction;
+    exeUnits[index] = exe;
+    return exe;
+  }
+
+  public void invalidate() {
+    for (var i = 0; i < NR_OF_ENTRIES; i++) exeUnits[i] = null;
+  }
+}
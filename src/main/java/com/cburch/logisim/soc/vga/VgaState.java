@@ -22,10 +22,13 @@ import com.cburch.logisim.soc.data.SocBusSlaveListener;
 import com.cburch.logisim.soc.data.SocBusSnifferInterface;
 import com.cburch.logisim.soc.data.SocBusTransaction;
 import com.cburch.logisim.soc.data.SocSupport;
+import com.cburch.logisim.soc.memory.SocMemoryState;
 import com.cburch.logisim.util.StringUtil;
 import java.awt.Graphics;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public class VgaState implements SocBusSlaveInterface, SocBusSnifferInterface, SocBusMasterInterface {
 
@@ -35,6 +38,10 @@ public class VgaState implements SocBusSlaveInterface, SocBusSnifferInterface, S
     private boolean modeSetBySoftware = false;
     private BufferedImage myImage;
     private boolean reload = true;
+    /* per line the span of pixels written since the last refresh, -1 if the line is clean */
+    private int[] dirtyFrom;
+    private int[] dirtyTo;
+    private boolean dirty = false;
 
     public VgaDisplayState() {
       mode = displayMode;
@@ -89,6 +96,10 @@ public class VgaState implements SocBusSlaveInterface, SocBusSnifferInterface, S
         }
       }
       myImage = new BufferedImage(lineSize, nrOfLines, BufferedImage.TYPE_INT_RGB);
+      dirtyFrom = new int[nrOfLines];
+      dirtyTo = new int[nrOfLines];
+      Arrays.fill(dirtyFrom, -1);
+      dirty = false;
       return true;
     }
 
@@ -112,25 +123,56 @@ public class VgaState implements SocBusSlaveInterface, SocBusSnifferInterface, S
       }
     }
 
-    private void loadImage(CircuitState cState) {
+    public synchronized void markDirty(int index) {
+      final var line = index / lineSize;
+      final var pixel = index % lineSize;
+      if (dirtyFrom[line] < 0) {
+        dirtyFrom[line] = pixel;
+        dirtyTo[line] = pixel + 1;
+      } else {
+        dirtyFrom[line] = Math.min(dirtyFrom[line], pixel);
+        dirtyTo[line] = Math.max(dirtyTo[line], pixel + 1);
+      }
+      dirty = true;
+    }
+
+    private synchronized void loadImage(CircuitState cState) {
+      final var pixels = ((DataBufferInt) myImage.getRaster().getDataBuffer()).getData();
       if (reload) {
-        for (int line = 0; line < nrOfLines; line++)
-          for (int pixel = 0; pixel < lineSize; pixel++) {
-            int index = line * lineSize + pixel;
-            SocBusTransaction trans =
-                new SocBusTransaction(
-                    SocBusTransaction.READ_TRANSACTION,
-                    vgaBufferAddress + index * 4,
-                    0,
-                    SocBusTransaction.WORD_ACCESS,
-                    "vgadma");
-            trans.setAsHiddenTransaction();
-            initializeTransaction(trans, attachedBus.getBusId(), cState);
-            int data = trans.hasError() ? 0 : trans.getReadData();
-            myImage.setRGB(pixel, line, data);
-          }
+        readPixels(cState, pixels, 0, nrOfLines * lineSize);
+        Arrays.fill(dirtyFrom, -1);
+        dirty = false;
         reload = false;
+        return;
+      }
+      if (!dirty) return;
+      for (var line = 0; line < nrOfLines; line++) {
+        if (dirtyFrom[line] < 0) continue;
+        readPixels(cState, pixels, line * lineSize + dirtyFrom[line], dirtyTo[line] - dirtyFrom[line]);
+        dirtyFrom[line] = -1;
+      }
+      dirty = false;
+    }
+
+    private void readPixels(CircuitState cState, int[] pixels, int index, int count) {
+      final var address = vgaBufferAddress + index * 4;
+      final var bus = attachedBus.getSocSimulationManager() == null
+          ? null
+          : attachedBus.getSocSimulationManager().getSocBusState(attachedBus.getBusId());
+      if (bus == null
+          || !(bus.getResponder(address) instanceof SocMemoryState memory)
+          || !memory.readWords(cState, address, pixels, index, count)) {
+        /* the frame buffer is not inside a single memory, so we have to ask the bus pixel by pixel */
+        final var trans = new SocBusTransaction(
+            SocBusTransaction.READ_TRANSACTION, address, 0, SocBusTransaction.WORD_ACCESS, "vgadma");
+        for (var pixel = 0; pixel < count; pixel++) {
+          trans.reuse(SocBusTransaction.READ_TRANSACTION, address + pixel * 4, 0, SocBusTransaction.WORD_ACCESS);
+          trans.setAsHiddenTransaction();
+          initializeTransaction(trans, attachedBus.getBusId(), cState);
+          pixels[index + pixel] = trans.hasError() ? 0 : trans.getReadData();
+        }
       }
+      for (var pixel = index; pixel < index + count; pixel++) pixels[pixel] &= 0xFFFFFF;
     }
 
     public void paint(Graphics g, CircuitState cState) {
@@ -351,8 +393,7 @@ public class VgaState implements SocBusSlaveInterface, SocBusSnifferInterface, S
     long end = start + state.getDataSize() * 4;
     long addr = SocSupport.convUnsignedInt(trans.getAddress());
     if (addr >= start && addr < end) {
-      int index = SocSupport.convUnsignedLong(addr - start) >> 2;
-      state.myImage.setRGB(index % state.lineSize, index / state.lineSize, trans.getWriteData());
+      state.markDirty(SocSupport.convUnsignedLong(addr - start) >> 2);
     }
   }
 
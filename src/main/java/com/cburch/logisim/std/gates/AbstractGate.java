@@ -80,6 +80,7 @@ abstract class AbstractGate extends InstanceFactory {
         JoinedConfigurator.create(
             new IntegerConfigurator(GateAttributes.ATTR_INPUTS, 2, GateAttributes.MAX_INPUTS, 0),
             new BitWidthConfigurator(StdAttr.WIDTH)));
+    setConcurrentCreation(true);
   }
 
   protected abstract Expression computeExpression(Expression[] inputs, int numInputs);
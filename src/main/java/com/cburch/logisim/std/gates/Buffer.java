@@ -90,6 +90,7 @@ class Buffer extends InstanceFactory {
         new Port[] {
           new Port(0, 0, Port.OUTPUT, StdAttr.WIDTH), new Port(0, -20, Port.INPUT, StdAttr.WIDTH),
         });
+    setConcurrentCreation(true);
   }
 
   //
@@ -91,6 +91,7 @@ class ControlledBuffer extends InstanceFactory {
     }
     setFacingAttribute(StdAttr.FACING);
     setKeyConfigurator(new BitWidthConfigurator(StdAttr.WIDTH));
+    setConcurrentCreation(true);
   }
 
   public boolean isInverter() {
@@ -104,6 +104,7 @@ class NotGate extends InstanceFactory {
         });
     setFacingAttribute(StdAttr.FACING);
     setKeyConfigurator(new BitWidthConfigurator(StdAttr.WIDTH));
+    setConcurrentCreation(true);
   }
 
   //
@@ -37,7 +37,6 @@ public class PlaRomData implements InstanceData {
       new String[] {
         new LocaleManager("resources/logisim", "gui").get("saveOption"), S.get("ramClearMenuItem")
       };
-  private final Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
   private JScrollPane panel;
   private PlaRomPanel drawing;
 
@@ -104,6 +103,7 @@ public class PlaRomData implements InstanceData {
   }
 
   public int editWindow() {
+    final var screenSize = Toolkit.getDefaultToolkit().getScreenSize();
     this.drawing = new PlaRomPanel(this);
     panel =
         new JScrollPane(
@@ -32,6 +32,7 @@ import com.cburch.logisim.proj.Project;
 import java.awt.Window;
 import java.awt.event.MouseEvent;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.NoSuchElementException;
 import java.util.StringTokenizer;
 import java.util.WeakHashMap;
@@ -91,6 +92,22 @@ public class Rom extends Mem {
       final var contents = HexFile.saveToString(state);
       return "addr/data: " + addr + " " + data + "\n" + contents;
     }
+
+    @Override
+    public boolean hasLargeValues() {
+      return true;
+    }
+
+    @Override
+    public MemContents copyValue(MemContents state) {
+      return state.clone();
+    }
+
+    @Override
+    public void writeStandardString(MemContents state, Writer out) throws IOException {
+      out.write("addr/data: " + state.getLogLength() + " " + state.getWidth() + "\n");
+      HexFile.save(out, state);
+    }
   }
 
   @SuppressWarnings("serial")
@@ -132,7 +149,9 @@ public class Rom extends Mem {
     super.configureNewInstance(instance);
     final var contents = getMemContents(instance);
     final var listener = new MemListener(instance);
-    memListeners.put(instance, listener);
+    synchronized (memListeners) {
+      memListeners.put(instance, listener);
+    }
     contents.addHexModelListener(listener);
     instance.addAttributeListener();
   }
@@ -45,12 +45,13 @@ class RomAttributes extends AbstractAttributeSet {
   }
 
   static void register(MemContents value, Project proj) {
-    if (proj == null || listenerRegistry.containsKey(value)) {
-      return;
+    if (proj == null) return;
+    synchronized (listenerRegistry) {
+      if (listenerRegistry.containsKey(value)) return;
+      final var l = new RomContentsListener(proj);
+      value.addHexModelListener(l);
+      listenerRegistry.put(value, l);
     }
-    final var l = new RomContentsListener(proj);
-    value.addHexModelListener(l);
-    listenerRegistry.put(value, l);
   }
 
   private static final List<Attribute<?>> ATTRIBUTES =
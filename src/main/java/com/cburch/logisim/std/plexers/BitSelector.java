@@ -62,6 +62,7 @@ public class BitSelector extends InstanceFactory {
 
     setIcon(new PlexerIcon(false, true));
     setFacingAttribute(StdAttr.FACING);
+    setConcurrentCreation(true);
   }
 
   @Override
@@ -62,6 +62,7 @@ public class Decoder extends InstanceFactory {
     setKeyConfigurator(new BitWidthConfigurator(PlexersLibrary.ATTR_SELECT, 1, 5, 0));
     setIcon(new PlexerIcon(true, false));
     setFacingAttribute(StdAttr.FACING);
+    setConcurrentCreation(true);
   }
 
   @Override
@@ -68,6 +68,7 @@ public class Demultiplexer extends InstanceFactory {
             new BitWidthConfigurator(StdAttr.WIDTH)));
     setFacingAttribute(StdAttr.FACING);
     setIcon(new PlexerIcon(true, false));
+    setConcurrentCreation(true);
   }
 
   @Override
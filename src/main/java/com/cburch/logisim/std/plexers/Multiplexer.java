@@ -90,6 +90,7 @@ public class Multiplexer extends InstanceFactory {
             new BitWidthConfigurator(StdAttr.WIDTH)));
     setIcon(new PlexerIcon(false, false));
     setFacingAttribute(StdAttr.FACING);
+    setConcurrentCreation(true);
   }
 
   @Override
@@ -50,6 +50,7 @@ public class PriorityEncoder extends InstanceFactory {
     setKeyConfigurator(new BitWidthConfigurator(PlexersLibrary.ATTR_SELECT, 1, 5, 0));
     setIcon(new ArithmeticIcon("Pri"));
     setFacingAttribute(StdAttr.FACING);
+    setConcurrentCreation(true);
   }
 
   @Override
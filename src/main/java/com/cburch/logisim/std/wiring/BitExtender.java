@@ -69,6 +69,7 @@ public class BitExtender extends InstanceFactory {
             new BitWidthConfigurator(ATTR_OUT_WIDTH),
             new BitWidthConfigurator(ATTR_IN_WIDTH, 1, Value.MAX_WIDTH, 0)));
     setOffsetBounds(Bounds.create(-40, -20, 40, 40));
+    setConcurrentCreation(true);
   }
 
   //
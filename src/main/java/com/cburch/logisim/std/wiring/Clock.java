@@ -155,7 +155,7 @@ public class Clock extends InstanceFactory {
 
   public static final Clock FACTORY = new Clock();
 
-  private static final Icon toolIcon = IconsUtil.getIcon("clock.gif");
+  private static final Icon toolIcon = IconsUtil.getLazyIcon("clock.gif");
 
   public Clock() {
     super(_ID, S.getter("clockComponent"), new ClockHdlGeneratorFactory());
@@ -143,6 +143,7 @@ public class Constant extends InstanceFactory {
     setKeyConfigurator(
         JoinedConfigurator.create(
             new ConstantConfigurator(), new BitWidthConfigurator(StdAttr.WIDTH)));
+    setConcurrentCreation(true);
   }
 
   @Override
@@ -47,6 +47,7 @@ public class Ground extends InstanceFactory {
     setFacingAttribute(StdAttr.FACING);
     setKeyConfigurator(new BitWidthConfigurator(StdAttr.WIDTH));
     setPorts(new Port[] {new Port(0, 0, Port.OUTPUT, StdAttr.WIDTH)});
+    setConcurrentCreation(true);
   }
 
   @Override
@@ -63,9 +63,9 @@ public class PullResistor extends InstanceFactory {
           });
   public static final PullResistor FACTORY = new PullResistor();
 
-  private static final Icon ICON_SHAPED = IconsUtil.getIcon("pullshap.gif");
+  private static final Icon ICON_SHAPED = IconsUtil.getLazyIcon("pullshap.gif");
 
-  private static final Icon ICON_RECTANGULAR = IconsUtil.getIcon("pullrect.gif");
+  private static final Icon ICON_RECTANGULAR = IconsUtil.getLazyIcon("pullrect.gif");
 
   public PullResistor() {
     super(_ID, S.getter("pullComponent"));
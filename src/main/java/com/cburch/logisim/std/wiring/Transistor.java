@@ -54,8 +54,8 @@ public class Transistor extends InstanceFactory {
   static final int INPUT = 1;
   static final int GATE = 2;
 
-  private static final Icon ICON_N = IconsUtil.getIcon("trans1.gif");
-  private static final Icon ICON_P = IconsUtil.getIcon("trans0.gif");
+  private static final Icon ICON_N = IconsUtil.getLazyIcon("trans1.gif");
+  private static final Icon ICON_P = IconsUtil.getLazyIcon("trans0.gif");
 
   public Transistor() {
     super(_ID, S.getter("transistorComponent"));
@@ -51,6 +51,7 @@ public class Tunnel extends InstanceFactory {
     setIconName("tunnel.gif");
     setFacingAttribute(StdAttr.FACING);
     setKeyConfigurator(new BitWidthConfigurator(StdAttr.WIDTH));
+    setConcurrentCreation(true);
   }
 
   private Bounds computeBounds(
@@ -41,6 +41,7 @@ public class FactoryDescription {
   public FactoryDescription(
       Class<? extends ComponentFactory> factoryClass, StringGetter displayName, Icon icon) {
     this(factoryClass, displayName);
+    this.icon = icon;
   }
 
   public FactoryDescription(
@@ -39,6 +39,50 @@ public final class IconsUtil {
     return icon;
   }
 
+  /**
+   * Returns an icon that is only loaded when it is painted or measured for the first time, such
+   * that icons can be kept in static fields without loading them when the class is initialized.
+   */
+  public static Icon getLazyIcon(String name) {
+    return new LazyIcon(name);
+  }
+
+  private static class LazyIcon implements Icon {
+    private final String name;
+    private Icon icon;
+    private boolean loaded = false;
+
+    LazyIcon(String name) {
+      this.name = name;
+    }
+
+    private synchronized Icon getIcon() {
+      if (!loaded) {
+        icon = IconsUtil.getIcon(name);
+        loaded = true;
+      }
+      return icon;
+    }
+
+    @Override
+    public void paintIcon(Component c, Graphics g, int x, int y) {
+      final var loadedIcon = getIcon();
+      if (loadedIcon != null) loadedIcon.paintIcon(c, g, x, y);
+    }
+
+    @Override
+    public int getIconWidth() {
+      final var loadedIcon = getIcon();
+      return loadedIcon == null ? 0 : loadedIcon.getIconWidth();
+    }
+
+    @Override
+    public int getIconHeight() {
+      final var loadedIcon = getIcon();
+      return loadedIcon == null ? 0 : loadedIcon.getIconHeight();
+    }
+  }
+
   public static void paintRotated(
       Graphics g, int x, int y, Direction dir, Icon icon, Component dest) {
     if (!(g instanceof Graphics2D) || dir == Direction.EAST) {
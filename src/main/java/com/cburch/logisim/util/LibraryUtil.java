@@ -23,6 +23,15 @@ public final class LibraryUtil {
 
   public static final String ID_FIELD_NAME = "_ID";
 
+  /* the identifiers are looked up each time a tool is searched by name, so they are kept */
+  private static final ClassValue<String> names =
+      new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> cls) {
+          return readName(cls);
+        }
+      };
+
   private LibraryUtil() {
     throw new IllegalStateException("Utility class. No instantiation allowed.");
   }
@@ -41,6 +50,10 @@ public final class LibraryUtil {
    * @return ID of the object
    */
   public static String getName(Class<?> cls) {
+    return names.get(cls);
+  }
+
+  private static String readName(Class<?> cls) {
     try {
       final var fields = cls.getDeclaredFields();
       for (final var field : fields) {
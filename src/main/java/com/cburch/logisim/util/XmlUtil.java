@@ -11,6 +11,7 @@ package com.cburch.logisim.util;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
 
 public final class XmlUtil {
 
@@ -70,4 +71,18 @@ public final class XmlUtil {
 
     return dbf;
   }
+
+  /**
+   * Returns instance of XMLInputFactory configured like {@link #getHardenedBuilderFactory()}: DTDs
+   * and external entities are not supported. Adjacent character data is coalesced, such that the
+   * text of an element is reported as a single event.
+   */
+  public static XMLInputFactory getHardenedInputFactory() {
+    final var factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    return factory;
+  }
 }
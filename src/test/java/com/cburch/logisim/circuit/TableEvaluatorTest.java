@@ -0,0 +1,127 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.analyze.model.TruthTable;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.wiring.Pin;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the truth tables computed by {@link TableEvaluator} with the ones computed with a new
+ * circuit state for every row. The adder in the sample file is built from subcircuits, with its
+ * buses split by splitters, whereas the latch has feedback and hence gets a new state per row.
+ */
+public class TableEvaluatorTest {
+
+  private static LogisimFile file;
+  private static Project proj;
+
+  @BeforeAll
+  public static void loadFile() throws Exception {
+    try (final var in = TableEvaluatorTest.class.getResourceAsStream("adder.circ")) {
+      file = new Loader(null).openLogisimFile(in);
+    }
+    proj = new Project(file);
+  }
+
+  private static List<Instance> getPins(Circuit circuit, boolean inputs) {
+    final var ret = new ArrayList<Instance>();
+    for (final var pin : Analyze.getPinLabels(circuit).keySet()) {
+      if (Pin.FACTORY.isInputPin(pin) == inputs) ret.add(pin);
+    }
+    return ret;
+  }
+
+  /** Computes the rows the way they were computed before, with a new state for each row. */
+  private static Value[][] evaluateFresh(
+      Circuit circuit, List<Instance> inputPins, List<Instance> outputPins) {
+    var inputCount = 0;
+    for (final var pin : inputPins) inputCount += pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+    final var rows = new Value[1 << inputCount][];
+    for (var row = 0; row < rows.length; row++) {
+      final var state = new CircuitState(proj, circuit);
+      var col = 0;
+      for (final var pin : inputPins) {
+        final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+        final var v = new Value[width];
+        for (var b = width - 1; b >= 0; b--) {
+          v[b] = TruthTable.isInputSet(row, col++, inputCount) ? Value.TRUE : Value.FALSE;
+        }
+        Pin.FACTORY.setValue(state.getInstanceState(pin), Value.create(v));
+      }
+      final var prop = state.getPropagator();
+      prop.propagate();
+      if (prop.isOscillating()) continue;
+      rows[row] = new Value[outputPins.size()];
+      for (var i = 0; i < outputPins.size(); i++) {
+        rows[row][i] = Pin.FACTORY.getValue(state.getInstanceState(outputPins.get(i)));
+      }
+    }
+    return rows;
+  }
+
+  private static void assertRowsEqual(Value[][] expected, Value[][] actual) {
+    assertEquals(expected.length, actual.length);
+    for (var row = 0; row < expected.length; row++) {
+      assertArrayEquals(expected[row], actual[row], "row " + row);
+    }
+  }
+
+  @Test
+  public void testReusedStateMatchesNewStates() {
+    final var circuit = file.getCircuit("main");
+    final var inputPins = getPins(circuit, true);
+    final var outputPins = getPins(circuit, false);
+    final var expected = evaluateFresh(circuit, inputPins, outputPins);
+    // the inputs are A, B and the carry in, the outputs their sum and the carry out
+    for (var row = 0; row < expected.length; row++) {
+      final var sum = (row >> 5) + ((row >> 1) & 0xf) + (row & 1);
+      assertEquals(sum & 0xf, expected[row][0].toLongValue());
+      assertEquals(sum >> 4, expected[row][1].toLongValue());
+    }
+
+    for (var nrOfWorkers = 1; nrOfWorkers <= 3; nrOfWorkers++) {
+      final var evaluator = new TableEvaluator(proj, circuit, inputPins, outputPins);
+      final var actual = evaluator.evaluate(nrOfWorkers);
+      assertTrue(evaluator.isReusingState());
+      assertRowsEqual(expected, actual);
+    }
+    assertRowsEqual(expected, Analyze.computeRows(proj, circuit, inputPins, outputPins));
+  }
+
+  @Test
+  public void testFeedbackGetsNewStates() {
+    final var circuit = file.getCircuit("latch");
+    final var inputPins = getPins(circuit, true);
+    final var outputPins = getPins(circuit, false);
+    final var expected = evaluateFresh(circuit, inputPins, outputPins);
+
+    for (var nrOfWorkers = 1; nrOfWorkers <= 2; nrOfWorkers++) {
+      final var evaluator = new TableEvaluator(proj, circuit, inputPins, outputPins);
+      final var actual = evaluator.evaluate(nrOfWorkers);
+      assertFalse(evaluator.isReusingState());
+      assertRowsEqual(expected, actual);
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestVectorTest {
+
+  @TempDir Path tempDir;
+
+  private Path write(String contents) throws IOException {
+    final var file = tempDir.resolve("vector.txt");
+    Files.writeString(file, contents, StandardCharsets.UTF_8);
+    return file;
+  }
+
+  /** The rows read one at a time from an opened test vector are the ones of a loaded one. */
+  @Test
+  public void testStreamedRowsMatchData() throws Exception {
+    final var contents = new StringBuilder("# adder\nA[4] B[4] Cin Sum[5]\n");
+    for (var a = 0; a < 16; a++) {
+      for (var b = 0; b < 16; b++) {
+        final var cin = (a + b) & 1;
+        contents.append(String.format("0x%x 0x%x %d %d\n", a, b, cin, a + b + cin));
+        if (b == 7) contents.append("\n  # halfway\n");
+      }
+    }
+    contents.append("xxxx 1111 x xxxxx # don't cares\n");
+    final var file = write(contents.toString()).toFile();
+
+    final var loaded = new TestVector(file);
+    assertArrayEquals(new String[] {"A", "B", "Cin", "Sum"}, loaded.columnName);
+    assertArrayEquals(
+        new BitWidth[] {BitWidth.create(4), BitWidth.create(4), BitWidth.ONE, BitWidth.create(5)},
+        loaded.columnWidth);
+    assertArrayEquals(new int[] {16, 16, 2, 10}, loaded.columnRadix);
+    assertEquals(16 * 16 + 1, loaded.data.size());
+
+    final var streamed = new ArrayList<Value[]>();
+    try (final var vector = TestVector.open(file)) {
+      assertNull(vector.data);
+      assertArrayEquals(loaded.columnName, vector.columnName);
+      assertArrayEquals(loaded.columnWidth, vector.columnWidth);
+      var row = new Value[vector.columnName.length];
+      while (vector.readRow(row)) {
+        streamed.add(row);
+        row = new Value[vector.columnName.length];
+      }
+      assertArrayEquals(loaded.columnRadix, vector.columnRadix);
+    }
+    assertEquals(loaded.data.size(), streamed.size());
+    for (var i = 0; i < streamed.size(); i++) {
+      assertArrayEquals(loaded.data.get(i), streamed.get(i), "row " + i);
+    }
+    assertEquals(Value.createKnown(5, 30), loaded.data.get(16 * 15 + 14)[3]);
+  }
+
+  @Test
+  public void testMissingValues() throws Exception {
+    final var file = write("A B C\n0 1 1\n1 0\n").toFile();
+    final var error = assertThrows(IOException.class, () -> new TestVector(file));
+    assertTrue(error.getMessage().endsWith("missing values"), error.getMessage());
+
+    try (final var vector = TestVector.open(file)) {
+      final var row = new Value[3];
+      assertTrue(vector.readRow(row));
+      assertThrows(IOException.class, () -> vector.readRow(row));
+    }
+  }
+
+  @Test
+  public void testExtraValue() throws Exception {
+    final var file = write("A B\n0 1\n1 0 extra # comment\n").toFile();
+    final var error = assertThrows(IOException.class, () -> new TestVector(file));
+    assertTrue(error.getMessage().endsWith(": extra"), error.getMessage());
+  }
+
+  /** A comment in another charset than the default one does not fail the read. */
+  @Test
+  public void testLatin1Comment() throws Exception {
+    final var file = tempDir.resolve("latin1.txt");
+    final var contents = "# résultat attendu\nA B\n0 1 # précédent\n1 0\n";
+    Files.write(file, contents.getBytes(StandardCharsets.ISO_8859_1));
+    final var vector = new TestVector(file.toFile());
+    assertArrayEquals(new String[] {"A", "B"}, vector.columnName);
+    assertEquals(2, vector.data.size());
+    assertEquals(Value.TRUE, vector.data.get(0)[1]);
+    assertEquals(Value.TRUE, vector.data.get(1)[0]);
+    assertEquals(Value.FALSE, vector.data.get(1)[1]);
+  }
+}
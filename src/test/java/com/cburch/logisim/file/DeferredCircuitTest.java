@@ -0,0 +1,191 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.circuit.Analyze;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.comp.ComponentDrawContext;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.generated.BuildInfo;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.wiring.Pin;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.SwingUtilities;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that the circuits of which building is deferred while reading a file behave the same as
+ * the others once they are used. In the sample file only the main circuit is built right away, the
+ * half adder and the circuit using it are built when first used.
+ */
+public class DeferredCircuitTest {
+
+  @TempDir Path tempDir;
+
+  private String readResource(String name) throws IOException {
+    try (final var in = getClass().getResourceAsStream(name)) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private LogisimFile load(Loader loader) throws IOException {
+    try (final var in = getClass().getResourceAsStream("deferred.circ")) {
+      final var file = loader.openLogisimFile(in);
+      assertTrue(file.getCircuit("main").isMaterialized());
+      assertFalse(file.getCircuit("half").isMaterialized());
+      assertFalse(file.getCircuit("top").isMaterialized());
+      return file;
+    }
+  }
+
+  private static Instance getPin(Circuit circuit, String label) {
+    for (final var pin : Analyze.getPinLabels(circuit).entrySet()) {
+      if (pin.getValue().equals(label)) return pin.getKey();
+    }
+    throw new IllegalArgumentException(label);
+  }
+
+  @Test
+  public void testCanvasBuildsCircuit() throws Exception {
+    final var file = load(new Loader(null));
+    final var top = file.getCircuit("top");
+    assertEquals(5, top.getNonWires().size());
+    assertTrue(top.isMaterialized());
+    assertEquals(1, top.getNonWires(Location.create(300, 100, false)).size());
+    assertEquals(8, top.getWires().size());
+  }
+
+  @Test
+  public void testSimulateAsSubcircuit() throws Exception {
+    final var file = load(new Loader(null));
+    final var proj = new Project(file);
+    final var top = file.getCircuit("top");
+    final var state = new CircuitState(proj, top);
+    assertTrue(top.isMaterialized());
+    for (var x = 0; x < 2; x++) {
+      for (var y = 0; y < 2; y++) {
+        Pin.FACTORY.setValue(state.getInstanceState(getPin(top, "x")), Value.createKnown(1, x));
+        Pin.FACTORY.setValue(state.getInstanceState(getPin(top, "y")), Value.createKnown(1, y));
+        state.markComponentAsDirty(getPin(top, "x").getComponent());
+        state.markComponentAsDirty(getPin(top, "y").getComponent());
+        state.getPropagator().propagate();
+        final var sum = Pin.FACTORY.getValue(state.getInstanceState(getPin(top, "sum")));
+        final var carry = Pin.FACTORY.getValue(state.getInstanceState(getPin(top, "carry")));
+        assertEquals(x ^ y, sum.toLongValue(), "sum of " + x + " and " + y);
+        assertEquals(x & y, carry.toLongValue(), "carry of " + x + " and " + y);
+      }
+    }
+    assertTrue(file.getCircuit("half").isMaterialized());
+  }
+
+  @Test
+  public void testAnalysis() throws Exception {
+    final var file = load(new Loader(null));
+    final var proj = new Project(file);
+    final var half = file.getCircuit("half");
+    final var inputs = List.of(getPin(half, "a"), getPin(half, "b"));
+    final var outputs = List.of(getPin(half, "s"), getPin(half, "c"));
+    final var rows = Analyze.computeRows(proj, half, inputs, outputs);
+    assertEquals(4, rows.length);
+    for (var row = 0; row < rows.length; row++) {
+      final var a = row >> 1;
+      final var b = row & 1;
+      assertEquals(a ^ b, rows[row][0].toLongValue(), "row " + row);
+      assertEquals(a & b, rows[row][1].toLongValue(), "row " + row);
+    }
+  }
+
+  /** Draws the circuit on an image the way it is done when exporting it. */
+  @Test
+  public void testExportImage() throws Exception {
+    final var file = load(new Loader(null));
+    final var proj = new Project(file);
+    final var half = file.getCircuit("half");
+    final var img = new BufferedImage(500, 300, BufferedImage.TYPE_INT_RGB);
+    final var g = img.createGraphics();
+    final var bds = half.getBounds(g);
+    assertTrue(half.isMaterialized());
+    assertTrue(bds.contains(100, 100) && bds.contains(400, 240), bds.toString());
+    final var context = new ComponentDrawContext(null, half, new CircuitState(proj, half), g, g);
+    half.draw(context, null);
+    g.dispose();
+  }
+
+  /** The errors of a circuit are only found when it is built, and still have to be reported. */
+  @Test
+  public void testDeferredErrorsAreShown() throws Exception {
+    final var xml =
+        """
+        <?xml version="1.0" encoding="UTF-8" standalone="no"?>
+        <project source="3.8.0" version="1.0">
+          <lib desc="#Wiring" name="0"/>
+          <lib desc="#Gates" name="1"/>
+          <main name="main"/>
+          <circuit name="main">
+            <comp lib="0" loc="(100,100)" name="Pin"/>
+          </circuit>
+          <circuit name="broken">
+            <comp lib="0" loc="(100,100)" name="Pin"/>
+            <comp lib="1" loc="(300,100)" name="No Such Gate"/>
+          </circuit>
+        </project>
+        """;
+    final var errors = new ArrayList<String>();
+    final var loader =
+        new Loader(null) {
+          @Override
+          public void showError(String description) {
+            final var onEventThread = SwingUtilities.isEventDispatchThread();
+            errors.add(onEventThread ? description : "off the event thread: " + description);
+          }
+        };
+    final var file =
+        loader.openLogisimFile(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    final var broken = file.getCircuit("broken");
+    assertFalse(broken.isMaterialized());
+    SwingUtilities.invokeAndWait(() -> { });
+    assertTrue(errors.isEmpty(), errors.toString());
+
+    assertEquals(1, broken.getNonWires().size());
+    SwingUtilities.invokeAndWait(() -> { });
+    assertEquals(1, errors.size());
+    assertTrue(errors.get(0).startsWith("component 'No Such Gate'"), errors.get(0));
+  }
+
+  @Test
+  public void testSaveUnopenedCircuits() throws Exception {
+    final var loader = new Loader(null);
+    final var file = load(loader);
+    final var dest = tempDir.resolve("deferred.circ");
+    assertTrue(loader.save(file, dest.toFile()));
+    Loader.waitForSaves();
+
+    final var actual =
+        Files.readString(dest, StandardCharsets.UTF_8)
+            .replace("\r\n", "\n")
+            .replace(BuildInfo.version.toString(), "3.8.0");
+    assertEquals(readResource("deferred.circ"), actual);
+  }
+}
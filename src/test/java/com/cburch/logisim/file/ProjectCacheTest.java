@@ -0,0 +1,145 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xml.sax.SAXException;
+
+public class ProjectCacheTest {
+
+  @TempDir Path tempDir;
+
+  private String save(Loader loader, LogisimFile file, String name) throws Exception {
+    final var dest = tempDir.resolve(name);
+    assertTrue(loader.save(file, dest.toFile()));
+    return Files.readString(dest, StandardCharsets.UTF_8);
+  }
+
+  private Path copySample() throws Exception {
+    final var source = tempDir.resolve("sample.circ");
+    try (final var in = getClass().getResourceAsStream("sample.circ")) {
+      Files.copy(in, source);
+    }
+    return source;
+  }
+
+  private static LogisimFile read(XmlReader reader, Path source, ProjectCache cache)
+      throws Exception {
+    try (final var in = Files.newInputStream(source)) {
+      return reader.readLibrary(in, cache, null);
+    }
+  }
+
+  /** A project reopened from the cache has the same circuits as the one read from the XML. */
+  @Test
+  public final void testReopenFromCache() throws Exception {
+    final var source = copySample();
+    final var cache = ProjectCache.forFile(tempDir.resolve("cache"), source);
+    assertNull(cache.openReader());
+
+    final var loader = new Loader(null);
+    final var reader = new XmlReader(loader, null);
+    final var parsed = read(reader, source, cache);
+    assertNotNull(cache.openReader());
+    final var cached = read(reader, source, cache);
+
+    assertEquals(parsed.getCircuits().size(), cached.getCircuits().size());
+    for (final var circuit : parsed.getCircuits()) {
+      final var other = cached.getCircuit(circuit.getName());
+      assertNotNull(other);
+      assertEquals(circuit.getNonWires().size(), other.getNonWires().size());
+      assertEquals(circuit.getWires().size(), other.getWires().size());
+    }
+    assertEquals(save(loader, parsed, "parsed.circ"), save(loader, cached, "cached.circ"));
+  }
+
+  /** An entry is not used once the contents of the file have changed. */
+  @Test
+  public final void testChangedFileMissesCache() throws Exception {
+    final var source = copySample();
+    final var directory = tempDir.resolve("cache");
+    read(new XmlReader(new Loader(null), null), source, ProjectCache.forFile(directory, source));
+    assertNotNull(ProjectCache.forFile(directory, source).openReader());
+
+    Files.writeString(source, "\n", StandardOpenOption.APPEND);
+    assertNull(ProjectCache.forFile(directory, source).openReader());
+  }
+
+  /** A file that fails to load leaves neither an entry nor its temporary file behind. */
+  @Test
+  public final void testFailedLoadIsNotCached() throws Exception {
+    final var source = tempDir.resolve("broken.circ");
+    Files.writeString(source, "<project source=\"3.8.0\" version=\"1.0\"><circuit name=\"main\">");
+    final var directory = tempDir.resolve("cache");
+    final var cache = ProjectCache.forFile(directory, source);
+    assertThrows(
+        SAXException.class, () -> read(new XmlReader(new Loader(null), null), source, cache));
+    try (final var files = Files.list(directory)) {
+      assertEquals(0, files.count());
+    }
+  }
+
+  /**
+   * Entries that have not been used for too long are removed, and then the least recently used
+   * ones until the others fit in the maximum size.
+   */
+  @Test
+  public final void testEvict() throws Exception {
+    final var directory = Files.createDirectory(tempDir.resolve("cache"));
+    final var now = Instant.now();
+    final var ages = new int[] {0, 1, 2, 3, 40};
+    for (var i = 0; i < ages.length; i++) {
+      final var entry = directory.resolve("entry" + i + ".bin");
+      Files.write(entry, new byte[1000]);
+      Files.setLastModifiedTime(entry, FileTime.from(now.minus(ages[i], ChronoUnit.DAYS)));
+    }
+    final var recentTemp = Files.write(directory.resolve("project1.tmp"), new byte[1000]);
+    final var oldTemp = Files.write(directory.resolve("project2.tmp"), new byte[1000]);
+    Files.setLastModifiedTime(oldTemp, FileTime.from(now.minus(2, ChronoUnit.DAYS)));
+
+    ProjectCache.evict(directory, 3500, 30);
+    try (final var files = Files.list(directory)) {
+      assertEquals(
+          Set.of("entry0.bin", "entry1.bin", "entry2.bin", "project1.tmp"),
+          files.map(file -> file.getFileName().toString()).collect(Collectors.toSet()));
+    }
+    assertTrue(Files.exists(recentTemp));
+  }
+
+  /** Writing an entry removes the ones that have not been used for too long. */
+  @Test
+  public final void testCommitEvicts() throws Exception {
+    final var source = copySample();
+    final var directory = Files.createDirectory(tempDir.resolve("cache"));
+    final var old = Files.write(directory.resolve("old.bin"), new byte[10]);
+    Files.setLastModifiedTime(
+        old, FileTime.from(Instant.now().minus(ProjectCache.MAX_AGE_DAYS + 1, ChronoUnit.DAYS)));
+    read(new XmlReader(new Loader(null), null), source, ProjectCache.forFile(directory, source));
+    assertFalse(Files.exists(old));
+    assertNotNull(ProjectCache.forFile(directory, source).openReader());
+  }
+}
@@ -13,7 +13,12 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
-import org.junit.jupiter.api.BeforeEach;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.gates.GateAttributes;
+import com.cburch.logisim.std.memory.Rom;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import org.junit.jupiter.api.Test;
 
 public class XmlReaderTest {
@@ -80,4 +85,97 @@ public class XmlReaderTest {
     assertFalse(XmlReader.labelVHDLInvalid("A13566356aA"));
     assertFalse(XmlReader.labelVHDLInvalid("a_B_c"));
   }
+
+  /** A circuit may use a subcircuit that is only defined further down in the file. */
+  @Test
+  public final void testSubcircuitDefinedLater() throws Exception {
+    final var xml =
+        """
+        <?xml version="1.0" encoding="UTF-8" standalone="no"?>
+        <project source="3.8.0" version="1.0">
+          <lib desc="#Wiring" name="0"/>
+          <main name="main"/>
+          <circuit name="main">
+            <comp loc="(300,300)" name="sub"/>
+          </circuit>
+          <circuit name="sub">
+            <comp lib="0" loc="(100,100)" name="Pin"/>
+            <comp lib="0" loc="(400,100)" name="Pin">
+              <a name="facing" val="west"/>
+              <a name="output" val="true"/>
+            </comp>
+          </circuit>
+        </project>
+        """;
+    final var file =
+        new Loader(null)
+            .openLogisimFile(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    final var main = file.getCircuit("main");
+    assertEquals(1, main.getNonWires().size());
+    final var instance = main.getNonWires().iterator().next();
+    assertEquals(2, instance.getEnds().size());
+  }
+
+  /**
+   * A circuit with enough components to be created in parallel, with ROMs that are created on the
+   * loading thread in between gates and tunnels that are not.
+   */
+  @Test
+  public final void testManyRomsInParallelLoad() throws Exception {
+    final var roms = 40;
+    final var xml = new StringBuilder();
+    xml.append(
+        """
+        <?xml version="1.0" encoding="UTF-8" standalone="no"?>
+        <project source="3.8.0" version="1.0">
+          <lib desc="#Wiring" name="0"/>
+          <lib desc="#Gates" name="1"/>
+          <lib desc="#Memory" name="2"/>
+          <main name="main"/>
+          <circuit name="main">
+        """);
+    for (var k = 0; k < roms; k++) {
+      final var x = 100 + 400 * k;
+      xml.append("<comp lib=\"2\" loc=\"(").append(x).append(",100)\" name=\"ROM\">")
+          .append("<a name=\"addrWidth\" val=\"4\"/>")
+          .append("<a name=\"label\" val=\"rom").append(k).append("\"/>")
+          .append("<a name=\"contents\">addr/data: 4 8\n");
+      for (var i = 0; i < 16; i++) xml.append(Integer.toHexString((k + 7 * i) & 0xff)).append(' ');
+      xml.append("\n</a></comp>\n");
+      xml.append("<comp lib=\"1\" loc=\"(").append(x).append(",600)\" name=\"AND Gate\">")
+          .append("<a name=\"inputs\" val=\"").append(2 + k % 3).append("\"/></comp>\n");
+      xml.append("<comp lib=\"0\" loc=\"(").append(x).append(",800)\" name=\"Tunnel\">")
+          .append("<a name=\"label\" val=\"t").append(k).append("\"/></comp>\n");
+    }
+    xml.append("</circuit>\n</project>\n");
+    assertTrue(3 * roms >= XmlReader.PARALLEL_LOAD_THRESHOLD);
+
+    for (var round = 0; round < 3; round++) {
+      final var file =
+          new Loader(null)
+              .openLogisimFile(
+                  new ByteArrayInputStream(xml.toString().getBytes(StandardCharsets.UTF_8)));
+      final var comps = file.getCircuit("main").getNonWires();
+      assertEquals(3 * roms, comps.size());
+      var romsFound = 0;
+      for (final var comp : comps) {
+        final var factory = comp.getFactory();
+        final var k = (comp.getLocation().getX() - 100) / 400;
+        final var concurrent = factory.getFeature(ComponentFactory.CONCURRENT_CREATION, null);
+        if (factory instanceof Rom) {
+          romsFound++;
+          assertFalse(Boolean.TRUE.equals(concurrent));
+          assertEquals("rom" + k, comp.getAttributeSet().getValue(StdAttr.LABEL));
+          final var contents = comp.getAttributeSet().getValue(Rom.CONTENTS_ATTR);
+          for (var i = 0; i < 16; i++) assertEquals((k + 7 * i) & 0xff, contents.get(i));
+        } else if (comp.getLocation().getY() == 600) {
+          assertEquals(Boolean.TRUE, concurrent);
+          assertEquals(2 + k % 3, comp.getAttributeSet().getValue(GateAttributes.ATTR_INPUTS));
+        } else {
+          assertEquals("t" + k, comp.getAttributeSet().getValue(StdAttr.LABEL));
+        }
+      }
+      assertEquals(roms, romsFound);
+    }
+  }
 }
@@ -0,0 +1,53 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.generated.BuildInfo;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class XmlWriterTest {
+
+  @TempDir Path tempDir;
+
+  private String readResource(String name) throws IOException {
+    try (final var in = getClass().getResourceAsStream(name)) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Saves a sample project, with a subcircuit, escaped text and multi-line ROM contents, and
+   * compares the result with the output of the writer that built the complete document first.
+   */
+  @Test
+  public final void testSaveMatchesGoldenFile() throws Exception {
+    final var loader = new Loader(null);
+    final LogisimFile file;
+    try (final var in = getClass().getResourceAsStream("sample.circ")) {
+      file = loader.openLogisimFile(in);
+    }
+    final var dest = tempDir.resolve("sample.circ");
+    assertTrue(loader.save(file, dest.toFile()));
+
+    final var actual =
+        Files.readString(dest, StandardCharsets.UTF_8)
+            .replace("\r\n", "\n")
+            .replace(BuildInfo.version.toString(), "3.8.0");
+    assertEquals(readResource("sample-saved.circ"), actual);
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+
+public class HistorySegmentsTest {
+
+  private static long countFiles() throws IOException {
+    try (final var files = Files.list(HistorySegments.getDirectory())) {
+      return files.count();
+    }
+  }
+
+  /** Allocations in segments of growing size, one larger than the first segment, read back. */
+  @Test
+  public void testAllocateAndClear() throws Exception {
+    final var filesBefore = countFiles();
+    final var segments = new HistorySegments();
+    final var addresses = new ArrayList<Long>();
+    final var lengths = new int[] {1000, 17, 40000, 100000, 3, 70000};
+    for (var round = 0; round < 10; round++) {
+      for (final var length : lengths) {
+        final var address = segments.allocate(length);
+        final var out = segments.get(address, length);
+        for (var i = 0; i < length; i++) out.put((byte) (addresses.size() + i));
+        addresses.add(address);
+      }
+    }
+    // the segments double in size, hence there are fewer of them than allocations
+    final var files = countFiles() - filesBefore;
+    assertEquals(true, files > 1 && files < addresses.size() / 2, "segment files: " + files);
+
+    for (var a = 0; a < addresses.size(); a++) {
+      final var length = lengths[a % lengths.length];
+      final var in = segments.get(addresses.get(a), length);
+      for (var i = 0; i < length; i++) assertEquals((byte) (a + i), in.get(), "allocation " + a);
+    }
+
+    segments.clear();
+    assertEquals(filesBefore, countFiles());
+    segments.get(segments.allocate(10), 10).put((byte) 1);
+    assertEquals(filesBefore + 1, countFiles());
+    segments.clear();
+    assertEquals(filesBefore, countFiles());
+  }
+}
@@ -0,0 +1,425 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Value;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares a {@link Signal} with a plain list of samples. The values are wide enough to need int
+ * and long columns, and some of them have unknown or error bits.
+ */
+public class SignalTest {
+
+  private static final int WIDTH = 40;
+  private static final int BLOCK = 512;
+  private static final int RESIDENT_BLOCKS = 16;
+
+  private SignalInfo info;
+  private Random random;
+
+  /** The samples a signal should hold. */
+  private static final class Model {
+    private final ArrayList<Value> values = new ArrayList<>();
+    private final ArrayList<Long> durations = new ArrayList<>();
+    private long start;
+    private int maxSize;
+
+    Model(Value v, long duration, long start, int maxSize) {
+      this.start = start;
+      this.maxSize = maxSize;
+      extend(v, duration);
+    }
+
+    long getEnd() {
+      var ret = start;
+      for (final var d : durations) ret += d;
+      return ret;
+    }
+
+    void extend(long duration) {
+      final var last = durations.size() - 1;
+      durations.set(last, durations.get(last) + duration);
+    }
+
+    void extend(Value v, long duration) {
+      if (!values.isEmpty() && values.get(values.size() - 1).equals(v)) {
+        extend(duration);
+        return;
+      }
+      if (maxSize > 0 && values.size() == maxSize) removeFirst();
+      values.add(v);
+      durations.add(duration);
+    }
+
+    void replaceRecent(Value v, long duration) {
+      final var last = values.size() - 1;
+      final var d = durations.get(last);
+      if (last == 0 && duration >= d) {
+        start = getEnd() - duration;
+        values.set(0, v);
+        durations.set(0, duration);
+        return;
+      }
+      if (d == duration) {
+        values.remove(last);
+        durations.remove(last);
+      } else {
+        durations.set(last, d - duration);
+      }
+      extend(v, duration);
+    }
+
+    void resize(int newMaxSize) {
+      maxSize = newMaxSize;
+      while (maxSize > 0 && values.size() > maxSize) removeFirst();
+    }
+
+    private void removeFirst() {
+      start += durations.remove(0);
+      values.remove(0);
+    }
+
+    /* returns the index of the sample at the given time */
+    int indexOf(long t) {
+      var end = start;
+      for (var i = 0; i < durations.size(); i++) {
+        end += durations.get(i);
+        if (t < end) return i;
+      }
+      return -1;
+    }
+
+    long startOf(int index) {
+      var ret = start;
+      for (var i = 0; i < index; i++) ret += durations.get(i);
+      return ret;
+    }
+  }
+
+  @BeforeEach
+  public void setUp() {
+    info = mock(SignalInfo.class);
+    when(info.getWidth()).thenReturn(WIDTH);
+    random = new Random(49);
+  }
+
+  private Value randomValue() {
+    final var kind = random.nextInt(16);
+    if (kind == 0) return Value.createUnknown(BitWidth.create(WIDTH));
+    if (kind == 1) return Value.createError(BitWidth.create(WIDTH));
+    if (kind < 6) return Value.createKnown(WIDTH, random.nextInt(256));
+    return Value.createKnown(WIDTH, random.nextLong() & ((1L << WIDTH) - 1));
+  }
+
+  private long randomDuration() {
+    return 1 + random.nextInt(20);
+  }
+
+  /** Adds samples that each differ from the one before. */
+  private void extend(Signal signal, Model model, int count) {
+    for (var i = 0; i < count; i++) {
+      var v = randomValue();
+      while (v.equals(model.values.get(model.values.size() - 1))) v = randomValue();
+      final var duration = randomDuration();
+      signal.extend(v, duration);
+      model.extend(v, duration);
+    }
+  }
+
+  private static void assertSameSamples(Model model, Signal signal) {
+    assertEquals(model.getEnd(), signal.getEndTime());
+    final var it = signal.new Iterator();
+    assertEquals(model.start, it.time);
+    var t = model.start;
+    for (var i = 0; i < model.values.size(); i++) {
+      if (i > 0) assertTrue(it.advance(), "sample " + i);
+      final var v = model.values.get(i);
+      final long d = model.durations.get(i);
+      assertEquals(t, it.time, "sample " + i);
+      assertEquals(d, it.duration, "sample " + i);
+      assertEquals(v, it.value, "sample " + i);
+      assertEquals(v, signal.getValue(t), "sample " + i);
+      assertEquals(v, signal.getValue(t + d - 1), "sample " + i);
+      t += d;
+    }
+    assertFalse(it.advance());
+    assertNull(signal.getValue(model.start - 1));
+    assertNull(signal.getValue(t));
+  }
+
+  /** Walks the signal with jumps of random length, some of which skip several blocks. */
+  private void assertSameJumps(Model model, Signal signal, long maxJump) {
+    final var it = signal.new Iterator();
+    var t = model.start;
+    while (true) {
+      final var jump = 1 + Math.floorMod(random.nextLong(), maxJump);
+      t += jump;
+      if (t >= model.getEnd()) {
+        assertFalse(it.advance(jump));
+        assertNull(it.value);
+        return;
+      }
+      assertTrue(it.advance(jump));
+      final var index = model.indexOf(t);
+      assertEquals(t, it.time);
+      assertEquals(model.values.get(index), it.value, "at " + t);
+      assertEquals(model.startOf(index) + model.durations.get(index) - t, it.duration, "at " + t);
+
+      final var fresh = signal.new Iterator(t);
+      assertEquals(t, fresh.time);
+      assertEquals(it.value, fresh.value);
+      assertEquals(it.duration, fresh.duration);
+    }
+  }
+
+  @Test
+  public void testExtend() {
+    final var v = randomValue();
+    final var signal = new Signal(0, info, v, 5, 100, 0);
+    final var model = new Model(v, 5, 100, 0);
+    extend(signal, model, 3 * BLOCK + 17);
+    // equal values and extensions without a value make the last sample longer
+    final var last = model.values.get(model.values.size() - 1);
+    signal.extend(last, 7);
+    model.extend(last, 7);
+    signal.extend(3);
+    model.extend(3);
+    assertEquals(3 * BLOCK + 18, model.values.size());
+    assertSameSamples(model, signal);
+  }
+
+  @Test
+  public void testJumpsAcrossBlocks() {
+    final var v = randomValue();
+    final var signal = new Signal(0, info, v, 5, 0, 0);
+    final var model = new Model(v, 5, 0, 0);
+    extend(signal, model, 5 * BLOCK);
+    assertSameJumps(model, signal, 40);
+    assertSameJumps(model, signal, 3 * BLOCK * 10);
+    // the first and last times of the blocks
+    for (var i = 1; i < 5; i++) {
+      final var start = model.startOf(i * BLOCK);
+      assertEquals(model.values.get(i * BLOCK), signal.getValue(start));
+      assertEquals(model.values.get(i * BLOCK - 1), signal.getValue(start - 1));
+    }
+  }
+
+  @Test
+  public void testReplaceRecent() {
+    final var v = randomValue();
+    final var signal = new Signal(0, info, v, 10, 100, 0);
+    final var model = new Model(v, 10, 100, 0);
+
+    // a single sample is stretched back in time
+    final var first = randomValue();
+    signal.replaceRecent(first, 30);
+    model.replaceRecent(first, 30);
+    assertEquals(80, model.start);
+    assertSameSamples(model, signal);
+
+    extend(signal, model, BLOCK - 1);
+    final var last = model.values.size() - 1;
+
+    // the last sample is shortened and followed by the new one, which starts a block
+    final var value = model.values.get(last - 1);
+    signal.extend(model.values.get(last), 10);
+    model.extend(model.values.get(last), 10);
+    signal.replaceRecent(value, 4);
+    model.replaceRecent(value, 4);
+    assertEquals(BLOCK + 1, model.values.size());
+    assertSameSamples(model, signal);
+
+    // the complete last sample is replaced, which merges it into the one before and drops the
+    // block it started
+    signal.replaceRecent(model.values.get(BLOCK - 1), 4);
+    model.replaceRecent(model.values.get(BLOCK - 1), 4);
+    assertEquals(BLOCK, model.values.size());
+    assertSameSamples(model, signal);
+
+    // the complete last sample is replaced by a value that differs from the one before
+    final var other = Value.createKnown(WIDTH, 0x5a5a5a5a5aL);
+    signal.replaceRecent(other, model.durations.get(BLOCK - 1));
+    model.replaceRecent(other, model.durations.get(BLOCK - 1));
+    assertSameSamples(model, signal);
+    extend(signal, model, 10);
+    assertSameSamples(model, signal);
+  }
+
+  @Test
+  public void testResize() {
+    final var v = randomValue();
+    final var signal = new Signal(0, info, v, 5, 0, 3 * BLOCK);
+    final var model = new Model(v, 5, 0, 3 * BLOCK);
+    extend(signal, model, 4 * BLOCK);
+    assertEquals(3 * BLOCK, model.values.size());
+    assertEquals(model.start, signal.omittedDataTime());
+    assertSameSamples(model, signal);
+
+    // shrinking drops the oldest samples, growing keeps all of them
+    signal.resize(BLOCK + 100);
+    model.resize(BLOCK + 100);
+    assertSameSamples(model, signal);
+    signal.resize(4 * BLOCK);
+    model.resize(4 * BLOCK);
+    extend(signal, model, BLOCK);
+    assertSameSamples(model, signal);
+    assertEquals(0, signal.omittedDataTime());
+    signal.resize(0);
+    model.resize(0);
+    extend(signal, model, 2 * BLOCK);
+    assertSameSamples(model, signal);
+    assertSameJumps(model, signal, 1000);
+  }
+
+  private static long countSegmentFiles() throws IOException {
+    try (final var files = Files.list(HistorySegments.getDirectory())) {
+      return files.count();
+    }
+  }
+
+  /**
+   * Blocks that are moved to the segment files read back the same. The first blocks only have
+   * narrow values and short durations, such that their columns are bytes and they have no unknown
+   * or error bits, later ones have columns of ints and of longs.
+   */
+  @Test
+  public void testSpilledBlocks() throws Exception {
+    final var filesBefore = countSegmentFiles();
+    final var v = Value.createKnown(WIDTH, 0);
+    final var signal = new Signal(0, info, v, 5, 0, 0);
+    final var model = new Model(v, 5, 0, 0);
+    for (var i = 1; i < 4 * BLOCK; i++) {
+      final var value = Value.createKnown(WIDTH, i % 2);
+      signal.extend(value, i % 3 + 1);
+      model.extend(value, i % 3 + 1);
+    }
+    for (var i = 0; i < 4 * BLOCK; i++) {
+      final var value = Value.createKnown(WIDTH, random.nextInt(1 << 20) | 0x100);
+      final var duration = 1 + random.nextInt(1 << 20);
+      signal.extend(value, duration);
+      model.extend(value, duration);
+    }
+    for (var i = 0; i < 4 * BLOCK; i++) {
+      final var duration = 1 + (random.nextLong() & ((1L << 40) - 1));
+      var value = randomValue();
+      while (value.equals(model.values.get(model.values.size() - 1))) value = randomValue();
+      signal.extend(value, duration);
+      model.extend(value, duration);
+    }
+    extend(signal, model, (RESIDENT_BLOCKS - 4) * BLOCK);
+    assertTrue(countSegmentFiles() > filesBefore);
+    assertSameSamples(model, signal);
+    assertSameJumps(model, signal, model.getEnd() / 50);
+
+    // the files are deleted with the history
+    signal.reset(v, 5);
+    assertEquals(filesBefore, countSegmentFiles());
+    final var reset = new Model(v, 5, 0, 0);
+    assertSameSamples(reset, signal);
+  }
+
+  private static long sizeOfSegmentFiles() throws IOException {
+    try (final var files = Files.list(HistorySegments.getDirectory())) {
+      return files.mapToLong(file -> file.toFile().length()).sum();
+    }
+  }
+
+  /**
+   * Regression: a limited history that moved blocks to the segment files kept all of them, such
+   * that the files grew with every sample even though the older ones were dropped.
+   */
+  @Test
+  public void testLimitedHistoryReusesSegments() throws Exception {
+    final var filesBefore = countSegmentFiles();
+    final var maxSize = (RESIDENT_BLOCKS + 4) * BLOCK;
+    final var v = randomValue();
+    final var signal = new Signal(0, info, v, 5, 0, maxSize);
+    final var model = new Model(v, 5, 0, maxSize);
+    extend(signal, model, 2 * maxSize);
+    final var files = countSegmentFiles();
+    final var size = sizeOfSegmentFiles();
+    assertTrue(files > filesBefore);
+
+    extend(signal, model, 10 * maxSize);
+    assertEquals(files, countSegmentFiles());
+    assertEquals(size, sizeOfSegmentFiles());
+    assertEquals(maxSize, model.values.size());
+    assertSameSamples(model, signal);
+
+    signal.reset(v, 5);
+    assertEquals(filesBefore, countSegmentFiles());
+  }
+
+  /** Regression: unlimited histories used to fail once a second chunk was needed. */
+  @Test
+  public void testUnlimitedBeyondOneBlock() {
+    final var v = randomValue();
+    final var signal = new Signal(0, info, v, 5, 0, 0);
+    final var model = new Model(v, 5, 0, 0);
+    extend(signal, model, BLOCK + 1);
+    assertSameSamples(model, signal);
+  }
+
+  /** Regression: going from an unlimited to a limited history used to keep all samples. */
+  @Test
+  public void testUnlimitedToLimited() {
+    final var v = randomValue();
+    final var signal = new Signal(0, info, v, 5, 0, 0);
+    final var model = new Model(v, 5, 0, 0);
+    extend(signal, model, 300);
+    signal.resize(100);
+    model.resize(100);
+    assertEquals(100, model.values.size());
+    assertEquals(model.start, signal.omittedDataTime());
+    assertSameSamples(model, signal);
+  }
+
+  /** Regression: replacing the recent value of a limited history that wrapped lost time. */
+  @Test
+  public void testReplaceRecentAfterWrapping() {
+    final var v = randomValue();
+    final var signal = new Signal(0, info, v, 5, 0, 10);
+    final var model = new Model(v, 5, 0, 10);
+    extend(signal, model, 25);
+    final var end = model.getEnd();
+
+    // the last sample is shortened and followed by the new one
+    final var previous = model.values.get(model.values.size() - 1);
+    signal.extend(previous, 10);
+    model.extend(previous, 10);
+    final var replacement = Value.createKnown(WIDTH, 12345);
+    signal.replaceRecent(replacement, 4);
+    model.replaceRecent(replacement, 4);
+    assertEquals(end + 10, signal.getEndTime());
+    assertEquals(replacement, signal.getValue(end + 9));
+    assertSameSamples(model, signal);
+
+    // the new sample is replaced completely and merges into the one before
+    signal.replaceRecent(previous, 4);
+    model.replaceRecent(previous, 4);
+    assertEquals(end + 10, signal.getEndTime());
+    assertEquals(previous, signal.getValue(end + 9));
+    assertSameSamples(model, signal);
+  }
+}
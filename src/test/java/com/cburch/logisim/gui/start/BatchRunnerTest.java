@@ -0,0 +1,197 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.start;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.Main;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BatchRunnerTest {
+
+  @TempDir Path tempDir;
+
+  private Path copyResource(String name) throws IOException {
+    final var ret = tempDir.resolve(name);
+    try (final var resource = getClass().getResourceAsStream(name)) {
+      Files.copy(resource, ret);
+    }
+    return ret;
+  }
+
+  private File write(String name, String contents) throws IOException {
+    return Files.writeString(tempDir.resolve(name), contents, StandardCharsets.UTF_8).toFile();
+  }
+
+  @Test
+  public void testReadManifest() throws Exception {
+    final var absolute = tempDir.resolve("elsewhere").resolve("abs.circ").toFile();
+    final var manifest =
+        write(
+            "jobs.txt",
+            "# file circuit check [timeout]\n"
+                + "\n"
+                + "  cpu.circ - halt 30  # runs until halt\n"
+                + "sub/alu.circ alu vectors/alu.txt\n"
+                + absolute.getPath() + "\tmain\t" + absolute.getPath() + "\n"
+                + "   # only a comment\n");
+    final var jobs = BatchRunner.readManifest(manifest, 5);
+    assertEquals(3, jobs.size());
+
+    final var dir = tempDir.toFile().getAbsoluteFile();
+    assertEquals(new BatchRunner.Job(3, new File(dir, "cpu.circ"), "-", "halt", 30), jobs.get(0));
+    assertEquals(
+        new BatchRunner.Job(
+            4,
+            new File(dir, "sub/alu.circ"),
+            "alu",
+            new File(dir, "vectors/alu.txt").getPath(),
+            5),
+        jobs.get(1));
+    assertEquals(
+        new BatchRunner.Job(5, absolute, "main", absolute.getPath(), 5), jobs.get(2));
+  }
+
+  @Test
+  public void testManifestErrors() throws Exception {
+    for (final var line :
+        List.of(
+            "a.circ - halt x",
+            "a.circ - halt -1",
+            "a.circ - halt 1.5",
+            "a.circ -",
+            "a.circ - halt 10 extra")) {
+      final var manifest = write("jobs.txt", "# header\n" + line + "\n");
+      final var error =
+          assertThrows(IOException.class, () -> BatchRunner.readManifest(manifest, 0), line);
+      assertTrue(error.getMessage().contains("2"), error.getMessage());
+    }
+  }
+
+  private static List<BatchRunner.Result> sampleResults() {
+    final var file = new File("a&b.circ");
+    return List.of(
+        new BatchRunner.Result(
+            new BatchRunner.Job(1, file, "-", "halt", 0),
+            BatchRunner.Status.PASSED,
+            "halted after 3 ticks",
+            1500),
+        new BatchRunner.Result(
+            new BatchRunner.Job(2, file, "main", "v.txt", 0),
+            BatchRunner.Status.FAILED,
+            "1 of 2 vectors failed, the first one was vector 2: y = \"1\" <expected 0>",
+            20),
+        new BatchRunner.Result(
+            new BatchRunner.Job(3, file, "other", "halt", 0),
+            BatchRunner.Status.ERROR,
+            "Circuit not found: other",
+            0));
+  }
+
+  @Test
+  public void testJunitReport() throws Exception {
+    final var report = tempDir.resolve("report.xml").toFile();
+    BatchRunner.writeReport(report, "jobs.txt", sampleResults(), "1.520");
+    final var expected =
+        """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <testsuite name="jobs.txt" tests="3" failures="1" errors="1" time="1.520">
+          <testcase classname="a&amp;b.circ" name="- halt" time="1.500"/>
+          <testcase classname="a&amp;b.circ" name="main v.txt" time="0.020">
+            <failure message="1 of 2 vectors failed, the first one was vector 2: \
+        y = &quot;1&quot; &lt;expected 0&gt;"/>
+          </testcase>
+          <testcase classname="a&amp;b.circ" name="other halt" time="0.000">
+            <error message="Circuit not found: other"/>
+          </testcase>
+        </testsuite>
+        """;
+    assertEquals(expected, Files.readString(report.toPath()).replace(System.lineSeparator(), "\n"));
+  }
+
+  @Test
+  public void testJsonReport() throws Exception {
+    final var report = tempDir.resolve("report.JSON").toFile();
+    BatchRunner.writeReport(report, "jobs.txt", sampleResults(), "1.520");
+    final var expected =
+        """
+        {
+          "passed": 1,
+          "failed": 1,
+          "errors": 1,
+          "time": 1.520,
+          "jobs": [
+            {"line": 1, "file": "a&b.circ", "circuit": "-", "check": "halt", \
+        "status": "passed", "message": "halted after 3 ticks", "time": 1.500},
+            {"line": 2, "file": "a&b.circ", "circuit": "main", "check": "v.txt", \
+        "status": "failed", \
+        "message": "1 of 2 vectors failed, the first one was vector 2: y = \\"1\\" <expected 0>", \
+        "time": 0.020},
+            {"line": 3, "file": "a&b.circ", "circuit": "other", "check": "halt", \
+        "status": "error", "message": "Circuit not found: other", "time": 0.000}
+          ]
+        }
+        """;
+    assertEquals(expected, Files.readString(report.toPath()).replace(System.lineSeparator(), "\n"));
+  }
+
+  /**
+   * Runs the test vectors of a circuit in which pins a and b drive y through an AND gate. The exit
+   * code is 0 only if all jobs pass.
+   */
+  @Test
+  public void testExitCode() throws Exception {
+    copyResource("server.circ");
+    copyResource("server.txt");
+    write("pass.txt", "a b y\n0 0 0\n1 1 1\n");
+    write("broken.circ", "this is not a circuit file\n");
+    final var report = tempDir.resolve("report.json").toFile();
+    // as in batch mode, load errors are logged instead of shown in a dialog
+    final var headless = Main.headless;
+    Main.headless = true;
+    try {
+      final var passing =
+          write("pass-jobs.txt", "server.circ - pass.txt\nserver.circ main pass.txt 60\n");
+      assertEquals(0, BatchRunner.run(passing, 0, Map.of(), 0, report));
+      assertTrue(Files.readString(report.toPath()).contains("\"passed\": 2,"));
+
+      final var failing =
+          write("fail-jobs.txt", "server.circ - pass.txt\nserver.circ - server.txt\n");
+      assertEquals(1, BatchRunner.run(failing, 0, Map.of(), 0, report));
+      assertTrue(Files.readString(report.toPath()).contains("\"failed\": 1,"));
+
+      final var missing = write("missing-jobs.txt", "server.circ nosuch pass.txt\n");
+      assertEquals(1, BatchRunner.run(missing, 0, Map.of(), 0, report));
+
+      // the reason a file cannot be loaded is reported
+      final var broken = write("broken-jobs.txt", "broken.circ - pass.txt\n");
+      assertEquals(1, BatchRunner.run(broken, 0, Map.of(), 0, report));
+      final var json = Files.readString(report.toPath());
+      assertTrue(json.contains("\"status\": \"error\""), json);
+      assertTrue(json.matches("(?s).*\"message\": \"[^\"]*broken\\.circ: [^\"]+\".*"), json);
+    } finally {
+      Main.headless = headless;
+    }
+
+    assertEquals(-1, BatchRunner.run(tempDir.resolve("none.txt").toFile(), 0, Map.of(), 0, null));
+    final var badManifest = write("bad-jobs.txt", "server.circ\n");
+    assertEquals(-1, BatchRunner.run(badManifest, 0, Map.of(), 0, null));
+  }
+}
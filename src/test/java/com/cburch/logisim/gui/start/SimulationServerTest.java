@@ -0,0 +1,158 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.start;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Talks to a {@link SimulationServer} through a socket, the way its clients do. */
+public class SimulationServerTest {
+
+  private SimulationServer server;
+  private Thread serverThread;
+  private Socket socket;
+  private DataInputStream in;
+  private DataOutputStream out;
+  @TempDir Path tempDir;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    final var channel = SimulationServer.open("0");
+    server = new SimulationServer(channel, Map.of(), 2);
+    serverThread =
+        new Thread(
+            () -> {
+              try {
+                server.serve();
+              } catch (IOException ignored) {
+                // the test fails on the client side
+              }
+            });
+    serverThread.start();
+    socket = new Socket(channel.socket().getInetAddress(), channel.socket().getLocalPort());
+    in = new DataInputStream(socket.getInputStream());
+    out = new DataOutputStream(socket.getOutputStream());
+  }
+
+  @AfterEach
+  public void tearDown() throws Exception {
+    socket.close();
+    server.close();
+    serverThread.join(10000);
+  }
+
+  private String request(String text) throws IOException {
+    SimulationServer.writeFrame(out, text);
+    out.flush();
+    return SimulationServer.readFrame(in);
+  }
+
+  private Path copyResource(String name) throws IOException {
+    final var ret = tempDir.resolve(name);
+    try (final var resource = getClass().getResourceAsStream(name)) {
+      Files.copy(resource, ret);
+    }
+    return ret;
+  }
+
+  /**
+   * Runs every command on a circuit in which pins a and b drive y through an AND gate, and a clock
+   * toggles flip-flop q.
+   */
+  @Test
+  public void testRoundTrip() throws IOException {
+    final var circ = copyResource("server.circ");
+    final var vectors = copyResource("server.txt");
+    assertEquals("OK 1", request("load - " + circ));
+
+    assertEquals("OK", request("poke 1 a 1"));
+    assertEquals("OK", request("poke 1 b 1"));
+    assertEquals("OK", request("propagate 1"));
+    assertEquals("OK 1", request("peek 1 y"));
+    assertEquals("OK", request("poke 1 b 0"));
+    assertEquals("OK", request("propagate 1"));
+    assertEquals("OK 0", request("peek 1 y"));
+
+    // a clock cycle takes two ticks
+    assertEquals("OK 0", request("peek 1 q"));
+    assertEquals("OK 2", request("tick 1 2"));
+    assertEquals("OK 1", request("peek 1 q"));
+    assertEquals("OK 2", request("tick 1 2"));
+    assertEquals("OK 0", request("peek 1 q"));
+
+    assertEquals("OK 4 1", request("run-vectors 1 " + vectors));
+    // the vectors are run on a state of their own
+    assertEquals("OK 0", request("peek 1 y"));
+
+    assertEquals("OK", request("unload 1"));
+    assertTrue(request("peek 1 y").startsWith(SimulationServer.ERR + " "));
+  }
+
+  @Test
+  public void testSocketFileIsRemoved() throws IOException {
+    final var path = tempDir.resolve("server.sock");
+    // a server that is not closed properly leaves its socket file behind
+    try (final var stale = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+      stale.bind(UnixDomainSocketAddress.of(path));
+    }
+    assertTrue(Files.exists(path));
+
+    final var unixServer = new SimulationServer(SimulationServer.open(path.toString()), Map.of(), 1);
+    assertTrue(Files.exists(path));
+    unixServer.close();
+    assertFalse(Files.exists(path));
+  }
+
+  @Test
+  public void testErrorsAreAnswered() throws IOException {
+    assertTrue(request("frobnicate").startsWith(SimulationServer.ERR + " "));
+    assertTrue(request("").startsWith(SimulationServer.ERR + " "));
+    assertTrue(request("load -").startsWith(SimulationServer.ERR + " "));
+    assertTrue(request("load - /does/not/exist.circ").startsWith(SimulationServer.ERR + " "));
+    assertTrue(request("peek 1 out").startsWith(SimulationServer.ERR + " "));
+    assertTrue(request("tick x").startsWith(SimulationServer.ERR + " "));
+    assertTrue(request("unload 0").startsWith(SimulationServer.ERR + " "));
+  }
+
+  @Test
+  public void testConnectionStaysUsable() throws IOException {
+    // every request gets exactly one response, in order
+    for (var i = 0; i < 100; i++) {
+      assertEquals(
+          SimulationServer.ERR,
+          request("unload " + (i + 1)).substring(0, SimulationServer.ERR.length()));
+    }
+  }
+
+  @Test
+  public void testBadFrameClosesConnection() throws IOException {
+    out.writeInt(-1);
+    out.flush();
+    assertThrows(EOFException.class, () -> in.readInt());
+  }
+}